@@ -1,39 +1,91 @@
 package hr.fer.zemris.java.hw16.search;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import hr.fer.zemris.java.hw16.search.commands.ApproxCommand;
 import hr.fer.zemris.java.hw16.search.commands.CommandStatus;
 import hr.fer.zemris.java.hw16.search.commands.ExitCommand;
+import hr.fer.zemris.java.hw16.search.commands.ExplainCommand;
 import hr.fer.zemris.java.hw16.search.commands.ICommand;
+import hr.fer.zemris.java.hw16.search.commands.NextCommand;
+import hr.fer.zemris.java.hw16.search.commands.PageCommand;
 import hr.fer.zemris.java.hw16.search.commands.QueryCommand;
 import hr.fer.zemris.java.hw16.search.commands.ResultsCommand;
+import hr.fer.zemris.java.hw16.search.commands.SegmentsCommand;
+import hr.fer.zemris.java.hw16.search.commands.SimilarCommand;
+import hr.fer.zemris.java.hw16.search.commands.SnapshotCommand;
+import hr.fer.zemris.java.hw16.search.commands.StatsCommand;
+import hr.fer.zemris.java.hw16.search.commands.SuggestCommand;
 import hr.fer.zemris.java.hw16.search.commands.TypeCommand;
+import hr.fer.zemris.java.hw16.search.commands.UseCommand;
 import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
 import hr.fer.zemris.java.hw16.search.environment.SearchEnvironment;
+import hr.fer.zemris.java.hw16.search.provider.IndexRegistry;
 import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+import hr.fer.zemris.java.hw16.search.provider.SnapshotReplica;
+import hr.fer.zemris.java.hw16.search.provider.SnapshotWriter;
 
 /**
  * Razred koji predstavlja program za pretraživanje tekstualnih datoteka. Ovaj
- * program kao argument naredbenog redka prima putanju do direktorija koji
- * sadrži datoteke koje se pretražuju. Pretraživanje se vrši putem algoritma
+ * program kao argumente naredbenog redka prima putanje do direktorija koji
+ * sadrže datoteke koje se pretražuju, svaku oblika <code>direktorij</code>
+ * ili <code>ime=direktorij</code>. Nad svakim direktorijem gradi se zaseban
+ * imenovani indeks (vidi {@link IndexRegistry}), a upiti se izvode nad prvim
+ * indeksom dok se naredbom <code>use</code> ne odabere drugi. Pretraživanje se vrši putem algoritma
  * <a href = "https://en.wikipedia.org/wiki/Tf%E2%80%93idf">TF-IDF(engl. term
- * frequency–inverse document frequency)</a>. Korisniku se nude 4 moguće naredbe
+ * frequency–inverse document frequency)</a>. Korisniku se nude 14 mogućih naredbi
  * koje su navedene u nastavku:
  * <ul>
  * <li>query - opisan u razredu {@link QueryCommand}</li>
+ * <li>approx - opisan u razredu {@link ApproxCommand}</li>
+ * <li>explain - opisan u razredu {@link ExplainCommand}</li>
  * <li>type - opisan u razredu {@link TypeCommand}</li>
+ * <li>similar - opisan u razredu {@link SimilarCommand}</li>
  * <li>results - opisan u razredu {@link ResultsCommand}</li>
+ * <li>next - opisan u razredu {@link NextCommand}</li>
+ * <li>page - opisan u razredu {@link PageCommand}</li>
+ * <li>suggest - opisan u razredu {@link SuggestCommand}</li>
+ * <li>stats - opisan u razredu {@link StatsCommand}</li>
+ * <li>segments - opisan u razredu {@link SegmentsCommand}</li>
+ * <li>snapshot - opisan u razredu {@link SnapshotCommand}</li>
+ * <li>use - opisan u razredu {@link UseCommand}</li>
  * <li>exit - opisan u razredu {@link ExitCommand}</li>
  * </ul>
+ * Ukoliko je postavljeno svojstvo sustava {@value #SCRIPT_PROPERTY}, program
+ * radi u načinu izvođenja skripte: naredbe se čitaju u skupinama od najviše
+ * {@value #BATCH_SIZE} redaka, ne ispisuje se poziv za unos, prazni redci se
+ * preskaču, a ispis se zapisuje jednom po skupini. Program završava na kraju
+ * ulaza. Ukoliko je svojstvom {@value #SCRIPT_THREADS_PROPERTY} zadano više
+ * od jedne dretve, uzastopni redci s naredbama <code>query</code> i
+ * <code>approx</code> izvode se istovremeno, a njihovi ispisi zapisuju se
+ * redoslijedom ulaza.
+ * <p>
+ * Ukoliko je postavljeno svojstvo sustava
+ * {@value SnapshotWriter#DIRECTORY_PROPERTY}, snimka prvog indeksa izvozi se u
+ * zadani direktorij odmah nakon izgradnje (vidi {@link SnapshotWriter}).
+ * Ukoliko je postavljeno svojstvo {@value SnapshotReplica#DIRECTORY_PROPERTY},
+ * program radi kao replika: argumenti naredbenog redka se zanemaruju, indeksi
+ * se čitaju iz snimki zadanog direktorija bez čitanja dokumenata, a nove
+ * inačice snimki postavljaju se u pozadini (vidi {@link SnapshotReplica}).
  * 
  * @see QueryCommand
  * @see TypeCommand
  * @see ResultsCommand
+ * @see StatsCommand
  * @see ExitCommand
  * 
  * @author Davor Češljaš
@@ -47,62 +99,259 @@ public class Console {
 	 */
 	public static final Map<String, ICommand> COMMANDS;
 
+	/**
+	 * Konstanta koja predstavlja ime svojstva sustava kojim se uključuje
+	 * način izvođenja skripte
+	 */
+	public static final String SCRIPT_PROPERTY = "search.script";
+
+	/**
+	 * Konstanta koja predstavlja ime svojstva sustava s brojem dretvi kojima
+	 * se izvode upiti skripte
+	 */
+	public static final String SCRIPT_THREADS_PROPERTY = "search.script.threads";
+
+	/** Konstanta koja predstavlja najveći broj redaka jedne skupine naredbi */
+	public static final int BATCH_SIZE = 64;
+
 	static {
 		COMMANDS = new HashMap<>();
 		COMMANDS.put(ExitCommand.NAME, new ExitCommand());
 		COMMANDS.put(QueryCommand.NAME, new QueryCommand());
+		COMMANDS.put(ApproxCommand.NAME, new ApproxCommand());
+		COMMANDS.put(ExplainCommand.NAME, new ExplainCommand());
 		COMMANDS.put(TypeCommand.NAME, new TypeCommand());
+		COMMANDS.put(SimilarCommand.NAME, new SimilarCommand());
 		COMMANDS.put(ResultsCommand.NAME, new ResultsCommand());
+		COMMANDS.put(NextCommand.NAME, new NextCommand());
+		COMMANDS.put(PageCommand.NAME, new PageCommand());
+		COMMANDS.put(SuggestCommand.NAME, new SuggestCommand());
+		COMMANDS.put(StatsCommand.NAME, new StatsCommand());
+		COMMANDS.put(SegmentsCommand.NAME, new SegmentsCommand());
+		COMMANDS.put(SnapshotCommand.NAME, new SnapshotCommand());
+		COMMANDS.put(UseCommand.NAME, new UseCommand());
 	}
 
 	/**
 	 * Metoda od koje započinje izvođenje programa
 	 *
 	 * @param args
-	 *            argumenti naredbenog redka. Unutar ovog programa koristi se
-	 *            samo jedan argument, a koji predstavlja putanju do direktorija
-	 *            sa tekstualnim datotekama koje se pretražuju
+	 *            argumenti naredbenog redka. Svaki argument predstavlja
+	 *            putanju do direktorija sa tekstualnim datotekama koje se
+	 *            pretražuju, uz opcionalno ime indeksa ispred znaka '='
 	 * @throws IOException
 	 *             Ukoliko nije moguće moguće otvoriti ili čitati neku od
 	 *             datoteka sa iz predanog direktorija ili nije moguće otvoriti
 	 *             datoteku sa zaustavnim riječima
 	 */
 	public static void main(String[] args) throws IOException {
-		IEnvironment environment = new SearchEnvironment(System.in, System.out);
+		boolean script = Boolean.getBoolean(SCRIPT_PROPERTY);
+		IEnvironment environment = new SearchEnvironment(System.in, System.out, !script);
 
-		if (args.length == 0) {
-			environment.writeLine("Za rad sustava potrebna je putanja do direktorija sa dokumentima");
-			System.exit(-1);
-		}
+		String replicaDirectory = System.getProperty(SnapshotReplica.DIRECTORY_PROPERTY);
+		if (replicaDirectory != null) {
+			SnapshotReplica replica = new SnapshotReplica(Paths.get(replicaDirectory));
+			if (replica.refresh() == 0) {
+				environment.writeLine("U direktoriju '" + replicaDirectory + "' nema ispravne snimke indeksa");
+				for (Map.Entry<String, String> error : replica.getErrors().entrySet()) {
+					environment.writeLine(error.getKey() + ": " + error.getValue());
+				}
+				System.exit(-1);
+			}
+			replica.start();
+		} else {
+			if (args.length == 0) {
+				environment.writeLine("Za rad sustava potrebna je putanja do direktorija sa dokumentima");
+				System.exit(-1);
+			}
 
-		SearchProvider.loadDocuments(args[0]);
+			IndexRegistry registry = IndexRegistry.getRegistry();
+			for (String arg : args) {
+				int separator = arg.indexOf('=');
+				String directory = arg.substring(separator + 1);
+				registry.register(separator < 0 ? IndexRegistry.defaultName(directory) : arg.substring(0, separator),
+						directory);
+			}
+			registry.use(registry.getNames().get(0));
+
+			String snapshotDirectory = System.getProperty(SnapshotWriter.DIRECTORY_PROPERTY);
+			if (snapshotDirectory != null) {
+				SnapshotWriter.getWriter(Paths.get(snapshotDirectory)).export(SearchProvider.getProvider());
+			}
+		}
 		environment.writeLine(
 				String.format("Veličina riječnika je %d riječi", SearchProvider.getProvider().getVocabulary().size()));
 
+		if (script) {
+			runScript(environment, Integer.getInteger(SCRIPT_THREADS_PROPERTY, 1));
+			return;
+		}
+
 		while (true) {
 			environment.write("Unesite naredbu > ");
 
 			String input = environment.readLine();
-			if (input.isEmpty()) {
-				environment.writeLine("Niste unijeli niti jednu naredbu.");
-				continue;
+			if (input == null || executeLine(environment, input) == CommandStatus.EXIT) {
+				break;
 			}
+		}
+
+	}
+
+	/**
+	 * Pomoćna statička metoda koja izvodi naredbe skripte pročitane iz ulaza
+	 * okruženja <b>environment</b>, sve do kraja ulaza ili naredbe
+	 * {@link ExitCommand} ili prekida dretve skripte
+	 *
+	 * @param environment
+	 *            okruženje čiji se ulaz izvodi
+	 * @param threads
+	 *            broj dretvi kojima se istovremeno izvode upiti
+	 */
+	private static void runScript(IEnvironment environment, int threads) {
+		ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+		try {
+			List<String> batch;
+			while (!(batch = readBatch(environment)).isEmpty()) {
+				for (int i = 0, len = batch.size(); i < len;) {
+					int end = i;
+					while (pool != null && end < len && isSearch(batch.get(end))) {
+						end++;
+					}
 
-			List<String> inputSplitted = parseInput(input);
-			ICommand command = COMMANDS.get(inputSplitted.get(0));
-			if (command == null) {
-				environment.writeLine("Nepoznata naredba.");
-				continue;
+					if (end > i + 1) {
+						executeConcurrently(environment, batch.subList(i, end), pool);
+						if (Thread.currentThread().isInterrupted()) {
+							return;
+						}
+						i = end;
+					} else if (executeLine(environment, batch.get(i++)) == CommandStatus.EXIT) {
+						return;
+					}
+				}
+				environment.flush();
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
 			}
-			// makni ime naredbe naredba
-			inputSplitted.remove(0);
-			environment.setArguments(inputSplitted);
+			environment.flush();
+		}
+	}
 
-			if (command.execute(environment) == CommandStatus.EXIT) {
-				break;
+	/**
+	 * Pomoćna statička metoda koja čita sljedeću skupinu od najviše
+	 * {@value #BATCH_SIZE} nepraznih redaka iz ulaza okruženja
+	 * <b>environment</b>
+	 *
+	 * @param environment
+	 *            okruženje iz čijeg se ulaza čita
+	 * @return {@link List} pročitanih redaka, prazna ukoliko je ulaz iscrpljen
+	 */
+	private static List<String> readBatch(IEnvironment environment) {
+		List<String> batch = new ArrayList<>(BATCH_SIZE);
+		String input;
+		while (batch.size() < BATCH_SIZE && (input = environment.readLine()) != null) {
+			if (!input.isEmpty()) {
+				batch.add(input);
+			}
+		}
+
+		return batch;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja provjerava je li redak <b>input</b> upit
+	 * koji ne ovisi o prethodnim naredbama
+	 *
+	 * @param input
+	 *            redak skripte
+	 * @return <code>true</code> ukoliko je redak upit, inače
+	 *         <code>false</code>
+	 */
+	private static boolean isSearch(String input) {
+		String name = parseInput(input).get(0);
+		return name.equals(QueryCommand.NAME) || name.equals(ApproxCommand.NAME);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja upite <b>inputs</b> izvodi istovremeno, svaki
+	 * u vlastitom okruženju, te njihove ispise zapisuje na izlaz okruženja
+	 * <b>environment</b> redoslijedom ulaza. Rezultati zadnjeg upita postaju
+	 * rezultati okruženja, jednako kao pri slijednom izvođenju. Ukoliko je
+	 * dretva skripte prekinuta tijekom čekanja, upiti koji još nisu završili
+	 * se otkazuju (vidi {@link IEnvironment#cancelQueries()}).
+	 *
+	 * @param environment
+	 *            okruženje skripte
+	 * @param inputs
+	 *            redci s upitima
+	 * @param pool
+	 *            dretve kojima se upiti izvode
+	 */
+	private static void executeConcurrently(IEnvironment environment, List<String> inputs, ExecutorService pool) {
+		List<ByteArrayOutputStream> outputs = new ArrayList<>();
+		List<IEnvironment> locals = new ArrayList<>();
+		List<Future<IEnvironment>> futures = new ArrayList<>();
+		for (String input : inputs) {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			IEnvironment local = new SearchEnvironment(new ByteArrayInputStream(new byte[0]), output, false);
+			outputs.add(output);
+			locals.add(local);
+			futures.add(pool.submit(() -> {
+				executeLine(local, input);
+				local.flush();
+				return local;
+			}));
+		}
+
+		for (int i = 0, len = futures.size(); i < len; i++) {
+			try {
+				IEnvironment local = futures.get(i).get();
+				environment.write(new String(outputs.get(i).toByteArray(), StandardCharsets.UTF_8));
+				if (local.getResults() != null) {
+					environment.setResults(local.getResults(), local.getCursor());
+				}
+			} catch (ExecutionException e) {
+				environment.writeLine("Izvođenje naredbe nije uspjelo: " + e.getCause());
+			} catch (InterruptedException e) {
+				for (int j = i; j < len; j++) {
+					locals.get(j).cancelQueries();
+					futures.get(j).cancel(true);
+				}
+				Thread.currentThread().interrupt();
+				return;
 			}
 		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja izvodi naredbu iz redka <b>input</b> nad
+	 * okruženjem <b>environment</b>
+	 *
+	 * @param environment
+	 *            okruženje nad kojim se naredba izvodi
+	 * @param input
+	 *            korisnikov unos
+	 * @return status izvođenja naredbe
+	 */
+	private static CommandStatus executeLine(IEnvironment environment, String input) {
+		if (input.isEmpty()) {
+			environment.writeLine("Niste unijeli niti jednu naredbu.");
+			return CommandStatus.CONTINUE;
+		}
+
+		List<String> inputSplitted = parseInput(input);
+		ICommand command = COMMANDS.get(inputSplitted.get(0));
+		if (command == null) {
+			environment.writeLine("Nepoznata naredba.");
+			return CommandStatus.CONTINUE;
+		}
+		// makni ime naredbe naredba
+		inputSplitted.remove(0);
+		environment.setArguments(inputSplitted);
 
+		return command.execute(environment);
 	}
 
 	/**
@@ -0,0 +1,167 @@
+package hr.fer.zemris.java.hw16.search.analysis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Razred koji predstavlja analizu teksta prilikom izgradnje indeksa i
+ * izvođenja upita. Tekst se najprije rastavlja na riječi metodom
+ * {@link #tokenize(String)}, a zatim se svaka riječ obrađuje lancem koraka
+ * {@link ITokenFilter} metodom {@link #analyze(String)}. Isti primjerak ovog
+ * razreda mora se koristiti i za dokumente i za upite, kako bi riječi upita
+ * odgovarale riječima vokabulara.
+ * <p>
+ * Uobičajena analiza stvara se statičkom metodom {@link #createDefault()}, a
+ * sastoji se od svođenja na mala slova, odbacivanja zaustavnih riječi te
+ * svođenja na korijen. Svođenje na korijen bira se svojstvom sustava
+ * {@value #STEMMER_PROPERTY}: <code>hr</code> (pretpostavljeno) koristi
+ * {@link CroatianStemFilter}, a <code>none</code> isključuje svođenje.
+ * 
+ * @see ITokenFilter
+ * 
+ * @author Davor Češljaš
+ */
+public class Analyzer {
+
+	/**
+	 * Konstanta koja predstavlja regularni izraz na temelju kojeg se određuju
+	 * riječi unutar teksta
+	 */
+	public static final String SPLIT_REGEX = "[^A-Za-zčČćĆžŽšŠđĐ]+";
+
+	/**
+	 * Konstanta koja predstavlja regularni izraz koji opisuje jednu riječ
+	 * teksta, a koji je komplement izraza {@link #SPLIT_REGEX}
+	 */
+	public static final String TOKEN_REGEX = "[A-Za-zčČćĆžŽšŠđĐ]+";
+
+	/** Konstanta koja predstavlja prevedeni izraz {@link #TOKEN_REGEX} */
+	private static final Pattern TOKEN_PATTERN = Pattern.compile(TOKEN_REGEX);
+
+	/** Konstanta koja predstavlja ime svojstva sustava koje bira stemmer */
+	public static final String STEMMER_PROPERTY = "search.stemmer";
+
+	/** Konstanta koja predstavlja ime resursa sa zaustavnim riječima */
+	public static final String STOPWORDS_RESOURCE = "stoprijeci.txt";
+
+	/** Članska varijabla koja predstavlja lanac koraka analize */
+	private List<ITokenFilter> filters;
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda s lancem koraka
+	 * analize <b>filters</b>, koji se primjenjuju redom kojim su predani.
+	 *
+	 * @param filters
+	 *            lanac koraka analize
+	 */
+	public Analyzer(List<ITokenFilter> filters) {
+		if (filters == null) {
+			throw new IllegalArgumentException("Lanac koraka analize ne smije biti null");
+		}
+
+		this.filters = Collections.unmodifiableList(new ArrayList<>(filters));
+	}
+
+	/**
+	 * Statička metoda tvornica koja stvara uobičajenu analizu opisanu u
+	 * dokumentaciji ovog razreda, uz stemmer odabran svojstvom sustava
+	 * {@value #STEMMER_PROPERTY}.
+	 *
+	 * @return novi primjerak ovog razreda
+	 * @throws IOException
+	 *             Ukoliko nije moguće pročitati datoteku sa zaustavnim
+	 *             riječima
+	 */
+	public static Analyzer createDefault() throws IOException {
+		String stemmer = System.getProperty(STEMMER_PROPERTY, "hr");
+		switch (stemmer) {
+		case "hr":
+			return create(true);
+		case "none":
+			return create(false);
+		default:
+			throw new IllegalArgumentException(
+					String.format("Nepoznat stemmer '%s', podržani su 'hr' i 'none'", stemmer));
+		}
+	}
+
+	/**
+	 * Statička metoda tvornica koja stvara uobičajenu analizu, sa ili bez
+	 * svođenja na korijen.
+	 *
+	 * @param stemming
+	 *            zastavica koja govori svode li se riječi na korijen
+	 * @return novi primjerak ovog razreda
+	 * @throws IOException
+	 *             Ukoliko nije moguće pročitati datoteku sa zaustavnim
+	 *             riječima
+	 */
+	public static Analyzer create(boolean stemming) throws IOException {
+		List<ITokenFilter> filters = new ArrayList<>();
+		filters.add(new LowerCaseFilter());
+		filters.add(StopWordFilter.fromResource(STOPWORDS_RESOURCE));
+		if (stemming) {
+			filters.add(new CroatianStemFilter());
+		}
+
+		return new Analyzer(filters);
+	}
+
+	/**
+	 * Metoda koja predani tekst <b>text</b> rastavlja na riječi
+	 *
+	 * @param text
+	 *            tekst koji se rastavlja
+	 * @return polje riječi teksta
+	 */
+	public String[] tokenize(String text) {
+		return text.split(SPLIT_REGEX);
+	}
+
+	/**
+	 * Metoda koja stvara primjerak razreda {@link Matcher} koji redom
+	 * pronalazi riječi teksta <b>text</b> zajedno s njihovim položajima.
+	 * Pronađene riječi jednake su nepraznim riječima koje vraća metoda
+	 * {@link #tokenize(String)}.
+	 *
+	 * @param text
+	 *            tekst koji se rastavlja
+	 * @return primjerak razreda {@link Matcher} nad tekstom
+	 */
+	public Matcher tokenMatcher(CharSequence text) {
+		return TOKEN_PATTERN.matcher(text);
+	}
+
+	/**
+	 * Metoda koja jednu riječ <b>token</b> provodi kroz lanac koraka analize
+	 *
+	 * @param token
+	 *            riječ koja se analizira
+	 * @return pojam koji odgovara riječi ili <code>null</code> ukoliko je neki
+	 *         od koraka riječ odbacio
+	 */
+	public String analyze(String token) {
+		String term = token;
+		for (ITokenFilter filter : filters) {
+			term = filter.filter(term);
+			if (term == null) {
+				return null;
+			}
+		}
+
+		return term;
+	}
+
+	/**
+	 * Metoda koja dohvaća nepromjenjivi lanac koraka analize
+	 *
+	 * @return nepromjenjivi lanac koraka analize
+	 */
+	public List<ITokenFilter> getFilters() {
+		return filters;
+	}
+}
@@ -0,0 +1,98 @@
+package hr.fer.zemris.java.hw16.search.analysis;
+
+import hr.fer.zemris.java.hw16.search.provider.LevenshteinAutomaton;
+
+/**
+ * Razred koji implementira sučelje {@link ITokenFilter}. Primjerci ovog
+ * razreda riječ hrvatskog jezika svode na korijen odbacivanjem najduljeg
+ * prepoznatog nastavka, po uzoru na pravila jednostavnog stemmera za hrvatski
+ * jezik (N. Ljubešić, I. Pandžić). Nastavci uključuju i proširenja množine
+ * jednosložnih imenica (npr. <i>-ovi</i>, <i>-ovima</i>). Nastavak se
+ * odbacuje samo ukoliko preostali korijen ima barem {@value #MIN_STEM_LENGTH}
+ * znaka i sadrži samoglasnik (ili slogotvorno r), pa se kratke riječi ne
+ * mijenjaju.
+ * <p>
+ * Prije odbacivanja nastavka riječ se svodi na oblik bez dijakritičkih znakova
+ * na isti način kao i kod približnog pretraživanja (vidi
+ * {@link LevenshteinAutomaton#fold(String)}), pa riječ napisana bez
+ * dijakritičkih znakova ima isti korijen. Tako se primjerice riječi
+ * <i>kazalište</i>, <i>kazaliste</i>, <i>kazališta</i>, <i>kazalištu</i>,
+ * <i>kazalištem</i> i <i>kazalištima</i> svode na isti korijen
+ * <i>kazalist</i>. Zbog toga se ne odbacuje nastavak aorista <i>-iste</i>,
+ * koji bi se inače poklopio sa svedenim nastavkom imenica na <i>-ište</i>.
+ * Očekuje se da su riječi već svedene na mala slova.
+ * 
+ * @see ITokenFilter
+ * 
+ * @author Davor Češljaš
+ */
+public class CroatianStemFilter implements ITokenFilter {
+
+	/** Konstanta koja predstavlja najmanju duljinu korijena */
+	private static final int MIN_STEM_LENGTH = 3;
+
+	/**
+	 * Konstanta koja predstavlja nastavke koji se odbacuju, bez dijakritičkih
+	 * znakova i poredane od najduljeg prema najkraćem
+	 */
+	private static final String[] SUFFIXES = {
+			// glagolski prilozi i pridjevi
+			"ajuci", "ujuci", "avsi", "ivsi", "evsi",
+			// pridjevske i zamjeničke sklonidbe
+			"ijega", "ijemu", "ijima", "ovima", "evima",
+			"ijeg", "ijem", "ijim", "ijih", "ijoj",
+			"oga", "ome", "omu", "ega", "emu", "ima", "ama", "ami",
+			"ovi", "ova", "ove", "ovu", "evi", "eva", "eve", "evu",
+			// glagolski oblici
+			"asmo", "aste", "ismo", "osmo", "oste",
+			"ati", "iti", "eti", "uti", "ala", "ali", "alo", "ale",
+			"ila", "ili", "ilo", "ile", "ela", "eli", "elo", "ele",
+			"amo", "ate", "aju", "emo", "ete", "imo", "ite", "uje", "uju",
+			"ao", "io", "eo", "uo",
+			// imenički i pridjevski padeži
+			"og", "om", "em", "ih", "im", "oj", "eg", "iju", "ija", "ije", "ji",
+			"a", "e", "i", "o", "u" };
+
+	/** Konstanta koja predstavlja znakove koji se smatraju samoglasnicima */
+	private static final String VOWELS = "aeiour";
+
+	@Override
+	public String filter(String token) {
+		token = LevenshteinAutomaton.fold(token);
+		for (String suffix : SUFFIXES) {
+			if (!token.endsWith(suffix)) {
+				continue;
+			}
+
+			String stem = token.substring(0, token.length() - suffix.length());
+			if (isValidStem(stem)) {
+				return stem;
+			}
+		}
+
+		return token;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja provjerava je li predani korijen
+	 * <b>stem</b> dovoljno dugačak i sadrži li samoglasnik
+	 *
+	 * @param stem
+	 *            korijen koji se provjerava
+	 * @return <code>true</code> ukoliko je korijen ispravan,
+	 *         <code>false</code> inače
+	 */
+	private static boolean isValidStem(String stem) {
+		if (stem.length() < MIN_STEM_LENGTH) {
+			return false;
+		}
+
+		for (int i = 0, len = stem.length(); i < len; i++) {
+			if (VOWELS.indexOf(stem.charAt(i)) >= 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,23 @@
+package hr.fer.zemris.java.hw16.search.analysis;
+
+/**
+ * Sučelje koje predstavlja jedan korak analize riječi. Implementator sučelja
+ * mora implementirati samo jednu metodu: {@link #filter(String)}, koja riječ
+ * mijenja (npr. svodi na mala slova ili na korijen) ili ju odbacuje. Koraci
+ * analize povezuju se u lanac unutar razreda {@link Analyzer}.
+ * 
+ * @see Analyzer
+ * 
+ * @author Davor Češljaš
+ */
+public interface ITokenFilter {
+
+	/**
+	 * Metoda koja obrađuje jednu riječ <b>token</b>.
+	 *
+	 * @param token
+	 *            riječ koja se obrađuje, nikad <code>null</code>
+	 * @return obrađena riječ ili <code>null</code> ukoliko se riječ odbacuje
+	 */
+	String filter(String token);
+}
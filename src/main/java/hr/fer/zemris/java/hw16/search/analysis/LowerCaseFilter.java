@@ -0,0 +1,17 @@
+package hr.fer.zemris.java.hw16.search.analysis;
+
+/**
+ * Razred koji implementira sučelje {@link ITokenFilter}. Primjerci ovog
+ * razreda svaku riječ svode na mala slova.
+ * 
+ * @see ITokenFilter
+ * 
+ * @author Davor Češljaš
+ */
+public class LowerCaseFilter implements ITokenFilter {
+
+	@Override
+	public String filter(String token) {
+		return token.toLowerCase();
+	}
+}
@@ -0,0 +1,84 @@
+package hr.fer.zemris.java.hw16.search.analysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Razred koji implementira sučelje {@link ITokenFilter}. Primjerci ovog
+ * razreda odbacuju prazne riječi te sve zaustavne riječi. Zaustavne riječi
+ * učitavaju se statičkom metodom {@link #fromResource(String)}, a očekuje se da
+ * su riječi koje ovaj korak obrađuje već svedene na mala slova.
+ * 
+ * @see ITokenFilter
+ * 
+ * @author Davor Češljaš
+ */
+public class StopWordFilter implements ITokenFilter {
+
+	/** Članska varijabla koja predstavlja {@link Set} zaustavnih riječi */
+	private Set<String> stopWords;
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda s predanim
+	 * {@link Set}om zaustavnih riječi <b>stopWords</b>
+	 *
+	 * @param stopWords
+	 *            {@link Set} zaustavnih riječi
+	 */
+	public StopWordFilter(Set<String> stopWords) {
+		if (stopWords == null) {
+			throw new IllegalArgumentException("Skup zaustavnih riječi ne smije biti null");
+		}
+
+		this.stopWords = Collections.unmodifiableSet(new HashSet<>(stopWords));
+	}
+
+	/**
+	 * Statička metoda tvornica koja zaustavne riječi učitava iz resursa
+	 * <b>resourceName</b> (jedna riječ po redku). Prazni redci se preskaču.
+	 *
+	 * @param resourceName
+	 *            ime resursa sa zaustavnim riječima
+	 * @return novi primjerak ovog razreda
+	 * @throws IOException
+	 *             Ukoliko se resurs sa zaustavnim riječima ne može pročitati.
+	 */
+	public static StopWordFilter fromResource(String resourceName) throws IOException {
+		InputStream is = StopWordFilter.class.getClassLoader().getResourceAsStream(resourceName);
+		if (is == null) {
+			throw new IOException("Resurs '" + resourceName + "' ne postoji");
+		}
+
+		Set<String> stopWords = new HashSet<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.trim().isEmpty()) {
+					stopWords.add(line.trim().toLowerCase());
+				}
+			}
+		}
+
+		return new StopWordFilter(stopWords);
+	}
+
+	/**
+	 * Metoda koja dohvaća nepromjenjivi {@link Set} zaustavnih riječi
+	 *
+	 * @return nepromjenjivi {@link Set} zaustavnih riječi
+	 */
+	public Set<String> getStopWords() {
+		return stopWords;
+	}
+
+	@Override
+	public String filter(String token) {
+		return token.isEmpty() || stopWords.contains(token) ? null : token;
+	}
+}
@@ -0,0 +1,82 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import java.io.IOException;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+import hr.fer.zemris.java.hw16.search.analysis.CroatianStemFilter;
+import hr.fer.zemris.java.hw16.search.provider.DocumentVector;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Razred koji predstavlja program koji uspoređuje veličinu indeksa izgrađenog
+ * bez i sa svođenjem riječi na korijen ({@link CroatianStemFilter}). Za oba
+ * načina analize program gradi indeks nad direktorijem predanim kao jedini
+ * argument naredbenog redka te ispisuje veličinu vokabulara, broj okteta
+ * rječnika, broj okteta vektora dokumenata, broj ne-nul elemenata vektora te
+ * trajanje izgradnje. Na kraju se ispisuje relativno smanjenje svake veličine.
+ * 
+ * @author Davor Češljaš
+ */
+public class AnalysisReport {
+
+	/**
+	 * Metoda od koje započinje izvođenje programa
+	 *
+	 * @param args
+	 *            argumenti naredbenog redka. Koristi se samo jedan argument,
+	 *            putanja do direktorija sa dokumentima
+	 * @throws IOException
+	 *             Ukoliko nije moguće pročitati dokumente ili datoteku sa
+	 *             zaustavnim riječima
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.out.println("Očekivani argument: <direktorij dokumenata>");
+			System.exit(-1);
+		}
+
+		long[] plain = measure(args[0], false);
+		long[] stemmed = measure(args[0], true);
+
+		String[] names = { "Veličina vokabulara", "Okteti rječnika", "Okteti vektora", "Ne-nul elementi vektora",
+				"Trajanje izgradnje (ms)" };
+		System.out.println(String.format("%-26s %14s %14s %10s", "", "bez korijena", "s korijenom", "promjena"));
+		for (int i = 0; i < names.length; i++) {
+			System.out.println(String.format("%-26s %14d %14d %9.1f%%", names[i], plain[i], stemmed[i],
+					plain[i] == 0 ? 0 : 100.0 * (stemmed[i] - plain[i]) / plain[i]));
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja gradi indeks nad direktorijem
+	 * <b>directory</b> te mjeri njegovu veličinu.
+	 *
+	 * @param directory
+	 *            putanja do direktorija sa dokumentima
+	 * @param stemming
+	 *            zastavica koja govori svode li se riječi na korijen
+	 * @return polje izmjerenih veličina, redom kojim se ispisuju
+	 * @throws IOException
+	 *             Ukoliko nije moguće pročitati dokumente
+	 */
+	private static long[] measure(String directory, boolean stemming) throws IOException {
+		SearchProvider.setAnalyzer(Analyzer.create(stemming));
+
+		long start = System.nanoTime();
+		SearchProvider.loadDocuments(directory);
+		long millis = (System.nanoTime() - start) / 1_000_000;
+
+		SearchProvider provider = SearchProvider.getProvider();
+		long vectorBytes = 0;
+		long nonZero = 0;
+		for (DocumentVector vector : provider.getDocumentVectors()) {
+			vectorBytes += Double.BYTES * (long) vector.getTfidf().length;
+			for (double weight : vector.getTfidf()) {
+				nonZero += weight != 0 ? 1 : 0;
+			}
+		}
+
+		return new long[] { provider.getVocabulary().size(), provider.getVocabulary().sizeInBytes(), vectorBytes,
+				nonZero, millis };
+	}
+}
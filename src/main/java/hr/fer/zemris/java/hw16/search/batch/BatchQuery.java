@@ -0,0 +1,93 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Razred koji predstavlja jedan upit unutar paketne obrade upita. Primjerci
+ * ovog razreda sastoje se od identifikatora upita <b>id</b>, koji se može
+ * dohvatiti metodom {@link #getId()} te samog teksta upita <b>text</b>, koji
+ * se može dohvatiti metodom {@link #getText()}.
+ * 
+ * @see BatchSearch
+ * 
+ * @author Davor Češljaš
+ */
+public class BatchQuery {
+
+	/** Članska varijabla koja predstavlja identifikator upita */
+	private String id;
+
+	/** Članska varijabla koja predstavlja tekst upita */
+	private String text;
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda. Unutar
+	 * konstruktora pripadne članske varijable postavljaju se na predane
+	 * parametre <b>id</b> i <b>text</b>
+	 *
+	 * @param id
+	 *            identifikator upita
+	 * @param text
+	 *            tekst upita
+	 */
+	public BatchQuery(String id, String text) {
+		if (id == null || text == null) {
+			throw new IllegalArgumentException("Niti identifikator niti tekst upita ne smiju biti null");
+		}
+
+		this.id = id;
+		this.text = text;
+	}
+
+	/**
+	 * Statička metoda tvornica koja iz jednog redka datoteke s upitima stvara
+	 * novi primjerak ovog razreda. Ukoliko redak sadrži znak tabulatora, dio
+	 * redka prije tabulatora predstavlja identifikator upita, a ostatak tekst
+	 * upita. U suprotnom se kao identifikator koristi predani redni broj redka
+	 * <b>lineNumber</b>.
+	 *
+	 * @param line
+	 *            redak datoteke s upitima
+	 * @param lineNumber
+	 *            redni broj redka unutar datoteke
+	 * @return novi primjerak ovog razreda
+	 */
+	public static BatchQuery fromLine(String line, int lineNumber) {
+		int tab = line.indexOf('\t');
+		if (tab < 0) {
+			return new BatchQuery(Integer.toString(lineNumber), line.trim());
+		}
+
+		return new BatchQuery(line.substring(0, tab).trim(), line.substring(tab + 1).trim());
+	}
+
+	/**
+	 * Metoda koja dohvaća identifikator upita
+	 *
+	 * @return identifikator upita
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Metoda koja dohvaća tekst upita
+	 *
+	 * @return tekst upita
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Metoda koja tekst upita rastavlja po svim prazninama, na isti način kao
+	 * što to radi program {@link hr.fer.zemris.java.hw16.search.Console}
+	 *
+	 * @return {@link List} riječi upita
+	 */
+	public List<String> getWords() {
+		return new LinkedList<>(Arrays.asList(text.split("\\s+")));
+	}
+}
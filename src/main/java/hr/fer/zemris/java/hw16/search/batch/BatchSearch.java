@@ -0,0 +1,250 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import hr.fer.zemris.java.hw16.search.commands.QueryCommand;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+import hr.fer.zemris.java.hw16.search.environment.ResultCursor;
+import hr.fer.zemris.java.hw16.search.provider.BooleanQuery;
+import hr.fer.zemris.java.hw16.search.provider.QueryDeadline;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Razred koji predstavlja program za paketnu obradu upita. Program čita upite
+ * iz datoteke (jedan upit po redku), izvodi ih paralelno nad zajedničkim
+ * indeksom koji se koristi samo za čitanje te rangirane rezultate zapisuje u
+ * izlaznu datoteku u TSV ili JSON obliku. Na kraju rada ispisuje se propusnost
+ * te percentili trajanja upita. Upiti se izvode istim putem kao i naredba
+ * {@link QueryCommand}, uključujući obavezne i isključene riječi te uvjete nad
+ * metapodacima (vidi {@link BooleanQuery}), pa su i rezultati jednaki.
+ * <p>
+ * Program prima sljedeće argumente naredbenog redka:
+ * <ol>
+ * <li>putanju do direktorija sa dokumentima</li>
+ * <li>putanju do datoteke s upitima</li>
+ * <li>putanju do izlazne datoteke</li>
+ * <li>(opcionalno) format izlaza: <code>tsv</code> (pretpostavljeno) ili
+ * <code>json</code></li>
+ * <li>(opcionalno) broj dretvi, pretpostavljeno broj dostupnih procesora</li>
+ * </ol>
+ * Redci datoteke s upitima koji su prazni ili započinju znakom '#' se
+ * preskaču. Redak oblika <code>id&lt;TAB&gt;upit</code> zadaje i identifikator
+ * upita.
+ * <p>
+ * Ukoliko je svojstvom sustava {@value QueryDeadline#DEADLINE_PROPERTY} zadan
+ * rok upita, svaki se upit zaustavlja nakon isteka roka i zapisuje najbolje
+ * dotad pronađene rezultate, pa spor upit ne zadržava dretvu na račun ostalih.
+ * Broj takvih upita ispisuje se u sažetku. Ukoliko neki upit ne uspije ili je
+ * glavna dretva prekinuta, upiti koji se još izvode se otkazuju, pa dretve
+ * ne nastavljaju bodovati dokumente nakon prekida obrade.
+ * 
+ * @see QueryCommand
+ * @see QueryCommand#search(SearchProvider, BooleanQuery, QueryDeadline)
+ * 
+ * @author Davor Češljaš
+ */
+public class BatchSearch {
+
+	/** Konstanta koja predstavlja pretpostavljeni format izlaza */
+	private static final String DEFAULT_FORMAT = "tsv";
+
+	/**
+	 * Metoda od koje započinje izvođenje programa
+	 *
+	 * @param args
+	 *            argumenti naredbenog redka, opisani u dokumentaciji razreda
+	 * @throws IOException
+	 *             Ukoliko nije moguće pročitati dokumente, datoteku s upitima
+	 *             ili pisati u izlaznu datoteku
+	 * @throws InterruptedException
+	 *             Ukoliko je glavna dretva prekinuta tijekom čekanja rezultata
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 3 || args.length > 5) {
+			System.out.println(
+					"Očekivani argumenti: <direktorij dokumenata> <datoteka upita> <izlazna datoteka> [tsv|json] [broj dretvi]");
+			System.exit(-1);
+		}
+
+		String format = args.length > 3 ? args[3].toLowerCase() : DEFAULT_FORMAT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		try {
+			if (args.length > 4) {
+				threads = Integer.parseInt(args[4]);
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Broj dretvi '" + args[4] + "' nije cijeli broj.");
+			System.exit(-1);
+		}
+
+		if (threads < 1 || !(format.equals("tsv") || format.equals("json"))) {
+			System.out.println("Broj dretvi mora biti pozitivan, a format 'tsv' ili 'json'.");
+			System.exit(-1);
+		}
+
+		List<BatchQuery> queries = readQueries(Paths.get(args[1]));
+
+		long loadStart = System.nanoTime();
+		SearchProvider.loadDocuments(args[0]);
+		System.out.println(String.format("Indeks izgrađen za %.1f ms, veličina riječnika je %d riječi",
+				(System.nanoTime() - loadStart) / 1e6, SearchProvider.getProvider().getVocabulary().size()));
+
+		Path output = Paths.get(args[2]);
+		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+				IResultWriter resultWriter = format.equals("json") ? new JsonResultWriter(writer)
+						: new TsvResultWriter(writer)) {
+			runQueries(queries, threads, resultWriter);
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja paralelno izvodi sve predane upite
+	 * <b>queries</b> koristeći <b>threads</b> dretvi. Rezultati se zapisuju
+	 * zapisivačem <b>resultWriter</b> redoslijedom kojim su upiti predani, a
+	 * na kraju se na standardni izlaz ispisuje sažetak propusnosti i trajanja.
+	 *
+	 * @param queries
+	 *            upiti koji se izvode
+	 * @param threads
+	 *            broj dretvi koje izvode upite
+	 * @param resultWriter
+	 *            zapisivač rezultata
+	 * @throws IOException
+	 *             Ukoliko zapisivanje rezultata nije uspjelo
+	 * @throws InterruptedException
+	 *             Ukoliko je glavna dretva prekinuta tijekom čekanja rezultata
+	 */
+	private static void runQueries(List<BatchQuery> queries, int threads, IResultWriter resultWriter)
+			throws IOException, InterruptedException {
+		SearchProvider provider = SearchProvider.getProvider();
+		long[] latencies = new long[queries.size()];
+		boolean[] partial = new boolean[queries.size()];
+
+		Set<QueryDeadline> running = ConcurrentHashMap.newKeySet();
+		AtomicBoolean cancelled = new AtomicBoolean();
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		try {
+			List<Future<List<Result>>> futures = new ArrayList<>(queries.size());
+			for (int i = 0, len = queries.size(); i < len; i++) {
+				final int index = i;
+				futures.add(pool.submit(() -> {
+					long queryStart = System.nanoTime();
+					QueryDeadline deadline = QueryDeadline.cancellable();
+					running.add(deadline);
+					if (cancelled.get()) {
+						deadline.cancel();
+					}
+					try {
+						List<Result> results = executeQuery(provider, queries.get(index), deadline);
+						latencies[index] = System.nanoTime() - queryStart;
+						partial[index] = deadline.isPartial();
+						return results;
+					} finally {
+						running.remove(deadline);
+					}
+				}));
+			}
+
+			for (int i = 0, len = queries.size(); i < len; i++) {
+				resultWriter.write(queries.get(i), futures.get(i).get());
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Izvođenje upita nije uspjelo", e.getCause());
+		} finally {
+			cancelled.set(true);
+			pool.shutdownNow();
+			for (QueryDeadline deadline : running) {
+				deadline.cancel();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		LatencyStatistics statistics = new LatencyStatistics(latencies);
+		System.out.println(String.format("Izvedeno %d upita sa %d dretvi za %.1f ms (%.1f upita/s)",
+				queries.size(), threads, elapsed / 1e6, queries.size() / (elapsed / 1e9)));
+		System.out.println("Trajanje upita: " + statistics);
+
+		int partialCount = 0;
+		for (boolean isPartial : partial) {
+			partialCount += isPartial ? 1 : 0;
+		}
+		if (partialCount > 0) {
+			System.out.println(String.format("Upita s djelomičnim rezultatima: %d (rok %d ms)", partialCount,
+					Long.getLong(QueryDeadline.DEADLINE_PROPERTY, 0)));
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja izvodi jedan upit <b>query</b> na isti
+	 * način kao i naredba {@link QueryCommand} (vidi
+	 * {@link QueryCommand#search(SearchProvider, BooleanQuery, QueryDeadline)}).
+	 * Ukoliko nakon izbacivanja riječi koje nisu u vokabularu upit postane
+	 * prazan ili neki uvjet nad metapodacima nije ispravan, vraća se prazna
+	 * {@link List}a.
+	 *
+	 * @param provider
+	 *            primjerak razreda {@link SearchProvider} nad kojim se
+	 *            pretražuje
+	 * @param query
+	 *            upit koji se izvodi
+	 * @param deadline
+	 *            rok upita ili <code>null</code>
+	 * @return {@link List} rezultata pretraživanja
+	 */
+	static List<Result> executeQuery(SearchProvider provider, BatchQuery query, QueryDeadline deadline) {
+		BooleanQuery booleanQuery;
+		try {
+			booleanQuery = BooleanQuery.parse(query.getWords());
+		} catch (IllegalArgumentException e) {
+			System.err.println(String.format("Upit %s: %s", query.getId(), e.getMessage()));
+			return Collections.emptyList();
+		}
+
+		ResultCursor cursor = QueryCommand.search(provider, booleanQuery, deadline);
+		return cursor == null ? Collections.emptyList() : cursor.page(1);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja čita sve upite iz datoteke s putanjom
+	 * <b>queriesPath</b>. Prazni redci i redci koji započinju znakom '#' se
+	 * preskaču.
+	 *
+	 * @param queriesPath
+	 *            putanja do datoteke s upitima
+	 * @return {@link List} pročitanih upita
+	 * @throws IOException
+	 *             Ukoliko se datoteka ne može pročitati
+	 */
+	static List<BatchQuery> readQueries(Path queriesPath) throws IOException {
+		List<BatchQuery> queries = new ArrayList<>();
+
+		List<String> lines = Files.readAllLines(queriesPath, StandardCharsets.UTF_8);
+		for (int i = 0, len = lines.size(); i < len; i++) {
+			String line = lines.get(i);
+			if (line.trim().isEmpty() || line.trim().startsWith("#")) {
+				continue;
+			}
+
+			queries.add(BatchQuery.fromLine(line, i + 1));
+		}
+
+		return queries;
+	}
+}
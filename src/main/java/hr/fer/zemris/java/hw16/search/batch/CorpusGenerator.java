@@ -0,0 +1,371 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+import hr.fer.zemris.java.hw16.search.analysis.StopWordFilter;
+
+/**
+ * Razred koji predstavlja generator umjetnih korpusa za mjerenje opterećenja
+ * (vidi {@link LoadHarness}). Vokabular generatora čine riječi dokumenata
+ * direktorija sjemena i zaustavne riječi analize teksta (vidi
+ * {@link Analyzer#STOPWORDS_RESOURCE}), rangirane po broju pojavljivanja. Riječi
+ * dokumenata biraju se po Zipfovoj razdiobi, pa je vjerojatnost riječi ranga
+ * <i>r</i> razmjerna 1 / <i>r</i><sup><i>s</i></sup>, a duljine dokumenata
+ * biraju se među duljinama dokumenata sjemena. Ukoliko je svojstvom sustava
+ * {@value #VOCABULARY_PROPERTY} zadan veći vokabular, dodaju se izmišljene
+ * riječi nastale spajanjem početka i kraja dviju riječi sjemena, kako bi broj
+ * različitih riječi rastao s veličinom korpusa.
+ * <p>
+ * Isto sjeme slučajnih brojeva (svojstvo sustava {@value #SEED_PROPERTY})
+ * uvijek daje isti korpus, a eksponent razdiobe zadaje se svojstvom sustava
+ * {@value #EXPONENT_PROPERTY}. Program prima sljedeće argumente naredbenog
+ * redka:
+ * <ol>
+ * <li>putanju do direktorija sjemena (npr. <code>clanci</code>)</li>
+ * <li>putanju do izlaznog direktorija</li>
+ * <li>broj dokumenata</li>
+ * </ol>
+ *
+ * @author Davor Češljaš
+ */
+public class CorpusGenerator {
+
+	/** Konstanta koja predstavlja ime svojstva sustava sa sjemenom */
+	public static final String SEED_PROPERTY = "search.corpus.seed";
+
+	/** Konstanta koja predstavlja ime svojstva sustava s eksponentom razdiobe */
+	public static final String EXPONENT_PROPERTY = "search.corpus.exponent";
+
+	/** Konstanta koja predstavlja ime svojstva sustava s veličinom vokabulara */
+	public static final String VOCABULARY_PROPERTY = "search.corpus.vocabulary";
+
+	/** Konstanta koja predstavlja pretpostavljeno sjeme slučajnih brojeva */
+	public static final long DEFAULT_SEED = 42;
+
+	/** Konstanta koja predstavlja pretpostavljeni eksponent razdiobe */
+	public static final double DEFAULT_EXPONENT = 1.0;
+
+	/** Konstanta koja predstavlja prefiks imena generiranih dokumenata */
+	private static final String DOCUMENT_PREFIX = "sint-";
+
+	/**
+	 * Konstanta koja predstavlja nastavak imena datoteke s opisom korpusa,
+	 * zapisane pokraj direktorija korpusa
+	 */
+	private static final String DESCRIPTION_SUFFIX = ".corpus";
+
+	/** Konstanta koja predstavlja broj riječi u jednom redku dokumenta */
+	private static final int WORDS_PER_LINE = 15;
+
+	/** Konstanta koja predstavlja prevedeni izraz riječi */
+	private static final Pattern TOKEN_PATTERN = Pattern.compile(Analyzer.TOKEN_REGEX);
+
+	/** Članska varijabla koja predstavlja riječi poredane po rangu */
+	private String[] vocabulary;
+
+	/** Članska varijabla koja predstavlja kumulativnu razdiobu rangova */
+	private double[] cumulative;
+
+	/** Članska varijabla koja predstavlja zaustavne riječi */
+	private Set<String> stopWords;
+
+	/** Članska varijabla koja predstavlja duljine dokumenata sjemena */
+	private int[] lengths;
+
+	/** Članska varijabla koja predstavlja sjeme slučajnih brojeva */
+	private long seed;
+
+	/** Članska varijabla koja predstavlja eksponent razdiobe */
+	private double exponent;
+
+	/**
+	 * Konstruktor koji gradi vokabular iz dokumenata direktorija
+	 * <b>seedDirectory</b> i zaustavnih riječi, a sjeme, eksponent i veličinu
+	 * vokabulara čita iz svojstava sustava
+	 *
+	 * @param seedDirectory
+	 *            putanja do direktorija sjemena
+	 * @throws IOException
+	 *             Ukoliko se dokumenti sjemena ili zaustavne riječi ne mogu
+	 *             pročitati
+	 */
+	public CorpusGenerator(Path seedDirectory) throws IOException {
+		Map<String, Integer> counts = new HashMap<>();
+		List<Integer> documentLengths = new ArrayList<>();
+		try (DirectoryStream<Path> documents = Files.newDirectoryStream(seedDirectory)) {
+			for (Path document : documents) {
+				String text = new String(Files.readAllBytes(document), StandardCharsets.UTF_8);
+				int length = 0;
+				Matcher matcher = TOKEN_PATTERN.matcher(text);
+				while (matcher.find()) {
+					counts.merge(matcher.group().toLowerCase(), 1, Integer::sum);
+					length++;
+				}
+				documentLengths.add(length);
+			}
+		}
+		if (documentLengths.isEmpty()) {
+			throw new IllegalArgumentException("Direktorij sjemena '" + seedDirectory + "' nema dokumenata");
+		}
+
+		stopWords = StopWordFilter.fromResource(Analyzer.STOPWORDS_RESOURCE).getStopWords();
+		for (String stopWord : stopWords) {
+			counts.putIfAbsent(stopWord, 1);
+		}
+
+		List<String> ranked = new ArrayList<>(counts.keySet());
+		ranked.sort((w1, w2) -> counts.get(w1).equals(counts.get(w2)) ? w1.compareTo(w2)
+				: Integer.compare(counts.get(w2), counts.get(w1)));
+
+		seed = Long.getLong(SEED_PROPERTY, DEFAULT_SEED);
+		exponent = Double.parseDouble(System.getProperty(EXPONENT_PROPERTY, Double.toString(DEFAULT_EXPONENT)));
+		Random random = new Random(seed);
+		vocabulary = extend(ranked, Integer.getInteger(VOCABULARY_PROPERTY, ranked.size()), random);
+		cumulative = zipf(vocabulary.length, exponent);
+		lengths = documentLengths.stream().mapToInt(Integer::intValue).toArray();
+		Arrays.sort(lengths);
+	}
+
+	/**
+	 * Metoda od koje započinje izvođenje programa
+	 *
+	 * @param args
+	 *            argumenti naredbenog redka, opisani u dokumentaciji razreda
+	 * @throws IOException
+	 *             Ukoliko nije moguće pročitati sjeme ili zapisati korpus
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3) {
+			System.out.println("Očekivani argumenti: <direktorij sjemena> <izlazni direktorij> <broj dokumenata>");
+			System.exit(-1);
+		}
+
+		int documents = 0;
+		try {
+			documents = Integer.parseInt(args[2]);
+		} catch (NumberFormatException e) {
+			System.out.println("Broj dokumenata '" + args[2] + "' nije cijeli broj.");
+			System.exit(-1);
+		}
+
+		long start = System.nanoTime();
+		CorpusGenerator generator = new CorpusGenerator(Paths.get(args[0]));
+		long bytes = generator.generate(Paths.get(args[1]), documents);
+		System.out.println(String.format("Generirano %d dokumenata (%.1f MiB, vokabular %d riječi) za %.1f s",
+				documents, bytes / (1024.0 * 1024), generator.vocabularySize(), (System.nanoTime() - start) / 1e9));
+	}
+
+	/**
+	 * Metoda koja u direktorij <b>directory</b> zapisuje <b>documents</b>
+	 * generiranih dokumenata. Isto sjeme uvijek daje iste dokumente. Prethodno
+	 * generirani dokumenti direktorija se brišu, a nakon zapisivanja svih
+	 * dokumenata pokraj direktorija zapisuje se opis korpusa (vidi
+	 * {@link #isGenerated(Path, int)}).
+	 *
+	 * @param directory
+	 *            izlazni direktorij, stvara se po potrebi
+	 * @param documents
+	 *            broj dokumenata
+	 * @return ukupan broj zapisanih okteta
+	 * @throws IOException
+	 *             Ukoliko se neki dokument ne može zapisati
+	 */
+	public long generate(Path directory, int documents) throws IOException {
+		Files.createDirectories(directory);
+		Path description = descriptionFile(directory);
+		Files.deleteIfExists(description);
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, DOCUMENT_PREFIX + "*")) {
+			for (Path document : stream) {
+				Files.delete(document);
+			}
+		}
+
+		Random random = new Random(seed);
+
+		long bytes = 0;
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < documents; i++) {
+			sb.setLength(0);
+			int length = lengths[random.nextInt(lengths.length)];
+			for (int j = 0; j < length; j++) {
+				sb.append(word(random)).append(j % WORDS_PER_LINE == WORDS_PER_LINE - 1 ? '\n' : ' ');
+			}
+
+			byte[] content = sb.toString().getBytes(StandardCharsets.UTF_8);
+			Files.write(directory.resolve(String.format("%s%07d", DOCUMENT_PREFIX, i)), content);
+			bytes += content.length;
+		}
+		Files.write(description, describe(documents).getBytes(StandardCharsets.UTF_8));
+
+		return bytes;
+	}
+
+	/**
+	 * Metoda koja bira riječ vokabulara po Zipfovoj razdiobi
+	 *
+	 * @param random
+	 *            izvor slučajnih brojeva
+	 * @return odabrana riječ
+	 */
+	public String word(Random random) {
+		int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+		return vocabulary[Math.min(rank < 0 ? -rank - 1 : rank, vocabulary.length - 1)];
+	}
+
+	/**
+	 * Metoda koja bira riječ vokabulara po Zipfovoj razdiobi, preskačući
+	 * zaustavne riječi, pa se koristi za stvaranje upita
+	 *
+	 * @param random
+	 *            izvor slučajnih brojeva
+	 * @return odabrana riječ koja nije zaustavna
+	 */
+	public String queryWord(Random random) {
+		String word;
+		do {
+			word = word(random);
+		} while (stopWords.contains(word));
+
+		return word;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj riječi vokabulara generatora
+	 *
+	 * @return broj riječi vokabulara
+	 */
+	public int vocabularySize() {
+		return vocabulary.length;
+	}
+
+	/**
+	 * Metoda koja provjerava sadrži li direktorij <b>directory</b> točno
+	 * <b>documents</b> dokumenata koje bi ovaj generator zapisao, pa ih nije
+	 * potrebno ponovno generirati. Korpus se prepoznaje po opisu zapisanom
+	 * prilikom generiranja, koji uz broj dokumenata sadrži sjeme, eksponent
+	 * razdiobe te sažetke vokabulara i duljina dokumenata sjemena.
+	 *
+	 * @param directory
+	 *            putanja do direktorija
+	 * @param documents
+	 *            očekivani broj dokumenata
+	 * @return <code>true</code> ukoliko je korpus već generiran, inače
+	 *         <code>false</code>
+	 * @throws IOException
+	 *             Ukoliko se direktorij ne može pročitati
+	 */
+	public boolean isGenerated(Path directory, int documents) throws IOException {
+		Path description = descriptionFile(directory);
+		if (!Files.isDirectory(directory) || !Files.isRegularFile(description) || !describe(documents)
+				.equals(new String(Files.readAllBytes(description), StandardCharsets.UTF_8))) {
+			return false;
+		}
+
+		int count = 0;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, DOCUMENT_PREFIX + "*")) {
+			for (Iterator<Path> it = stream.iterator(); it.hasNext(); it.next()) {
+				count++;
+			}
+		}
+
+		return count == documents;
+	}
+
+	/**
+	 * Statička metoda koja dohvaća putanju do datoteke s opisom korpusa
+	 * generiranog u direktorij <b>directory</b>. Opis se ne zapisuje u sam
+	 * direktorij kako se ne bi učitao kao dokument.
+	 *
+	 * @param directory
+	 *            putanja do direktorija korpusa
+	 * @return putanja do datoteke s opisom
+	 */
+	public static Path descriptionFile(Path directory) {
+		Path absolute = directory.toAbsolutePath().normalize();
+		return absolute.resolveSibling(absolute.getFileName() + DESCRIPTION_SUFFIX);
+	}
+
+	/**
+	 * Pomoćna metoda koja stvara opis korpusa od <b>documents</b> dokumenata
+	 * koje zapisuje ovaj generator
+	 *
+	 * @param documents
+	 *            broj dokumenata
+	 * @return opis korpusa
+	 */
+	private String describe(int documents) {
+		return String.format("documents=%d%nseed=%d%nexponent=%s%nvocabulary=%d/%08x%nlengths=%08x%n", documents,
+				seed, Double.toString(exponent), vocabulary.length, Arrays.hashCode(vocabulary),
+				Arrays.hashCode(lengths));
+	}
+
+	/**
+	 * Pomoćna statička metoda koja rangiranim riječima <b>ranked</b> dodaje
+	 * izmišljene riječi sve do veličine <b>size</b>. Izmišljena riječ spaja
+	 * prvu polovicu jedne i drugu polovicu druge slučajno odabrane riječi.
+	 *
+	 * @param ranked
+	 *            riječi sjemena poredane po rangu
+	 * @param size
+	 *            tražena veličina vokabulara
+	 * @param random
+	 *            izvor slučajnih brojeva
+	 * @return riječi vokabulara poredane po rangu
+	 */
+	private static String[] extend(List<String> ranked, int size, Random random) {
+		Set<String> words = new HashSet<>(ranked);
+		List<String> vocabulary = new ArrayList<>(ranked);
+		int attempts = 0;
+		while (vocabulary.size() < size && attempts++ < 4 * size) {
+			String first = ranked.get(random.nextInt(ranked.size()));
+			String second = ranked.get(random.nextInt(ranked.size()));
+			String word = first.substring(0, (first.length() + 1) / 2) + second.substring(second.length() / 2);
+			if (words.add(word)) {
+				vocabulary.add(word);
+			}
+		}
+
+		return vocabulary.toArray(new String[vocabulary.size()]);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja računa kumulativnu Zipfovu razdiobu nad
+	 * <b>size</b> rangova s eksponentom <b>exponent</b>
+	 *
+	 * @param size
+	 *            broj rangova
+	 * @param exponent
+	 *            eksponent razdiobe
+	 * @return rastuće polje kumulativnih vjerojatnosti čiji je zadnji element 1
+	 */
+	private static double[] zipf(int size, double exponent) {
+		double[] cumulative = new double[size];
+		double sum = 0;
+		for (int rank = 0; rank < size; rank++) {
+			sum += 1 / Math.pow(rank + 1, exponent);
+			cumulative[rank] = sum;
+		}
+		for (int rank = 0; rank < size; rank++) {
+			cumulative[rank] /= sum;
+		}
+
+		return cumulative;
+	}
+}
@@ -0,0 +1,32 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import hr.fer.zemris.java.hw16.search.environment.Result;
+
+/**
+ * Sučelje koje predstavlja apstraktni zapisivač rezultata paketne obrade
+ * upita. Implementator sučelja rezultate svakog upita zapisuje metodom
+ * {@link #write(BatchQuery, List)}, a nakon posljednjeg upita potrebno je
+ * pozvati metodu {@link #close()}.
+ * 
+ * @see BatchSearch
+ * 
+ * @author Davor Češljaš
+ */
+public interface IResultWriter extends Closeable {
+
+	/**
+	 * Metoda koja zapisuje rangirane rezultate jednog upita.
+	 *
+	 * @param query
+	 *            upit čiji se rezultati zapisuju
+	 * @param results
+	 *            rezultati upita sortirani padajuće po sličnosti
+	 * @throws IOException
+	 *             Ukoliko pisanje nije uspjelo
+	 */
+	void write(BatchQuery query, List<Result> results) throws IOException;
+}
@@ -0,0 +1,107 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+import hr.fer.zemris.java.hw16.search.environment.Result;
+
+/**
+ * Razred koji implementira sučelje {@link IResultWriter}. Primjerci ovog
+ * razreda rezultate zapisuju kao jedno JSON polje, unutar kojeg je svaki upit
+ * predstavljen jednim objektom s identifikatorom, tekstom upita i poljem
+ * rangiranih rezultata.
+ * 
+ * @author Davor Češljaš
+ */
+public class JsonResultWriter implements IResultWriter {
+
+	/** Članska varijabla koja predstavlja izlaz ovog zapisivača */
+	private Writer writer;
+
+	/**
+	 * Članska varijabla koja govori je li zapisan barem jedan upit (potrebno
+	 * zbog odvajanja objekata zarezom)
+	 */
+	private boolean first = true;
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda te na izlaz
+	 * zapisuje početak JSON polja.
+	 *
+	 * @param writer
+	 *            izlaz ovog zapisivača
+	 * @throws IOException
+	 *             Ukoliko pisanje nije uspjelo
+	 */
+	public JsonResultWriter(Writer writer) throws IOException {
+		this.writer = writer;
+		writer.write("[");
+	}
+
+	@Override
+	public void write(BatchQuery query, List<Result> results) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append(first ? "\n" : ",\n");
+		first = false;
+
+		sb.append("  {\"id\": ").append(quote(query.getId()));
+		sb.append(", \"query\": ").append(quote(query.getText()));
+		sb.append(", \"results\": [");
+		for (int i = 0, len = results.size(); i < len; i++) {
+			Result result = results.get(i);
+			sb.append(i == 0 ? "" : ", ");
+			sb.append(String.format(Locale.ROOT, "{\"rank\": %d, \"score\": %.6f, \"path\": %s}", i,
+					result.getSimilarity(), quote(result.getFilePath())));
+		}
+		sb.append("]}");
+
+		writer.write(sb.toString());
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.write("\n]\n");
+		writer.close();
+	}
+
+	/**
+	 * Pomoćna statička metoda koja predani tekst <b>text</b> pretvara u JSON
+	 * niz znakova, zamjenjujući pri tome sve posebne znakove.
+	 *
+	 * @param text
+	 *            tekst koji se pretvara
+	 * @return JSON niz znakova (zajedno s navodnicima)
+	 */
+	private static String quote(String text) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : text.toCharArray()) {
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+
+		return sb.append('"').toString();
+	}
+}
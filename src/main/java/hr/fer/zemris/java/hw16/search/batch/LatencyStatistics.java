@@ -0,0 +1,96 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import java.util.Arrays;
+
+/**
+ * Razred koji se koristi za izračun statistike trajanja upita. Primjerci ovog
+ * razreda stvaraju se iz polja trajanja pojedinih upita izraženih u
+ * nanosekundama te nude dohvat percentila metodom {@link #percentile(double)},
+ * kao i prosječnog te najvećeg trajanja.
+ * 
+ * @author Davor Češljaš
+ */
+public class LatencyStatistics {
+
+	/** Konstanta koja predstavlja broj nanosekundi u jednoj milisekundi */
+	private static final double NANOS_IN_MILLI = 1_000_000.0;
+
+	/** Članska varijabla koja predstavlja sortirana trajanja upita */
+	private long[] sortedNanos;
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda. Predano polje se
+	 * kopira, pa ga pozivatelj smije naknadno mijenjati.
+	 *
+	 * @param latencyNanos
+	 *            polje trajanja pojedinih upita izraženih u nanosekundama
+	 */
+	public LatencyStatistics(long[] latencyNanos) {
+		sortedNanos = Arrays.copyOf(latencyNanos, latencyNanos.length);
+		Arrays.sort(sortedNanos);
+	}
+
+	/**
+	 * Metoda koja dohvaća broj izmjerenih trajanja
+	 *
+	 * @return broj izmjerenih trajanja
+	 */
+	public int getCount() {
+		return sortedNanos.length;
+	}
+
+	/**
+	 * Metoda koja dohvaća traženi percentil trajanja u milisekundama. Koristi
+	 * se metoda najbližeg ranga (engl. nearest-rank).
+	 *
+	 * @param percentile
+	 *            traženi percentil iz intervala [0, 100]
+	 * @return traženi percentil trajanja u milisekundama ili 0 ukoliko nema
+	 *         izmjerenih trajanja
+	 */
+	public double percentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentil mora biti unutar intervala [0, 100]");
+		}
+
+		if (sortedNanos.length == 0) {
+			return 0;
+		}
+
+		int rank = (int) Math.ceil(percentile / 100 * sortedNanos.length);
+		return sortedNanos[Math.max(rank - 1, 0)] / NANOS_IN_MILLI;
+	}
+
+	/**
+	 * Metoda koja dohvaća prosječno trajanje u milisekundama
+	 *
+	 * @return prosječno trajanje u milisekundama
+	 */
+	public double mean() {
+		if (sortedNanos.length == 0) {
+			return 0;
+		}
+
+		double sum = 0;
+		for (long nanos : sortedNanos) {
+			sum += nanos;
+		}
+
+		return sum / sortedNanos.length / NANOS_IN_MILLI;
+	}
+
+	/**
+	 * Metoda koja dohvaća najveće trajanje u milisekundama
+	 *
+	 * @return najveće trajanje u milisekundama
+	 */
+	public double max() {
+		return sortedNanos.length == 0 ? 0 : sortedNanos[sortedNanos.length - 1] / NANOS_IN_MILLI;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("prosjek %.3f ms, p50 %.3f ms, p90 %.3f ms, p95 %.3f ms, p99 %.3f ms, max %.3f ms",
+				mean(), percentile(50), percentile(90), percentile(95), percentile(99), max());
+	}
+}
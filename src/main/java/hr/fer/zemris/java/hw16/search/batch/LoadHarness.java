@@ -0,0 +1,378 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import hr.fer.zemris.java.hw16.search.commands.QueryCommand;
+import hr.fer.zemris.java.hw16.search.metrics.LatencyHistogram;
+import hr.fer.zemris.java.hw16.search.provider.BooleanQuery;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Razred koji predstavlja program za mjerenje opterećenja cijelog sustava.
+ * Program generira korpus zadane veličine (vidi {@link CorpusGenerator}),
+ * gradi indeks metodom {@link SearchProvider#loadDocuments(String)} te zadani
+ * broj sekundi izvodi mješavinu upita iz zadanog broja dretvi. Upiti se
+ * izvode istim putem kao i naredba {@link QueryCommand}, a riječi upita
+ * biraju se iz istog vokabulara kao i riječi korpusa:
+ * <ul>
+ * <li>70% upita čine jedna do četiri riječi</li>
+ * <li>15% upita čine dvije obavezne riječi</li>
+ * <li>10% upita čine riječ i isključena riječ</li>
+ * <li>5% upita čini prefiks riječi sa zamjenskim znakom</li>
+ * </ul>
+ * Na kraju se ispisuje trajanje izgradnje, najveće zauzeće gomile tijekom
+ * izgradnje (uzorkovano svakih {@value #HEAP_SAMPLE_MILLIS} ms), broj i
+ * ukupno trajanje skupljanja smeća tijekom izgradnje i tijekom upita,
+ * propusnost te percentili trajanja upita, a tijekom izvođenja upita svakih
+ * {@value #REPORT_INTERVAL_SECONDS} sekundi ispisuje se trenutna propusnost i
+ * zauzeće gomile.
+ * <p>
+ * Generirani korpus zapisuje se u direktorij zadan svojstvom sustava
+ * {@value #CORPUS_DIRECTORY_PROPERTY} i ponovno se koristi ukoliko je
+ * generiran s istim parametrima (vidi
+ * {@link CorpusGenerator#isGenerated(Path, int)}). Ukoliko svojstvo nije
+ * postavljeno, korpus se zapisuje u privremeni direktorij koji se briše na
+ * kraju rada. Program prima sljedeće argumente naredbenog redka:
+ * <ol>
+ * <li>putanju do direktorija sjemena (npr. <code>clanci</code>)</li>
+ * <li>broj dokumenata korpusa</li>
+ * <li>trajanje izvođenja upita u sekundama</li>
+ * <li>(opcionalno) broj dretvi, pretpostavljeno broj dostupnih procesora</li>
+ * </ol>
+ *
+ * @see CorpusGenerator
+ * @see BatchSearch
+ *
+ * @author Davor Češljaš
+ */
+public class LoadHarness {
+
+	/** Konstanta koja predstavlja ime svojstva sustava s direktorijem korpusa */
+	public static final String CORPUS_DIRECTORY_PROPERTY = "search.corpus.dir";
+
+	/** Konstanta koja predstavlja broj sekundi između dva međuizvještaja */
+	private static final int REPORT_INTERVAL_SECONDS = 10;
+
+	/** Konstanta koja predstavlja broj okteta u jednom mebibajtu */
+	private static final double MIB = 1024.0 * 1024;
+
+	/** Konstanta koja predstavlja broj milisekundi između dva uzorka gomile */
+	private static final long HEAP_SAMPLE_MILLIS = 10;
+
+	/**
+	 * Razred koji predstavlja uzorkovanje zauzeća gomile u pozadinskoj dretvi.
+	 * Zauzeće se dohvaća kao ukupno zauzeće gomile (vidi
+	 * {@link MemoryMXBean#getHeapMemoryUsage()}) svakih
+	 * {@value LoadHarness#HEAP_SAMPLE_MILLIS} milisekundi, a pamti se najveći
+	 * uzorak. Za razliku od zbroja najvećih zauzeća pojedinih bazena, koja
+	 * nastaju u različitim trenucima, uzorak opisuje stvarno zauzeće u jednom
+	 * trenutku.
+	 */
+	private static class HeapSampler implements AutoCloseable {
+
+		/** Članska varijabla koja predstavlja upravljanje memorijom */
+		private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+		/** Članska varijabla koja predstavlja najveći uzorak */
+		private final LongAccumulator peak = new LongAccumulator(Math::max, 0);
+
+		/** Članska varijabla koja predstavlja izvršitelja uzorkovanja */
+		private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "heap-sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		/**
+		 * Konstruktor koji pokreće uzorkovanje
+		 */
+		private HeapSampler() {
+			executor.scheduleAtFixedRate(this::sample, 0, HEAP_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+		}
+
+		/**
+		 * Metoda koja uzima jedan uzorak zauzeća gomile
+		 */
+		private void sample() {
+			peak.accumulate(memory.getHeapMemoryUsage().getUsed());
+		}
+
+		/**
+		 * Metoda koja dohvaća najveće zauzeće gomile od pokretanja uzorkovanja
+		 *
+		 * @return najveće zauzeće gomile u oktetima
+		 */
+		private long getPeak() {
+			sample();
+			return peak.get();
+		}
+
+		@Override
+		public void close() {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Metoda od koje započinje izvođenje programa
+	 *
+	 * @param args
+	 *            argumenti naredbenog redka, opisani u dokumentaciji razreda
+	 * @throws IOException
+	 *             Ukoliko nije moguće generirati korpus ili izgraditi indeks
+	 * @throws InterruptedException
+	 *             Ukoliko je glavna dretva prekinuta tijekom izvođenja upita
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 3 || args.length > 4) {
+			System.out.println(
+					"Očekivani argumenti: <direktorij sjemena> <broj dokumenata> <trajanje u sekundama> [broj dretvi]");
+			System.exit(-1);
+		}
+
+		int documents = 0;
+		int seconds = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		try {
+			documents = Integer.parseInt(args[1]);
+			seconds = Integer.parseInt(args[2]);
+			if (args.length > 3) {
+				threads = Integer.parseInt(args[3]);
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Broj dokumenata, trajanje i broj dretvi moraju biti cijeli brojevi.");
+			System.exit(-1);
+		}
+		if (documents < 1 || seconds < 1 || threads < 1) {
+			System.out.println("Broj dokumenata, trajanje i broj dretvi moraju biti pozitivni.");
+			System.exit(-1);
+		}
+
+		CorpusGenerator generator = new CorpusGenerator(Paths.get(args[0]));
+		String corpusName = System.getProperty(CORPUS_DIRECTORY_PROPERTY);
+		Path corpus = corpusName == null ? Files.createTempDirectory("search-corpus") : Paths.get(corpusName);
+		try {
+			if (!generator.isGenerated(corpus, documents)) {
+				long start = System.nanoTime();
+				long bytes = generator.generate(corpus, documents);
+				System.out.println(String.format(
+						"Korpus: %d dokumenata (%.1f MiB, vokabular %d riječi) generiran za %.1f s", documents,
+						bytes / MIB, generator.vocabularySize(), (System.nanoTime() - start) / 1e9));
+			} else {
+				System.out.println(String.format("Korpus: %d dokumenata iz '%s'", documents, corpus));
+			}
+
+			buildIndex(corpus);
+			runQueries(generator, seconds, threads);
+		} finally {
+			if (corpusName == null) {
+				deleteCorpus(corpus);
+			}
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja gradi indeks nad korpusom <b>corpus</b> i
+	 * ispisuje trajanje izgradnje, najveće zauzeće gomile i skupljanje smeća
+	 *
+	 * @param corpus
+	 *            putanja do direktorija korpusa
+	 * @throws IOException
+	 *             Ukoliko se neki dokument ne može pročitati
+	 */
+	private static void buildIndex(Path corpus) throws IOException {
+		System.gc();
+		long[] gc = gcTotals();
+
+		long start = System.nanoTime();
+		long elapsed;
+		long peak;
+		try (HeapSampler sampler = new HeapSampler()) {
+			SearchProvider.loadDocuments(corpus.toString());
+			elapsed = System.nanoTime() - start;
+			peak = sampler.getPeak();
+		}
+		System.out.println(String.format("Izgradnja: %.1f s, riječnik %d riječi, najveće zauzeće gomile %.1f MiB",
+				elapsed / 1e9, SearchProvider.getProvider().getVocabulary().size(), peak / MIB));
+		printGc("Skupljanje smeća tijekom izgradnje", gc);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja <b>seconds</b> sekundi izvodi mješavinu
+	 * upita iz <b>threads</b> dretvi te ispisuje propusnost i percentile
+	 * trajanja upita. Svaka dretva ima vlastiti izvor slučajnih brojeva
+	 * izveden iz sjemena korpusa, pa je slijed upita ponovljiv.
+	 *
+	 * @param generator
+	 *            generator iz čijeg se vokabulara biraju riječi upita
+	 * @param seconds
+	 *            trajanje izvođenja upita u sekundama
+	 * @param threads
+	 *            broj dretvi
+	 * @throws InterruptedException
+	 *             Ukoliko je glavna dretva prekinuta tijekom čekanja
+	 */
+	private static void runQueries(CorpusGenerator generator, int seconds, int threads)
+			throws InterruptedException {
+		SearchProvider provider = SearchProvider.getProvider();
+		LatencyHistogram latencies = new LatencyHistogram();
+		AtomicBoolean running = new AtomicBoolean(true);
+		long seed = Long.getLong(CorpusGenerator.SEED_PROPERTY, CorpusGenerator.DEFAULT_SEED);
+
+		long[] gc = gcTotals();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		for (int i = 0; i < threads; i++) {
+			Random random = new Random(seed + i + 1);
+			pool.execute(() -> {
+				while (running.get()) {
+					long queryStart = System.nanoTime();
+					executeQuery(provider, nextQuery(generator, random));
+					latencies.recordSince(queryStart);
+				}
+			});
+		}
+
+		long previousCount = 0;
+		for (int elapsed = 0; elapsed < seconds; elapsed += REPORT_INTERVAL_SECONDS) {
+			int interval = Math.min(REPORT_INTERVAL_SECONDS, seconds - elapsed);
+			TimeUnit.SECONDS.sleep(interval);
+
+			long count = latencies.getCount();
+			Runtime runtime = Runtime.getRuntime();
+			System.out.println(String.format("[%5d s] %.1f upita/s, gomila %.1f MiB", elapsed + interval,
+					(count - previousCount) / (double) interval, (runtime.totalMemory() - runtime.freeMemory()) / MIB));
+			previousCount = count;
+		}
+		running.set(false);
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println(String.format("Izvedeno %d upita sa %d dretvi za %.1f s (%.1f upita/s)",
+				latencies.getCount(), threads, elapsed / 1e9, latencies.getCount() / (elapsed / 1e9)));
+		System.out.println(String.format("Trajanje upita: p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms",
+				latencies.percentileNanos(50) / 1e6, latencies.percentileNanos(90) / 1e6,
+				latencies.percentileNanos(99) / 1e6, latencies.percentileNanos(99.9) / 1e6,
+				latencies.getMaxNanos() / 1e6));
+		printGc("Skupljanje smeća tijekom upita", gc);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja stvara sljedeći upit mješavine opisane u
+	 * dokumentaciji razreda
+	 *
+	 * @param generator
+	 *            generator iz čijeg se vokabulara biraju riječi
+	 * @param random
+	 *            izvor slučajnih brojeva
+	 * @return riječi upita u obliku u kojem ih unosi korisnik
+	 */
+	private static List<String> nextQuery(CorpusGenerator generator, Random random) {
+		int kind = random.nextInt(100);
+		if (kind < 70) {
+			List<String> words = new ArrayList<>();
+			for (int i = 0, len = 1 + random.nextInt(4); i < len; i++) {
+				words.add(generator.queryWord(random));
+			}
+			return words;
+		} else if (kind < 85) {
+			return Arrays.asList(BooleanQuery.REQUIRED + generator.queryWord(random),
+					BooleanQuery.REQUIRED + generator.queryWord(random));
+		} else if (kind < 95) {
+			return Arrays.asList(generator.queryWord(random), BooleanQuery.EXCLUDED + generator.queryWord(random));
+		}
+
+		String word = generator.queryWord(random);
+		return Collections.singletonList(word.substring(0, Math.min(word.length(), 4)) + "*");
+	}
+
+	/**
+	 * Pomoćna statička metoda koja izvodi upit <b>words</b> na isti način kao
+	 * i naredba {@link QueryCommand}
+	 *
+	 * @param provider
+	 *            indeks nad kojim se pretražuje
+	 * @param words
+	 *            riječi upita
+	 */
+	private static void executeQuery(SearchProvider provider, List<String> words) {
+		BooleanQuery query = BooleanQuery.parse(words);
+		List<String> args = provider.filterQueryWords(query.getScoringWords());
+		if (!args.isEmpty()) {
+			provider.withSnippets(provider.search(args, query, QueryCommand.MAX_RESULTS, null, null), args);
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja briše generirani korpus <b>corpus</b>
+	 * zajedno s njegovim opisom (vidi {@link CorpusGenerator#descriptionFile(Path)})
+	 *
+	 * @param corpus
+	 *            putanja do direktorija korpusa
+	 * @throws IOException
+	 *             Ukoliko brisanje nije uspjelo
+	 */
+	private static void deleteCorpus(Path corpus) throws IOException {
+		Files.deleteIfExists(CorpusGenerator.descriptionFile(corpus));
+		if (!Files.isDirectory(corpus)) {
+			return;
+		}
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(corpus)) {
+			for (Path document : stream) {
+				Files.delete(document);
+			}
+		}
+		Files.delete(corpus);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja dohvaća ukupan broj skupljanja smeća i
+	 * ukupno trajanje skupljanja u milisekundama svih skupljača
+	 *
+	 * @return polje s brojem skupljanja i trajanjem u milisekundama
+	 */
+	private static long[] gcTotals() {
+		long[] totals = new long[2];
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			totals[0] += Math.max(collector.getCollectionCount(), 0);
+			totals[1] += Math.max(collector.getCollectionTime(), 0);
+		}
+
+		return totals;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja ispisuje broj i trajanje skupljanja smeća
+	 * od trenutka u kojem su dohvaćene vrijednosti <b>before</b>
+	 *
+	 * @param title
+	 *            naslov ispisa
+	 * @param before
+	 *            vrijednosti dohvaćene metodom {@link #gcTotals()}
+	 */
+	private static void printGc(String title, long[] before) {
+		long[] after = gcTotals();
+		System.out.println(String.format("%s: %d ciklusa, ukupno %d ms", title, after[0] - before[0],
+				after[1] - before[1]));
+	}
+}
@@ -0,0 +1,114 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import hr.fer.zemris.java.hw16.search.commands.ApproxCommand;
+import hr.fer.zemris.java.hw16.search.commands.QueryCommand;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+import hr.fer.zemris.java.hw16.search.provider.ClusterIndex;
+import hr.fer.zemris.java.hw16.search.provider.DocumentVector;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Razred koji predstavlja program koji mjeri odziv i trajanje približnog
+ * pretraživanja (vidi {@link ClusterIndex}) u odnosu na točno pretraživanje
+ * naredbe {@link QueryCommand}. Za svaki zadani broj pretraženih grupa program
+ * izvodi sve upite iz datoteke te ispisuje prosječan i najmanji odziv među
+ * prvih {@value QueryCommand#MAX_RESULTS} rezultata, prosječan udio
+ * pretraženih dokumenata te percentile trajanja.
+ * <p>
+ * Program prima sljedeće argumente naredbenog redka:
+ * <ol>
+ * <li>putanju do direktorija sa dokumentima</li>
+ * <li>putanju do datoteke s upitima (u obliku kao za {@link BatchSearch})</li>
+ * <li>proizvoljan broj brojeva pretraženih grupa (pretpostavljeno 1, 2, 4 i
+ * 8)</li>
+ * </ol>
+ *
+ * @author Davor Češljaš
+ */
+public class RecallReport {
+
+	/** Konstanta koja predstavlja pretpostavljene brojeve pretraženih grupa */
+	private static final int[] DEFAULT_PROBES = { 1, 2, 4, 8 };
+
+	/**
+	 * Metoda od koje započinje izvođenje programa
+	 *
+	 * @param args
+	 *            argumenti naredbenog redka, opisani u dokumentaciji razreda
+	 * @throws IOException
+	 *             Ukoliko nije moguće pročitati dokumente ili upite
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Očekivani argumenti: <direktorij dokumenata> <datoteka upita> [broj grupa...]");
+			System.exit(-1);
+		}
+
+		int[] probes = DEFAULT_PROBES;
+		try {
+			if (args.length > 2) {
+				probes = new int[args.length - 2];
+				for (int i = 2; i < args.length; i++) {
+					probes[i - 2] = Integer.parseInt(args[i]);
+				}
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Brojevi pretraženih grupa moraju biti cijeli brojevi.");
+			System.exit(-1);
+		}
+
+		SearchProvider.loadDocuments(args[0]);
+		SearchProvider provider = SearchProvider.getProvider();
+
+		List<List<String>> queries = new ArrayList<>();
+		for (BatchQuery query : BatchSearch.readQueries(Paths.get(args[1]))) {
+			List<String> words = provider.filterQueryWords(query.getWords());
+			if (!words.isEmpty()) {
+				queries.add(words);
+			}
+		}
+
+		long[] latencies = new long[queries.size()];
+		List<List<Result>> exact = new ArrayList<>();
+		List<DocumentVector> queryVectors = new ArrayList<>();
+		for (int i = 0, len = queries.size(); i < len; i++) {
+			long start = System.nanoTime();
+			exact.add(provider.search(queries.get(i), QueryCommand.MAX_RESULTS));
+			latencies[i] = System.nanoTime() - start;
+			queryVectors.add(provider.createQueryVector(queries.get(i)));
+		}
+
+		ClusterIndex clusterIndex = provider.getClusterIndex();
+		int documents = provider.getDocumentVectors().size();
+		System.out.println(String.format("Dokumenata: %d, grupa: %d, upita: %d", documents, clusterIndex.size(),
+				queries.size()));
+		System.out.println("Točno: " + new LatencyStatistics(latencies));
+
+		for (int probe : probes) {
+			double recallSum = 0;
+			double minRecall = 1;
+			long candidateSum = 0;
+			for (int i = 0, len = queries.size(); i < len; i++) {
+				long start = System.nanoTime();
+				List<Result> approximate = provider.approximateSearch(queries.get(i), QueryCommand.MAX_RESULTS,
+						probe);
+				latencies[i] = System.nanoTime() - start;
+
+				double recall = ApproxCommand.recall(approximate, exact.get(i));
+				recallSum += recall;
+				minRecall = Math.min(minRecall, recall);
+				candidateSum += clusterIndex.candidates(queryVectors.get(i), probe).size();
+			}
+
+			int count = Math.max(1, queries.size());
+			System.out.println(String.format("Grupa %d: odziv prosjek %.3f, najmanji %.3f, pretraženo %.1f%%", probe,
+					recallSum / count, minRecall, 100.0 * candidateSum / count / Math.max(1, documents)));
+			System.out.println("  " + new LatencyStatistics(latencies));
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+import hr.fer.zemris.java.hw16.search.environment.Result;
+
+/**
+ * Razred koji implementira sučelje {@link IResultWriter}. Primjerci ovog
+ * razreda rezultate zapisuju u obliku vrijednosti odvojenih tabulatorom (engl.
+ * tab separated values). Svaki rezultat zapisuje se u zaseban redak oblika
+ * <code>id	rang	sličnost	putanja</code>.
+ * 
+ * @author Davor Češljaš
+ */
+public class TsvResultWriter implements IResultWriter {
+
+	/** Članska varijabla koja predstavlja izlaz ovog zapisivača */
+	private Writer writer;
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda te na izlaz
+	 * zapisuje zaglavlje.
+	 *
+	 * @param writer
+	 *            izlaz ovog zapisivača
+	 * @throws IOException
+	 *             Ukoliko pisanje zaglavlja nije uspjelo
+	 */
+	public TsvResultWriter(Writer writer) throws IOException {
+		this.writer = writer;
+		writer.write("query\trank\tscore\tpath\n");
+	}
+
+	@Override
+	public void write(BatchQuery query, List<Result> results) throws IOException {
+		for (int i = 0, len = results.size(); i < len; i++) {
+			Result result = results.get(i);
+			writer.write(String.format(Locale.ROOT, "%s\t%d\t%.6f\t%s%n", query.getId(), i, result.getSimilarity(),
+					result.getFilePath()));
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,144 @@
+package hr.fer.zemris.java.hw16.search.commands;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+import hr.fer.zemris.java.hw16.search.provider.ClusterIndex;
+import hr.fer.zemris.java.hw16.search.provider.QueryDeadline;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
+ * pozivom metode {@link #execute(IEnvironment)} izvode približno
+ * pretraživanje (vidi {@link SearchProvider#approximateSearch(List, int, int)})
+ * koje pretražuje samo dokumente nekoliko grupa najsličnijih upitu. Ukoliko je
+ * prvi argument cijeli broj, on predstavlja broj pretraženih grupa, a inače se
+ * koristi broj zadan svojstvom sustava {@value #PROBES_PROPERTY} (ili
+ * {@value #DEFAULT_PROBES}). Uz rezultate se ispisuje i odziv u odnosu na
+ * rezultate naredbe {@link QueryCommand#NAME} te trajanje obje pretrage. Obje
+ * pretrage poštuju rok upita na isti način kao i naredba {@link QueryCommand}.
+ *
+ * @see ICommand
+ * @see ClusterIndex
+ *
+ * @author Davor Češljaš
+ */
+public class ApproxCommand implements ICommand {
+
+	/**
+	 * Konstanta koja predstavlja naziv ove naredbe, ujedino i ključna riječ
+	 * koju korisnik upisuje kako bi pokrenuo ovu naredbu
+	 */
+	public static final String NAME = "approx";
+
+	/**
+	 * Konstanta koja predstavlja ime svojstva sustava koje određuje
+	 * pretpostavljeni broj pretraženih grupa
+	 */
+	public static final String PROBES_PROPERTY = "search.probes";
+
+	/** Konstanta koja predstavlja pretpostavljeni broj pretraženih grupa */
+	public static final int DEFAULT_PROBES = 2;
+
+	@Override
+	public CommandStatus execute(IEnvironment environment) {
+		List<String> args = new ArrayList<>(environment.getArguments());
+
+		int probes;
+		try {
+			probes = Integer.getInteger(PROBES_PROPERTY, DEFAULT_PROBES);
+			if (!args.isEmpty() && args.get(0).matches("-?\\d+")) {
+				probes = Integer.parseInt(args.remove(0));
+			}
+		} catch (NumberFormatException e) {
+			environment.writeLine("Broj pretraženih grupa mora biti cijeli broj.");
+			return CommandStatus.CONTINUE;
+		}
+
+		if (probes < 1) {
+			environment.writeLine("Broj pretraženih grupa mora biti barem 1, a predan je " + probes);
+			return CommandStatus.CONTINUE;
+		}
+
+		SearchProvider provider = SearchProvider.getProvider();
+		args = provider.filterQueryWords(args);
+
+		if (args.size() == 0) {
+			environment.writeLine("Upit je prazan, molimo Vas unesite drugi upit");
+			return CommandStatus.CONTINUE;
+		}
+
+		environment.writeLine("Upit je: " + args.toString());
+
+		int clusters = provider.getClusterIndex().size();
+		long start = System.nanoTime();
+		QueryDeadline approximateDeadline = environment.createDeadline();
+		List<Result> approximate = provider.approximateSearch(args, QueryCommand.MAX_RESULTS, probes,
+				approximateDeadline);
+		long approximateNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		QueryDeadline exactDeadline = environment.createDeadline();
+		List<Result> exact = provider.search(args, QueryCommand.MAX_RESULTS, null, exactDeadline);
+		long exactNanos = System.nanoTime() - start;
+
+		environment.setResults(provider.withSnippets(approximate, args));
+
+		environment.writeLine(String.format("Najboljih 10 rezultata (pretraženo %d od %d grupa):",
+				Math.min(probes, clusters), clusters));
+		environment.printResults();
+		QueryCommand.printPartialWarning(environment, approximateDeadline);
+		QueryCommand.printPartialWarning(environment, exactDeadline);
+
+		environment.writeLine(String.format("Odziv u odnosu na točnu pretragu: %d/%d (%.2f)",
+				recalled(approximate, exact), exact.size(), recall(approximate, exact)));
+		environment.writeLine(String.format("Trajanje: približno %.3f ms, točno %.3f ms", approximateNanos / 1e6,
+				exactNanos / 1e6));
+
+		return CommandStatus.CONTINUE;
+	}
+
+	/**
+	 * Statička metoda koja računa odziv približnih rezultata
+	 * <b>approximate</b> u odnosu na točne rezultate <b>exact</b>, tj. udio
+	 * točnih rezultata koji se nalaze i među približnim rezultatima
+	 *
+	 * @param approximate
+	 *            rezultati približne pretrage
+	 * @param exact
+	 *            rezultati točne pretrage
+	 * @return odziv iz intervala [0, 1], odnosno 1 ukoliko nema točnih
+	 *         rezultata
+	 */
+	public static double recall(List<Result> approximate, List<Result> exact) {
+		return exact.isEmpty() ? 1 : (double) recalled(approximate, exact) / exact.size();
+	}
+
+	/**
+	 * Pomoćna statička metoda koja računa broj točnih rezultata <b>exact</b>
+	 * koji se nalaze i među približnim rezultatima <b>approximate</b>
+	 *
+	 * @param approximate
+	 *            rezultati približne pretrage
+	 * @param exact
+	 *            rezultati točne pretrage
+	 * @return broj pronađenih točnih rezultata
+	 */
+	private static int recalled(List<Result> approximate, List<Result> exact) {
+		Set<String> found = new HashSet<>();
+		for (Result result : approximate) {
+			found.add(result.getFilePath());
+		}
+
+		int recalled = 0;
+		for (Result result : exact) {
+			recalled += found.contains(result.getFilePath()) ? 1 : 0;
+		}
+
+		return recalled;
+	}
+}
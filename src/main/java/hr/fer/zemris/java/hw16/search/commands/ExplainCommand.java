@@ -0,0 +1,130 @@
+package hr.fer.zemris.java.hw16.search.commands;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+import hr.fer.zemris.java.hw16.search.provider.BooleanQuery;
+import hr.fer.zemris.java.hw16.search.provider.DocumentVector;
+import hr.fer.zemris.java.hw16.search.provider.QueryDeadline;
+import hr.fer.zemris.java.hw16.search.provider.QueryProfile;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
+ * pozivom metode {@link #execute(IEnvironment)} izvode upit jednako kao
+ * {@link QueryCommand}, uključujući i logičke uvjete, ali uz profil izvođenja (vidi {@link QueryProfile}).
+ * Osim rezultata ispisuje se identifikator, broj dokumenata i vrijednost idf
+ * svakog pojma upita, broj bodovanih dokumenata i zapisa obrnutog indeksa,
+ * trajanje svake faze te doprinos svakog pojma sličnosti pojedinog
+ * rezultata. Doprinosi se računaju samo za dokumente učitane metodom
+ * {@link SearchProvider#loadDocuments(String)}.
+ *
+ * @see ICommand
+ * @see IEnvironment
+ * @see QueryProfile
+ *
+ * @author Davor Češljaš
+ */
+public class ExplainCommand implements ICommand {
+
+	/**
+	 * Konstanta koja predstavlja naziv ove naredbe, ujedino i ključna riječ
+	 * koju korisnik upisuje kako bi pokrenuo ovu naredbu
+	 */
+	public static final String NAME = "explain";
+
+	@Override
+	public CommandStatus execute(IEnvironment environment) {
+		SearchProvider provider = SearchProvider.getProvider();
+		QueryProfile profile = new QueryProfile();
+
+		long start = System.nanoTime();
+		BooleanQuery query = QueryCommand.parseQuery(environment);
+		if (query == null) {
+			return CommandStatus.CONTINUE;
+		}
+		List<String> args = provider.filterQueryWords(query.getScoringWords());
+		profile.addPhase(QueryProfile.TERM_LOOKUP, start);
+
+		if (args.size() == 0) {
+			environment.writeLine("Upit je prazan, molimo Vas unesite drugi upit");
+			return CommandStatus.CONTINUE;
+		}
+
+		environment.writeLine("Upit je: " + args.toString());
+		QueryCommand.printConditions(environment, query);
+
+		QueryDeadline deadline = environment.createDeadline();
+		List<Result> results = provider.search(args, query, QueryCommand.MAX_RESULTS, profile, deadline);
+		start = System.nanoTime();
+		environment.setResults(provider.withSnippets(results, args));
+		profile.addPhase(QueryProfile.SNIPPETS, start);
+
+		List<String> terms = new ArrayList<>(new LinkedHashSet<>(args));
+		environment.writeLine("Pojmovi:");
+		for (String term : terms) {
+			int id = provider.getVocabulary().getId(term);
+			environment.writeLine(id < 0 ? String.format("  %-20s samo u dodanim segmentima", term)
+					: String.format("  %-20s id=%-6d df=%-5d idf=%.4f", term, id,
+							provider.getPostingsIndex().documentFrequency(id), provider.getIdf()[id]));
+		}
+
+		environment.writeLine(String.format("Bodovano dokumenata: %d, zapisa obrnutog indeksa: %d",
+				profile.getDocumentsScored(), profile.getPostings()));
+		environment.writeLine("Faze:");
+		for (Map.Entry<String, Long> phase : profile.getPhases().entrySet()) {
+			environment.writeLine(String.format("  %-20s %.3f ms", phase.getKey(), phase.getValue() / 1e6));
+		}
+
+		QueryCommand.printPartialWarning(environment, deadline);
+		environment.writeLine("Najboljih 10 rezultata:");
+		environment.printResults();
+		printBreakdown(environment, provider, provider.createQueryVector(args), terms);
+
+		return CommandStatus.CONTINUE;
+	}
+
+	/**
+	 * Pomoćna metoda koja za svaki rezultat okruženja <b>environment</b>
+	 * ispisuje doprinos svakog pojma sličnosti, odnosno umnožak težina pojma u
+	 * vektoru upita i vektoru dokumenta podijeljen umnoškom njihovih modula
+	 *
+	 * @param environment
+	 *            okruženje s rezultatima
+	 * @param provider
+	 *            pružatelj pretraživanja
+	 * @param queryVector
+	 *            vektor upita
+	 * @param terms
+	 *            različiti pojmovi upita
+	 */
+	private void printBreakdown(IEnvironment environment, SearchProvider provider, DocumentVector queryVector,
+			List<String> terms) {
+		environment.writeLine("Doprinosi pojmova:");
+		List<Result> results = environment.getResults();
+		for (int i = 0, len = results.size(); i < len; i++) {
+			DocumentVector document = provider.getDocumentVector(results.get(i).getFilePath());
+			if (document == null) {
+				environment.writeLine(String.format("[%2d] dokument iz dodanog segmenta", i));
+				continue;
+			}
+
+			StringBuilder sb = new StringBuilder(String.format("[%2d]", i));
+			double norm = queryVector.getModul() * document.getModul();
+			for (String term : terms) {
+				int id = provider.getVocabulary().getId(term);
+				if (id < 0 || document.getTfidf()[id] == 0) {
+					continue;
+				}
+
+				double contribution = queryVector.getTfidf()[id] * document.getTfidf()[id] / norm;
+				sb.append(String.format(" %s=%.4f (tf-idf %.3f)", term, contribution, document.getTfidf()[id]));
+			}
+			environment.writeLine(sb.toString());
+		}
+	}
+}
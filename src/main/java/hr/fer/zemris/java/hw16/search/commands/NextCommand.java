@@ -0,0 +1,32 @@
+package hr.fer.zemris.java.hw16.search.commands;
+
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.environment.ResultCursor;
+
+/**
+ * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
+ * pozivom metode {@link #execute(IEnvironment)} ispisuju stranicu zadnjeg
+ * upita koja slijedi zadnju prikazanu stranicu (vidi {@link PageCommand}).
+ * Cijena dohvata stranice razmjerna je broju njenih rezultata (vidi
+ * {@link ResultCursor}).
+ *
+ * @see ICommand
+ * @see PageCommand
+ *
+ * @author Davor Češljaš
+ */
+public class NextCommand implements ICommand {
+
+	/**
+	 * Konstanta koja predstavlja naziv ove naredbe, ujedino i ključna riječ
+	 * koju korisnik upisuje kako bi pokrenuo ovu naredbu
+	 */
+	public static final String NAME = "next";
+
+	@Override
+	public CommandStatus execute(IEnvironment environment) {
+		ResultCursor cursor = environment.getCursor();
+		PageCommand.showPage(environment, cursor == null ? 1 : cursor.getPage() + 1);
+		return CommandStatus.CONTINUE;
+	}
+}
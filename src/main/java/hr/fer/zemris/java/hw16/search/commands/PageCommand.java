@@ -0,0 +1,84 @@
+package hr.fer.zemris.java.hw16.search.commands;
+
+import java.util.List;
+
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+import hr.fer.zemris.java.hw16.search.environment.ResultCursor;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
+ * pozivom metode {@link #execute(IEnvironment)} ispisuju stranicu zadnjeg
+ * upita naredbe {@link QueryCommand} s rednim brojem predanim kao jedini
+ * argument. Stranica se dohvaća iz pokazivača na stranice rezultata (vidi
+ * {@link ResultCursor}) bez ponovnog pretraživanja, a njeni rezultati postaju
+ * zadnji rezultati, pa se mogu ispisati naredbom {@link TypeCommand}.
+ *
+ * @see ICommand
+ * @see NextCommand
+ *
+ * @author Davor Češljaš
+ */
+public class PageCommand implements ICommand {
+
+	/**
+	 * Konstanta koja predstavlja naziv ove naredbe, ujedino i ključna riječ
+	 * koju korisnik upisuje kako bi pokrenuo ovu naredbu
+	 */
+	public static final String NAME = "page";
+
+	@Override
+	public CommandStatus execute(IEnvironment environment) {
+		List<String> args = environment.getArguments();
+		if (args.size() != 1) {
+			environment.writeLine("Očekivani argument: <redni broj stranice>");
+			return CommandStatus.CONTINUE;
+		}
+
+		int number;
+		try {
+			number = Integer.parseInt(args.get(0));
+		} catch (NumberFormatException e) {
+			environment.writeLine("Unos '" + args.get(0) + "' ne mogu protumačiti kao redni broj stranice.");
+			return CommandStatus.CONTINUE;
+		}
+
+		if (number < 1) {
+			environment.writeLine("Redni broj stranice mora biti pozitivan.");
+			return CommandStatus.CONTINUE;
+		}
+
+		showPage(environment, number);
+		return CommandStatus.CONTINUE;
+	}
+
+	/**
+	 * Statička metoda koja ispisuje stranicu s rednim brojem <b>number</b>
+	 * pokazivača na stranice rezultata okruženja <b>environment</b>
+	 *
+	 * @param environment
+	 *            okruženje s pokazivačem na stranice rezultata
+	 * @param number
+	 *            redni broj stranice
+	 */
+	static void showPage(IEnvironment environment, int number) {
+		ResultCursor cursor = environment.getCursor();
+		if (cursor == null) {
+			environment.writeLine("Zadnji rezultati nemaju stranica, molimo Vas unesite upit");
+			return;
+		}
+
+		List<Result> page = cursor.page(number);
+		if (page.isEmpty()) {
+			environment.writeLine("Stranica " + number + " ne postoji.");
+			return;
+		}
+
+		environment.setResults(SearchProvider.getProvider().withSnippets(page, cursor.getQueryWords()), cursor);
+		int from = (number - 1) * cursor.getPageSize();
+		environment.writeLine(
+				String.format("Stranica %d (rezultati %d-%d):", number, from + 1, from + page.size()));
+		environment.printResults();
+	}
+}
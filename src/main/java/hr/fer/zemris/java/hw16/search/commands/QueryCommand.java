@@ -1,13 +1,12 @@
 package hr.fer.zemris.java.hw16.search.commands;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
-import hr.fer.zemris.java.hw16.search.environment.Result;
-import hr.fer.zemris.java.hw16.search.provider.DocumentVector;
+import hr.fer.zemris.java.hw16.search.environment.ResultCursor;
+import hr.fer.zemris.java.hw16.search.provider.BooleanQuery;
+import hr.fer.zemris.java.hw16.search.provider.MetadataFilter;
+import hr.fer.zemris.java.hw16.search.provider.QueryDeadline;
 import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
 
 /**
@@ -18,7 +17,21 @@ import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
  * <a href = "https://en.wikipedia.org/wiki/Tf%E2%80%93idf">TF-IDF(engl. term
  * frequency–inverse document frequency)</a>. Kao rezultat ispisuje se
  * maksimalno {@value #MAX_RESULTS} rezultata sa prikazanim sličnostima u
- * padajućem redoslijedu.
+ * padajućem redoslijedu, a uz svaki rezultat ispisuje se i isječak teksta sa
+ * istaknutim riječima upita. Riječi s prefiksom {@value BooleanQuery#REQUIRED}
+ * moraju se nalaziti u svakom rezultatu, riječi s prefiksom
+ * {@value BooleanQuery#EXCLUDED} ne smiju se nalaziti niti u jednom, a uz
+ * operator {@value BooleanQuery#AND} obavezne su sve riječi (vidi
+ * {@link BooleanQuery}). Riječima oblika <code>section:spo</code> i
+ * <code>date:1999-10..1999-12</code> pretraga se ograničava na dokumente
+ * zadane rubrike i razdoblja (vidi {@link MetadataFilter}). Ukoliko je
+ * svojstvom sustava {@value QueryDeadline#DEADLINE_PROPERTY} zadan rok upita,
+ * a on istekne prije kraja bodovanja, ili je upit otkazan (vidi
+ * {@link IEnvironment#cancelQueries()}), ispisuju se najbolji dotad pronađeni
+ * rezultati uz upozorenje da su djelomični.
+ * Svi bodovani rezultati čuvaju se u pokazivaču na stranice (vidi
+ * {@link ResultCursor}), pa se sljedeće stranice dohvaćaju naredbama
+ * {@link NextCommand} i {@link PageCommand} bez ponovnog pretraživanja.
  * 
  * @see ICommand
  * 
@@ -36,24 +49,29 @@ public class QueryCommand implements ICommand {
 	 * Konstanta koja predstavlja maksimalan broj rezultata pretraživanja koji
 	 * će se ispisati korisniku pozivom metode {@link #execute(IEnvironment)}
 	 */
-	private static final int MAX_RESULTS = 10;
+	public static final int MAX_RESULTS = 10;
 
 	@Override
 	public CommandStatus execute(IEnvironment environment) {
-		List<String> args = environment.getArguments();
-
-		args = args.stream().filter(word -> SearchProvider.getProvider().getVocabulary().contains(word))
-				.collect(Collectors.toList());
+		BooleanQuery query = parseQuery(environment);
+		if (query == null) {
+			return CommandStatus.CONTINUE;
+		}
 
-		if (args.size() == 0) {
+		SearchProvider provider = SearchProvider.getProvider();
+		QueryDeadline deadline = environment.createDeadline();
+		ResultCursor cursor = search(provider, query, deadline);
+		if (cursor == null) {
 			environment.writeLine("Upit je prazan, molimo Vas unesite drugi upit");
 			return CommandStatus.CONTINUE;
 		}
 
+		List<String> args = cursor.getQueryWords();
 		environment.writeLine("Upit je: " + args.toString());
+		printConditions(environment, query);
+		environment.setResults(provider.withSnippets(cursor.page(1), args), cursor);
 
-		environment.setResults(calculateResults(args));
-
+		printPartialWarning(environment, deadline);
 		environment.writeLine("Najboljih 10 rezultata:");
 		environment.printResults();
 
@@ -61,34 +79,84 @@ public class QueryCommand implements ICommand {
 	}
 
 	/**
-	 * Pomoćna metoda koja se koristi za računje rezultata pretraživanja. Metoda
-	 * prima argumente koji se pretražuju preko parametra <b>args</b>. Za
-	 * pretraživanje se koristi algoritam
-	 * <a href = "https://en.wikipedia.org/wiki/Tf%E2%80%93idf">TF-IDF(engl.
-	 * term frequency–inverse document frequency)</a>. Metoda vraća {@link List}
-	 * primjeraka razreda {@link Result}, a koji predstavljaju rezultate
-	 * pretraživanja
+	 * Statička metoda koja izvodi upit <b>query</b> nad indeksom
+	 * <b>provider</b>: riječi koje se boduju svode se na pojmove vokabulara
+	 * (vidi {@link SearchProvider#filterQueryWords(List)}), a bodovanje se
+	 * ograničava logičkim uvjetima i uvjetima nad metapodacima upita. Metodu
+	 * koriste i ova naredba i paketna obrada upita, pa su im rezultati jednaki.
 	 *
-	 * @param args
-	 *            {@link List} primjeraka razreda {@link String} koji
-	 *            predstavljaju riječi koje se pretražuju
-	 * @return {@link List} primjeraka razreda {@link Result}, a koji
-	 *         predstavljaju rezultate pretraživanja
+	 * @param provider
+	 *            indeks nad kojim se pretražuje
+	 * @param query
+	 *            upit izdvojen metodom {@link BooleanQuery#parse(List)}
+	 * @param deadline
+	 *            rok upita ili <code>null</code>
+	 * @return pokazivač na stranice s {@value #MAX_RESULTS} rezultata ili
+	 *         <code>null</code> ukoliko upit nema niti jedan pojam vokabulara
+	 *         koji se boduje
 	 */
-	private List<Result> calculateResults(List<String> args) {
-		Map<String, Integer> wordTimes = SearchProvider.countWordsInDocument(args.toArray(new String[0]));
+	public static ResultCursor search(SearchProvider provider, BooleanQuery query, QueryDeadline deadline) {
+		List<String> words = provider.filterQueryWords(query.getScoringWords());
+		if (words.isEmpty()) {
+			return null;
+		}
 
-		DocumentVector queryVector = SearchProvider.createDocumentVector(NAME, wordTimes);
+		return provider.searchCursor(words, query, MAX_RESULTS, null, deadline);
+	}
 
-		List<Result> results = new ArrayList<>();
-		for (DocumentVector documentVector : SearchProvider.getProvider().getDocumentVectors()) {
-			results.add(new Result(DocumentVector.calculateSimilarity(queryVector, documentVector),
-					documentVector.getFilePath()));
+	/**
+	 * Statička metoda koja iz argumenata okruženja <b>environment</b> izdvaja
+	 * logičke uvjete upita. Ukoliko neki uvjet nad metapodacima nije ispravan,
+	 * ispisuje se poruka o pogrešci.
+	 *
+	 * @param environment
+	 *            okruženje s argumentima naredbe
+	 * @return logički uvjeti upita ili <code>null</code> ukoliko upit nije
+	 *         ispravan
+	 */
+	static BooleanQuery parseQuery(IEnvironment environment) {
+		try {
+			return BooleanQuery.parse(environment.getArguments());
+		} catch (IllegalArgumentException e) {
+			environment.writeLine(e.getMessage());
+			return null;
 		}
+	}
 
-		results = results.stream().filter(res -> res.getSimilarity() > 0).sorted().limit(MAX_RESULTS)
-				.collect(Collectors.toList());
+	/**
+	 * Statička metoda koja ispisuje logičke uvjete upita <b>query</b>, ukoliko
+	 * ih upit ima
+	 *
+	 * @param environment
+	 *            okruženje koje se koristi za ispis
+	 * @param query
+	 *            logički uvjeti upita
+	 */
+	static void printConditions(IEnvironment environment, BooleanQuery query) {
+		if (query.isRestrictive()) {
+			environment.writeLine("Uvjeti: " + query);
+		}
+	}
+
+	/**
+	 * Statička metoda koja ispisuje upozorenje ukoliko je rok upita
+	 * <b>deadline</b> istekao ili je upit otkazan prije kraja bodovanja
+	 *
+	 * @param environment
+	 *            okruženje koje se koristi za ispis
+	 * @param deadline
+	 *            rok upita ili <code>null</code>
+	 */
+	static void printPartialWarning(IEnvironment environment, QueryDeadline deadline) {
+		if (deadline == null || !deadline.isPartial()) {
+			return;
+		}
 
-		return results;
+		if (deadline.isCancelled()) {
+			environment.writeLine("Upit je otkazan, rezultati su djelomični.");
+		} else {
+			environment.writeLine(String.format("Rok od %d ms je istekao, rezultati su djelomični.",
+					deadline.getTimeoutMillis()));
+		}
 	}
 }
@@ -0,0 +1,142 @@
+package hr.fer.zemris.java.hw16.search.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+import hr.fer.zemris.java.hw16.search.provider.Segment;
+import hr.fer.zemris.java.hw16.search.provider.SegmentedIndex;
+
+/**
+ * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
+ * pozivom metode {@link #execute(IEnvironment)} upravljaju dokumentima koji se
+ * dodaju i brišu nakon učitavanja, bez ponovne izgradnje indeksa (vidi
+ * {@link SegmentedIndex}). Bez argumenata naredba ispisuje bazni indeks i sve
+ * segmente s brojem dokumenata i izbrisanih dokumenata te pogrešku zadnjeg
+ * pozadinskog spajanja, ukoliko ga nije bilo moguće dovršiti. Naredba prima
+ * sljedeće opcionalne argumente:
+ * <ul>
+ * <li><code>add &lt;datoteka|direktorij&gt;</code> - dodaje dokument ili sve
+ * dokumente direktorija</li>
+ * <li><code>delete &lt;datoteka&gt;</code> - briše dokument</li>
+ * <li><code>flush</code> - zapisuje memorijski segment na disk</li>
+ * <li><code>merge</code> - spaja sve segmente u jedan</li>
+ * </ul>
+ * Indeks pročitan iz snimke (vidi {@link SearchProvider#getSnapshotVersion()})
+ * ne može se mijenjati.
+ *
+ * @see ICommand
+ * @see SegmentedIndex
+ *
+ * @author Davor Češljaš
+ */
+public class SegmentsCommand implements ICommand {
+
+	/**
+	 * Konstanta koja predstavlja naziv ove naredbe, ujedino i ključna riječ
+	 * koju korisnik upisuje kako bi pokrenuo ovu naredbu
+	 */
+	public static final String NAME = "segments";
+
+	@Override
+	public CommandStatus execute(IEnvironment environment) {
+		List<String> args = environment.getArguments();
+		SearchProvider provider = SearchProvider.getProvider();
+
+		if (!args.isEmpty() && provider.getSnapshotVersion() != 0) {
+			environment.writeLine(String.format("Indeks '%s' pročitan je iz snimke i ne može se mijenjati.",
+					provider.getName()));
+			return CommandStatus.CONTINUE;
+		}
+
+		try {
+			SegmentedIndex index = provider.getSegmentedIndex();
+			if (args.isEmpty()) {
+				printSegments(environment, index);
+			} else if (args.size() == 2 && args.get(0).equals("add")) {
+				addDocuments(environment, provider, Paths.get(args.get(1)));
+			} else if (args.size() == 2 && args.get(0).equals("delete")) {
+				String path = Paths.get(args.get(1)).toAbsolutePath().toString();
+				environment.writeLine(index.delete(path) ? "Dokument '" + path + "' je izbrisan."
+						: "Dokument '" + path + "' nije indeksiran.");
+			} else if (args.size() == 1 && args.get(0).equals("flush")) {
+				index.flush();
+				environment.writeLine("Memorijski segment je zapisan.");
+			} else if (args.size() == 1 && args.get(0).equals("merge")) {
+				index.forceMerge();
+				environment.writeLine("Segmenti su spojeni.");
+			} else {
+				environment.writeLine(
+						"Očekivani argumenti: [add <datoteka|direktorij> | delete <datoteka> | flush | merge]");
+			}
+		} catch (IOException e) {
+			environment.writeLine("Segmente nije moguće izmijeniti: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			environment.writeLine("Spajanje segmenata je prekinuto.");
+		}
+
+		return CommandStatus.CONTINUE;
+	}
+
+	/**
+	 * Pomoćna metoda koja ispisuje bazni indeks, sve segmente i pogrešku
+	 * zadnjeg pozadinskog spajanja
+	 *
+	 * @param environment
+	 *            okruženje koje se koristi za ispis
+	 * @param index
+	 *            segmenti koji se ispisuju
+	 */
+	private void printSegments(IEnvironment environment, SegmentedIndex index) {
+		SearchProvider provider = SearchProvider.getProvider();
+		environment.writeLine(String.format("Bazni indeks: %d dokumenata, %d izbrisanih",
+				provider.getDocumentVectors().size(), index.baseDeletedCount()));
+		for (Segment segment : index.getSegments()) {
+			environment.writeLine(String.format("%s: %d dokumenata, %d izbrisanih", segment.getName(), segment.size(),
+					index.deletedCount(segment)));
+		}
+		environment.writeLine(String.format("Memorijski segment: %d dokumenata", index.memtableSize()));
+		environment.writeLine("Direktorij segmenata: "
+				+ (index.getDirectory() == null ? "nema, segmenti su samo u memoriji" : index.getDirectory()));
+		if (index.getMergeError() != null) {
+			environment.writeLine("Pozadinsko spajanje nije uspjelo: " + index.getMergeError().getMessage());
+		}
+	}
+
+	/**
+	 * Pomoćna metoda koja dodaje dokument s putanjom <b>path</b> ili sve
+	 * dokumente direktorija s tom putanjom
+	 *
+	 * @param environment
+	 *            okruženje koje se koristi za ispis
+	 * @param provider
+	 *            pružatelj pretraživanja kojem se dokumenti dodaju
+	 * @param path
+	 *            putanja do dokumenta ili direktorija
+	 * @throws IOException
+	 *             Ukoliko se neki dokument ne može pročitati ili dodati
+	 */
+	private void addDocuments(IEnvironment environment, SearchProvider provider, Path path) throws IOException {
+		if (!Files.exists(path)) {
+			environment.writeLine("Datoteka '" + path + "' ne postoji.");
+			return;
+		}
+
+		File[] documents = Files.isDirectory(path) ? path.toFile().listFiles() : new File[] { path.toFile() };
+		int added = 0;
+		for (File document : documents) {
+			if (document.isFile()) {
+				provider.addDocument(document.toPath());
+				added++;
+			}
+		}
+
+		environment.writeLine("Dodano dokumenata: " + added);
+	}
+}
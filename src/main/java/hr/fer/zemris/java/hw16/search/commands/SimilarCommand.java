@@ -0,0 +1,84 @@
+package hr.fer.zemris.java.hw16.search.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+import hr.fer.zemris.java.hw16.search.provider.DocumentVector;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
+ * pozivom metode {@link #execute(IEnvironment)}, a ovisno od argumenta koji se
+ * može naći unutar primjerka razreda koji implementira sučelje
+ * {@link IEnvironment}, pronalaze dokumente slične rezultatu s tim rednim
+ * brojem (vidi {@link SearchProvider#similar(String, int, int)}). Kao upit se
+ * koristi najviše {@value #MAX_TERMS} pojmova s najvećom težinom u vektoru
+ * tog dokumenta, a pronađeni dokumenti postaju novi rezultati.
+ *
+ * @see ICommand
+ * @see IEnvironment
+ *
+ * @author Davor Češljaš
+ */
+public class SimilarCommand implements ICommand {
+
+	/**
+	 * Konstanta koja predstavlja naziv ove naredbe, ujedino i ključna riječ
+	 * koju korisnik upisuje kako bi pokrenuo ovu naredbu
+	 */
+	public static final String NAME = "similar";
+
+	/** Konstanta koja predstavlja najveći broj pojmova upita */
+	public static final int MAX_TERMS = 25;
+
+	@Override
+	public CommandStatus execute(IEnvironment environment) {
+		List<String> args = environment.getArguments();
+
+		if (args.size() != 1) {
+			environment.writeLine("Potreban broj argumenata je 1, Vi ste predali " + args.size());
+			return CommandStatus.CONTINUE;
+		}
+
+		int index;
+		try {
+			index = Integer.parseInt(args.get(0));
+		} catch (NumberFormatException e) {
+			environment.writeLine("Unos '" + args.get(0) + "' ne mogu protumačiti kao indeks rezultata.");
+			return CommandStatus.CONTINUE;
+		}
+
+		Result result = null;
+		try {
+			result = environment.getResults().get(index);
+		} catch (IndexOutOfBoundsException | NullPointerException e) {
+			environment.writeLine("Ne postoji rezultat na poziciji  " + index);
+			return CommandStatus.CONTINUE;
+		}
+
+		SearchProvider provider = SearchProvider.getProvider();
+		DocumentVector vector = provider.getDocumentVector(result.getFilePath());
+		if (vector == null) {
+			environment.writeLine("Dokument '" + result.getFilePath() + "' nije indeksiran.");
+			return CommandStatus.CONTINUE;
+		}
+
+		List<String> terms = new ArrayList<>();
+		for (int termId : vector.topTerms(MAX_TERMS)) {
+			terms.add(provider.getVocabulary().getTerm(termId));
+		}
+
+		environment.writeLine("Dokumenti slični dokumentu: " + result.getFilePath());
+		environment.writeLine("Upit je: " + terms.toString());
+
+		environment.setResults(provider
+				.withSnippets(provider.similar(result.getFilePath(), MAX_TERMS, QueryCommand.MAX_RESULTS), terms));
+
+		environment.writeLine("Najboljih 10 rezultata:");
+		environment.printResults();
+
+		return CommandStatus.CONTINUE;
+	}
+}
@@ -0,0 +1,70 @@
+package hr.fer.zemris.java.hw16.search.commands;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.provider.IndexSnapshot;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+import hr.fer.zemris.java.hw16.search.provider.SnapshotReplica;
+import hr.fer.zemris.java.hw16.search.provider.SnapshotWriter;
+
+/**
+ * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
+ * pozivom metode {@link #execute(IEnvironment)} izvoze snimku aktivnog indeksa
+ * (vidi {@link SnapshotWriter}) u direktorij predan kao argument ili, ukoliko
+ * argumenta nema, u direktorij zadan svojstvom sustava
+ * {@value SnapshotWriter#DIRECTORY_PROPERTY}. Nakon izvoza ispisuju se
+ * inačica snimke, broj i veličina njenih datoteka te veličina promjena
+ * zapisanih tom inačicom. Ukoliko je aktivni indeks pročitan iz snimke (vidi
+ * {@link SnapshotReplica}), naredba samo ispisuje inačicu snimke.
+ *
+ * @see ICommand
+ * @see SnapshotWriter
+ *
+ * @author Davor Češljaš
+ */
+public class SnapshotCommand implements ICommand {
+
+	/**
+	 * Konstanta koja predstavlja naziv ove naredbe, ujedino i ključna riječ
+	 * koju korisnik upisuje kako bi pokrenuo ovu naredbu
+	 */
+	public static final String NAME = "snapshot";
+
+	@Override
+	public CommandStatus execute(IEnvironment environment) {
+		List<String> args = environment.getArguments();
+		SearchProvider provider = SearchProvider.getProvider();
+		if (args.size() > 1) {
+			environment.writeLine("Očekivani argumenti: [direktorij]");
+			return CommandStatus.CONTINUE;
+		}
+
+		if (provider.getSnapshotVersion() != 0) {
+			environment.writeLine(String.format("Indeks '%s' pročitan je iz snimke inačice %d.", provider.getName(),
+					provider.getSnapshotVersion()));
+			return CommandStatus.CONTINUE;
+		}
+
+		String directory = args.isEmpty() ? System.getProperty(SnapshotWriter.DIRECTORY_PROPERTY) : args.get(0);
+		if (directory == null) {
+			environment.writeLine("Direktorij snimki nije zadan niti svojstvom sustava "
+					+ SnapshotWriter.DIRECTORY_PROPERTY);
+			return CommandStatus.CONTINUE;
+		}
+
+		try {
+			IndexSnapshot snapshot = SnapshotWriter.getWriter(Paths.get(directory)).export(provider);
+			environment.writeLine(String.format(
+					"Snimka indeksa '%s' je inačice %d: %d datoteka, %d okteta, od čega je tom inačicom zapisano %d okteta.",
+					snapshot.getName(), snapshot.getVersion(), snapshot.getFiles().size(), snapshot.sizeInBytes(),
+					snapshot.deltaSizeInBytes()));
+		} catch (IOException e) {
+			environment.writeLine("Snimku nije moguće zapisati: " + e.getMessage());
+		}
+
+		return CommandStatus.CONTINUE;
+	}
+}
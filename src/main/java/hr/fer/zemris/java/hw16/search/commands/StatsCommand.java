@@ -0,0 +1,97 @@
+package hr.fer.zemris.java.hw16.search.commands;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.metrics.MetricsDumper;
+import hr.fer.zemris.java.hw16.search.metrics.MetricsRegistry;
+
+/**
+ * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
+ * pozivom metode {@link #execute(IEnvironment)} korisniku ispisuju sva mjerenja
+ * registra {@link MetricsRegistry} (brojače te histograme trajanja pojedinih
+ * faza izgradnje indeksa i izvođenja upita). Naredba prima sljedeće
+ * opcionalne argumente:
+ * <ul>
+ * <li><code>reset</code> - briše sve zapise mjerenja</li>
+ * <li><code>dump &lt;datoteka&gt; &lt;sekunde&gt;</code> - pokreće periodično
+ * zapisivanje izvještaja u datoteku</li>
+ * <li><code>dump off</code> - zaustavlja periodično zapisivanje</li>
+ * </ul>
+ * 
+ * @see ICommand
+ * @see MetricsRegistry
+ * @see MetricsDumper
+ * 
+ * @author Davor Češljaš
+ */
+public class StatsCommand implements ICommand {
+
+	/**
+	 * Konstanta koja predstavlja naziv ove naredbe, ujedino i ključna riječ
+	 * koju korisnik upisuje kako bi pokrenuo ovu naredbu
+	 */
+	public static final String NAME = "stats";
+
+	@Override
+	public CommandStatus execute(IEnvironment environment) {
+		List<String> args = environment.getArguments();
+
+		if (args.isEmpty()) {
+			environment.write(MetricsRegistry.getRegistry().report());
+			return CommandStatus.CONTINUE;
+		}
+
+		if (args.size() == 1 && args.get(0).equals("reset")) {
+			MetricsRegistry.getRegistry().reset();
+			environment.writeLine("Mjerenja su obrisana.");
+			return CommandStatus.CONTINUE;
+		}
+
+		if (args.size() == 2 && args.get(0).equals("dump") && args.get(1).equals("off")) {
+			environment.writeLine(MetricsDumper.stop() ? "Periodično zapisivanje je zaustavljeno."
+					: "Periodično zapisivanje nije aktivno.");
+			return CommandStatus.CONTINUE;
+		}
+
+		if (args.size() == 3 && args.get(0).equals("dump")) {
+			return startDump(environment, args.get(1), args.get(2));
+		}
+
+		environment.writeLine("Očekivani argumenti: [reset | dump <datoteka> <sekunde> | dump off]");
+		return CommandStatus.CONTINUE;
+	}
+
+	/**
+	 * Pomoćna metoda koja pokreće periodično zapisivanje izvještaja u datoteku
+	 * s putanjom <b>file</b> svakih <b>period</b> sekundi.
+	 *
+	 * @param environment
+	 *            okruženje koje se koristi za ispis poruka
+	 * @param file
+	 *            putanja do datoteke u koju se zapisuje
+	 * @param period
+	 *            period zapisivanja u sekundama
+	 * @return uvijek {@link CommandStatus#CONTINUE}
+	 */
+	private CommandStatus startDump(IEnvironment environment, String file, String period) {
+		long seconds;
+		try {
+			seconds = Long.parseLong(period);
+		} catch (NumberFormatException e) {
+			environment.writeLine("Unos '" + period + "' ne mogu protumačiti kao broj sekundi.");
+			return CommandStatus.CONTINUE;
+		}
+
+		try {
+			MetricsDumper.start(Paths.get(file), seconds);
+		} catch (IllegalArgumentException e) {
+			environment.writeLine("Periodično zapisivanje nije moguće pokrenuti: " + e.getMessage());
+			return CommandStatus.CONTINUE;
+		}
+
+		environment.writeLine(String.format("Mjerenja se zapisuju u '%s' svakih %d s.", file, seconds));
+		return CommandStatus.CONTINUE;
+	}
+}
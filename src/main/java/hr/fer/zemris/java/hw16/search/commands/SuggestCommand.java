@@ -0,0 +1,65 @@
+package hr.fer.zemris.java.hw16.search.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.provider.CompletionIndex;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
+ * pozivom metode {@link #execute(IEnvironment)} za prefiks koji je korisnik
+ * unio ispisuju najčešće pojmove vokabulara koji njime započinju, zajedno s
+ * brojem njihovih pojavljivanja u svim dokumentima. Umjesto korijena
+ * ispisuje se najčešći oblik pojma u dokumentima. Time korisnik može
+ * provjeriti koje riječi upita postoje u vokabularu prije nego ih upit
+ * zanemari. Naredba prima prefiks i opcionalni broj pojmova (najviše
+ * {@value CompletionIndex#MAX_COMPLETIONS}), npr. <code>suggest nog 5</code>.
+ *
+ * @see ICommand
+ * @see CompletionIndex
+ *
+ * @author Davor Češljaš
+ */
+public class SuggestCommand implements ICommand {
+
+	/**
+	 * Konstanta koja predstavlja naziv ove naredbe, ujedino i ključna riječ
+	 * koju korisnik upisuje kako bi pokrenuo ovu naredbu
+	 */
+	public static final String NAME = "suggest";
+
+	@Override
+	public CommandStatus execute(IEnvironment environment) {
+		List<String> args = environment.getArguments();
+		if (args.isEmpty() || args.size() > 2) {
+			environment.writeLine("Očekivani argumenti: <prefiks> [broj pojmova]");
+			return CommandStatus.CONTINUE;
+		}
+
+		int limit = CompletionIndex.MAX_COMPLETIONS;
+		if (args.size() == 2) {
+			try {
+				limit = Integer.parseInt(args.get(1));
+			} catch (NumberFormatException e) {
+				limit = 0;
+			}
+			if (limit < 1) {
+				environment.writeLine("Broj pojmova mora biti pozitivan cijeli broj");
+				return CommandStatus.CONTINUE;
+			}
+		}
+
+		Map<String, Integer> suggestions = SearchProvider.getProvider().suggest(args.get(0), limit);
+		if (suggestions.isEmpty()) {
+			environment.writeLine("Niti jedan pojam ne započinje s '" + args.get(0) + "'.");
+			return CommandStatus.CONTINUE;
+		}
+
+		for (Map.Entry<String, Integer> suggestion : suggestions.entrySet()) {
+			environment.writeLine(String.format("%s (%d)", suggestion.getKey(), suggestion.getValue()));
+		}
+		return CommandStatus.CONTINUE;
+	}
+}
@@ -1,20 +1,21 @@
 package hr.fer.zemris.java.hw16.search.commands;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.List;
 
 import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
 import hr.fer.zemris.java.hw16.search.environment.Result;
+import hr.fer.zemris.java.hw16.search.provider.DocumentStore;
+import hr.fer.zemris.java.hw16.search.provider.DocumentVector;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
 
 /**
  * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
  * pozivom metode {@link #execute(IEnvironment)}, a ovisno od argumenta koji se
  * može naći unutar primjerka razreda koji implementira sučelje
  * {@link IEnvironment}, ispisuju taj redni broj rezultat zadnjeg poziva naredbe
- * {@link QueryCommand#NAME}.
+ * {@link QueryCommand#NAME}. Sadržaj dokumenta dohvaća se iz spremišta
+ * {@link DocumentStore} izgrađenog prilikom učitavanja, pa izvorna datoteka
+ * ne mora biti dostupna.
  * 
  * @see ICommand
  * @see IEnvironment
@@ -58,11 +59,12 @@ public class TypeCommand implements ICommand {
 	}
 
 	/**
-	 * Pomoćna metoda koja se koristi za čitanje datoteke koja se može dohvatiti
-	 * pozivom metode {@link Result#getFilePath()} parametra <b>result</b>.
-	 * Nakon što je sadržaj datoteke pročitan, koristeći primjerak razreda koji
-	 * implementira sučelje {@link IEnvironment}, metoda ispisuje sadržaj
-	 * datoteke, uz nekolicinu popratnih poruka.
+	 * Pomoćna metoda koja se koristi za dohvat sadržaja datoteke koja se može
+	 * dohvatiti pozivom metode {@link Result#getFilePath()} parametra
+	 * <b>result</b> iz spremišta {@link DocumentStore}. Nakon što je sadržaj
+	 * dohvaćen, koristeći primjerak razreda koji implementira sučelje
+	 * {@link IEnvironment}, metoda ispisuje sadržaj datoteke, uz nekolicinu
+	 * popratnih poruka.
 	 *
 	 * @param environment
 	 *            primjerak razreda koji implementira sučelje
@@ -71,26 +73,26 @@ public class TypeCommand implements ICommand {
 	 * @param result
 	 *            primjerak razreda {@link Result} iz kojeg se dohvaća putanja
 	 *            do datoteke, a čiji se sadržaj ispisuje
-	 * @return {@link CommandStatus#EXIT} ukoliko nije moguće pročitati datoteku
-	 *         (dakle je datoteka obrisana) ili {@link CommandStatus#CONTINUE}
-	 *         ukoliko se metoda normalno izvede
+	 * @return {@link CommandStatus#CONTINUE}
 	 */
 	private CommandStatus outputResult(IEnvironment environment, Result result) {
 		String filePath = result.getFilePath();
 
-		String fileContent = null;
-		try {
-			fileContent = new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
-		} catch (IOException e) {
-			environment.writeLine("Datoteka sa putanjom '" + filePath + "' je obrisana.");
-			environment.writeLine("Zatvaram program...");
-			return CommandStatus.EXIT;
+		String fileContent = SearchProvider.getProvider().getDocumentStore().get(filePath);
+		if (fileContent == null) {
+			environment.writeLine("Dokument sa putanjom '" + filePath + "' nije u spremištu dokumenata.");
+			return CommandStatus.CONTINUE;
 		}
 
 		environment.writeLine("Dokument: " + filePath);
 		environment.writeLine("----------------------------------------------------------------");
 		environment.writeLine(fileContent);
 		environment.writeLine("----------------------------------------------------------------");
+
+		DocumentVector vector = SearchProvider.getProvider().getDocumentVector(filePath);
+		if (vector != null && !vector.getDuplicates().isEmpty()) {
+			environment.writeLine("Gotovo jednaki dokumenti: " + String.join(", ", vector.getDuplicates()));
+		}
 		return CommandStatus.CONTINUE;
 	}
 
@@ -0,0 +1,102 @@
+package hr.fer.zemris.java.hw16.search.commands;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.provider.IndexRegistry;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Razred koji implementira sučelje {@link ICommand}. Primjerci ovog razreda
+ * pozivom metode {@link #execute(IEnvironment)} upravljaju imenovanim
+ * indeksima registra {@link IndexRegistry}. Bez argumenata naredba ispisuje
+ * sve registrirane indekse s oznakom aktivnog indeksa, brojem dokumenata i
+ * zauzećem memorije po dijelovima indeksa (vidi
+ * {@link SearchProvider#memoryUsage()}). Naredba prima sljedeće opcionalne
+ * argumente:
+ * <ul>
+ * <li><code>&lt;ime&gt;</code> - postavlja indeks s predanim imenom za
+ * aktivni indeks</li>
+ * <li><code>&lt;ime&gt; &lt;direktorij&gt;</code> - gradi indeks nad
+ * direktorijem, registrira ga pod predanim imenom i postavlja za aktivni
+ * indeks</li>
+ * </ul>
+ * Promjenom aktivnog indeksa brišu se rezultati prethodnog upita.
+ *
+ * @see ICommand
+ * @see IndexRegistry
+ *
+ * @author Davor Češljaš
+ */
+public class UseCommand implements ICommand {
+
+	/**
+	 * Konstanta koja predstavlja naziv ove naredbe, ujedino i ključna riječ
+	 * koju korisnik upisuje kako bi pokrenuo ovu naredbu
+	 */
+	public static final String NAME = "use";
+
+	@Override
+	public CommandStatus execute(IEnvironment environment) {
+		List<String> args = environment.getArguments();
+		IndexRegistry registry = IndexRegistry.getRegistry();
+
+		try {
+			if (args.isEmpty()) {
+				printIndexes(environment, registry);
+				return CommandStatus.CONTINUE;
+			} else if (args.size() == 2) {
+				registry.register(args.get(0), args.get(1));
+			} else if (args.size() != 1) {
+				environment.writeLine("Očekivani argumenti: [<ime> [<direktorij>]]");
+				return CommandStatus.CONTINUE;
+			}
+
+			SearchProvider provider = registry.use(args.get(0));
+			environment.setResults(Collections.emptyList());
+			environment.writeLine(String.format("Aktivni indeks je '%s' (%d dokumenata, %d riječi).",
+					provider.getName(), provider.getDocumentVectors().size(), provider.getVocabulary().size()));
+		} catch (IllegalArgumentException e) {
+			environment.writeLine(e.getMessage());
+		} catch (IOException e) {
+			environment.writeLine("Indeks nije moguće učitati: " + e.getMessage());
+		}
+
+		return CommandStatus.CONTINUE;
+	}
+
+	/**
+	 * Pomoćna metoda koja ispisuje sve registrirane indekse. Za indekse koji
+	 * su izgrađeni ispisuje se i zauzeće memorije po dijelovima indeksa.
+	 *
+	 * @param environment
+	 *            okruženje koje se koristi za ispis
+	 * @param registry
+	 *            registar indeksa
+	 */
+	private void printIndexes(IEnvironment environment, IndexRegistry registry) {
+		String active = registry.getActiveName();
+		for (String name : registry.getNames()) {
+			SearchProvider provider = registry.get(name);
+			String marker = name.equals(active) ? "*" : " ";
+			if (provider == null) {
+				environment.writeLine(String.format("%s %-16s otpušten  %s", marker, name, registry.getDirectory(name)));
+				continue;
+			}
+
+			Map<String, Long> usage = provider.memoryUsage();
+			long total = 0;
+			for (long bytes : usage.values()) {
+				total += bytes;
+			}
+			environment.writeLine(String.format("%s %-16s %d dokumenata, %.1f KiB  %s", marker, name,
+					provider.getDocumentVectors().size(), total / 1024.0, registry.getDirectory(name)));
+			for (Map.Entry<String, Long> part : usage.entrySet()) {
+				environment.writeLine(String.format("    %-16s %12.1f KiB", part.getKey(), part.getValue() / 1024.0));
+			}
+		}
+	}
+}
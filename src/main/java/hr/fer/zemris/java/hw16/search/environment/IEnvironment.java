@@ -2,6 +2,8 @@ package hr.fer.zemris.java.hw16.search.environment;
 
 import java.util.List;
 
+import hr.fer.zemris.java.hw16.search.provider.QueryDeadline;
+
 /**
  * Sučelje koje predstavlja okolinu izvođenja programa. Implementator sučelja
  * mora implementirati sljedeće metode:
@@ -9,11 +11,16 @@ import java.util.List;
  * <li>{@link #readLine()}</li>
  * <li>{@link #write(String)}</li>
  * <li>{@link #writeLine(String)}</li>
+ * <li>{@link #flush()}</li>
  * <li>{@link #getResults()}</li>
  * <li>{@link #setResults(List)}</li>
+ * <li>{@link #setResults(List, ResultCursor)}</li>
+ * <li>{@link #getCursor()}</li>
  * <li>{@link #getArguments()}</li>
  * <li>{@link #setArguments(List)}</li>
  * <li>{@link #printResults()}</li>
+ * <li>{@link #createDeadline()}</li>
+ * <li>{@link #cancelQueries()}</li>
  * </ul>
  * 
  * @author Davor Češljaš
@@ -24,7 +31,8 @@ public interface IEnvironment {
 	 * Metoda koja se koristi za čitanje jednog redka korisnikova unosa iz ulaza
 	 * ovog okruženja.
 	 *
-	 * @return redak korisnika unosa
+	 * @return redak korisnika unosa ili <code>null</code> ukoliko je ulaz
+	 *         iscrpljen
 	 */
 	public String readLine();
 
@@ -48,6 +56,12 @@ public interface IEnvironment {
 	 */
 	public void writeLine(String outputLine);
 
+	/**
+	 * Metoda koja na izlaz ovog okruženja zapisuje sav dosad neispisani
+	 * sadržaj
+	 */
+	public void flush();
+
 	/**
 	 * Metoda koja dohvaća zadnje rezultate pretraživanja modelirane s
 	 * {@link List} primjeraka razreda {@link Result}, a koji su spremljeni
@@ -68,6 +82,26 @@ public interface IEnvironment {
 	 */
 	public void setResults(List<Result> results);
 
+	/**
+	 * Metoda koja postavlja nove zadnje rezultate pretraživanja <b>results</b>
+	 * zajedno s pokazivačem na stranice rezultata upita <b>cursor</b>. Metoda
+	 * {@link #setResults(List)} briše pokazivač.
+	 * 
+	 * @param results
+	 *            novi zadnji rezultati pretraživanja
+	 * @param cursor
+	 *            pokazivač na stranice rezultata ili <code>null</code>
+	 */
+	public void setResults(List<Result> results, ResultCursor cursor);
+
+	/**
+	 * Metoda koja dohvaća pokazivač na stranice rezultata zadnjeg upita
+	 * 
+	 * @return pokazivač na stranice rezultata ili <code>null</code> ukoliko
+	 *         zadnji rezultati nemaju stranica
+	 */
+	public ResultCursor getCursor();
+
 	/**
 	 * Metoda koja dohvaća argumente koji su postavljeni ovom okruženju prilikom
 	 * zadnjeg poziva neke naredbe.
@@ -90,7 +124,24 @@ public interface IEnvironment {
 	/**
 	 * Metoda koja koristeći metode {@link #getResults()} i
 	 * {@link #writeLine(String)} ispisuje rezultate zadnjeg pretraživanja na
-	 * izlaz ovog okruženja
+	 * izlaz ovog okruženja. Ukoliko rezultat ima isječak teksta (vidi
+	 * {@link Result#getSnippet()}), isječak se ispisuje u sljedećem redku.
 	 */
 	public void printResults();
+
+	/**
+	 * Metoda koja stvara rok upita naredbe koja se izvodi u ovom okruženju
+	 * (vidi {@link QueryDeadline#cancellable()}). Upiti čiji su rokovi
+	 * stvoreni ovom metodom otkazuju se metodom {@link #cancelQueries()}.
+	 *
+	 * @return rok upita
+	 */
+	public QueryDeadline createDeadline();
+
+	/**
+	 * Metoda koja otkazuje upit koji se trenutno izvodi u ovom okruženju, kao
+	 * i sve upite pokrenute nakon poziva ove metode. Metoda se smije pozvati
+	 * iz bilo koje dretve.
+	 */
+	public void cancelQueries();
 }
@@ -4,7 +4,9 @@ package hr.fer.zemris.java.hw16.search.environment;
  * Razred koji predstavlja jedan rezultat pretraživanja. Primjerci ovog razreda
  * sastoje se od sličnosti <b>similarity</b>, koja se može dohvatiti metodom
  * {@link #getSimilarity()} te putanje do datoteke koja se uspoređivala
- * <b>filePath</b> koja se može dohvatiti sa {@link #getFilePath()}.
+ * <b>filePath</b> koja se može dohvatiti sa {@link #getFilePath()}. Rezultat
+ * može sadržavati i isječak teksta datoteke <b>snippet</b> koji pokazuje
+ * zašto je datoteka pronađena.
  * 
  * @author Davor Češljaš
  */
@@ -22,6 +24,12 @@ public class Result implements Comparable<Result> {
 	 */
 	private String filePath;
 
+	/**
+	 * Članska varijabla koja predstavlja isječak teksta datoteke ili
+	 * <code>null</code> ukoliko isječak nije izgrađen
+	 */
+	private String snippet;
+
 	/**
 	 * Konstruktor koji inicijalizira primjerak ovog razreda. Unutar
 	 * konstruktora pripadne članske varijable postavljaju se na predane
@@ -34,8 +42,26 @@ public class Result implements Comparable<Result> {
 	 *            pretraživanja
 	 */
 	public Result(double similarity, String filePath) {
+		this(similarity, filePath, null);
+	}
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda. Unutar
+	 * konstruktora pripadne članske varijable postavljaju se na predane
+	 * parametre <b>similarity</b>, <b>filePath</b> i <b>snippet</b>
+	 *
+	 * @param similarity
+	 *            sličnost datoteke sa argumentima pretraživanja
+	 * @param filePath
+	 *            putanju datoteke koja se uspoređivala sa argumentima
+	 *            pretraživanja
+	 * @param snippet
+	 *            isječak teksta datoteke ili <code>null</code>
+	 */
+	public Result(double similarity, String filePath, String snippet) {
 		this.similarity = similarity;
 		this.filePath = filePath;
+		this.snippet = snippet;
 	}
 
 	/**
@@ -58,6 +84,16 @@ public class Result implements Comparable<Result> {
 		return filePath;
 	}
 
+	/**
+	 * Metoda koja dohvaća isječak teksta datoteke
+	 *
+	 * @return isječak teksta datoteke ili <code>null</code> ukoliko isječak
+	 *         nije izgrađen
+	 */
+	public String getSnippet() {
+		return snippet;
+	}
+
 
 	@Override
 	public int compareTo(Result o) {
@@ -0,0 +1,209 @@
+package hr.fer.zemris.java.hw16.search.environment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Razred koji predstavlja pokazivač na stranice rezultata jednog upita. Svi
+ * bodovani rezultati čuvaju se u polju nad kojim je izgrađena binarna gomila
+ * indeksa, pa se sljedeća stranica dobiva uzimanjem onoliko rezultata s vrha
+ * gomile koliko ih stranica ima, bez ponovnog bodovanja i sortiranja svih
+ * rezultata. Rezultati jednake sličnosti poredani su redoslijedom predane
+ * liste, kao i kod stabilnog sortiranja. Već dohvaćene stranice se pamte.
+ * <p>
+ * Ukoliko je zadana funkcija grupe, od rezultata iste grupe (npr. grupe
+ * duplikata) vraća se samo najbolji.
+ *
+ * @author Davor Češljaš
+ */
+public class ResultCursor {
+
+	/** Članska varijabla koja predstavlja sve bodovane rezultate */
+	private final Result[] results;
+
+	/**
+	 * Članska varijabla koja predstavlja gomilu indeksa rezultata čiji je vrh
+	 * najbolji preostali rezultat
+	 */
+	private final int[] heap;
+
+	/** Članska varijabla koja predstavlja broj elemenata gomile */
+	private int heapSize;
+
+	/**
+	 * Članska varijabla koja predstavlja funkciju koja putanju preslikava na
+	 * grupu ili <code>null</code>
+	 */
+	private final Function<String, String> groups;
+
+	/** Članska varijabla koja predstavlja grupe već vraćenih rezultata */
+	private final Set<String> seenGroups = new HashSet<>();
+
+	/** Članska varijabla koja predstavlja dosad dohvaćene rezultate */
+	private final List<Result> fetched = new ArrayList<>();
+
+	/** Članska varijabla koja predstavlja pojmove upita */
+	private final List<String> queryWords;
+
+	/** Članska varijabla koja predstavlja broj rezultata jedne stranice */
+	private final int pageSize;
+
+	/** Članska varijabla koja predstavlja zadnju prikazanu stranicu */
+	private int page;
+
+	/**
+	 * Konstruktor koji gradi gomilu nad rezultatima <b>results</b>
+	 *
+	 * @param results
+	 *            svi bodovani rezultati upita
+	 * @param groups
+	 *            funkcija koja putanju dokumenta preslikava na njegovu grupu
+	 *            ili <code>null</code> ukoliko se rezultati ne grupiraju
+	 * @param queryWords
+	 *            pojmovi upita, za stvaranje isječaka
+	 * @param pageSize
+	 *            broj rezultata jedne stranice
+	 */
+	public ResultCursor(List<Result> results, Function<String, String> groups, List<String> queryWords,
+			int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Stranica mora imati barem jedan rezultat");
+		}
+
+		this.results = results.toArray(new Result[results.size()]);
+		this.groups = groups;
+		this.queryWords = Collections.unmodifiableList(new ArrayList<>(queryWords));
+		this.pageSize = pageSize;
+
+		heapSize = this.results.length;
+		heap = new int[heapSize];
+		for (int i = 0; i < heapSize; i++) {
+			heap[i] = i;
+		}
+		for (int i = heapSize / 2 - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	/**
+	 * Metoda koja dohvaća stranicu s rednim brojem <b>number</b> (počevši od
+	 * 1) i postavlja ju za zadnju prikazanu stranicu. Gomila se prazni samo
+	 * onoliko koliko je potrebno za traženu stranicu.
+	 *
+	 * @param number
+	 *            redni broj stranice
+	 * @return {@link List} rezultata stranice; prazna ukoliko stranica ne
+	 *         postoji
+	 */
+	public List<Result> page(int number) {
+		if (number < 1) {
+			throw new IllegalArgumentException("Redni broj stranice mora biti pozitivan");
+		}
+
+		long end = (long) number * pageSize;
+		while (fetched.size() < end && heapSize > 0) {
+			Result next = poll();
+			if (next != null) {
+				fetched.add(next);
+			}
+		}
+
+		int from = (number - 1) * pageSize;
+		if (from >= fetched.size()) {
+			return Collections.emptyList();
+		}
+
+		page = number;
+		return new ArrayList<>(fetched.subList(from, (int) Math.min(end, fetched.size())));
+	}
+
+	/**
+	 * Metoda koja dohvaća redni broj zadnje prikazane stranice
+	 *
+	 * @return redni broj zadnje prikazane stranice ili 0 ukoliko stranica još
+	 *         nije prikazana
+	 */
+	public int getPage() {
+		return page;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj rezultata jedne stranice
+	 *
+	 * @return broj rezultata jedne stranice
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Metoda koja dohvaća pojmove upita
+	 *
+	 * @return nepromjenjiva {@link List} pojmova upita
+	 */
+	public List<String> getQueryWords() {
+		return queryWords;
+	}
+
+	/**
+	 * Pomoćna metoda koja uklanja najbolji preostali rezultat s vrha gomile
+	 *
+	 * @return najbolji preostali rezultat ili <code>null</code> ukoliko je već
+	 *         vraćen bolji rezultat iste grupe
+	 */
+	private Result poll() {
+		Result best = results[heap[0]];
+		heap[0] = heap[--heapSize];
+		siftDown(0);
+
+		String group = groups == null ? null : groups.apply(best.getFilePath());
+		return group == null || seenGroups.add(group) ? best : null;
+	}
+
+	/**
+	 * Pomoćna metoda koja element gomile na poziciji <b>position</b> spušta
+	 * sve dok nije bolji od svoje djece
+	 *
+	 * @param position
+	 *            pozicija elementa
+	 */
+	private void siftDown(int position) {
+		int element = heap[position];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && isBefore(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!isBefore(heap[child], element)) {
+				break;
+			}
+
+			heap[position] = heap[child];
+			position = child;
+		}
+		heap[position] = element;
+	}
+
+	/**
+	 * Pomoćna metoda koja provjerava je li rezultat s indeksom <b>first</b>
+	 * ispred rezultata s indeksom <b>second</b>
+	 *
+	 * @param first
+	 *            indeks prvog rezultata
+	 * @param second
+	 *            indeks drugog rezultata
+	 * @return <code>true</code> ukoliko prvi rezultat ima veću sličnost ili
+	 *         jednaku sličnost i manji indeks
+	 */
+	private boolean isBefore(int first, int second) {
+		int cmp = Double.compare(results[first].getSimilarity(), results[second].getSimilarity());
+		return cmp > 0 || cmp == 0 && first < second;
+	}
+}
@@ -12,10 +12,13 @@ import java.util.Collections;
 import java.util.List;
 
 import hr.fer.zemris.java.hw16.search.Console;
+import hr.fer.zemris.java.hw16.search.provider.QueryDeadline;
 
 /**
  * Razred koji implementira sučelje {@link IEnvironment}. Ovaj razred koristi se
- * kao okruženje rada programa {@link Console}.
+ * kao okruženje rada programa {@link Console}. Izlaz okruženja može se
+ * prazniti nakon svakog ispisa ili samo pozivom metode {@link #flush()}, što
+ * se koristi prilikom izvođenja skripti.
  * 
  * @see IEnvironment
  * @see Console
@@ -36,12 +39,32 @@ public class SearchEnvironment implements IEnvironment {
 	 */
 	private List<Result> results;
 
+	/**
+	 * Članska varijabla koja predstavlja pokazivač na stranice rezultata
+	 * zadnjeg upita
+	 */
+	private ResultCursor cursor;
+
 	/**
 	 * Članska varijabla koja predstavlja zadnje postavljene argumente
 	 * pretraživanja
 	 */
 	private List<String> arguments;
 
+	/**
+	 * Članska varijabla koja određuje prazni li se izlaz nakon svakog ispisa
+	 */
+	private boolean autoFlush;
+
+	/**
+	 * Članska varijabla koja predstavlja rok zadnjeg upita pokrenutog u ovom
+	 * okruženju
+	 */
+	private volatile QueryDeadline deadline;
+
+	/** Članska varijabla koja određuje jesu li upiti ovog okruženja otkazani */
+	private volatile boolean cancelled;
+
 	/**
 	 * Konstruktor koji inicijalizira primjerak ovog razreda. Konstruktoru je
 	 * potrebno predati primjerak sučelja {@link InputStream}, a koji će se
@@ -56,12 +79,31 @@ public class SearchEnvironment implements IEnvironment {
 	 *            kao izlaz ovog okruženja
 	 */
 	public SearchEnvironment(InputStream is, OutputStream os) {
+		this(is, os, true);
+	}
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda s ulazom <b>is</b>
+	 * i izlazom <b>os</b>. Ukoliko je <b>autoFlush</b> <code>false</code>,
+	 * ispis se zadržava u međuspremniku sve do poziva metode {@link #flush()}.
+	 *
+	 * @param is
+	 *            primjerak sučelja {@link InputStream} koji će se koristiti kao
+	 *            ulaz okruženja
+	 * @param os
+	 *            primjerak sučelja {@link OutputStream} koji će se koristiti
+	 *            kao izlaz ovog okruženja
+	 * @param autoFlush
+	 *            prazni li se izlaz nakon svakog ispisa
+	 */
+	public SearchEnvironment(InputStream is, OutputStream os, boolean autoFlush) {
 		if (is == null || os == null) {
 			throw new IllegalArgumentException("Niti ulazni niti izlazni tok podataka ne smiju biti null");
 		}
 
 		reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
 		writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+		this.autoFlush = autoFlush;
 	}
 
 	@Override
@@ -83,6 +125,16 @@ public class SearchEnvironment implements IEnvironment {
 			}
 
 			writer.write(output);
+			if (autoFlush) {
+				writer.flush();
+			}
+		} catch (IOException e) {
+		}
+	}
+
+	@Override
+	public void flush() {
+		try {
 			writer.flush();
 		} catch (IOException e) {
 		}
@@ -104,7 +156,18 @@ public class SearchEnvironment implements IEnvironment {
 
 	@Override
 	public void setResults(List<Result> results) {
+		setResults(results, null);
+	}
+
+	@Override
+	public void setResults(List<Result> results, ResultCursor cursor) {
 		this.results = Collections.unmodifiableList(results);
+		this.cursor = cursor;
+	}
+
+	@Override
+	public ResultCursor getCursor() {
+		return cursor;
 	}
 
 	@Override
@@ -126,6 +189,29 @@ public class SearchEnvironment implements IEnvironment {
 
 		for (int i = 0, len = results.size(); i < len; i++) {
 			writeLine(String.format("[%2d] %s", i, results.get(i)));
+			if (results.get(i).getSnippet() != null) {
+				writeLine("     " + results.get(i).getSnippet());
+			}
+		}
+	}
+
+	@Override
+	public QueryDeadline createDeadline() {
+		QueryDeadline deadline = QueryDeadline.cancellable();
+		this.deadline = deadline;
+		if (cancelled) {
+			deadline.cancel();
+		}
+
+		return deadline;
+	}
+
+	@Override
+	public void cancelQueries() {
+		cancelled = true;
+		QueryDeadline deadline = this.deadline;
+		if (deadline != null) {
+			deadline.cancel();
 		}
 	}
 
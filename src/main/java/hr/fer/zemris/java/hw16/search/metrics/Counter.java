@@ -0,0 +1,51 @@
+package hr.fer.zemris.java.hw16.search.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Razred koji predstavlja jednostavan brojač događaja. Brojač je siguran za
+ * korištenje iz više dretvi istovremeno, a povećavanje brojača ne zaključava
+ * niti jednu dretvu.
+ * 
+ * @see MetricsRegistry
+ * 
+ * @author Davor Češljaš
+ */
+public class Counter {
+
+	/** Članska varijabla koja predstavlja trenutnu vrijednost brojača */
+	private final LongAdder value = new LongAdder();
+
+	/**
+	 * Metoda koja povećava brojač za 1
+	 */
+	public void increment() {
+		value.increment();
+	}
+
+	/**
+	 * Metoda koja povećava brojač za predanu vrijednost <b>amount</b>
+	 *
+	 * @param amount
+	 *            vrijednost za koju se brojač povećava
+	 */
+	public void add(long amount) {
+		value.add(amount);
+	}
+
+	/**
+	 * Metoda koja dohvaća trenutnu vrijednost brojača
+	 *
+	 * @return trenutna vrijednost brojača
+	 */
+	public long get() {
+		return value.sum();
+	}
+
+	/**
+	 * Metoda koja postavlja brojač na 0
+	 */
+	public void reset() {
+		value.reset();
+	}
+}
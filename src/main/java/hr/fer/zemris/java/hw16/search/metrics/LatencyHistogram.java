@@ -0,0 +1,197 @@
+package hr.fer.zemris.java.hw16.search.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Razred koji predstavlja histogram trajanja izraženih u nanosekundama. Pretinci
+ * histograma raspoređeni su po uzoru na
+ * <a href = "http://hdrhistogram.org/">HdrHistogram</a>: svaka potencija broja
+ * 2 podijeljena je na {@value #HALF_SUB_BUCKETS} jednakih pretinaca, pa je
+ * relativna pogreška svake izmjerene vrijednosti manja od 2%, neovisno o
+ * redu veličine vrijednosti. Svi pretinci alociraju se prilikom stvaranja
+ * histograma, pa metoda {@link #record(long)} ne alocira memoriju i ne
+ * zaključava niti jednu dretvu.
+ * 
+ * @see MetricsRegistry
+ * 
+ * @author Davor Češljaš
+ */
+public class LatencyHistogram {
+
+	/** Konstanta koja predstavlja broj bitova preciznosti pretinaca */
+	private static final int SUB_BUCKET_BITS = 6;
+
+	/** Konstanta koja predstavlja broj linearnih pretinaca na početku */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Konstanta koja predstavlja broj pretinaca po potenciji broja 2 */
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+	/** Konstanta koja predstavlja ukupan broj pretinaca */
+	private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+	/** Članska varijabla koja predstavlja brojeve zapisa po pretincima */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/** Članska varijabla koja predstavlja ukupan broj zapisa */
+	private final AtomicLong count = new AtomicLong();
+
+	/** Članska varijabla koja predstavlja zbroj svih zapisanih vrijednosti */
+	private final AtomicLong sum = new AtomicLong();
+
+	/** Članska varijabla koja predstavlja najveću zapisanu vrijednost */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Metoda koja u histogram zapisuje jedno trajanje <b>nanos</b>. Negativna
+	 * trajanja zapisuju se kao 0.
+	 *
+	 * @param nanos
+	 *            trajanje izraženo u nanosekundama
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+
+		counts.incrementAndGet(bucketIndex(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+
+		long currentMax;
+		while (value > (currentMax = max.get())) {
+			if (max.compareAndSet(currentMax, value)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Metoda koja u histogram zapisuje trajanje od trenutka <b>startNanos</b>
+	 * (dobivenog pozivom {@link System#nanoTime()}) do trenutka poziva ove
+	 * metode.
+	 *
+	 * @param startNanos
+	 *            trenutak početka mjerenja
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Metoda koja dohvaća ukupan broj zapisa
+	 *
+	 * @return ukupan broj zapisa
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Metoda koja dohvaća zbroj svih zapisanih trajanja u nanosekundama
+	 *
+	 * @return zbroj svih zapisanih trajanja u nanosekundama
+	 */
+	public long getTotalNanos() {
+		return sum.get();
+	}
+
+	/**
+	 * Metoda koja dohvaća najveće zapisano trajanje u nanosekundama
+	 *
+	 * @return najveće zapisano trajanje u nanosekundama
+	 */
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	/**
+	 * Metoda koja dohvaća traženi percentil zapisanih trajanja. Vraćena
+	 * vrijednost je gornja granica pretinca u koji percentil pada, ali nikad
+	 * nije veća od najveće zapisane vrijednosti.
+	 *
+	 * @param percentile
+	 *            traženi percentil iz intervala [0, 100]
+	 * @return traženi percentil u nanosekundama ili 0 ukoliko histogram nema
+	 *         zapisa
+	 */
+	public long percentileNanos(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentil mora biti unutar intervala [0, 100]");
+		}
+
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max((long) Math.ceil(percentile / 100 * total), 1);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(bucketUpperBound(i), max.get());
+			}
+		}
+
+		return max.get();
+	}
+
+	/**
+	 * Metoda koja briše sve zapise ovog histograma. Zapisi koji se dogode
+	 * istovremeno s brisanjem mogu, ali ne moraju biti obrisani.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja računa indeks pretinca u koji pada
+	 * vrijednost <b>value</b>
+	 *
+	 * @param value
+	 *            nenegativna vrijednost
+	 * @return indeks pretinca
+	 */
+	private static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS + 1;
+		int top = (int) (value >>> shift);
+		return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (top - HALF_SUB_BUCKETS);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja računa najveću vrijednost koja pada u
+	 * pretinac s indeksom <b>index</b>
+	 *
+	 * @param index
+	 *            indeks pretinca
+	 * @return najveća vrijednost koja pada u pretinac
+	 */
+	private static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+
+		int offset = index - SUB_BUCKETS;
+		int shift = offset / HALF_SUB_BUCKETS + 1;
+		long top = offset % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+		long upperBound = ((top + 1) << shift) - 1;
+		return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "n=%d ukupno=%.3f ms p50=%.3f ms p90=%.3f ms p99=%.3f ms max=%.3f ms",
+				getCount(), getTotalNanos() / 1e6, percentileNanos(50) / 1e6, percentileNanos(90) / 1e6,
+				percentileNanos(99) / 1e6, getMaxNanos() / 1e6);
+	}
+}
@@ -0,0 +1,136 @@
+package hr.fer.zemris.java.hw16.search.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Razred koji se koristi za periodično zapisivanje izvještaja registra
+ * {@link MetricsRegistry} u datoteku. Izvještaji se dodaju na kraj datoteke,
+ * a svaki izvještaj započinje redkom s vremenom nastanka. Zapisivanje se
+ * obavlja u pozadinskoj (engl. daemon) dretvi, pa ne sprječava završetak
+ * programa. Istovremeno može biti aktivno samo jedno periodično zapisivanje.
+ * Ukoliko zapisivanje izvještaja ne uspije, pogreška se ispisuje na
+ * standardni izlaz za pogreške, a periodično zapisivanje se zaustavlja.
+ * 
+ * @see MetricsRegistry
+ * 
+ * @author Davor Češljaš
+ */
+public class MetricsDumper {
+
+	/**
+	 * Statička varijabla koja predstavlja izvršitelja trenutno aktivnog
+	 * periodičnog zapisivanja ili <code>null</code> ako ono nije aktivno
+	 */
+	private static ScheduledExecutorService executor;
+
+	/**
+	 * Privatni konstruktor koji služi tome da se primjerci ovog razreda ne mogu
+	 * stvarati.
+	 */
+	private MetricsDumper() {
+	}
+
+	/**
+	 * Statička metoda koja pokreće periodično zapisivanje izvještaja u
+	 * datoteku <b>file</b> svakih <b>periodSeconds</b> sekundi. Ukoliko je
+	 * zapisivanje već bilo aktivno, prethodno se zaustavlja.
+	 *
+	 * @param file
+	 *            datoteka u koju se zapisuju izvještaji
+	 * @param periodSeconds
+	 *            period zapisivanja u sekundama
+	 */
+	public static synchronized void start(Path file, long periodSeconds) {
+		if (periodSeconds < 1) {
+			throw new IllegalArgumentException("Period zapisivanja mora biti barem jedna sekunda");
+		}
+
+		stop();
+
+		ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "metrics-dumper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		dumper.scheduleAtFixedRate(() -> dumpOrStop(file, dumper), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+		executor = dumper;
+	}
+
+	/**
+	 * Statička metoda koja zaustavlja periodično zapisivanje, ukoliko je ono
+	 * aktivno
+	 *
+	 * @return <code>true</code> ukoliko je zapisivanje bilo aktivno,
+	 *         <code>false</code> inače
+	 */
+	public static synchronized boolean stop() {
+		if (executor == null) {
+			return false;
+		}
+
+		executor.shutdownNow();
+		executor = null;
+		return true;
+	}
+
+	/**
+	 * Statička metoda koja provjerava je li periodično zapisivanje aktivno
+	 *
+	 * @return <code>true</code> ukoliko je zapisivanje aktivno,
+	 *         <code>false</code> inače
+	 */
+	public static synchronized boolean isRunning() {
+		return executor != null;
+	}
+
+	/**
+	 * Statička metoda koja trenutni izvještaj registra dodaje na kraj datoteke
+	 * <b>file</b>
+	 *
+	 * @param file
+	 *            datoteka u koju se zapisuje izvještaj
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	public static void dump(Path file) throws IOException {
+		String report = "# " + LocalDateTime.now() + System.lineSeparator()
+				+ MetricsRegistry.getRegistry().report();
+		Files.write(file, report.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * Pomoćna statička metoda koju periodično poziva izvršitelj
+	 * <b>dumper</b>, a koja zapisuje izvještaj u datoteku <b>file</b>. Ukoliko
+	 * zapisivanje ne uspije, pogreška se ispisuje na standardni izlaz za
+	 * pogreške i zapisivanje se zaustavlja, osim ako je u međuvremenu
+	 * pokrenuto novo zapisivanje.
+	 *
+	 * @param file
+	 *            datoteka u koju se zapisuje izvještaj
+	 * @param dumper
+	 *            izvršitelj koji poziva ovu metodu
+	 */
+	private static void dumpOrStop(Path file, ScheduledExecutorService dumper) {
+		try {
+			dump(file);
+		} catch (IOException e) {
+			System.err.println(String.format(
+					"Izvještaj nije moguće zapisati u datoteku '%s' (%s), periodično zapisivanje je zaustavljeno",
+					file, e));
+			synchronized (MetricsDumper.class) {
+				if (executor == dumper) {
+					stop();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package hr.fer.zemris.java.hw16.search.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Razred koji predstavlja registar svih mjerenja programa. Razred predstavlja
+ * implementaciju oblikovnog obrasca
+ * <a href = "https://en.wikipedia.org/wiki/Singleton_pattern">jedinstveni
+ * objekt</a> (engl. Singleton), a jedini primjerak dohvaća se metodom
+ * {@link #getRegistry()}. Mjerenja se dohvaćaju (i po potrebi stvaraju)
+ * metodama {@link #counter(String)} i {@link #histogram(String)}. Uobičajeno
+ * je da dijelovi programa koji se mjere dohvate mjerenje jednom, prilikom
+ * inicijalizacije razreda, te ga spreme u statičku konstantu, pa samo
+ * mjerenje ne zahtjeva niti jedan pristup registru.
+ * <p>
+ * Imena mjerenja sastoje se od područja i faze odvojenih točkom (npr.
+ * <code>index.idf</code> ili <code>query.scoring</code>).
+ * 
+ * @see Counter
+ * @see LatencyHistogram
+ * 
+ * @author Davor Češljaš
+ */
+public class MetricsRegistry {
+
+	/** Statička varijabla koja predstavlja jedini primjerak ovog razreda */
+	private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+	/** Članska varijabla koja predstavlja sve registrirane brojače */
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+	/** Članska varijabla koja predstavlja sve registrirane histograme */
+	private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+	/**
+	 * Privatni konstruktor koji služi tome da se primjerci ovog razreda ne mogu
+	 * stvarati izvan samog razreda.
+	 */
+	private MetricsRegistry() {
+	}
+
+	/**
+	 * Statička metoda koja dohvaća jedini primjerak ovog razreda
+	 *
+	 * @return jedini primjerak ovog razreda
+	 */
+	public static MetricsRegistry getRegistry() {
+		return REGISTRY;
+	}
+
+	/**
+	 * Metoda koja dohvaća brojač s imenom <b>name</b>. Ukoliko takav brojač ne
+	 * postoji, stvara se novi.
+	 *
+	 * @param name
+	 *            ime brojača
+	 * @return brojač s imenom <b>name</b>
+	 */
+	public Counter counter(String name) {
+		return counters.computeIfAbsent(name, key -> new Counter());
+	}
+
+	/**
+	 * Metoda koja dohvaća histogram trajanja s imenom <b>name</b>. Ukoliko
+	 * takav histogram ne postoji, stvara se novi.
+	 *
+	 * @param name
+	 *            ime histograma
+	 * @return histogram s imenom <b>name</b>
+	 */
+	public LatencyHistogram histogram(String name) {
+		return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+	}
+
+	/**
+	 * Metoda koja briše sve zapise svih registriranih mjerenja. Sama mjerenja
+	 * ostaju registrirana.
+	 */
+	public void reset() {
+		counters.values().forEach(Counter::reset);
+		histograms.values().forEach(LatencyHistogram::reset);
+	}
+
+	/**
+	 * Metoda koja stvara tekstualni izvještaj o svim registriranim mjerenjima.
+	 * Mjerenja su u izvještaju sortirana po imenu, a svako mjerenje zapisano
+	 * je u zasebnom redku.
+	 *
+	 * @return tekstualni izvještaj o svim registriranim mjerenjima
+	 */
+	public String report() {
+		StringBuilder sb = new StringBuilder();
+
+		for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+			sb.append(String.format("%-24s %d%n", entry.getKey(), entry.getValue().get()));
+		}
+
+		for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+			sb.append(String.format("%-24s %s%n", entry.getKey(), entry.getValue()));
+		}
+
+		return sb.toString();
+	}
+}
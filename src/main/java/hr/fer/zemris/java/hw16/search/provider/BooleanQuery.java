@@ -0,0 +1,160 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Razred koji predstavlja logičke uvjete upita. Riječ upita s prefiksom
+ * {@value #REQUIRED} mora se nalaziti u svakom rezultatu, a riječ s prefiksom
+ * {@value #EXCLUDED} ne smije se nalaziti niti u jednom rezultatu. Ukoliko
+ * upit sadrži operator {@value #AND}, sve riječi bez prefiksa smatraju se
+ * obaveznima. Riječi bez prefiksa i obavezne riječi boduju se jednako kao i u
+ * upitu bez uvjeta (vidi {@link SearchProvider#search(List, BooleanQuery, int,
+ * QueryProfile, QueryDeadline)}). Riječi oblika <code>polje:vrijednost</code>
+ * su uvjeti nad metapodacima dokumenata (vidi {@link MetadataFilter}).
+ *
+ * @author Davor Češljaš
+ */
+public class BooleanQuery {
+
+	/** Konstanta koja predstavlja prefiks obavezne riječi */
+	public static final String REQUIRED = "+";
+
+	/** Konstanta koja predstavlja prefiks isključene riječi */
+	public static final String EXCLUDED = "-";
+
+	/** Konstanta koja predstavlja operator kojim su sve riječi obavezne */
+	public static final String AND = "AND";
+
+	/** Članska varijabla koja predstavlja riječi bez prefiksa */
+	private List<String> optional = new ArrayList<>();
+
+	/** Članska varijabla koja predstavlja obavezne riječi */
+	private List<String> required = new ArrayList<>();
+
+	/** Članska varijabla koja predstavlja isključene riječi */
+	private List<String> excluded = new ArrayList<>();
+
+	/** Članska varijabla koja određuje jesu li sve riječi obavezne */
+	private boolean conjunctive;
+
+	/** Članska varijabla koja predstavlja uvjete nad metapodacima */
+	private MetadataFilter filter = new MetadataFilter();
+
+	/**
+	 * Privatni konstruktor; primjerci se stvaraju metodom {@link #parse(List)}
+	 */
+	private BooleanQuery() {
+	}
+
+	/**
+	 * Statička metoda koja iz riječi upita <b>words</b> koje je korisnik unio
+	 * izdvaja logičke uvjete. Sami prefiksi bez riječi se zanemaruju.
+	 *
+	 * @param words
+	 *            riječi upita
+	 * @return logički uvjeti upita
+	 * @throws IllegalArgumentException
+	 *             Ukoliko vrijednost uvjeta nad metapodacima nije ispravna
+	 */
+	public static BooleanQuery parse(List<String> words) {
+		BooleanQuery query = new BooleanQuery();
+		for (String word : words) {
+			if (word.equals(AND)) {
+				query.conjunctive = true;
+			} else if (MetadataFilter.isFilter(word)) {
+				query.filter.add(word);
+			} else if (word.startsWith(REQUIRED)) {
+				addWord(query.required, word.substring(REQUIRED.length()));
+			} else if (word.startsWith(EXCLUDED)) {
+				addWord(query.excluded, word.substring(EXCLUDED.length()));
+			} else {
+				query.optional.add(word);
+			}
+		}
+
+		return query;
+	}
+
+	/**
+	 * Pomoćna metoda koja riječ <b>word</b> dodaje u <b>words</b> ukoliko nije
+	 * prazna
+	 *
+	 * @param words
+	 *            riječi u koje se dodaje
+	 * @param word
+	 *            riječ bez prefiksa
+	 */
+	private static void addWord(List<String> words, String word) {
+		if (!word.isEmpty()) {
+			words.add(word);
+		}
+	}
+
+	/**
+	 * Metoda koja provjerava ograničava li ovaj upit skup rezultata
+	 *
+	 * @return <code>true</code> ukoliko upit ima obaveznih ili isključenih
+	 *         riječi ili uvjeta nad metapodacima, inače <code>false</code>
+	 */
+	public boolean isRestrictive() {
+		return !getRequiredWords().isEmpty() || !excluded.isEmpty() || !filter.isEmpty();
+	}
+
+	/**
+	 * Metoda koja dohvaća riječi koje se boduju, odnosno riječi bez prefiksa i
+	 * obavezne riječi
+	 *
+	 * @return {@link List} riječi koje se boduju
+	 */
+	public List<String> getScoringWords() {
+		List<String> words = new ArrayList<>(optional);
+		words.addAll(required);
+		return words;
+	}
+
+	/**
+	 * Metoda koja dohvaća obavezne riječi. Ukoliko upit sadrži operator
+	 * {@value #AND}, obavezne su i sve riječi bez prefiksa.
+	 *
+	 * @return nepromjenjiva {@link List} obaveznih riječi
+	 */
+	public List<String> getRequiredWords() {
+		return Collections.unmodifiableList(conjunctive ? getScoringWords() : required);
+	}
+
+	/**
+	 * Metoda koja dohvaća uvjete nad metapodacima dokumenata
+	 *
+	 * @return uvjeti nad metapodacima; prazni ukoliko ih upit nema
+	 */
+	public MetadataFilter getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Metoda koja dohvaća isključene riječi
+	 *
+	 * @return nepromjenjiva {@link List} isključenih riječi
+	 */
+	public List<String> getExcludedWords() {
+		return Collections.unmodifiableList(excluded);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (String word : getRequiredWords()) {
+			sb.append(' ').append(REQUIRED).append(word);
+		}
+		for (String word : excluded) {
+			sb.append(' ').append(EXCLUDED).append(word);
+		}
+		if (!filter.isEmpty()) {
+			sb.append(' ').append(filter);
+		}
+
+		return sb.toString().trim();
+	}
+}
@@ -0,0 +1,63 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+/**
+ * Pomoćni razred koji čita oktete i cijele brojeve promjenjive duljine
+ * zapisane razredom {@link ByteWriter}, redom kojim su zapisani.
+ *
+ * @author Davor Češljaš
+ */
+class ByteReader {
+
+	/** Članska varijabla koja predstavlja polje okteta koje se čita */
+	private byte[] bytes;
+
+	/** Članska varijabla koja predstavlja položaj sljedećeg okteta */
+	private int position;
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda nad poljem okteta
+	 * <b>bytes</b>, a čitanje započinje od prvog okteta
+	 *
+	 * @param bytes
+	 *            polje okteta koje se čita
+	 */
+	ByteReader(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Metoda koja provjerava postoje li još nepročitani okteti
+	 *
+	 * @return <code>true</code> ukoliko postoje nepročitani okteti, inače
+	 *         <code>false</code>
+	 */
+	boolean hasMore() {
+		return position < bytes.length;
+	}
+
+	/**
+	 * Metoda koja čita jedan oktet kao nenegativan cijeli broj
+	 *
+	 * @return pročitani oktet iz intervala [0, 255]
+	 */
+	int readByte() {
+		return bytes[position++] & 0xFF;
+	}
+
+	/**
+	 * Metoda koja čita nenegativan cijeli broj zapisan metodom
+	 * {@link ByteWriter#writeVInt(int)}
+	 *
+	 * @return pročitani broj
+	 */
+	int readVInt() {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.Arrays;
+
+/**
+ * Pomoćni razred koji predstavlja rastuće polje okteta u koje se zapisuju
+ * okteti i cijeli brojevi promjenjive duljine (7 bitova po oktetu, najviši bit
+ * označava nastavak broja). Koristi se prilikom izgradnje kompaktnih struktura
+ * indeksa.
+ * 
+ * @author Davor Češljaš
+ */
+class ByteWriter {
+
+	/** Članska varijabla koja predstavlja zapisane oktete */
+	private byte[] bytes;
+
+	/** Članska varijabla koja predstavlja broj zapisanih okteta */
+	private int size;
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda s početnim
+	 * kapacitetom <b>capacity</b>
+	 *
+	 * @param capacity
+	 *            početni kapacitet polja
+	 */
+	ByteWriter(int capacity) {
+		bytes = new byte[Math.max(capacity, 16)];
+	}
+
+	/**
+	 * Metoda koja dohvaća broj zapisanih okteta
+	 *
+	 * @return broj zapisanih okteta
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Metoda koja zapisuje jedan oktet
+	 *
+	 * @param b
+	 *            oktet koji se zapisuje
+	 */
+	void writeByte(int b) {
+		ensureCapacity(size + 1);
+		bytes[size++] = (byte) b;
+	}
+
+	/**
+	 * Metoda koja zapisuje dio polja okteta <b>source</b>
+	 *
+	 * @param source
+	 *            polje okteta
+	 * @param offset
+	 *            početak dijela koji se zapisuje
+	 * @param length
+	 *            duljina dijela koji se zapisuje
+	 */
+	void write(byte[] source, int offset, int length) {
+		ensureCapacity(size + length);
+		System.arraycopy(source, offset, bytes, size, length);
+		size += length;
+	}
+
+	/**
+	 * Metoda koja zapisuje nenegativan cijeli broj u promjenjivom broju okteta
+	 *
+	 * @param value
+	 *            nenegativan cijeli broj
+	 */
+	void writeVInt(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Broj mora biti nenegativan, a predan je " + value);
+		}
+
+		while ((value & ~0x7F) != 0) {
+			writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		writeByte(value);
+	}
+
+	/**
+	 * Metoda koja dohvaća kopiju zapisanih okteta, duljine jednake broju
+	 * zapisanih okteta
+	 *
+	 * @return kopija zapisanih okteta
+	 */
+	byte[] toByteArray() {
+		return Arrays.copyOf(bytes, size);
+	}
+
+	/**
+	 * Pomoćna metoda koja osigurava da polje može primiti barem
+	 * <b>capacity</b> okteta
+	 *
+	 * @param capacity
+	 *            potreban kapacitet
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+		}
+	}
+}
@@ -0,0 +1,282 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Razred koji predstavlja grupiranje vektora dokumenata koje se koristi za
+ * približno pretraživanje. Vektori se grupiraju algoritmom sfernih k-sredina
+ * (engl. spherical k-means): svaki normirani vektor pridjeljuje se centroidu s
+ * kojim ima najveću kosinusnu sličnost, a centroidi se zatim računaju kao
+ * normirane sume pridijeljenih vektora. Prilikom pretraživanja upit se
+ * uspoređuje samo sa centroidima, a kandidati su dokumenti nekoliko
+ * najsličnijih grupa (vidi {@link #candidates(DocumentVector, int)}).
+ * <p>
+ * Broj grupa bira se svojstvom sustava {@value #CLUSTERS_PROPERTY}, a
+ * pretpostavljeno je da ih je približno onoliko koliki je drugi korijen broja
+ * dokumenata.
+ *
+ * @see SearchProvider#approximateSearch(java.util.List, int, int)
+ *
+ * @author Davor Češljaš
+ */
+public class ClusterIndex {
+
+	/** Konstanta koja predstavlja ime svojstva sustava koje bira broj grupa */
+	public static final String CLUSTERS_PROPERTY = "search.clusters";
+
+	/** Konstanta koja predstavlja najveći broj iteracija algoritma */
+	public static final int MAX_ITERATIONS = 20;
+
+	/**
+	 * Konstanta koja predstavlja sjeme generatora slučajnih brojeva, kako bi
+	 * grupiranje istih dokumenata uvijek bilo jednako
+	 */
+	private static final long SEED = 42;
+
+	/** Članska varijabla koja predstavlja normirane centroide grupa */
+	private double[][] centroids;
+
+	/** Članska varijabla koja predstavlja dokumente pojedine grupe */
+	private List<List<DocumentVector>> clusters;
+
+	/**
+	 * Privatni konstruktor koji inicijalizira primjerak ovog razreda.
+	 * Primjerci se stvaraju metodom {@link #build(List, int)}.
+	 *
+	 * @param centroids
+	 *            normirani centroidi grupa
+	 * @param clusters
+	 *            dokumenti pojedine grupe
+	 */
+	private ClusterIndex(double[][] centroids, List<List<DocumentVector>> clusters) {
+		this.centroids = centroids;
+		this.clusters = clusters;
+	}
+
+	/**
+	 * Statička metoda tvornica koja grupira vektore <b>vectors</b> u najviše
+	 * <b>clusterCount</b> grupa. Vektori čiji je modul 0 ne pridjeljuju se
+	 * niti jednoj grupi jer njihova sličnost s bilo kojim upitom iznosi 0.
+	 *
+	 * @param vectors
+	 *            vektori dokumenata koji se grupiraju
+	 * @param clusterCount
+	 *            željeni broj grupa ili broj manji od 1 za pretpostavljeni
+	 *            broj grupa
+	 * @return novi primjerak razreda {@link ClusterIndex}
+	 */
+	public static ClusterIndex build(List<DocumentVector> vectors, int clusterCount) {
+		List<DocumentVector> nonZero = new ArrayList<>();
+		for (DocumentVector vector : vectors) {
+			if (vector.getModul() != 0) {
+				nonZero.add(vector);
+			}
+		}
+
+		int k = clusterCount < 1 ? (int) Math.ceil(Math.sqrt(nonZero.size())) : clusterCount;
+		k = Math.min(k, nonZero.size());
+
+		List<DocumentVector> seeds = new ArrayList<>(nonZero);
+		Collections.shuffle(seeds, new Random(SEED));
+		double[][] centroids = new double[k][];
+		for (int i = 0; i < k; i++) {
+			centroids[i] = normalized(seeds.get(i));
+		}
+
+		int[] assignment = new int[nonZero.size()];
+		Arrays.fill(assignment, -1);
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			boolean changed = false;
+			for (int i = 0, len = nonZero.size(); i < len; i++) {
+				int nearest = nearestCentroids(centroids, nonZero.get(i), 1)[0];
+				changed |= assignment[i] != nearest;
+				assignment[i] = nearest;
+			}
+
+			if (!changed) {
+				break;
+			}
+
+			recalculateCentroids(centroids, nonZero, assignment);
+		}
+
+		List<List<DocumentVector>> clusters = new ArrayList<>(k);
+		for (int i = 0; i < k; i++) {
+			clusters.add(new ArrayList<>());
+		}
+		for (int i = 0, len = nonZero.size(); i < len; i++) {
+			clusters.get(assignment[i]).add(nonZero.get(i));
+		}
+
+		return new ClusterIndex(centroids, clusters);
+	}
+
+	/**
+	 * Statička metoda koja dohvaća broj grupa zadan svojstvom sustava
+	 * {@value #CLUSTERS_PROPERTY}
+	 *
+	 * @return broj grupa ili 0 ukoliko svojstvo nije postavljeno
+	 */
+	public static int clusterCountFromProperty() {
+		String value = System.getProperty(CLUSTERS_PROPERTY, "0");
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(
+					String.format("Svojstvo %s mora biti cijeli broj, a predano je '%s'", CLUSTERS_PROPERTY, value));
+		}
+	}
+
+	/**
+	 * Metoda koja dohvaća broj grupa
+	 *
+	 * @return broj grupa
+	 */
+	public int size() {
+		return centroids.length;
+	}
+
+	/**
+	 * Metoda koja dohvaća dokumente onih <b>probes</b> grupa čiji su centroidi
+	 * najsličniji vektoru upita <b>query</b>
+	 *
+	 * @param query
+	 *            vektor upita
+	 * @param probes
+	 *            broj grupa koje se pretražuju
+	 * @return {@link List} dokumenata kandidata
+	 */
+	public List<DocumentVector> candidates(DocumentVector query, int probes) {
+		if (probes < 1) {
+			throw new IllegalArgumentException("Broj pretraženih grupa mora biti barem 1, a predan je " + probes);
+		}
+
+		List<DocumentVector> candidates = new ArrayList<>();
+		if (query.getModul() == 0) {
+			return candidates;
+		}
+
+		for (int cluster : nearestCentroids(centroids, query, Math.min(probes, centroids.length))) {
+			candidates.addAll(clusters.get(cluster));
+		}
+
+		return candidates;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja dohvaća indekse <b>count</b> centroida s
+	 * kojima vektor <b>vector</b> ima najveći skalarni produkt, poredane
+	 * padajuće po skalarnom produktu. Budući da su centroidi normirani, isti
+	 * poredak daje i kosinusna sličnost.
+	 *
+	 * @param centroids
+	 *            normirani centroidi
+	 * @param vector
+	 *            vektor koji se uspoređuje s centroidima
+	 * @param count
+	 *            broj traženih centroida
+	 * @return polje indeksa najbližih centroida
+	 */
+	private static int[] nearestCentroids(double[][] centroids, DocumentVector vector, int count) {
+		double[] tfidf = vector.getTfidf();
+		double[] products = new double[centroids.length];
+		for (int c = 0; c < centroids.length; c++) {
+			double[] centroid = centroids[c];
+			double product = 0;
+			for (int i = 0; i < tfidf.length; i++) {
+				product += centroid[i] * tfidf[i];
+			}
+			products[c] = product;
+		}
+
+		int[] nearest = new int[count];
+		boolean[] taken = new boolean[centroids.length];
+		for (int n = 0; n < count; n++) {
+			int best = -1;
+			for (int c = 0; c < centroids.length; c++) {
+				if (!taken[c] && (best == -1 || products[c] > products[best])) {
+					best = c;
+				}
+			}
+			taken[best] = true;
+			nearest[n] = best;
+		}
+
+		return nearest;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja svaki centroid postavlja na normiranu sumu
+	 * normiranih vektora koji su mu pridijeljeni. Centroid bez pridijeljenih
+	 * vektora zadržava prethodnu vrijednost.
+	 *
+	 * @param centroids
+	 *            centroidi koji se računaju
+	 * @param vectors
+	 *            vektori dokumenata
+	 * @param assignment
+	 *            indeks centroida pridijeljenog pojedinom vektoru
+	 */
+	private static void recalculateCentroids(double[][] centroids, List<DocumentVector> vectors, int[] assignment) {
+		int dimension = centroids[0].length;
+		double[][] sums = new double[centroids.length][];
+		for (int i = 0, len = vectors.size(); i < len; i++) {
+			DocumentVector vector = vectors.get(i);
+			double[] sum = sums[assignment[i]];
+			if (sum == null) {
+				sum = sums[assignment[i]] = new double[dimension];
+			}
+
+			double[] tfidf = vector.getTfidf();
+			double modul = vector.getModul();
+			for (int d = 0; d < dimension; d++) {
+				sum[d] += tfidf[d] / modul;
+			}
+		}
+
+		for (int c = 0; c < centroids.length; c++) {
+			if (sums[c] != null) {
+				centroids[c] = normalize(sums[c]);
+			}
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja dohvaća normiranu kopiju vektora
+	 * <b>vector</b>
+	 *
+	 * @param vector
+	 *            vektor dokumenta čiji modul nije 0
+	 * @return normirana kopija vektora
+	 */
+	private static double[] normalized(DocumentVector vector) {
+		return normalize(Arrays.copyOf(vector.getTfidf(), vector.getTfidf().length));
+	}
+
+	/**
+	 * Pomoćna statička metoda koja normira vektor <b>vector</b> na mjestu
+	 *
+	 * @param vector
+	 *            vektor koji se normira
+	 * @return predani vektor
+	 */
+	private static double[] normalize(double[] vector) {
+		double modul = 0;
+		for (double value : vector) {
+			modul += value * value;
+		}
+
+		modul = Math.sqrt(modul);
+		if (modul != 0) {
+			for (int i = 0; i < vector.length; i++) {
+				vector[i] /= modul;
+			}
+		}
+
+		return vector;
+	}
+}
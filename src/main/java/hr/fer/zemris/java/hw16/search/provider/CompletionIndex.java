@@ -0,0 +1,428 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Razred koji predstavlja indeks za dovršavanje riječi upita. Pojmovi s istim
+ * prefiksom nalaze se na uzastopnim identifikatorima rječnika
+ * {@link TermDictionary}, pa svaki čvor stabla prefiksa odgovara jednom
+ * intervalu identifikatora. Čvorovi se određuju iz duljina zajedničkih
+ * prefiksa susjednih pojmova u jednom prolazu rječnikom, a za svaki čvor s
+ * više od {@value #MAX_COMPLETIONS} pojmova unaprijed se sprema
+ * {@value #MAX_COMPLETIONS} najčešćih pojmova, spajanjem najčešćih pojmova
+ * njegove djece.
+ * <p>
+ * Dovršavanje prefiksa svodi se na pronalazak intervala prefiksa unutar
+ * rječnika te dohvat čvora tog intervala iz tablice raspršenog adresiranja.
+ * Interval s najviše {@value #MAX_COMPLETIONS} pojmova nema vlastiti čvor, već
+ * se njegovi pojmovi uređuju prilikom upita. Pojmovi se uređuju po broju
+ * pojavljivanja u svim dokumentima, a zatim po identifikatoru.
+ * <p>
+ * Budući da su pojmovi vokabulara svedeni na korijen, uz svaki pojam može se
+ * spremiti i njegov najčešći oblik u dokumentima (vidi
+ * {@link #surfaceForm(int)}). Pojmovi se i dalje uređuju po broju
+ * pojavljivanja korijena, ali se korisniku prikazuje oblik.
+ *
+ * @author Davor Češljaš
+ */
+public class CompletionIndex {
+
+	/** Konstanta koja predstavlja najveći broj pojmova dovršavanja */
+	public static final int MAX_COMPLETIONS = 10;
+
+	/** Konstanta koja predstavlja prazno mjesto tablice čvorova */
+	private static final long EMPTY = -1L;
+
+	/**
+	 * Razred koji predstavlja čvor koji se gradi, odnosno interval na stogu
+	 * zajedno s najčešćim dosad pronađenim pojmovima
+	 */
+	private class Frame {
+
+		/** Članska varijabla koja predstavlja duljinu prefiksa čvora */
+		private final int depth;
+
+		/** Članska varijabla koja predstavlja početak intervala */
+		private final int low;
+
+		/** Članska varijabla koja predstavlja najčešće pojmove, redom */
+		private int[] best = new int[MAX_COMPLETIONS];
+
+		/** Članska varijabla koja predstavlja broj najčešćih pojmova */
+		private int size;
+
+		/**
+		 * Konstruktor koji inicijalizira čvor
+		 *
+		 * @param depth
+		 *            duljina prefiksa čvora u oktetima
+		 * @param low
+		 *            početak intervala
+		 */
+		private Frame(int depth, int low) {
+			this.depth = depth;
+			this.low = low;
+		}
+
+		/**
+		 * Metoda koja dodaje pojam <b>id</b> među najčešće pojmove ukoliko je
+		 * češći od nekog od njih
+		 *
+		 * @param id
+		 *            identifikator pojma
+		 */
+		private void add(int id) {
+			int position = size;
+			while (position > 0 && isBefore(id, best[position - 1])) {
+				position--;
+			}
+			if (position == MAX_COMPLETIONS) {
+				return;
+			}
+
+			int end = Math.min(size, MAX_COMPLETIONS - 1);
+			System.arraycopy(best, position, best, position + 1, end - position);
+			best[position] = id;
+			size = end + 1;
+		}
+
+		/**
+		 * Metoda koja najčešćim pojmovima ovog čvora pridružuje najčešće
+		 * pojmove djeteta <b>child</b>
+		 *
+		 * @param child
+		 *            dijete ovog čvora
+		 */
+		private void merge(Frame child) {
+			int[] merged = new int[MAX_COMPLETIONS];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (count < MAX_COMPLETIONS && (i < size || j < child.size)) {
+				if (j == child.size || i < size && isBefore(best[i], child.best[j])) {
+					merged[count++] = best[i++];
+				} else {
+					merged[count++] = child.best[j++];
+				}
+			}
+
+			best = merged;
+			size = count;
+		}
+	}
+
+	/** Članska varijabla koja predstavlja rječnik pojmova */
+	private final TermDictionary vocabulary;
+
+	/**
+	 * Članska varijabla koja predstavlja broj pojavljivanja pojedinog pojma u
+	 * svim dokumentima
+	 */
+	private final int[] frequencies;
+
+	/**
+	 * Članska varijabla koja predstavlja najčešći oblik pojedinog pojma u
+	 * dokumentima ili <code>null</code> ukoliko oblici nisu zadani
+	 */
+	private final String[] surfaceForms;
+
+	/** Članska varijabla koja predstavlja intervale spremljenih čvorova */
+	private long[] ranges = new long[16];
+
+	/**
+	 * Članska varijabla koja predstavlja najčešće pojmove spremljenih čvorova,
+	 * po {@value #MAX_COMPLETIONS} za svaki čvor
+	 */
+	private int[] completions = new int[16 * MAX_COMPLETIONS];
+
+	/** Članska varijabla koja predstavlja broj spremljenih čvorova */
+	private int nodeCount;
+
+	/** Članska varijabla koja predstavlja intervale unutar tablice čvorova */
+	private long[] keys;
+
+	/** Članska varijabla koja predstavlja čvorove unutar tablice čvorova */
+	private int[] nodes;
+
+	/**
+	 * Konstruktor koji gradi indeks nad rječnikom <b>vocabulary</b>
+	 *
+	 * @param vocabulary
+	 *            rječnik pojmova
+	 * @param frequencies
+	 *            broj pojavljivanja pojedinog pojma u svim dokumentima,
+	 *            indeksiran identifikatorom pojma
+	 */
+	public CompletionIndex(TermDictionary vocabulary, int[] frequencies) {
+		this(vocabulary, frequencies, null);
+	}
+
+	/**
+	 * Konstruktor koji gradi indeks nad rječnikom <b>vocabulary</b>, uz
+	 * najčešće oblike pojmova <b>surfaceForms</b> koji se prikazuju umjesto
+	 * pojmova
+	 *
+	 * @param vocabulary
+	 *            rječnik pojmova
+	 * @param frequencies
+	 *            broj pojavljivanja pojedinog pojma u svim dokumentima,
+	 *            indeksiran identifikatorom pojma
+	 * @param surfaceForms
+	 *            najčešći oblik pojedinog pojma, indeksiran identifikatorom
+	 *            pojma, ili <code>null</code>
+	 */
+	public CompletionIndex(TermDictionary vocabulary, int[] frequencies, String[] surfaceForms) {
+		this.vocabulary = vocabulary;
+		this.frequencies = frequencies;
+		this.surfaceForms = surfaceForms;
+
+		if (vocabulary.size() > 0) {
+			buildNodes();
+		}
+		buildTable();
+	}
+
+	/**
+	 * Metoda koja dohvaća najviše <b>limit</b> najčešćih pojmova koji
+	 * započinju prefiksom <b>prefix</b>
+	 *
+	 * @param prefix
+	 *            prefiks pojmova
+	 * @param limit
+	 *            najveći broj pojmova, a najviše {@value #MAX_COMPLETIONS}
+	 * @return identifikatori pojmova, od najčešćeg prema najrjeđem
+	 */
+	public int[] complete(String prefix, int limit) {
+		limit = Math.min(limit, MAX_COMPLETIONS);
+		int[] range = vocabulary.prefixRange(prefix);
+		if (range[1] - range[0] <= MAX_COMPLETIONS) {
+			Frame frame = new Frame(0, range[0]);
+			for (int id = range[0]; id < range[1]; id++) {
+				frame.add(id);
+			}
+			return Arrays.copyOf(frame.best, Math.min(limit, frame.size));
+		}
+
+		int node = findNode(range[0], range[1]);
+		return Arrays.copyOfRange(completions, node * MAX_COMPLETIONS, node * MAX_COMPLETIONS + limit);
+	}
+
+	/**
+	 * Metoda koja dohvaća broj pojavljivanja pojma <b>id</b> u svim
+	 * dokumentima
+	 *
+	 * @param id
+	 *            identifikator pojma
+	 * @return broj pojavljivanja pojma
+	 */
+	public int frequency(int id) {
+		return frequencies[id];
+	}
+
+	/**
+	 * Metoda koja dohvaća oblik pojma <b>id</b> koji se prikazuje korisniku:
+	 * najčešći oblik pojma u dokumentima ili sam pojam ukoliko oblik nije
+	 * poznat
+	 *
+	 * @param id
+	 *            identifikator pojma
+	 * @return oblik pojma za prikaz
+	 */
+	public String surfaceForm(int id) {
+		String form = surfaceForms == null ? null : surfaceForms[id];
+		return form == null ? vocabulary.getTerm(id) : form;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj spremljenih čvorova
+	 *
+	 * @return broj spremljenih čvorova
+	 */
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj okteta koje zauzimaju podaci ovog indeksa
+	 *
+	 * @return broj okteta koje zauzimaju podaci ovog indeksa
+	 */
+	public long sizeInBytes() {
+		return 4L * frequencies.length + 8L * keys.length + 4L * nodes.length + 4L * nodeCount * MAX_COMPLETIONS;
+	}
+
+	/**
+	 * Pomoćna metoda koja jednim prolazom sortiranim rječnikom pronalazi sve
+	 * intervale pojmova sa zajedničkim prefiksom. Intervali se održavaju na
+	 * stogu prema duljini zajedničkog prefiksa susjednih pojmova, a
+	 * zatvoreni interval svoje najčešće pojmove predaje roditelju.
+	 */
+	private void buildNodes() {
+		Deque<Frame> stack = new ArrayDeque<>();
+		stack.push(new Frame(0, 0));
+
+		TermDictionary.TermsEnum termsEnum = vocabulary.termsEnum();
+		termsEnum.seekBlock(0);
+		byte[] previous = Arrays.copyOf(termsEnum.bytes(), termsEnum.length());
+
+		int size = vocabulary.size();
+		for (int i = 1; i <= size; i++) {
+			int shared = 0;
+			if (i < size) {
+				termsEnum.next();
+				byte[] term = termsEnum.bytes();
+				int length = Math.min(previous.length, termsEnum.length());
+				while (shared < length && previous[shared] == term[shared]) {
+					shared++;
+				}
+				previous = Arrays.copyOf(term, termsEnum.length());
+			}
+
+			boolean added = false;
+			if (shared <= stack.peek().depth) {
+				stack.peek().add(i - 1);
+				added = true;
+			}
+
+			Frame child = null;
+			while (shared < stack.peek().depth) {
+				child = stack.pop();
+				storeNode(child, i);
+				if (shared <= stack.peek().depth) {
+					stack.peek().merge(child);
+					child = null;
+				}
+			}
+
+			if (shared > stack.peek().depth) {
+				Frame frame = new Frame(shared, child == null ? i - 1 : child.low);
+				if (child != null) {
+					frame.merge(child);
+				}
+				if (!added) {
+					frame.add(i - 1);
+				}
+				stack.push(frame);
+			}
+		}
+
+		storeNode(stack.pop(), size);
+	}
+
+	/**
+	 * Pomoćna metoda koja sprema zatvoreni čvor <b>frame</b> s krajem
+	 * intervala <b>high</b>, ali samo ukoliko ima više od
+	 * {@value #MAX_COMPLETIONS} pojmova
+	 *
+	 * @param frame
+	 *            zatvoreni čvor
+	 * @param high
+	 *            kraj intervala čvora (isključivo)
+	 */
+	private void storeNode(Frame frame, int high) {
+		if (high - frame.low <= MAX_COMPLETIONS) {
+			return;
+		}
+
+		if (nodeCount == ranges.length) {
+			ranges = Arrays.copyOf(ranges, nodeCount * 2);
+			completions = Arrays.copyOf(completions, nodeCount * 2 * MAX_COMPLETIONS);
+		}
+		ranges[nodeCount] = range(frame.low, high);
+		System.arraycopy(frame.best, 0, completions, nodeCount * MAX_COMPLETIONS, MAX_COMPLETIONS);
+		nodeCount++;
+	}
+
+	/**
+	 * Pomoćna metoda koja spremljene čvorove smješta u tablicu raspršenog
+	 * adresiranja s linearnim ispitivanjem. Čvorovi istog intervala (npr.
+	 * prefiksi "a" i "ab" ukoliko svi pojmovi s "a" započinju s "ab") imaju
+	 * iste najčešće pojmove, pa se sprema samo prvi.
+	 */
+	private void buildTable() {
+		int capacity = Integer.highestOneBit(Math.max(2 * nodeCount, 1)) << 1;
+		keys = new long[capacity];
+		nodes = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+
+		for (int node = 0; node < nodeCount; node++) {
+			int slot = slot(ranges[node]);
+			while (keys[slot] != EMPTY && keys[slot] != ranges[node]) {
+				slot = (slot + 1) & (keys.length - 1);
+			}
+			if (keys[slot] == EMPTY) {
+				keys[slot] = ranges[node];
+				nodes[slot] = node;
+			}
+		}
+
+		completions = Arrays.copyOf(completions, nodeCount * MAX_COMPLETIONS);
+		ranges = null;
+	}
+
+	/**
+	 * Pomoćna metoda koja pronalazi čvor intervala [low, high). Svaki interval
+	 * prefiksa s barem dva pojma je interval nekog čvora.
+	 *
+	 * @param low
+	 *            početak intervala
+	 * @param high
+	 *            kraj intervala (isključivo)
+	 * @return redni broj čvora
+	 */
+	private int findNode(int low, int high) {
+		long key = range(low, high);
+		int slot = slot(key);
+		while (keys[slot] != key) {
+			if (keys[slot] == EMPTY) {
+				throw new IllegalStateException("Ne postoji čvor intervala [" + low + ", " + high + ")");
+			}
+			slot = (slot + 1) & (keys.length - 1);
+		}
+
+		return nodes[slot];
+	}
+
+	/**
+	 * Pomoćna metoda koja računa početno mjesto intervala <b>key</b> unutar
+	 * tablice čvorova
+	 *
+	 * @param key
+	 *            zapis intervala
+	 * @return početno mjesto unutar tablice
+	 */
+	private int slot(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja interval [low, high) zapisuje u jedan broj
+	 *
+	 * @param low
+	 *            početak intervala
+	 * @param high
+	 *            kraj intervala (isključivo)
+	 * @return zapis intervala
+	 */
+	private static long range(int low, int high) {
+		return (long) low << 32 | high;
+	}
+
+	/**
+	 * Pomoćna metoda koja provjerava je li pojam <b>first</b> ispred pojma
+	 * <b>second</b> u poretku dovršavanja
+	 *
+	 * @param first
+	 *            identifikator prvog pojma
+	 * @param second
+	 *            identifikator drugog pojma
+	 * @return <code>true</code> ukoliko se prvi pojam pojavljuje češće ili
+	 *         jednako često i ima manji identifikator
+	 */
+	private boolean isBefore(int first, int second) {
+		return frequencies[first] > frequencies[second] || frequencies[first] == frequencies[second] && first < second;
+	}
+}
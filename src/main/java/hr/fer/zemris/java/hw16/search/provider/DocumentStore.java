@@ -0,0 +1,384 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import hr.fer.zemris.java.hw16.search.metrics.Counter;
+import hr.fer.zemris.java.hw16.search.metrics.LatencyHistogram;
+import hr.fer.zemris.java.hw16.search.metrics.MetricsRegistry;
+
+/**
+ * Razred koji predstavlja spremište izvornih tekstova dokumenata unutar
+ * memorije procesa. Tekstovi se redom dodavanja slažu u blokove od približno
+ * {@value #BLOCK_SIZE} okteta, a svaki se blok sažima algoritmom DEFLATE, pa
+ * se slični dokumenti unutar bloka sažimaju bolje nego pojedinačno. Za svaki
+ * dokument pamti se blok te položaj i duljina unutar nesažetog bloka.
+ * <p>
+ * Nedavno dohvaćeni dokumenti čuvaju se u ograničenoj privremenoj memoriji
+ * (engl. LRU cache) čiji se kapacitet bira svojstvom sustava
+ * {@value #CACHE_PROPERTY} (pretpostavljeno {@value #DEFAULT_CACHE_SIZE}
+ * dokumenata), pa ponovljeni dohvat ne raspakirava blok. Dohvat dokumenta
+ * nikad ne čita izvornu datoteku.
+ *
+ * @author Davor Češljaš
+ */
+public class DocumentStore {
+
+	/** Konstanta koja predstavlja ciljanu veličinu nesažetog bloka */
+	public static final int BLOCK_SIZE = 64 * 1024;
+
+	/**
+	 * Konstanta koja predstavlja ime svojstva sustava koje određuje kapacitet
+	 * privremene memorije
+	 */
+	public static final String CACHE_PROPERTY = "search.store.cache";
+
+	/** Konstanta koja predstavlja pretpostavljeni kapacitet privremene memorije */
+	public static final int DEFAULT_CACHE_SIZE = 32;
+
+	/** Konstanta koja predstavlja mjerenje trajanja raspakiravanja bloka */
+	private static final LatencyHistogram DECOMPRESS_TIME = MetricsRegistry.getRegistry()
+			.histogram("store.decompress");
+
+	/** Konstanta koja predstavlja brojač pogodaka privremene memorije */
+	private static final Counter CACHE_HITS = MetricsRegistry.getRegistry().counter("store.hits");
+
+	/** Konstanta koja predstavlja brojač promašaja privremene memorije */
+	private static final Counter CACHE_MISSES = MetricsRegistry.getRegistry().counter("store.misses");
+
+	/** Članska varijabla koja predstavlja sažete blokove */
+	private List<byte[]> blocks = new ArrayList<>();
+
+	/** Članska varijabla koja predstavlja nesažete veličine blokova */
+	private List<Integer> blockLengths = new ArrayList<>();
+
+	/**
+	 * Članska varijabla koja predstavlja položaj svakog dokumenta: redom
+	 * indeks bloka, položaj i duljinu unutar nesažetog bloka
+	 */
+	private Map<String, int[]> locations = new ConcurrentHashMap<>();
+
+	/** Članska varijabla koja predstavlja blok koji se trenutno puni */
+	private ByteWriter currentBlock = new ByteWriter(BLOCK_SIZE);
+
+	/** Članska varijabla koja predstavlja ukupan broj nesažetih okteta */
+	private long rawBytes;
+
+	/** Članska varijabla koja predstavlja privremenu memoriju dokumenata */
+	private Map<String, String> cache;
+
+	/**
+	 * Konstruktor koji inicijalizira prazno spremište s kapacitetom
+	 * privremene memorije zadanim svojstvom sustava {@value #CACHE_PROPERTY}
+	 */
+	public DocumentStore() {
+		this(Integer.getInteger(CACHE_PROPERTY, DEFAULT_CACHE_SIZE));
+	}
+
+	/**
+	 * Konstruktor koji inicijalizira prazno spremište s kapacitetom privremene
+	 * memorije <b>cacheSize</b>
+	 *
+	 * @param cacheSize
+	 *            najveći broj dokumenata u privremenoj memoriji
+	 */
+	public DocumentStore(int cacheSize) {
+		if (cacheSize < 0) {
+			throw new IllegalArgumentException("Kapacitet privremene memorije ne smije biti negativan");
+		}
+
+		cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Metoda koja dodaje tekst <b>text</b> dokumenta s putanjom <b>path</b>.
+	 * Tekst se odmah zapisuje u blok koji se trenutno puni, a blok se sažima
+	 * kada dosegne ciljanu veličinu. Ponovno dodan dokument zamjenjuje
+	 * prethodni tekst.
+	 *
+	 * @param path
+	 *            putanja dokumenta
+	 * @param text
+	 *            tekst dokumenta
+	 */
+	synchronized void add(String path, String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		locations.put(path, new int[] { blocks.size(), currentBlock.size(), bytes.length });
+		currentBlock.write(bytes, 0, bytes.length);
+		rawBytes += bytes.length;
+		synchronized (cache) {
+			cache.remove(path);
+		}
+
+		if (currentBlock.size() >= BLOCK_SIZE) {
+			flush();
+		}
+	}
+
+	/**
+	 * Metoda koja sažima blok koji se trenutno puni. Dokumenti bloka koji se
+	 * puni mogu se dohvatiti i prije sažimanja.
+	 */
+	synchronized void flush() {
+		if (currentBlock.size() == 0) {
+			return;
+		}
+
+		blocks.add(compress(currentBlock.toByteArray()));
+		blockLengths.add(currentBlock.size());
+		currentBlock = new ByteWriter(BLOCK_SIZE);
+	}
+
+	/**
+	 * Metoda koja dohvaća broj sažetih blokova. Sažeti blokovi se nikad ne
+	 * mijenjaju, pa se prilikom izvoza snimke (vidi {@link SnapshotWriter})
+	 * zapisuju samo jednom.
+	 *
+	 * @return broj sažetih blokova
+	 */
+	synchronized int blockCount() {
+		return blocks.size();
+	}
+
+	/**
+	 * Metoda koja dohvaća sažeti blok <b>index</b>. Dohvaćeno polje se ne
+	 * smije mijenjati.
+	 *
+	 * @param index
+	 *            indeks bloka
+	 * @return sažeti okteti bloka
+	 */
+	synchronized byte[] getBlock(int index) {
+		return blocks.get(index);
+	}
+
+	/**
+	 * Metoda koja u izlaz <b>out</b> zapisuje sve podatke spremišta osim
+	 * sažetih blokova: nesažete veličine blokova, položaje dokumenata
+	 * (sortirane po putanji) i blok koji se trenutno puni
+	 *
+	 * @param out
+	 *            izlaz u koji se podaci zapisuju
+	 * @return broj sažetih blokova na koje se zapisani podaci odnose
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	synchronized int writeIndex(DataOutput out) throws IOException {
+		out.writeInt(blockLengths.size());
+		for (int length : blockLengths) {
+			out.writeInt(length);
+		}
+
+		List<String> paths = new ArrayList<>(locations.keySet());
+		Collections.sort(paths);
+		out.writeInt(paths.size());
+		for (String path : paths) {
+			int[] location = locations.get(path);
+			out.writeUTF(path);
+			out.writeInt(location[0]);
+			out.writeInt(location[1]);
+			out.writeInt(location[2]);
+		}
+
+		out.writeLong(rawBytes);
+		byte[] current = currentBlock.toByteArray();
+		out.writeInt(current.length);
+		out.write(current);
+		return blockLengths.size();
+	}
+
+	/**
+	 * Statička metoda koja stvara spremište iz podataka zapisanih metodom
+	 * {@link #writeIndex(DataOutput)} i sažetih blokova <b>blocks</b>, bez
+	 * ponovnog sažimanja tekstova
+	 *
+	 * @param in
+	 *            ulaz iz kojeg se podaci čitaju
+	 * @param blocks
+	 *            sažeti blokovi redom indeksa
+	 * @return pročitano spremište
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo ili broj blokova ne odgovara
+	 *             zapisanim podacima
+	 */
+	static DocumentStore read(DataInput in, List<byte[]> blocks) throws IOException {
+		DocumentStore store = new DocumentStore();
+		int blockCount = in.readInt();
+		if (blockCount != blocks.size()) {
+			throw new IOException(String.format("Spremište ima %d blokova, a pročitano je %d", blockCount,
+					blocks.size()));
+		}
+		for (int i = 0; i < blockCount; i++) {
+			store.blockLengths.add(in.readInt());
+		}
+		store.blocks.addAll(blocks);
+
+		for (int i = 0, size = in.readInt(); i < size; i++) {
+			store.locations.put(in.readUTF(), new int[] { in.readInt(), in.readInt(), in.readInt() });
+		}
+
+		store.rawBytes = in.readLong();
+		byte[] current = new byte[in.readInt()];
+		in.readFully(current);
+		store.currentBlock.write(current, 0, current.length);
+		return store;
+	}
+
+	/**
+	 * Metoda koja provjerava sadrži li spremište dokument s putanjom
+	 * <b>path</b>
+	 *
+	 * @param path
+	 *            putanja dokumenta
+	 * @return <code>true</code> ukoliko spremište sadrži dokument, inače
+	 *         <code>false</code>
+	 */
+	public boolean contains(String path) {
+		return locations.containsKey(path);
+	}
+
+	/**
+	 * Metoda koja dohvaća tekst dokumenta s putanjom <b>path</b>
+	 *
+	 * @param path
+	 *            putanja dokumenta
+	 * @return tekst dokumenta ili <code>null</code> ukoliko dokument nije u
+	 *         spremištu
+	 */
+	public String get(String path) {
+		int[] location = locations.get(path);
+		if (location == null) {
+			return null;
+		}
+
+		synchronized (cache) {
+			String text = cache.get(path);
+			if (text != null) {
+				CACHE_HITS.increment();
+				return text;
+			}
+		}
+
+		CACHE_MISSES.increment();
+		long start = System.nanoTime();
+		byte[] block;
+		int blockLength;
+		boolean compressed;
+		synchronized (this) {
+			compressed = location[0] < blocks.size();
+			block = compressed ? blocks.get(location[0]) : currentBlock.toByteArray();
+			blockLength = compressed ? blockLengths.get(location[0]) : block.length;
+		}
+		if (compressed) {
+			block = decompress(block, blockLength);
+		}
+		String text = new String(block, location[1], location[2], StandardCharsets.UTF_8);
+		DECOMPRESS_TIME.recordSince(start);
+
+		synchronized (cache) {
+			cache.put(path, text);
+		}
+		return text;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj dokumenata u spremištu
+	 *
+	 * @return broj dokumenata
+	 */
+	public int size() {
+		return locations.size();
+	}
+
+	/**
+	 * Metoda koja dohvaća broj okteta koje zauzimaju sažeti blokovi
+	 *
+	 * @return broj okteta sažetih blokova
+	 */
+	public synchronized long sizeInBytes() {
+		long size = 0;
+		for (byte[] block : blocks) {
+			size += block.length;
+		}
+
+		return size;
+	}
+
+	/**
+	 * Metoda koja dohvaća ukupan broj okteta nesažetih tekstova
+	 *
+	 * @return broj okteta nesažetih tekstova
+	 */
+	public long rawSizeInBytes() {
+		return rawBytes;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja sažima polje okteta <b>bytes</b>
+	 *
+	 * @param bytes
+	 *            okteti koji se sažimaju
+	 * @return sažeti okteti
+	 */
+	private static byte[] compress(byte[] bytes) {
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try {
+			deflater.setInput(bytes);
+			deflater.finish();
+
+			ByteWriter writer = new ByteWriter(bytes.length / 2);
+			byte[] buffer = new byte[4096];
+			while (!deflater.finished()) {
+				int length = deflater.deflate(buffer);
+				writer.write(buffer, 0, length);
+			}
+			return writer.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja raspakirava sažeti blok <b>block</b>
+	 *
+	 * @param block
+	 *            sažeti blok
+	 * @param length
+	 *            broj okteta nesažetog bloka
+	 * @return nesažeti blok
+	 */
+	private static byte[] decompress(byte[] block, int length) {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(block);
+			byte[] bytes = new byte[length];
+			int read = 0;
+			while (read < length && !inflater.finished()) {
+				read += inflater.inflate(bytes, read, length - read);
+			}
+			return bytes;
+		} catch (DataFormatException e) {
+			throw new IllegalStateException("Sažeti blok spremišta je oštećen", e);
+		} finally {
+			inflater.end();
+		}
+	}
+}
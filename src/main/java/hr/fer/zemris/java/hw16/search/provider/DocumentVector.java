@@ -1,5 +1,9 @@
 package hr.fer.zemris.java.hw16.search.provider;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Razred koji predstavlja jedan vektor pretraživanja dokumenta. Pretraživanje
  * se ovdje svrši algoritmom
@@ -23,21 +27,54 @@ public class DocumentVector {
 	/** Članska varijabla koja predstavlja modul vektora pretraživanja */
 	private double modul;
 
+	/**
+	 * Članska varijabla koja predstavlja putanje dokumenata koji su kao
+	 * duplikati ovog dokumenta izostavljeni iz indeksa
+	 */
+	private List<String> duplicates = new ArrayList<>();
+
+	/**
+	 * Članska varijabla koja predstavlja putanju dokumenta čiji je ovaj
+	 * dokument duplikat ili <code>null</code> ukoliko to nije slučaj
+	 */
+	private String duplicateOf;
+
 	/**
 	 * Konstruktor koji inicijalizira primjerak ovog razreda. Unutar ovog
 	 * konstruktora parametar <b>filePath</b> sprema se u pripdanu člansku
-	 * varijablu, dok se pomoću vektora <b>tf</b> računa <b>tfidf</b>. Uvjet da
-	 * će vektor <b>tfidf</b> biti ispravan je da je vektor dobiven pozivom
-	 * metode {@link SearchProvider#getIdf()} ispravan.
+	 * varijablu, dok se pomoću vektora <b>tf</b> i vektora <b>idf</b> indeksa
+	 * kojem dokument pripada (vidi {@link SearchProvider#getIdf()}) računa
+	 * <b>tfidf</b>.
 	 * 
 	 * @param filePath
 	 *            putanja do pripradne datoteke
 	 * @param tf
 	 *            vektor na temelju kojeg se računa vektor <b>tfidf</b>
+	 * @param idf
+	 *            vektor idf indeksa kojem dokument pripada
 	 */
-	public DocumentVector(String filePath, double[] tf) {
+	public DocumentVector(String filePath, double[] tf, double[] idf) {
 		this.filePath = filePath;
-		calculateVectorAttributes(tf);
+		calculateVectorAttributes(tf, idf);
+	}
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda već izračunatim
+	 * vektorom <b>tfidf</b> (npr. pročitanim iz snimke indeksa, vidi
+	 * {@link IndexSnapshot}). Modul se računa jednako kao i iz vektora tf.
+	 *
+	 * @param filePath
+	 *            putanja do pripradne datoteke
+	 * @param tfidf
+	 *            izgrađeni vektor pretraživanja
+	 */
+	DocumentVector(String filePath, double[] tfidf) {
+		this.filePath = filePath;
+		this.tfidf = tfidf;
+		for (int i = 0; i < tfidf.length; i++) {
+			modul += tfidf[i] * tfidf[i];
+		}
+		modul = Math.sqrt(modul);
 	}
 
 	/**
@@ -47,9 +84,10 @@ public class DocumentVector {
 	 * @param tf
 	 *            vektor na temelju kojeg se računa vektor {@link #tfidf} i
 	 *            njegov modul {@link #modul}
+	 * @param idf
+	 *            vektor idf indeksa kojem dokument pripada
 	 */
-	private void calculateVectorAttributes(double[] tf) {
-		double[] idf = SearchProvider.getProvider().getIdf();
+	private void calculateVectorAttributes(double[] tf, double[] idf) {
 		if (idf.length != tf.length) {
 			throw new IllegalArgumentException("Vektori tf i idf nisu iste veličine");
 		}
@@ -91,6 +129,79 @@ public class DocumentVector {
 		return modul;
 	}
 
+	/**
+	 * Metoda koja dohvaća identifikatore najviše <b>count</b> pojmova s
+	 * najvećom težinom u vektoru pretraživanja, poredane padajuće po težini
+	 *
+	 * @param count
+	 *            najveći broj pojmova koji se dohvaća
+	 * @return polje identifikatora pojmova s najvećom težinom
+	 */
+	public int[] topTerms(int count) {
+		List<Integer> terms = new ArrayList<>();
+		for (int i = 0; i < tfidf.length; i++) {
+			if (tfidf[i] != 0) {
+				terms.add(i);
+			}
+		}
+
+		terms.sort((first, second) -> Double.compare(tfidf[second], tfidf[first]));
+		return terms.stream().limit(count).mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Metoda koja dohvaća nepromjenjivu {@link List}u putanja dokumenata koji
+	 * su kao duplikati ovog dokumenta izostavljeni iz indeksa (vidi
+	 * {@link DuplicatePolicy#COLLAPSE})
+	 *
+	 * @return {@link List} putanja izostavljenih duplikata
+	 */
+	public List<String> getDuplicates() {
+		return Collections.unmodifiableList(duplicates);
+	}
+
+	/**
+	 * Metoda koja dohvaća putanju dokumenta čiji je ovaj dokument duplikat
+	 * (vidi {@link DuplicatePolicy#TAG})
+	 *
+	 * @return putanja dokumenta čiji je ovaj dokument duplikat ili
+	 *         <code>null</code> ukoliko to nije slučaj
+	 */
+	public String getDuplicateOf() {
+		return duplicateOf;
+	}
+
+	/**
+	 * Metoda koja dohvaća oznaku grupe duplikata kojoj ovaj dokument pripada.
+	 * Svi dokumenti iste grupe imaju istu oznaku.
+	 *
+	 * @return oznaka grupe duplikata ovog dokumenta
+	 */
+	public String getDuplicateGroup() {
+		return duplicateOf == null ? filePath : duplicateOf;
+	}
+
+	/**
+	 * Metoda koja dodaje putanju dokumenta koji je kao duplikat ovog
+	 * dokumenta izostavljen iz indeksa
+	 *
+	 * @param path
+	 *            putanja izostavljenog duplikata
+	 */
+	void addDuplicate(String path) {
+		duplicates.add(path);
+	}
+
+	/**
+	 * Metoda koja postavlja putanju dokumenta čiji je ovaj dokument duplikat
+	 *
+	 * @param path
+	 *            putanja dokumenta čiji je ovaj dokument duplikat
+	 */
+	void setDuplicateOf(String path) {
+		duplicateOf = path;
+	}
+
 	/**
 	 * Metoda koja se koristi za izračun sličnosti između dva primjerka razreda
 	 * {@link DocumentVector}.
@@ -0,0 +1,249 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Razred koji pronalazi grupe jednakih i gotovo jednakih dokumenata na temelju
+ * njihovih {@link MinHasher} potpisa. Potpisi se dijele na {@value #BANDS}
+ * pojaseva od po {@value #ROWS} vrijednosti (engl. locality-sensitive
+ * hashing), a dokumenti čiji se barem jedan pojas poklapa postaju kandidati.
+ * Samo se za kandidate procjenjuje sličnost, pa je trajanje približno
+ * linearno u broju dokumenata. Kandidati čija je procijenjena sličnost barem
+ * {@value #THRESHOLD} spajaju se u istu grupu.
+ * <p>
+ * U memoriji se čuvaju samo vrijednosti raspršenja pojaseva, a cijeli potpisi
+ * zapisuju se u privremenu datoteku iz koje se čitaju samo za kandidate.
+ * Datoteka se briše metodom {@link #close()}.
+ * 
+ * @see MinHasher
+ * @see DuplicatePolicy
+ * 
+ * @author Davor Češljaš
+ */
+public class DuplicateDetector implements Closeable {
+
+	/** Konstanta koja predstavlja broj pojaseva potpisa */
+	public static final int BANDS = 24;
+
+	/** Konstanta koja predstavlja broj vrijednosti jednog pojasa */
+	public static final int ROWS = MinHasher.SIGNATURE_SIZE / BANDS;
+
+	/** Konstanta koja predstavlja najmanju sličnost duplikata */
+	public static final double THRESHOLD = 0.8;
+
+	/** Članska varijabla koja predstavlja putanje dodanih dokumenata */
+	private List<String> paths = new ArrayList<>();
+
+	/**
+	 * Članska varijabla koja predstavlja vrijednosti raspršenja pojaseva
+	 * dodanih dokumenata, po {@value #BANDS} za svaki dokument
+	 */
+	private long[] bandHashes = new long[16 * BANDS];
+
+	/** Članska varijabla koja predstavlja privremenu datoteku potpisa */
+	private Path signatureFile;
+
+	/** Članska varijabla koja predstavlja izlaz potpisa */
+	private DataOutputStream signaturesOut;
+
+	/**
+	 * Metoda koja dodaje dokument s putanjom <b>path</b> i potpisom
+	 * <b>signature</b>. Dokumenti bez potpisa se ne dodaju.
+	 *
+	 * @param path
+	 *            putanja do dokumenta
+	 * @param signature
+	 *            potpis dokumenta izračunat metodom
+	 *            {@link MinHasher#signature(List)}
+	 * @throws IOException
+	 *             Ukoliko zapisivanje potpisa nije uspjelo
+	 */
+	public void add(String path, long[] signature) throws IOException {
+		if (signature == null) {
+			return;
+		}
+
+		if (signaturesOut == null) {
+			signatureFile = Files.createTempFile("search-signatures", null);
+			signaturesOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(signatureFile)));
+		}
+		for (long value : signature) {
+			signaturesOut.writeLong(value);
+		}
+
+		int offset = paths.size() * BANDS;
+		if (offset + BANDS > bandHashes.length) {
+			bandHashes = Arrays.copyOf(bandHashes, bandHashes.length * 2);
+		}
+		for (int band = 0; band < BANDS; band++) {
+			bandHashes[offset + band] = bandHash(signature, band);
+		}
+		paths.add(path);
+	}
+
+	/**
+	 * Metoda koja pronalazi grupe duplikata među dodanim dokumentima. Svaki
+	 * dokument koji je duplikat nekog drugog preslikava se na predstavnika
+	 * svoje grupe (leksikografski najmanju putanju grupe). Predstavnici i
+	 * dokumenti bez duplikata ne nalaze se u vraćenoj {@link Map}i.
+	 *
+	 * @return {@link Map} koja duplikate preslikava na predstavnike njihovih
+	 *         grupa
+	 * @throws IOException
+	 *             Ukoliko čitanje potpisa nije uspjelo
+	 */
+	public Map<String, String> findDuplicates() throws IOException {
+		int[] parents = new int[paths.size()];
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = i;
+		}
+		if (signaturesOut == null) {
+			return new HashMap<>();
+		}
+
+		signaturesOut.close();
+		try (FileChannel signatures = FileChannel.open(signatureFile)) {
+			for (int band = 0; band < BANDS; band++) {
+				Map<Long, List<Integer>> buckets = new HashMap<>();
+				for (int i = 0, len = paths.size(); i < len; i++) {
+					buckets.computeIfAbsent(bandHashes[i * BANDS + band], key -> new ArrayList<>()).add(i);
+				}
+
+				for (List<Integer> bucket : buckets.values()) {
+					for (int i = 0, len = bucket.size(); i < len; i++) {
+						for (int j = i + 1; j < len; j++) {
+							int first = bucket.get(i);
+							int second = bucket.get(j);
+							if (find(parents, first) != find(parents, second) && MinHasher.similarity(
+									readSignature(signatures, first), readSignature(signatures, second)) >= THRESHOLD) {
+								union(parents, first, second);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		Map<Integer, String> representatives = new HashMap<>();
+		for (int i = 0; i < parents.length; i++) {
+			representatives.merge(find(parents, i), paths.get(i),
+					(current, path) -> current.compareTo(path) <= 0 ? current : path);
+		}
+
+		Map<String, String> duplicates = new HashMap<>();
+		for (int i = 0; i < parents.length; i++) {
+			String representative = representatives.get(find(parents, i));
+			if (!representative.equals(paths.get(i))) {
+				duplicates.put(paths.get(i), representative);
+			}
+		}
+
+		return duplicates;
+	}
+
+	/**
+	 * Metoda koja briše privremenu datoteku potpisa
+	 *
+	 * @throws IOException
+	 *             Ukoliko brisanje nije uspjelo
+	 */
+	@Override
+	public void close() throws IOException {
+		if (signaturesOut != null) {
+			signaturesOut.close();
+			Files.deleteIfExists(signatureFile);
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja čita potpis dokumenta s rednim brojem
+	 * <b>index</b> iz datoteke potpisa <b>signatures</b>
+	 *
+	 * @param signatures
+	 *            datoteka potpisa
+	 * @param index
+	 *            redni broj dokumenta
+	 * @return potpis dokumenta
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo
+	 */
+	private static long[] readSignature(FileChannel signatures, int index) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8 * MinHasher.SIGNATURE_SIZE);
+		long position = (long) index * buffer.capacity();
+		while (buffer.hasRemaining()) {
+			if (signatures.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Datoteka potpisa je prekratka");
+			}
+		}
+		buffer.flip();
+
+		long[] signature = new long[MinHasher.SIGNATURE_SIZE];
+		buffer.asLongBuffer().get(signature);
+		return signature;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja računa vrijednost raspršenja jednog pojasa
+	 * potpisa
+	 *
+	 * @param signature
+	 *            potpis dokumenta
+	 * @param band
+	 *            redni broj pojasa
+	 * @return vrijednost raspršenja pojasa
+	 */
+	private static long bandHash(long[] signature, int band) {
+		long hash = band;
+		for (int i = band * ROWS, end = i + ROWS; i < end; i++) {
+			hash = MinHasher.mix(hash * 31 + signature[i]);
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja pronalazi korijen skupa elementa
+	 * <b>element</b> uz skraćivanje puta (engl. path halving)
+	 *
+	 * @param parents
+	 *            polje roditelja disjunktnih skupova
+	 * @param element
+	 *            element čiji se korijen traži
+	 * @return korijen skupa elementa
+	 */
+	private static int find(int[] parents, int element) {
+		while (parents[element] != element) {
+			parents[element] = parents[parents[element]];
+			element = parents[element];
+		}
+
+		return element;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja spaja skupove elemenata <b>first</b> i
+	 * <b>second</b>
+	 *
+	 * @param parents
+	 *            polje roditelja disjunktnih skupova
+	 * @param first
+	 *            element prvog skupa
+	 * @param second
+	 *            element drugog skupa
+	 */
+	private static void union(int[] parents, int first, int second) {
+		parents[find(parents, first)] = find(parents, second);
+	}
+}
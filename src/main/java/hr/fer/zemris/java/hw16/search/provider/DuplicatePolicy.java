@@ -0,0 +1,53 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+/**
+ * Enumeracija koja predstavlja način postupanja s dokumentima koje
+ * {@link DuplicateDetector} prepozna kao (gotovo) jednake. Način se bira
+ * svojstvom sustava {@value #PROPERTY}, a vrijednosti su:
+ * <ol>
+ * <li>{@link #OFF}</li>
+ * <li>{@link #TAG}</li>
+ * <li>{@link #COLLAPSE} (pretpostavljeno)</li>
+ * </ol>
+ * 
+ * @see DuplicateDetector
+ * 
+ * @author Davor Češljaš
+ */
+public enum DuplicatePolicy {
+
+	/** Vrijednost koja predstavlja isključeno prepoznavanje duplikata */
+	OFF,
+
+	/**
+	 * Vrijednost koja predstavlja označavanje duplikata: svi dokumenti se
+	 * indeksiraju, ali se među rezultatima pretraživanja prikazuje samo
+	 * najbolje rangirani dokument svake grupe duplikata
+	 */
+	TAG,
+
+	/**
+	 * Vrijednost koja predstavlja sažimanje duplikata: indeksira se samo jedan
+	 * dokument svake grupe, a putanje ostalih pamte se uz njegov vektor
+	 */
+	COLLAPSE;
+
+	/** Konstanta koja predstavlja ime svojstva sustava koje bira način */
+	public static final String PROPERTY = "search.duplicates";
+
+	/**
+	 * Statička metoda koja dohvaća način odabran svojstvom sustava
+	 * {@value #PROPERTY} (neovisno o veličini slova)
+	 *
+	 * @return odabrani način postupanja s duplikatima
+	 */
+	public static DuplicatePolicy fromProperty() {
+		String value = System.getProperty(PROPERTY, COLLAPSE.name());
+		try {
+			return valueOf(value.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(
+					String.format("Nepoznat način '%s', podržani su 'off', 'tag' i 'collapse'", value));
+		}
+	}
+}
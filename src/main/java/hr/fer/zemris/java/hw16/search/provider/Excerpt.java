@@ -0,0 +1,300 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Razred koji predstavlja sažetu tablicu riječi jednog dokumenta, a koja se
+ * gradi prilikom izgradnje indeksa kako bi se prilikom pretraživanja mogli
+ * prikazati isječci (engl. snippets) bez ponovnog čitanja i rastavljanja
+ * datoteke. Za svaku riječ koja je prošla analizu zapisuju se identifikator
+ * pojma u vokabularu, razmak od kraja prethodne riječi te duljina, sve kao
+ * cijeli brojevi promjenjive duljine. Sam tekst dokumenta čuva se u
+ * spremištu {@link DocumentStore}.
+ * <p>
+ * Isječak se bira metodom {@link #snippet(String, Set, int)} kao prozor od
+ * zadanog broja riječi koji sadrži najviše različitih pojmova upita, a pojmovi
+ * upita se unutar isječka označavaju znakom {@value #HIGHLIGHT}.
+ *
+ * @author Davor Češljaš
+ */
+public class Excerpt {
+
+	/** Konstanta koja predstavlja oznaku kojom se ističu pojmovi upita */
+	public static final String HIGHLIGHT = "*";
+
+	/** Konstanta koja predstavlja oznaku izostavljenog teksta */
+	private static final String ELLIPSIS = "...";
+
+	/** Članska varijabla koja predstavlja zapisanu tablicu riječi */
+	private byte[] tokens;
+
+	/** Članska varijabla koja predstavlja broj riječi u tablici */
+	private int tokenCount;
+
+	/**
+	 * Privatni konstruktor koji inicijalizira primjerak ovog razreda već
+	 * zapisanom tablicom riječi (vidi {@link #read(DataInput)} i
+	 * {@link #readPending(DataInput, TermDictionary)})
+	 *
+	 * @param tokens
+	 *            zapisana tablica riječi
+	 * @param tokenCount
+	 *            broj riječi u tablici
+	 */
+	private Excerpt(byte[] tokens, int tokenCount) {
+		this.tokens = tokens;
+		this.tokenCount = tokenCount;
+	}
+
+	/**
+	 * Metoda koja zapisuje tablicu riječi u izlaz <b>out</b>
+	 *
+	 * @param out
+	 *            izlaz u koji se tablica zapisuje
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeInt(tokenCount);
+		out.writeInt(tokens.length);
+		out.write(tokens);
+	}
+
+	/**
+	 * Statička metoda koja čita tablicu riječi zapisanu metodom
+	 * {@link #write(DataOutput)}
+	 *
+	 * @param in
+	 *            ulaz iz kojeg se tablica čita
+	 * @return pročitana tablica riječi
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo
+	 */
+	static Excerpt read(DataInput in) throws IOException {
+		int tokenCount = in.readInt();
+		byte[] tokens = new byte[in.readInt()];
+		in.readFully(tokens);
+		return new Excerpt(tokens, tokenCount);
+	}
+
+	/**
+	 * Statička metoda koja zapisuje tablicu riječi čiji identifikatori
+	 * pojmova još nisu poznati u izlaz <b>out</b>. Pojmovi se zapisuju
+	 * tablicom različitih pojmova dokumenta, a riječi indeksima u toj tablici.
+	 * Tablica se čita metodom {@link #readPending(DataInput, TermDictionary)}.
+	 *
+	 * @param out
+	 *            izlaz u koji se tablica zapisuje
+	 * @param terms
+	 *            pojmovi riječi teksta koje su prošle analizu, redom
+	 *            pojavljivanja
+	 * @param offsets
+	 *            položaji riječi, za svaki pojam redom položaj početka i
+	 *            položaj kraja riječi unutar teksta
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	static void writePending(DataOutput out, List<String> terms, int[] offsets) throws IOException {
+		Map<String, Integer> table = new LinkedHashMap<>();
+		ByteWriter writer = new ByteWriter(terms.size() * 3);
+		int previousEnd = 0;
+		for (int i = 0, len = terms.size(); i < len; i++) {
+			int start = offsets[2 * i];
+			int end = offsets[2 * i + 1];
+			Integer local = table.putIfAbsent(terms.get(i), table.size());
+			writer.writeVInt(local == null ? table.size() - 1 : local);
+			writer.writeVInt(start - previousEnd);
+			writer.writeVInt(end - start);
+			previousEnd = end;
+		}
+
+		out.writeInt(terms.size());
+		out.writeInt(table.size());
+		for (String term : table.keySet()) {
+			out.writeUTF(term);
+		}
+		out.writeInt(writer.size());
+		out.write(writer.toByteArray());
+	}
+
+	/**
+	 * Statička metoda koja čita tablicu riječi zapisanu metodom
+	 * {@link #writePending(DataOutput, List, int[])} i zapisuje je
+	 * identifikatorima pojmova iz rječnika <b>vocabulary</b>
+	 *
+	 * @param in
+	 *            ulaz iz kojeg se tablica čita
+	 * @param vocabulary
+	 *            rječnik pojmova
+	 * @return pročitana tablica riječi
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo
+	 */
+	static Excerpt readPending(DataInput in, TermDictionary vocabulary) throws IOException {
+		int tokenCount = in.readInt();
+		int[] ids = new int[in.readInt()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = vocabulary.getId(in.readUTF());
+		}
+		byte[] pending = new byte[in.readInt()];
+		in.readFully(pending);
+
+		ByteReader reader = new ByteReader(pending);
+		ByteWriter writer = new ByteWriter(pending.length + tokenCount);
+		for (int i = 0; i < tokenCount; i++) {
+			writer.writeVInt(ids[reader.readVInt()] + 1);
+			writer.writeVInt(reader.readVInt());
+			writer.writeVInt(reader.readVInt());
+		}
+
+		return new Excerpt(writer.toByteArray(), tokenCount);
+	}
+
+	/**
+	 * Statička metoda koja preskače tablicu riječi zapisanu metodom
+	 * {@link #writePending(DataOutput, List, int[])}
+	 *
+	 * @param in
+	 *            ulaz iz kojeg se tablica čita
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo
+	 */
+	static void skipPending(DataInput in) throws IOException {
+		in.readInt();
+		for (int i = 0, len = in.readInt(); i < len; i++) {
+			in.readUTF();
+		}
+		in.readFully(new byte[in.readInt()]);
+	}
+
+	/**
+	 * Metoda koja dohvaća broj okteta koje zauzima ovaj zapis
+	 *
+	 * @return broj okteta tablice riječi
+	 */
+	public int sizeInBytes() {
+		return tokens.length;
+	}
+
+	/**
+	 * Metoda koja stvara isječak teksta od najviše <b>window</b> riječi koji
+	 * sadrži najviše različitih pojmova <b>queryTermIds</b>, a među jednakima
+	 * najviše pojavljivanja tih pojmova. Pojmovi upita unutar isječka se
+	 * ističu, a izostavljeni tekst na početku i kraju označava se trotočjem.
+	 *
+	 * @param content
+	 *            tekst dokumenta iz kojeg je tablica riječi izgrađena
+	 * @param queryTermIds
+	 *            identifikatori pojmova upita
+	 * @param window
+	 *            najveći broj riječi isječka
+	 * @return isječak teksta u jednom redku ili prazan {@link String} ukoliko
+	 *         dokument nema niti jednu riječ
+	 */
+	public String snippet(String content, Set<Integer> queryTermIds, int window) {
+		if (tokenCount == 0) {
+			return "";
+		}
+
+		int[] ids = new int[tokenCount];
+		int[] starts = new int[tokenCount];
+		int[] ends = new int[tokenCount];
+		ByteReader reader = new ByteReader(tokens);
+		int previousEnd = 0;
+		for (int i = 0; i < tokenCount; i++) {
+			ids[i] = reader.readVInt() - 1;
+			starts[i] = previousEnd + reader.readVInt();
+			ends[i] = previousEnd = starts[i] + reader.readVInt();
+		}
+
+		int first = bestWindow(ids, queryTermIds, Math.min(window, tokenCount));
+		int last = Math.min(first + window, tokenCount) - 1;
+
+		StringBuilder sb = new StringBuilder();
+		if (first > 0) {
+			sb.append(ELLIPSIS);
+		}
+		for (int i = first; i <= last; i++) {
+			if (i > first) {
+				sb.append(content.substring(ends[i - 1], starts[i]).replaceAll("\\s+", " "));
+			}
+
+			boolean match = queryTermIds.contains(ids[i]);
+			sb.append(match ? HIGHLIGHT : "").append(content, starts[i], ends[i]).append(match ? HIGHLIGHT : "");
+		}
+		if (last < tokenCount - 1) {
+			sb.append(ELLIPSIS);
+		}
+
+		return sb.toString().trim();
+	}
+
+	/**
+	 * Pomoćna statička metoda koja pronalazi početak prozora od <b>window</b>
+	 * riječi s najviše različitih pojmova upita (a među jednakima s najviše
+	 * pojavljivanja), te ga pomiče tako da pronađeni pojmovi budu približno u
+	 * sredini prozora
+	 *
+	 * @param ids
+	 *            identifikatori pojmova riječi teksta
+	 * @param queryTermIds
+	 *            identifikatori pojmova upita
+	 * @param window
+	 *            broj riječi prozora, ne veći od broja riječi teksta
+	 * @return indeks prve riječi prozora
+	 */
+	private static int bestWindow(int[] ids, Set<Integer> queryTermIds, int window) {
+		Map<Integer, Integer> counts = new HashMap<>();
+		int distinct = 0;
+		int matches = 0;
+		int bestStart = 0;
+		int bestDistinct = -1;
+		int bestMatches = -1;
+
+		for (int i = 0; i < ids.length; i++) {
+			if (queryTermIds.contains(ids[i])) {
+				matches++;
+				if (counts.merge(ids[i], 1, Integer::sum) == 1) {
+					distinct++;
+				}
+			}
+
+			int start = i - window + 1;
+			if (start > 0 && queryTermIds.contains(ids[start - 1])) {
+				matches--;
+				if (counts.merge(ids[start - 1], -1, Integer::sum) == 0) {
+					distinct--;
+				}
+			}
+
+			if (start >= 0 && (distinct > bestDistinct || distinct == bestDistinct && matches > bestMatches)) {
+				bestStart = start;
+				bestDistinct = distinct;
+				bestMatches = matches;
+			}
+		}
+
+		int firstMatch = -1;
+		int lastMatch = -1;
+		for (int i = bestStart; i < bestStart + window; i++) {
+			if (queryTermIds.contains(ids[i])) {
+				firstMatch = firstMatch == -1 ? i : firstMatch;
+				lastMatch = i;
+			}
+		}
+
+		if (firstMatch == -1) {
+			return bestStart;
+		}
+
+		int centered = firstMatch - (window - (lastMatch - firstMatch + 1)) / 2;
+		return Math.max(0, Math.min(centered, ids.length - window));
+	}
+}
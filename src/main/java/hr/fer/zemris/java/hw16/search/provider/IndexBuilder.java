@@ -0,0 +1,847 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import hr.fer.zemris.java.hw16.search.metrics.Counter;
+import hr.fer.zemris.java.hw16.search.metrics.LatencyHistogram;
+import hr.fer.zemris.java.hw16.search.metrics.MetricsRegistry;
+
+/**
+ * Razred koji gradi obrnuti indeks prilikom učitavanja dokumenata unutar
+ * zadanog memorijskog proračuna. Pojmovi svakog dokumenta odmah se pretvaraju
+ * u zapise (dokument, broj pojavljivanja) u međuspremniku, pa se pojmovi
+ * pojedinih dokumenata ne moraju čuvati do izračuna vektora idf. Pojmovi se
+ * broje primjerkom razreda {@link TermCounter} po identifikatorima koje
+ * dodjeljuje metoda {@link #termId(String)} i koji vrijede do sljedećeg
+ * zapisivanja međuspremnika. Kada procijenjena veličina međuspremnika
+ * dosegne proračun, zapisi se sortiraju po pojmu i zapisuju u privremenu
+ * datoteku (engl. run). Tablice riječi za isječke (vidi {@link Excerpt})
+ * odmah se zapisuju u privremenu datoteku, redom dodavanja dokumenata.
+ * <p>
+ * Metoda {@link #finish(BitSet)} spaja sve zapisane datoteke (engl. k-way
+ * merge), čitajući svaku datoteku slijedno, te za svaki pojam računa broj
+ * dokumenata koji ga sadrže. Zapisi (dokument, pojam, broj pojavljivanja)
+ * pritom se skupljaju u međuspremnik koji se, kada dosegne proračun, sortira
+ * po dokumentu i zapisuje u novu privremenu datoteku. Pojmovi dokumenata
+ * zatim se dohvaćaju metodom {@link #nextDocument()} spajanjem tih datoteka,
+ * redom dokumenata, pa niti jedan korak izgradnje ne drži u memoriji više od
+ * proračuna zapisa. Proračun u kilooktetima zadaje se svojstvom sustava
+ * {@value #BUDGET_PROPERTY} (pretpostavljeno {@value #DEFAULT_BUDGET_KB}).
+ * Privremene datoteke brišu se metodom {@link #close()}, i kada izgradnja ne
+ * uspije.
+ *
+ * @author Davor Češljaš
+ */
+public class IndexBuilder implements Closeable {
+
+	/** Konstanta koja predstavlja ime svojstva sustava s proračunom */
+	public static final String BUDGET_PROPERTY = "search.build.budget";
+
+	/** Konstanta koja predstavlja pretpostavljeni proračun u kilooktetima */
+	public static final int DEFAULT_BUDGET_KB = 64 * 1024;
+
+	/** Konstanta koja predstavlja procijenjenu cijenu novog pojma u oktetima */
+	private static final int TERM_OVERHEAD = 96;
+
+	/** Konstanta koja predstavlja procijenjenu cijenu jednog zapisa u oktetima */
+	private static final int POSTING_BYTES = 8;
+
+	/**
+	 * Konstanta koja predstavlja cijenu jednog zapisa (dokument, pojam, broj
+	 * pojavljivanja) prilikom spajanja u oktetima, uključujući i polje
+	 * poretka za sortiranje
+	 */
+	private static final int MERGE_ENTRY_BYTES = 16;
+
+	/** Konstanta koja predstavlja mjerenje trajanja zapisivanja datoteke */
+	private static final LatencyHistogram SPILL_TIME = MetricsRegistry.getRegistry().histogram("index.spill");
+
+	/** Konstanta koja predstavlja mjerenje trajanja spajanja datoteka */
+	private static final LatencyHistogram MERGE_TIME = MetricsRegistry.getRegistry().histogram("index.merge");
+
+	/** Konstanta koja predstavlja brojač zapisanih datoteka */
+	private static final Counter RUNS = MetricsRegistry.getRegistry().counter("index.runs");
+
+	/**
+	 * Razred koji predstavlja zapise jednog pojma unutar međuspremnika, redom
+	 * naizmjence dokument i broj pojavljivanja
+	 */
+	private static class PostingsBuffer {
+
+		/** Članska varijabla koja predstavlja identifikator pojma */
+		private int term;
+
+		/** Članska varijabla koja predstavlja zapise */
+		private int[] values = new int[4];
+
+		/** Članska varijabla koja predstavlja broj zauzetih vrijednosti */
+		private int size;
+
+		/**
+		 * Metoda koja dodaje zapis dokumenta <b>doc</b> s <b>count</b>
+		 * pojavljivanja
+		 *
+		 * @param doc
+		 *            redni broj dokumenta
+		 * @param count
+		 *            broj pojavljivanja
+		 */
+		private void add(int doc, int count) {
+			if (size + 2 > values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			values[size++] = doc;
+			values[size++] = count;
+		}
+	}
+
+	/**
+	 * Razred koji predstavlja izvor sortiranih zapisa prilikom spajanja:
+	 * zapisanu datoteku ili preostali međuspremnik
+	 */
+	private static abstract class RunReader implements Comparable<RunReader> {
+
+		/** Članska varijabla koja predstavlja redni broj izvora */
+		private final int order;
+
+		/** Članska varijabla koja predstavlja trenutni pojam */
+		protected String term;
+
+		/** Članska varijabla koja predstavlja zapise trenutnog pojma */
+		protected int[] values;
+
+		/** Članska varijabla koja predstavlja broj vrijednosti trenutnog pojma */
+		protected int size;
+
+		/**
+		 * Konstruktor koji inicijalizira izvor s rednim brojem <b>order</b>
+		 *
+		 * @param order
+		 *            redni broj izvora, jednak redoslijedu nastanka
+		 */
+		protected RunReader(int order) {
+			this.order = order;
+		}
+
+		/**
+		 * Metoda koja prelazi na sljedeći pojam izvora
+		 *
+		 * @return <code>true</code> ukoliko pojam postoji, inače
+		 *         <code>false</code>
+		 * @throws IOException
+		 *             Ukoliko čitanje nije uspjelo
+		 */
+		protected abstract boolean next() throws IOException;
+
+		/**
+		 * Metoda koja zatvara izvor
+		 *
+		 * @throws IOException
+		 *             Ukoliko zatvaranje nije uspjelo
+		 */
+		protected void close() throws IOException {
+		}
+
+		@Override
+		public int compareTo(RunReader o) {
+			int result = term.compareTo(o.term);
+			return result != 0 ? result : Integer.compare(order, o.order);
+		}
+	}
+
+	/** Članska varijabla koja predstavlja proračun u oktetima */
+	private final long budget;
+
+	/** Članska varijabla koja predstavlja međuspremnik zapisa */
+	private Map<String, PostingsBuffer> buffer = new HashMap<>();
+
+	/**
+	 * Članska varijabla koja predstavlja zapise međuspremnika po
+	 * identifikatoru pojma (vidi {@link #termId(String)})
+	 */
+	private PostingsBuffer[] bufferTerms = new PostingsBuffer[64];
+
+	/** Članska varijabla koja predstavlja broj pojmova međuspremnika */
+	private int bufferTermCount;
+
+	/** Članska varijabla koja predstavlja procijenjenu veličinu međuspremnika */
+	private long bufferedBytes;
+
+	/** Članska varijabla koja predstavlja zapisane datoteke sortirane po pojmu */
+	private List<Path> runs = new ArrayList<>();
+
+	/**
+	 * Članska varijabla koja predstavlja zapisane datoteke sortirane po
+	 * dokumentu
+	 */
+	private List<Path> documentRuns = new ArrayList<>();
+
+	/** Članska varijabla koja predstavlja direktorij zapisanih datoteka */
+	private Path directory;
+
+	/** Članska varijabla koja predstavlja izlaz tablica riječi za isječke */
+	private DataOutputStream excerptsOut;
+
+	/** Članska varijabla koja predstavlja ulaz tablica riječi za isječke */
+	private DataInputStream excerptsIn;
+
+	/** Članska varijabla koja predstavlja broj dodanih dokumenata */
+	private int documentCount;
+
+	/** Članska varijabla koja predstavlja pojmove nakon spajanja */
+	private List<String> terms;
+
+	/** Članska varijabla koja predstavlja broj dokumenata svakog pojma */
+	private int[] documentFrequencies;
+
+	/** Članska varijabla koja predstavlja dokumente prilikom spajanja */
+	private int[] mergeDocuments;
+
+	/** Članska varijabla koja predstavlja indekse pojmova prilikom spajanja */
+	private int[] mergeTerms;
+
+	/** Članska varijabla koja predstavlja brojeve pojavljivanja prilikom spajanja */
+	private int[] mergeCounts;
+
+	/** Članska varijabla koja predstavlja broj zapisa prilikom spajanja */
+	private int mergeSize;
+
+	/** Članska varijabla koja predstavlja izostavljene dokumente */
+	private BitSet excluded;
+
+	/** Članska varijabla koja predstavlja izvore pojmova dokumenata */
+	private PriorityQueue<DocumentRunReader> documentQueue;
+
+	/** Članska varijabla koja predstavlja trenutni dokument */
+	private int document = -1;
+
+	/** Članska varijabla koja predstavlja pojmove trenutnog dokumenta */
+	private PostingsBuffer documentTerms = new PostingsBuffer();
+
+	/**
+	 * Konstruktor koji inicijalizira graditelj s proračunom zadanim svojstvom
+	 * sustava {@value #BUDGET_PROPERTY}
+	 */
+	public IndexBuilder() {
+		this((long) Integer.getInteger(BUDGET_PROPERTY, DEFAULT_BUDGET_KB) * 1024);
+	}
+
+	/**
+	 * Konstruktor koji inicijalizira graditelj s proračunom <b>budget</b>
+	 *
+	 * @param budget
+	 *            proračun međuspremnika u oktetima
+	 */
+	public IndexBuilder(long budget) {
+		if (budget <= 0) {
+			throw new IllegalArgumentException("Proračun mora biti pozitivan");
+		}
+
+		this.budget = budget;
+	}
+
+	/**
+	 * Metoda koja dohvaća identifikator pojma <b>term</b> unutar
+	 * međuspremnika, dodjeljujući novi identifikator pojmu koji se još nije
+	 * pojavio. Identifikatori vrijede samo do sljedećeg poziva metode
+	 * {@link #add(TermCounter, List, int[])}, jer se nakon zapisivanja
+	 * međuspremnika dodjeljuju ispočetka.
+	 *
+	 * @param term
+	 *            pojam dokumenta
+	 * @return identifikator pojma
+	 */
+	public int termId(String term) {
+		PostingsBuffer postings = buffer.get(term);
+		if (postings == null) {
+			postings = new PostingsBuffer();
+			postings.term = bufferTermCount;
+			buffer.put(term, postings);
+			if (bufferTermCount == bufferTerms.length) {
+				bufferTerms = Arrays.copyOf(bufferTerms, bufferTermCount * 2);
+			}
+			bufferTerms[bufferTermCount++] = postings;
+			bufferedBytes += TERM_OVERHEAD + 2 * term.length();
+		}
+
+		return postings.term;
+	}
+
+	/**
+	 * Metoda koja dodaje sljedeći dokument čiji su pojmovi, zadani
+	 * identifikatorima dobivenim metodom {@link #termId(String)}, prebrojani u
+	 * <b>counter</b>. Tablica riječi dokumenta za isječke odmah se zapisuje u
+	 * privremenu datoteku. Dokumenti dobivaju redne brojeve redom dodavanja.
+	 *
+	 * @param counter
+	 *            brojač pojmova dokumenta
+	 * @param tokens
+	 *            pojmovi riječi teksta redom pojavljivanja
+	 * @param offsets
+	 *            položaji početka i kraja svake riječi unutar teksta
+	 * @return redni broj dokumenta
+	 * @throws IOException
+	 *             Ukoliko zapisivanje privremene datoteke nije uspjelo
+	 */
+	public int add(TermCounter counter, List<String> tokens, int[] offsets) throws IOException {
+		if (excerptsOut == null) {
+			excerptsOut = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(directory().resolve("excerpts"))));
+		}
+		Excerpt.writePending(excerptsOut, tokens, offsets);
+
+		int doc = documentCount++;
+		for (int i = 0; i < counter.size(); i++) {
+			bufferTerms[counter.term(i)].add(doc, counter.count(i));
+			bufferedBytes += POSTING_BYTES;
+		}
+
+		if (bufferedBytes >= budget) {
+			spill();
+		}
+		return doc;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj dodanih dokumenata
+	 *
+	 * @return broj dodanih dokumenata
+	 */
+	public int getDocumentCount() {
+		return documentCount;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj zapisanih privremenih datoteka sortiranih po
+	 * pojmu
+	 *
+	 * @return broj zapisanih datoteka
+	 */
+	public int getRunCount() {
+		return runs.size();
+	}
+
+	/**
+	 * Metoda koja spaja sve zapisane datoteke i međuspremnik te zapisuje
+	 * pojmove dokumenata sortirane po dokumentu. Zapisi dokumenata iz
+	 * <b>excluded</b> se preskaču, a pojmovi koji nakon toga nemaju niti jedan
+	 * dokument izostavljaju se. Datoteke sortirane po pojmu brišu se nakon
+	 * spajanja.
+	 *
+	 * @param excluded
+	 *            redni brojevi dokumenata koji se izostavljaju
+	 * @throws IOException
+	 *             Ukoliko čitanje ili zapisivanje privremenih datoteka nije
+	 *             uspjelo
+	 */
+	public void finish(BitSet excluded) throws IOException {
+		long start = System.nanoTime();
+		this.excluded = excluded;
+		spill();
+		buffer = null;
+		bufferTerms = null;
+		if (excerptsOut != null) {
+			excerptsOut.close();
+		}
+
+		int capacity = (int) Math.max(1024, Math.min(budget / MERGE_ENTRY_BYTES, Integer.MAX_VALUE / 2));
+		mergeDocuments = new int[capacity];
+		mergeTerms = new int[capacity];
+		mergeCounts = new int[capacity];
+
+		PriorityQueue<RunReader> queue = new PriorityQueue<>();
+		try {
+			for (int i = 0; i < runs.size(); i++) {
+				addReader(queue, new FileRunReader(i, runs.get(i)));
+			}
+
+			terms = new ArrayList<>();
+			documentFrequencies = new int[16];
+			while (!queue.isEmpty()) {
+				String term = queue.peek().term;
+				int frequency = 0;
+				while (!queue.isEmpty() && queue.peek().term.equals(term)) {
+					RunReader reader = queue.poll();
+					for (int i = 0; i < reader.size; i += 2) {
+						int doc = reader.values[i];
+						if (excluded.get(doc)) {
+							continue;
+						}
+
+						if (mergeSize == mergeDocuments.length) {
+							spillDocuments();
+						}
+						mergeDocuments[mergeSize] = doc;
+						mergeTerms[mergeSize] = terms.size();
+						mergeCounts[mergeSize++] = reader.values[i + 1];
+						frequency++;
+					}
+					addReader(queue, reader);
+				}
+
+				if (frequency > 0) {
+					if (terms.size() == documentFrequencies.length) {
+						documentFrequencies = Arrays.copyOf(documentFrequencies, terms.size() * 2);
+					}
+					documentFrequencies[terms.size()] = frequency;
+					terms.add(term);
+				}
+			}
+			spillDocuments();
+		} finally {
+			for (RunReader reader : queue) {
+				reader.close();
+			}
+			for (Path run : runs) {
+				Files.deleteIfExists(run);
+			}
+			mergeDocuments = mergeTerms = mergeCounts = null;
+		}
+
+		documentQueue = new PriorityQueue<>();
+		for (int i = 0; i < documentRuns.size(); i++) {
+			DocumentRunReader reader = new DocumentRunReader(i, documentRuns.get(i));
+			if (reader.next()) {
+				documentQueue.add(reader);
+			} else {
+				reader.close();
+			}
+		}
+		if (excerptsOut != null) {
+			excerptsIn = new DataInputStream(
+					new BufferedInputStream(Files.newInputStream(directory.resolve("excerpts"))));
+		}
+		MERGE_TIME.recordSince(start);
+	}
+
+	/**
+	 * Metoda koja nakon spajanja dohvaća sve pojmove, sortirane uzlazno
+	 *
+	 * @return {@link List} pojmova
+	 */
+	public List<String> getTerms() {
+		return terms;
+	}
+
+	/**
+	 * Metoda koja nakon spajanja dohvaća broj dokumenata koji sadrže pojam s
+	 * indeksom <b>term</b> unutar {@link #getTerms()}
+	 *
+	 * @param term
+	 *            indeks pojma
+	 * @return broj dokumenata koji sadrže pojam
+	 */
+	public int documentFrequency(int term) {
+		return documentFrequencies[term];
+	}
+
+	/**
+	 * Metoda koja nakon spajanja prelazi na sljedeći dokument koji nije
+	 * izostavljen, redom rednih brojeva dokumenata. Pojmovi dokumenta
+	 * dohvaćaju se metodom {@link #documentTerms()}, a tablica riječi metodom
+	 * {@link #documentExcerpt(TermDictionary)}.
+	 *
+	 * @return redni broj dokumenta ili -1 ukoliko više nema dokumenata
+	 * @throws IOException
+	 *             Ukoliko čitanje privremenih datoteka nije uspjelo
+	 */
+	public int nextDocument() throws IOException {
+		for (document++; document < documentCount && excluded.get(document); document++) {
+			Excerpt.skipPending(excerptsIn);
+		}
+		if (document >= documentCount) {
+			return -1;
+		}
+
+		documentTerms.size = 0;
+		while (!documentQueue.isEmpty() && documentQueue.peek().doc == document) {
+			DocumentRunReader reader = documentQueue.poll();
+			for (int i = 0; i < reader.size; i += 2) {
+				documentTerms.add(reader.values[i], reader.values[i + 1]);
+			}
+			if (reader.next()) {
+				documentQueue.add(reader);
+			} else {
+				reader.close();
+			}
+		}
+
+		return document;
+	}
+
+	/**
+	 * Metoda koja dohvaća pojmove trenutnog dokumenta (vidi
+	 * {@link #nextDocument()}), naizmjence indeks pojma unutar
+	 * {@link #getTerms()} i broj pojavljivanja
+	 *
+	 * @return polje indeksa pojmova i brojeva pojavljivanja
+	 */
+	public int[] documentTerms() {
+		return Arrays.copyOf(documentTerms.values, documentTerms.size);
+	}
+
+	/**
+	 * Metoda koja čita tablicu riječi trenutnog dokumenta (vidi
+	 * {@link #nextDocument()}) i zapisuje je identifikatorima pojmova
+	 * rječnika <b>vocabulary</b>. Metoda se za svaki dokument poziva najviše
+	 * jednom.
+	 *
+	 * @param vocabulary
+	 *            rječnik pojmova
+	 * @return tablica riječi dokumenta
+	 * @throws IOException
+	 *             Ukoliko čitanje privremene datoteke nije uspjelo
+	 */
+	public Excerpt documentExcerpt(TermDictionary vocabulary) throws IOException {
+		return Excerpt.readPending(excerptsIn, vocabulary);
+	}
+
+	/**
+	 * Metoda koja zatvara sve privremene datoteke i briše ih zajedno s
+	 * njihovim direktorijem
+	 *
+	 * @throws IOException
+	 *             Ukoliko brisanje nije uspjelo
+	 */
+	@Override
+	public void close() throws IOException {
+		if (documentQueue != null) {
+			for (DocumentRunReader reader : documentQueue) {
+				reader.close();
+			}
+			documentQueue = null;
+		}
+		if (excerptsOut != null) {
+			excerptsOut.close();
+		}
+		if (excerptsIn != null) {
+			excerptsIn.close();
+		}
+		if (directory == null) {
+			return;
+		}
+
+		for (Path run : runs) {
+			Files.deleteIfExists(run);
+		}
+		for (Path run : documentRuns) {
+			Files.deleteIfExists(run);
+		}
+		Files.deleteIfExists(directory.resolve("excerpts"));
+		Files.deleteIfExists(directory);
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća direktorij privremenih datoteka, stvarajući
+	 * ga prilikom prvog poziva
+	 *
+	 * @return direktorij privremenih datoteka
+	 * @throws IOException
+	 *             Ukoliko stvaranje direktorija nije uspjelo
+	 */
+	private Path directory() throws IOException {
+		if (directory == null) {
+			directory = Files.createTempDirectory("search-build");
+		}
+
+		return directory;
+	}
+
+	/**
+	 * Pomoćna metoda koja zapisuje međuspremnik, sortiran po pojmu, u novu
+	 * privremenu datoteku
+	 *
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	private void spill() throws IOException {
+		if (buffer.isEmpty()) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		Path run = directory().resolve("run-" + runs.size());
+		runs.add(run);
+		String[] sorted = buffer.keySet().toArray(new String[buffer.size()]);
+		Arrays.sort(sorted);
+		try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+			os.writeInt(sorted.length);
+			for (String term : sorted) {
+				PostingsBuffer postings = buffer.get(term);
+				os.writeUTF(term);
+				os.writeInt(postings.size);
+				int previous = 0;
+				for (int i = 0; i < postings.size; i += 2) {
+					writeVInt(os, postings.values[i] - previous);
+					writeVInt(os, postings.values[i + 1]);
+					previous = postings.values[i];
+				}
+			}
+		}
+
+		buffer = new HashMap<>();
+		Arrays.fill(bufferTerms, 0, bufferTermCount, null);
+		bufferTermCount = 0;
+		bufferedBytes = 0;
+		RUNS.increment();
+		SPILL_TIME.recordSince(start);
+	}
+
+	/**
+	 * Pomoćna metoda koja zapise skupljene prilikom spajanja sortira po
+	 * dokumentu (sortiranjem prebrojavanjem, pa pojmovi svakog dokumenta
+	 * ostaju uzlazno poredani) i zapisuje u novu privremenu datoteku
+	 *
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	private void spillDocuments() throws IOException {
+		if (mergeSize == 0) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		int[] starts = new int[documentCount + 1];
+		for (int i = 0; i < mergeSize; i++) {
+			starts[mergeDocuments[i] + 1]++;
+		}
+		for (int doc = 0; doc < documentCount; doc++) {
+			starts[doc + 1] += starts[doc];
+		}
+
+		int[] order = new int[mergeSize];
+		int[] next = Arrays.copyOf(starts, documentCount);
+		for (int i = 0; i < mergeSize; i++) {
+			order[next[mergeDocuments[i]]++] = i;
+		}
+
+		Path run = directory().resolve("documents-" + documentRuns.size());
+		documentRuns.add(run);
+		try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+			int previousDoc = -1;
+			for (int doc = 0; doc < documentCount; doc++) {
+				if (starts[doc] == starts[doc + 1]) {
+					continue;
+				}
+
+				writeVInt(os, doc - previousDoc);
+				writeVInt(os, starts[doc + 1] - starts[doc]);
+				int previousTerm = 0;
+				for (int i = starts[doc]; i < starts[doc + 1]; i++) {
+					writeVInt(os, mergeTerms[order[i]] - previousTerm);
+					writeVInt(os, mergeCounts[order[i]]);
+					previousTerm = mergeTerms[order[i]];
+				}
+				previousDoc = doc;
+			}
+			writeVInt(os, 0);
+		}
+
+		mergeSize = 0;
+		RUNS.increment();
+		SPILL_TIME.recordSince(start);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja izvor <b>reader</b> prebacuje na sljedeći
+	 * pojam i vraća ga u red, odnosno zatvara ga ukoliko je iscrpljen
+	 *
+	 * @param queue
+	 *            red izvora
+	 * @param reader
+	 *            izvor
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo
+	 */
+	private static void addReader(PriorityQueue<RunReader> queue, RunReader reader) throws IOException {
+		if (reader.next()) {
+			queue.add(reader);
+		} else {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja zapisuje nenegativan cijeli broj
+	 * <b>value</b> promjenjivom duljinom
+	 *
+	 * @param os
+	 *            izlazni tok
+	 * @param value
+	 *            nenegativan cijeli broj
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	private static void writeVInt(DataOutputStream os, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			os.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		os.writeByte(value);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja čita cijeli broj zapisan metodom
+	 * {@link #writeVInt(DataOutputStream, int)}
+	 *
+	 * @param is
+	 *            ulazni tok
+	 * @return pročitani broj
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo
+	 */
+	private static int readVInt(DataInputStream is) throws IOException {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = is.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Razred koji predstavlja izvor zapisa iz privremene datoteke
+	 */
+	private static class FileRunReader extends RunReader {
+
+		/** Članska varijabla koja predstavlja ulazni tok datoteke */
+		private final DataInputStream is;
+
+		/** Članska varijabla koja predstavlja broj nepročitanih pojmova */
+		private int remaining;
+
+		/**
+		 * Konstruktor koji otvara datoteku <b>run</b>
+		 *
+		 * @param order
+		 *            redni broj izvora
+		 * @param run
+		 *            putanja datoteke
+		 * @throws IOException
+		 *             Ukoliko otvaranje nije uspjelo
+		 */
+		private FileRunReader(int order, Path run) throws IOException {
+			super(order);
+			is = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+			remaining = is.readInt();
+		}
+
+		@Override
+		protected boolean next() throws IOException {
+			if (remaining-- == 0) {
+				return false;
+			}
+
+			term = is.readUTF();
+			size = is.readInt();
+			values = new int[size];
+			int previous = 0;
+			for (int i = 0; i < size; i += 2) {
+				values[i] = previous += readVInt(is);
+				values[i + 1] = readVInt(is);
+			}
+			return true;
+		}
+
+		@Override
+		protected void close() throws IOException {
+			is.close();
+		}
+	}
+
+	/**
+	 * Razred koji predstavlja izvor pojmova dokumenata iz privremene datoteke
+	 * sortirane po dokumentu
+	 */
+	private static class DocumentRunReader implements Comparable<DocumentRunReader> {
+
+		/** Članska varijabla koja predstavlja redni broj izvora */
+		private final int order;
+
+		/** Članska varijabla koja predstavlja ulazni tok datoteke */
+		private final DataInputStream is;
+
+		/** Članska varijabla koja predstavlja trenutni dokument */
+		private int doc = -1;
+
+		/** Članska varijabla koja predstavlja pojmove trenutnog dokumenta */
+		private int[] values = new int[16];
+
+		/** Članska varijabla koja predstavlja broj vrijednosti trenutnog dokumenta */
+		private int size;
+
+		/**
+		 * Konstruktor koji otvara datoteku <b>run</b>
+		 *
+		 * @param order
+		 *            redni broj izvora, jednak redoslijedu nastanka
+		 * @param run
+		 *            putanja datoteke
+		 * @throws IOException
+		 *             Ukoliko otvaranje nije uspjelo
+		 */
+		private DocumentRunReader(int order, Path run) throws IOException {
+			this.order = order;
+			is = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+		}
+
+		/**
+		 * Metoda koja prelazi na sljedeći dokument izvora
+		 *
+		 * @return <code>true</code> ukoliko dokument postoji, inače
+		 *         <code>false</code>
+		 * @throws IOException
+		 *             Ukoliko čitanje nije uspjelo
+		 */
+		private boolean next() throws IOException {
+			int delta = readVInt(is);
+			if (delta == 0) {
+				return false;
+			}
+
+			doc += delta;
+			size = 2 * readVInt(is);
+			if (size > values.length) {
+				values = new int[size];
+			}
+			int previous = 0;
+			for (int i = 0; i < size; i += 2) {
+				values[i] = previous += readVInt(is);
+				values[i + 1] = readVInt(is);
+			}
+			return true;
+		}
+
+		/**
+		 * Metoda koja zatvara izvor
+		 *
+		 * @throws IOException
+		 *             Ukoliko zatvaranje nije uspjelo
+		 */
+		private void close() throws IOException {
+			is.close();
+		}
+
+		@Override
+		public int compareTo(DocumentRunReader o) {
+			int result = Integer.compare(doc, o.doc);
+			return result != 0 ? result : Integer.compare(order, o.order);
+		}
+	}
+}
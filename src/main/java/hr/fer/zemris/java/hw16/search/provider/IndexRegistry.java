@@ -0,0 +1,350 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Razred koji predstavlja registar imenovanih indeksa (vidi
+ * {@link SearchProvider}) unutar jednog procesa. Svaki indeks gradi se nad
+ * svojim direktorijem dokumenata, a svi indeksi dijele istu analizu teksta i
+ * zaustavne riječi (vidi {@link SearchProvider#getAnalyzer()}). Upiti se
+ * izvode nad aktivnim indeksom, koji se mijenja metodom {@link #use(String)}.
+ * <p>
+ * Indeksi su u cijelosti u memoriji procesa, pa se umjesto iseljavanja
+ * stranica datoteke neaktivan indeks koji nije korišten barem onoliko sekundi
+ * koliko je zadano svojstvom sustava {@value #IDLE_PROPERTY} otpušta, a
+ * ponovno se gradi iz svog direktorija prilikom sljedećeg korištenja.
+ * Neaktivni indeksi provjeravaju se prilikom svake promjene aktivnog indeksa
+ * te periodično u pozadinskoj (engl. daemon) dretvi, svakih onoliko sekundi
+ * koliko je zadano istim svojstvom.
+ * Indeksi s dodanim dokumentima (vidi {@link SegmentedIndex}) otpuštaju se
+ * samo ukoliko su segmenti trajno zapisani, a indeksi pročitani iz snimke
+ * (vidi {@link SnapshotReplica}) se ne otpuštaju.
+ *
+ * @author Davor Češljaš
+ */
+public class IndexRegistry {
+
+	/**
+	 * Konstanta koja predstavlja ime svojstva sustava s brojem sekundi nakon
+	 * kojeg se neaktivan indeks otpušta
+	 */
+	public static final String IDLE_PROPERTY = "search.index.idle";
+
+	/** Konstanta koja predstavlja jedini primjerak ovog razreda */
+	private static final IndexRegistry REGISTRY = new IndexRegistry();
+
+	/**
+	 * Razred koji predstavlja jedan registrirani indeks
+	 */
+	private static class Entry {
+
+		/** Članska varijabla koja predstavlja direktorij dokumenata */
+		private final String directory;
+
+		/**
+		 * Članska varijabla koja predstavlja izgrađeni indeks ili
+		 * <code>null</code> ukoliko je indeks otpušten
+		 */
+		private SearchProvider provider;
+
+		/** Članska varijabla koja predstavlja trenutak zadnjeg korištenja */
+		private long lastUsed = System.nanoTime();
+
+		/**
+		 * Članska varijabla koja određuje je li indeks postavljen metodom
+		 * {@link IndexRegistry#install(String, String, SearchProvider)}, pa se
+		 * ne može ponovno izgraditi iz direktorija
+		 */
+		private boolean installed;
+
+		/**
+		 * Konstruktor koji inicijalizira unos s direktorijem <b>directory</b>
+		 *
+		 * @param directory
+		 *            direktorij dokumenata
+		 */
+		private Entry(String directory) {
+			this.directory = directory;
+		}
+	}
+
+	/** Članska varijabla koja predstavlja registrirane indekse */
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+	/** Članska varijabla koja predstavlja aktivni indeks */
+	private volatile SearchProvider active;
+
+	/** Članska varijabla koja predstavlja ime aktivnog indeksa */
+	private String activeName;
+
+	/**
+	 * Članska varijabla koja predstavlja izvršitelja periodičnog otpuštanja
+	 * neaktivnih indeksa ili <code>null</code> ukoliko ono nije pokrenuto
+	 */
+	private ScheduledExecutorService releaser;
+
+	/**
+	 * Privatni konstruktor koji služi tome da se primjerci ovog razreda ne mogu
+	 * stvarati izvan samog razreda.
+	 */
+	private IndexRegistry() {
+	}
+
+	/**
+	 * Statička metoda koja dohvaća jedini primjerak ovog razreda
+	 *
+	 * @return jedini primjerak ovog razreda
+	 */
+	public static IndexRegistry getRegistry() {
+		return REGISTRY;
+	}
+
+	/**
+	 * Statička metoda koja dohvaća pretpostavljeno ime indeksa nad
+	 * direktorijem <b>directory</b>, odnosno ime samog direktorija
+	 *
+	 * @param directory
+	 *            putanja do direktorija dokumenata
+	 * @return pretpostavljeno ime indeksa
+	 */
+	public static String defaultName(String directory) {
+		Path fileName = Paths.get(directory).toAbsolutePath().normalize().getFileName();
+		return fileName == null ? directory : fileName.toString();
+	}
+
+	/**
+	 * Metoda koja registrira indeks s imenom <b>name</b> nad direktorijem
+	 * <b>directory</b>. Indeks se gradi tek prilikom prvog korištenja, a
+	 * prethodno registrirani indeks istog imena se zamjenjuje. Iznimno, novi
+	 * indeks pod imenom aktivnog indeksa gradi se odmah, a aktivni indeks
+	 * zamjenjuje tek nakon uspješne izgradnje, pa upiti do tada, kao i nakon
+	 * neuspjele izgradnje, koriste prethodni indeks.
+	 *
+	 * @param name
+	 *            ime indeksa
+	 * @param directory
+	 *            putanja do direktorija dokumenata
+	 * @throws IOException
+	 *             Ukoliko se dokumenti novog aktivnog indeksa ne mogu pročitati
+	 * @throws IllegalArgumentException
+	 *             Ukoliko direktorij ne postoji
+	 */
+	public synchronized void register(String name, String directory) throws IOException {
+		if (!new File(directory).isDirectory()) {
+			throw new IllegalArgumentException(String.format("Direktorij '%s' ne postoji", directory));
+		}
+
+		Entry entry = new Entry(directory);
+		if (name.equals(activeName)) {
+			entry.provider = SearchProvider.build(name, directory);
+			active = entry.provider;
+		}
+
+		Entry previous = entries.put(name, entry);
+		if (previous != null && previous.provider != null) {
+			previous.provider.close();
+		}
+	}
+
+	/**
+	 * Metoda koja pod imenom <b>name</b> postavlja već izgrađeni indeks
+	 * <b>provider</b>, npr. indeks pročitan iz snimke (vidi
+	 * {@link SnapshotReplica}). Prethodni indeks istog imena se zamjenjuje
+	 * jednom zamjenom reference, pa upiti koji su ga već dohvatili završavaju
+	 * nad njim, a svi sljedeći upiti koriste novi indeks. Ukoliko niti jedan
+	 * indeks nije aktivan, postavljeni indeks postaje aktivan.
+	 *
+	 * @param name
+	 *            ime indeksa
+	 * @param directory
+	 *            direktorij iz kojeg je indeks pročitan
+	 * @param provider
+	 *            izgrađeni indeks
+	 * @return prethodni indeks istog imena ili <code>null</code>
+	 */
+	public synchronized SearchProvider install(String name, String directory, SearchProvider provider) {
+		Entry entry = entries.get(name);
+		SearchProvider previous = entry == null ? null : entry.provider;
+		if (entry == null || !entry.directory.equals(directory)) {
+			entry = new Entry(directory);
+			entries.put(name, entry);
+		}
+
+		entry.provider = provider;
+		entry.installed = true;
+		entry.lastUsed = System.nanoTime();
+		if (activeName == null || activeName.equals(name)) {
+			active = provider;
+			activeName = name;
+		}
+
+		if (previous != null) {
+			previous.close();
+		}
+		return previous;
+	}
+
+	/**
+	 * Metoda koja indeks s imenom <b>name</b> postavlja za aktivni indeks,
+	 * gradeći ga po potrebi. Ukoliko izgradnja ne uspije, aktivni indeks se ne
+	 * mijenja. Nakon promjene otpuštaju se neaktivni indeksi koji dulje
+	 * vrijeme nisu korišteni, a pokreće se i njihovo periodično otpuštanje.
+	 *
+	 * @param name
+	 *            ime indeksa
+	 * @return aktivni indeks
+	 * @throws IOException
+	 *             Ukoliko se dokumenti indeksa ne mogu pročitati
+	 * @throws IllegalArgumentException
+	 *             Ukoliko indeks s predanim imenom nije registriran
+	 */
+	public synchronized SearchProvider use(String name) throws IOException {
+		Entry entry = entries.get(name);
+		if (entry == null) {
+			throw new IllegalArgumentException(String.format("Indeks '%s' nije registriran", name));
+		}
+
+		if (activeName != null && entries.containsKey(activeName)) {
+			entries.get(activeName).lastUsed = System.nanoTime();
+		}
+		if (entry.provider == null) {
+			entry.provider = SearchProvider.build(name, entry.directory);
+		}
+		entry.lastUsed = System.nanoTime();
+		active = entry.provider;
+		activeName = name;
+
+		releaseIdle();
+		startReleaser();
+		return active;
+	}
+
+	/**
+	 * Metoda koja dohvaća aktivni indeks
+	 *
+	 * @return aktivni indeks ili <code>null</code> ukoliko niti jedan indeks
+	 *         nije aktivan
+	 */
+	public SearchProvider getActive() {
+		return active;
+	}
+
+	/**
+	 * Metoda koja dohvaća ime aktivnog indeksa
+	 *
+	 * @return ime aktivnog indeksa ili <code>null</code>
+	 */
+	public synchronized String getActiveName() {
+		return activeName;
+	}
+
+	/**
+	 * Metoda koja dohvaća imena svih registriranih indeksa redom registracije
+	 *
+	 * @return {@link List} imena indeksa
+	 */
+	public synchronized List<String> getNames() {
+		return new ArrayList<>(entries.keySet());
+	}
+
+	/**
+	 * Metoda koja dohvaća direktorij dokumenata indeksa s imenom <b>name</b>
+	 *
+	 * @param name
+	 *            ime indeksa
+	 * @return direktorij dokumenata ili <code>null</code> ukoliko indeks nije
+	 *         registriran
+	 */
+	public synchronized String getDirectory(String name) {
+		Entry entry = entries.get(name);
+		return entry == null ? null : entry.directory;
+	}
+
+	/**
+	 * Metoda koja dohvaća izgrađeni indeks s imenom <b>name</b> bez gradnje
+	 *
+	 * @param name
+	 *            ime indeksa
+	 * @return izgrađeni indeks ili <code>null</code> ukoliko indeks nije
+	 *         registriran ili je otpušten
+	 */
+	public synchronized SearchProvider get(String name) {
+		Entry entry = entries.get(name);
+		return entry == null ? null : entry.provider;
+	}
+
+	/**
+	 * Metoda koja otpušta indeks s imenom <b>name</b>. Aktivni indeks i indeks
+	 * čiji dodani dokumenti nisu trajno zapisani ne mogu se otpustiti.
+	 *
+	 * @param name
+	 *            ime indeksa
+	 * @return <code>true</code> ukoliko je indeks otpušten, inače
+	 *         <code>false</code>
+	 */
+	public synchronized boolean release(String name) {
+		Entry entry = entries.get(name);
+		if (entry == null || entry.provider == null || entry.installed || name.equals(activeName)
+				|| !entry.provider.canRelease()) {
+			return false;
+		}
+
+		entry.provider.close();
+		entry.provider = null;
+		return true;
+	}
+
+	/**
+	 * Pomoćna metoda koja otpušta sve neaktivne indekse koji nisu korišteni
+	 * barem onoliko sekundi koliko je zadano svojstvom sustava
+	 * {@value #IDLE_PROPERTY}
+	 */
+	private synchronized void releaseIdle() {
+		long idleSeconds = Long.getLong(IDLE_PROPERTY, 0);
+		if (idleSeconds <= 0) {
+			return;
+		}
+
+		long now = System.nanoTime();
+		for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+			if (now - entry.getValue().lastUsed >= TimeUnit.SECONDS.toNanos(idleSeconds)) {
+				try {
+					release(entry.getKey());
+				} catch (UncheckedIOException e) {
+					System.err.println(e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pomoćna metoda koja u pozadinskoj dretvi pokreće otpuštanje neaktivnih
+	 * indeksa (vidi {@link #releaseIdle()}) svakih onoliko sekundi koliko je
+	 * zadano svojstvom sustava {@value #IDLE_PROPERTY}. Ukoliko je otpuštanje
+	 * već pokrenuto ili svojstvo nije zadano, metoda ne radi ništa.
+	 */
+	private void startReleaser() {
+		long idleSeconds = Long.getLong(IDLE_PROPERTY, 0);
+		if (releaser != null || idleSeconds <= 0) {
+			return;
+		}
+
+		releaser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "index-releaser");
+			thread.setDaemon(true);
+			return thread;
+		});
+		releaser.scheduleWithFixedDelay(this::releaseIdle, idleSeconds, idleSeconds, TimeUnit.SECONDS);
+	}
+}
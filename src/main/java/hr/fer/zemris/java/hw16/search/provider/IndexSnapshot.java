@@ -0,0 +1,436 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Razred koji predstavlja opis (engl. manifest) jedne inačice snimke indeksa.
+ * Snimka sadrži bazni indeks, spremište tekstova i segmente (vidi
+ * {@link SnapshotWriter}), a svaka inačica zapisuje se u vlastiti
+ * poddirektorij direktorija snimki indeksa. Za svaku datoteku opis pamti
+ * inačicu u čijem je direktoriju datoteka zapisana, duljinu i zaštitnu sumu
+ * CRC32. Datoteka koja se između dvije inačice nije promijenila ne zapisuje
+ * se ponovno, već se opis nove inačice poziva na stariju, pa direktorij
+ * inačice sadrži samo promjene (engl. delta) u odnosu na prethodnu inačicu.
+ * <p>
+ * Opis se zapisuje posljednji, u privremenu datoteku koja se zatim premješta,
+ * a završava zaštitnom sumom vlastitog sadržaja, pa se djelomično zapisana
+ * inačica nikad ne čita. Prije korištenja inačice sve njene datoteke
+ * provjeravaju se metodom {@link #validate(Path, IndexSnapshot)}.
+ *
+ * @see SnapshotWriter
+ * @see SnapshotReplica
+ *
+ * @author Davor Češljaš
+ */
+public class IndexSnapshot {
+
+	/** Konstanta koja predstavlja ime datoteke opisa unutar inačice */
+	public static final String MANIFEST = "MANIFEST";
+
+	/** Konstanta koja predstavlja oznaku početka zapisa opisa */
+	private static final int MAGIC = 0x534E4150;
+
+	/** Konstanta koja predstavlja prefiks imena direktorija inačice */
+	private static final String VERSION_PREFIX = "v";
+
+	/**
+	 * Razred koji predstavlja jednu datoteku snimke
+	 */
+	public static class SnapshotFile {
+
+		/** Članska varijabla koja predstavlja inačicu u kojoj je zapisana */
+		private final long version;
+
+		/** Članska varijabla koja predstavlja duljinu u oktetima */
+		private final long length;
+
+		/** Članska varijabla koja predstavlja zaštitnu sumu CRC32 */
+		private final long checksum;
+
+		/**
+		 * Konstruktor koji inicijalizira primjerak ovog razreda
+		 *
+		 * @param version
+		 *            inačica u čijem je direktoriju datoteka zapisana
+		 * @param length
+		 *            duljina u oktetima
+		 * @param checksum
+		 *            zaštitna suma CRC32
+		 */
+		SnapshotFile(long version, long length, long checksum) {
+			this.version = version;
+			this.length = length;
+			this.checksum = checksum;
+		}
+
+		/**
+		 * Metoda koja dohvaća inačicu u čijem je direktoriju datoteka zapisana
+		 *
+		 * @return inačica snimke
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		/**
+		 * Metoda koja dohvaća duljinu datoteke
+		 *
+		 * @return duljina u oktetima
+		 */
+		public long getLength() {
+			return length;
+		}
+
+		/**
+		 * Metoda koja dohvaća zaštitnu sumu datoteke
+		 *
+		 * @return zaštitna suma CRC32
+		 */
+		public long getChecksum() {
+			return checksum;
+		}
+
+		/**
+		 * Metoda koja provjerava ima li datoteka <b>other</b> jednak sadržaj,
+		 * neovisno o inačici u kojoj je zapisana
+		 *
+		 * @param other
+		 *            datoteka s kojom se uspoređuje
+		 * @return <code>true</code> ukoliko su duljina i zaštitna suma jednake
+		 */
+		boolean sameContent(SnapshotFile other) {
+			return length == other.length && checksum == other.checksum;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(version) * 31 + Long.hashCode(checksum);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof SnapshotFile)) {
+				return false;
+			}
+
+			SnapshotFile other = (SnapshotFile) obj;
+			return version == other.version && sameContent(other);
+		}
+	}
+
+	/** Članska varijabla koja predstavlja ime indeksa */
+	private final String name;
+
+	/** Članska varijabla koja predstavlja inačicu snimke */
+	private final long version;
+
+	/** Članska varijabla koja predstavlja datoteke snimke po imenu */
+	private final Map<String, SnapshotFile> files;
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda
+	 *
+	 * @param name
+	 *            ime indeksa
+	 * @param version
+	 *            inačica snimke
+	 * @param files
+	 *            {@link Map} imena datoteka na datoteke snimke
+	 */
+	IndexSnapshot(String name, long version, Map<String, SnapshotFile> files) {
+		this.name = name;
+		this.version = version;
+		this.files = Collections.unmodifiableMap(new LinkedHashMap<>(files));
+	}
+
+	/**
+	 * Metoda koja dohvaća ime indeksa
+	 *
+	 * @return ime indeksa
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Metoda koja dohvaća inačicu snimke
+	 *
+	 * @return inačica snimke
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Metoda koja dohvaća sve datoteke snimke
+	 *
+	 * @return nepromjenjiva {@link Map} imena datoteka na datoteke snimke
+	 */
+	public Map<String, SnapshotFile> getFiles() {
+		return files;
+	}
+
+	/**
+	 * Metoda koja dohvaća ukupnu veličinu svih datoteka snimke
+	 *
+	 * @return broj okteta
+	 */
+	public long sizeInBytes() {
+		long size = 0;
+		for (SnapshotFile file : files.values()) {
+			size += file.length;
+		}
+		return size;
+	}
+
+	/**
+	 * Metoda koja dohvaća veličinu datoteka zapisanih u direktoriju ove
+	 * inačice, odnosno veličinu promjena u odnosu na prethodnu inačicu
+	 *
+	 * @return broj okteta
+	 */
+	public long deltaSizeInBytes() {
+		long size = 0;
+		for (SnapshotFile file : files.values()) {
+			if (file.version == version) {
+				size += file.length;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Metoda koja dohvaća putanju datoteke <b>file</b> ove snimke unutar
+	 * direktorija snimki indeksa <b>directory</b>
+	 *
+	 * @param directory
+	 *            direktorij snimki indeksa
+	 * @param file
+	 *            ime datoteke
+	 * @return putanja do datoteke
+	 * @throws IllegalArgumentException
+	 *             Ukoliko datoteka nije dio snimke
+	 */
+	public Path resolve(Path directory, String file) {
+		SnapshotFile snapshotFile = files.get(file);
+		if (snapshotFile == null) {
+			throw new IllegalArgumentException("Datoteka '" + file + "' nije dio snimke inačice " + version);
+		}
+
+		return directory.resolve(versionDirectory(snapshotFile.version)).resolve(file);
+	}
+
+	/**
+	 * Metoda koja provjerava postoje li sve datoteke ove snimke unutar
+	 * direktorija snimki indeksa <b>directory</b> te odgovaraju li njihove
+	 * duljine i zaštitne sume opisu. Datoteke jednake istoimenim datotekama
+	 * već provjerene snimke <b>trusted</b> se ne provjeravaju ponovno.
+	 *
+	 * @param directory
+	 *            direktorij snimki indeksa
+	 * @param trusted
+	 *            već provjerena snimka ili <code>null</code>
+	 * @throws SnapshotCorruptedException
+	 *             Ukoliko neka datoteka ne odgovara opisu
+	 * @throws IOException
+	 *             Ukoliko neka datoteka ne postoji ili se ne može pročitati
+	 */
+	public void validate(Path directory, IndexSnapshot trusted) throws IOException {
+		for (Map.Entry<String, SnapshotFile> entry : files.entrySet()) {
+			if (trusted != null && entry.getValue().equals(trusted.files.get(entry.getKey()))) {
+				continue;
+			}
+
+			Path file = resolve(directory, entry.getKey());
+			if (!Files.isRegularFile(file)) {
+				throw new IOException(
+						String.format("Datoteka '%s' snimke inačice %d ne postoji", entry.getKey(), version));
+			}
+			if (Files.size(file) != entry.getValue().length || checksum(file) != entry.getValue().checksum) {
+				throw new SnapshotCorruptedException(
+						String.format("Datoteka '%s' snimke inačice %d je oštećena", entry.getKey(), version));
+			}
+		}
+	}
+
+	/**
+	 * Metoda koja zapisuje opis ove snimke u direktorij njene inačice unutar
+	 * direktorija snimki indeksa <b>directory</b>
+	 *
+	 * @param directory
+	 *            direktorij snimki indeksa
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	void write(Path directory) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeUTF(name);
+		out.writeLong(version);
+		out.writeInt(files.size());
+		for (Map.Entry<String, SnapshotFile> entry : files.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeLong(entry.getValue().version);
+			out.writeLong(entry.getValue().length);
+			out.writeLong(entry.getValue().checksum);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeLong(crc.getValue());
+
+		Path file = directory.resolve(versionDirectory(version)).resolve(MANIFEST);
+		Path temporary = file.resolveSibling(MANIFEST + ".tmp");
+		Files.write(temporary, bytes.toByteArray());
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Statička metoda koja čita opis snimke zapisan metodom
+	 * {@link #write(Path)}
+	 *
+	 * @param file
+	 *            putanja do datoteke opisa
+	 * @return pročitani opis snimke
+	 * @throws SnapshotCorruptedException
+	 *             Ukoliko datoteka nije opis snimke ili zaštitna suma opisa ne
+	 *             odgovara sadržaju
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo
+	 */
+	public static IndexSnapshot read(Path file) throws IOException {
+		byte[] bytes = Files.readAllBytes(file);
+		if (bytes.length < Long.BYTES) {
+			throw new SnapshotCorruptedException("Datoteka '" + file + "' nije opis snimke");
+		}
+
+		int length = bytes.length - Long.BYTES;
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, length);
+		if (crc.getValue() != ByteBuffer.wrap(bytes, length, Long.BYTES).getLong()) {
+			throw new SnapshotCorruptedException("Opis snimke '" + file + "' je oštećen");
+		}
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, length));
+		if (in.readInt() != MAGIC) {
+			throw new SnapshotCorruptedException("Datoteka '" + file + "' nije opis snimke");
+		}
+
+		String name = in.readUTF();
+		long version = in.readLong();
+		Map<String, SnapshotFile> files = new LinkedHashMap<>();
+		for (int i = 0, size = in.readInt(); i < size; i++) {
+			files.put(in.readUTF(), new SnapshotFile(in.readLong(), in.readLong(), in.readLong()));
+		}
+
+		return new IndexSnapshot(name, version, files);
+	}
+
+	/**
+	 * Statička metoda koja pronalazi najnoviju inačicu snimke s ispravnim
+	 * opisom unutar direktorija snimki indeksa <b>directory</b>
+	 *
+	 * @param directory
+	 *            direktorij snimki indeksa
+	 * @return opis najnovije inačice ili <code>null</code> ukoliko ispravne
+	 *         inačice nema
+	 * @throws IOException
+	 *             Ukoliko direktorij nije moguće pročitati
+	 */
+	public static IndexSnapshot latest(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return null;
+		}
+
+		List<Long> versions = versions(directory);
+		for (int i = versions.size() - 1; i >= 0; i--) {
+			Path manifest = directory.resolve(versionDirectory(versions.get(i))).resolve(MANIFEST);
+			if (!Files.exists(manifest)) {
+				continue;
+			}
+
+			try {
+				return read(manifest);
+			} catch (IOException ignorable) {
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Statička metoda koja dohvaća inačice svih direktorija inačica unutar
+	 * direktorija snimki indeksa <b>directory</b>, neovisno o tome imaju li
+	 * opis
+	 *
+	 * @param directory
+	 *            direktorij snimki indeksa
+	 * @return uzlazno sortirana {@link List} inačica
+	 * @throws IOException
+	 *             Ukoliko direktorij nije moguće pročitati
+	 */
+	static List<Long> versions(Path directory) throws IOException {
+		List<Long> versions = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, VERSION_PREFIX + "*")) {
+			for (Path path : stream) {
+				String fileName = path.getFileName().toString().substring(VERSION_PREFIX.length());
+				if (Files.isDirectory(path) && fileName.matches("\\d+")) {
+					versions.add(Long.parseLong(fileName));
+				}
+			}
+		}
+
+		Collections.sort(versions);
+		return versions;
+	}
+
+	/**
+	 * Statička metoda koja dohvaća ime direktorija inačice <b>version</b>
+	 *
+	 * @param version
+	 *            inačica snimke
+	 * @return ime direktorija inačice
+	 */
+	static String versionDirectory(long version) {
+		return String.format("%s%06d", VERSION_PREFIX, version);
+	}
+
+	/**
+	 * Statička metoda koja računa zaštitnu sumu CRC32 datoteke <b>file</b>
+	 *
+	 * @param file
+	 *            putanja do datoteke
+	 * @return zaštitna suma
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo
+	 */
+	static long checksum(Path file) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				crc.update(buffer, 0, read);
+			}
+		}
+
+		return crc.getValue();
+	}
+}
@@ -0,0 +1,330 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.Arrays;
+
+/**
+ * Razred koji predstavlja
+ * <a href = "https://en.wikipedia.org/wiki/Levenshtein_automaton">Levenshteinov
+ * automat</a> za jednu riječ i najveći broj izmjena. Stanje automata je redak
+ * tablice udaljenosti (engl. edit distance) nakon pročitanog prefiksa nekog
+ * pojma, a prijelaz se računa metodom {@link #step(int[], char, int[])}.
+ * Stanje iz kojeg niti jedan nastavak pojma ne može biti prihvaćen
+ * prepoznaje se metodom {@link #canMatch(int[])}, što omogućava preskakanje
+ * svih pojmova rječnika s takvim prefiksom.
+ * <p>
+ * Prije usporedbe znakovi se svode na osnovni oblik bez dijakritičkih znakova
+ * metodom {@link #fold(char)} (č i ć u c, š u s, ž u z te đ u d), pa se riječ
+ * napisana bez dijakritičkih znakova poklapa s pojmom bez ijedne izmjene.
+ * Dvoznak <i>dj</i>, kojim se đ često zamjenjuje, svodi se na isti način:
+ * znak j nakon znaka d se preskače (vidi {@link #isDigraphTail(char, char)}),
+ * pa se riječ <i>medjunarodni</i> poklapa s pojmom <i>međunarodni</i>. Budući
+ * da se isto svođenje primjenjuje i na riječ i na pojmove, pojmovi s pravim
+ * dvoznakom (npr. <i>odjel</i>) i dalje se poklapaju s istom riječi.
+ * 
+ * @see TermDictionary#fuzzyTerms(String, int, int)
+ * 
+ * @author Davor Češljaš
+ */
+public class LevenshteinAutomaton {
+
+	/** Konstanta koja predstavlja najveći podržani broj izmjena */
+	public static final int MAX_EDITS = 2;
+
+	/** Konstanta koja predstavlja sve znakove koje metoda {@link #fold(char)} mijenja */
+	private static final String DIACRITICS = "čćČĆšŠžŽđĐ";
+
+	/**
+	 * Konstanta koja predstavlja sortirane znakove koji se nakon znaka d
+	 * preskaču (vidi {@link #isDigraphTail(char, char)})
+	 */
+	private static final String DIGRAPH_TAILS = "Jj";
+
+	/** Članska varijabla koja predstavlja svedenu riječ automata */
+	private char[] pattern;
+
+	/** Članska varijabla koja predstavlja najveći broj izmjena */
+	private int maxEdits;
+
+	/**
+	 * Članska varijabla koja predstavlja sortirane znakove koji se svode na
+	 * neki od znakova riječi automata. Svi ostali znakovi iz svakog stanja
+	 * vode u isto stanje.
+	 */
+	private char[] candidates;
+
+	/** Članska varijabla koja predstavlja pomoćno stanje */
+	private int[] scratch;
+
+	/**
+	 * Konstruktor koji inicijalizira primjerak ovog razreda za riječ
+	 * <b>word</b> i najveći broj izmjena <b>maxEdits</b>
+	 *
+	 * @param word
+	 *            riječ za koju se gradi automat
+	 * @param maxEdits
+	 *            najveći broj izmjena, iz intervala [0, {@value #MAX_EDITS}]
+	 */
+	public LevenshteinAutomaton(String word, int maxEdits) {
+		if (maxEdits < 0 || maxEdits > MAX_EDITS) {
+			throw new IllegalArgumentException(
+					String.format("Broj izmjena mora biti iz intervala [0, %d], a predan je %d", MAX_EDITS, maxEdits));
+		}
+
+		this.maxEdits = maxEdits;
+		pattern = fold(word).toCharArray();
+
+		StringBuilder sb = new StringBuilder(new String(pattern));
+		for (char c : DIACRITICS.toCharArray()) {
+			if (sb.indexOf(String.valueOf(fold(c))) >= 0) {
+				sb.append(c);
+			}
+		}
+		candidates = sb.toString().toCharArray();
+		Arrays.sort(candidates);
+		scratch = new int[stateLength()];
+	}
+
+	/**
+	 * Metoda koja dohvaća duljinu stanja (redka tablice udaljenosti) ovog
+	 * automata
+	 *
+	 * @return duljina stanja ovog automata
+	 */
+	public int stateLength() {
+		return pattern.length + 1;
+	}
+
+	/**
+	 * Metoda koja dohvaća početno stanje automata (stanje nakon praznog
+	 * prefiksa)
+	 *
+	 * @return novo polje koje predstavlja početno stanje
+	 */
+	public int[] start() {
+		int[] state = new int[stateLength()];
+		for (int i = 0; i < state.length; i++) {
+			state[i] = i;
+		}
+
+		return state;
+	}
+
+	/**
+	 * Metoda koja računa stanje automata nakon čitanja znaka <b>c</b> iz
+	 * stanja <b>state</b>. Novo stanje zapisuje se u predano polje
+	 * <b>next</b>, pa metoda ne alocira memoriju.
+	 *
+	 * @param state
+	 *            trenutno stanje
+	 * @param c
+	 *            pročitani znak
+	 * @param next
+	 *            polje u koje se zapisuje novo stanje
+	 */
+	public void step(int[] state, char c, int[] next) {
+		char folded = fold(c);
+
+		next[0] = state[0] + 1;
+		for (int i = 1; i < next.length; i++) {
+			int substitution = state[i - 1] + (pattern[i - 1] == folded ? 0 : 1);
+			next[i] = Math.min(substitution, Math.min(state[i], next[i - 1]) + 1);
+		}
+	}
+
+	/**
+	 * Metoda koja provjerava može li ijedan nastavak prefiksa koji je doveo u
+	 * stanje <b>state</b> biti prihvaćen
+	 *
+	 * @param state
+	 *            stanje automata
+	 * @return <code>true</code> ukoliko neki nastavak može biti prihvaćen,
+	 *         <code>false</code> inače
+	 */
+	public boolean canMatch(int[] state) {
+		for (int distance : state) {
+			if (distance <= maxEdits) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Metoda koja pronalazi najmanji znak veći od <b>c</b> čijim se čitanjem
+	 * iz stanja <b>state</b> dolazi u stanje iz kojeg je prihvaćanje još
+	 * moguće. Metoda se koristi kada čitanje znaka <b>c</b> vodi u mrtvo
+	 * stanje, pa se pretraživanje rječnika može pozicionirati izravno na
+	 * sljedeći mogući pojam.
+	 *
+	 * @param state
+	 *            trenutno stanje
+	 * @param c
+	 *            znak čije čitanje vodi u mrtvo stanje
+	 * @return najmanji znak veći od <b>c</b> koji ne vodi u mrtvo stanje ili
+	 *         -1 ukoliko takav znak ne postoji
+	 */
+	public int nextViableChar(int[] state, char c) {
+		step(state, c, scratch);
+		if (canMatch(scratch)) {
+			// znak izvan riječi automata ne vodi u mrtvo stanje, pa niti sljedeći
+			return c + 1 <= Character.MAX_VALUE ? c + 1 : -1;
+		}
+
+		for (char candidate : candidates) {
+			if (candidate <= c) {
+				continue;
+			}
+
+			step(state, candidate, scratch);
+			if (canMatch(scratch)) {
+				return candidate;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Metoda koja pronalazi najmanji znak veći od <b>c</b> na isti način kao i
+	 * metoda {@link #nextViableChar(int[], char)}, ali uzima u obzir i
+	 * prethodni znak pojma <b>previous</b>. Nakon znaka d znak j se preskače,
+	 * pa ne vodi u mrtvo stanje.
+	 *
+	 * @param state
+	 *            trenutno stanje
+	 * @param previous
+	 *            prethodni znak pojma
+	 * @param c
+	 *            znak čije čitanje vodi u mrtvo stanje
+	 * @return najmanji znak veći od <b>c</b> koji ne vodi u mrtvo stanje ili
+	 *         -1 ukoliko takav znak ne postoji
+	 */
+	public int nextViableChar(int[] state, char previous, char c) {
+		int viable = nextViableChar(state, c);
+		for (char tail : DIGRAPH_TAILS.toCharArray()) {
+			if (tail > c && isDigraphTail(previous, tail)) {
+				return viable < 0 ? tail : Math.min(viable, tail);
+			}
+		}
+
+		return viable;
+	}
+
+	/**
+	 * Metoda koja provjerava prihvaća li automat pojam koji je doveo u stanje
+	 * <b>state</b>
+	 *
+	 * @param state
+	 *            stanje automata nakon cijelog pojma
+	 * @return <code>true</code> ukoliko je pojam prihvaćen, <code>false</code>
+	 *         inače
+	 */
+	public boolean isMatch(int[] state) {
+		return distance(state) <= maxEdits;
+	}
+
+	/**
+	 * Metoda koja dohvaća udaljenost pojma koji je doveo u stanje
+	 * <b>state</b> od riječi ovog automata
+	 *
+	 * @param state
+	 *            stanje automata nakon cijelog pojma
+	 * @return udaljenost pojma od riječi ovog automata
+	 */
+	public int distance(int[] state) {
+		return state[pattern.length];
+	}
+
+	/**
+	 * Statička metoda koja za riječ duljine <b>length</b> određuje
+	 * uobičajeni najveći broj izmjena: riječi do 2 znaka moraju se poklapati
+	 * (do na dijakritičke znakove), riječi do 5 znakova dopuštaju jednu
+	 * izmjenu, a dulje riječi {@value #MAX_EDITS} izmjene.
+	 *
+	 * @param length
+	 *            duljina riječi
+	 * @return uobičajeni najveći broj izmjena
+	 */
+	public static int autoEdits(int length) {
+		if (length <= 2) {
+			return 0;
+		}
+
+		return length <= 5 ? 1 : MAX_EDITS;
+	}
+
+	/**
+	 * Statička metoda koja svodi znak <b>c</b> na osnovni oblik bez
+	 * dijakritičkih znakova
+	 *
+	 * @param c
+	 *            znak koji se svodi
+	 * @return svedeni znak
+	 */
+	public static char fold(char c) {
+		switch (c) {
+		case 'č':
+		case 'ć':
+			return 'c';
+		case 'Č':
+		case 'Ć':
+			return 'C';
+		case 'š':
+			return 's';
+		case 'Š':
+			return 'S';
+		case 'ž':
+			return 'z';
+		case 'Ž':
+			return 'Z';
+		case 'đ':
+			return 'd';
+		case 'Đ':
+			return 'D';
+		default:
+			return c;
+		}
+	}
+
+	/**
+	 * Statička metoda koja svodi riječ <b>word</b> na osnovni oblik: svaki se
+	 * znak svodi metodom {@link #fold(char)}, a znak j nakon znaka d se
+	 * preskače (vidi {@link #isDigraphTail(char, char)})
+	 *
+	 * @param word
+	 *            riječ koja se svodi
+	 * @return svedena riječ
+	 */
+	public static String fold(String word) {
+		StringBuilder folded = new StringBuilder(word.length());
+		for (int i = 0; i < word.length(); i++) {
+			if (i == 0 || !isDigraphTail(word.charAt(i - 1), word.charAt(i))) {
+				folded.append(fold(word.charAt(i)));
+			}
+		}
+
+		return folded.toString();
+	}
+
+	/**
+	 * Statička metoda koja provjerava je li znak <b>c</b> drugi znak dvoznaka
+	 * <i>dj</i> kojim se zamjenjuje znak đ, odnosno preskače li se prilikom
+	 * svođenja riječi i pojmova
+	 *
+	 * @param previous
+	 *            prethodni znak
+	 * @param c
+	 *            znak koji se provjerava
+	 * @return <code>true</code> ukoliko je znak <b>c</b> znak j koji slijedi
+	 *         nakon znaka d, inače <code>false</code>
+	 */
+	public static boolean isDigraphTail(char previous, char c) {
+		return (previous == 'd' || previous == 'D') && (c == 'j' || c == 'J');
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s~%d", new String(pattern), maxEdits);
+	}
+}
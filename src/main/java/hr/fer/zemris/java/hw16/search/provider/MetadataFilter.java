@@ -0,0 +1,223 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Razred koji predstavlja uvjete nad metapodacima dokumenata zapisanima u
+ * imenu datoteke (vidi {@link MetadataIndex}). Uvjeti se zadaju riječima
+ * upita oblika <code>polje:vrijednost</code>:
+ * <ul>
+ * <li><code>{@value #SECTION}:spo</code> - dokument iz rubrike
+ * <code>spo</code>; više rubrika odvaja se zarezom, npr.
+ * <code>{@value #SECTION}:spo,kul</code></li>
+ * <li><code>{@value #DATE}:1999-10</code> - dokument iz zadane godine,
+ * mjeseca ili dana</li>
+ * <li><code>{@value #DATE}:1999-10..1999-12</code> - dokument iz zadanog
+ * razdoblja (uključivo); jedna granica smije se izostaviti, npr.
+ * <code>{@value #DATE}:..1999-6</code></li>
+ * </ul>
+ * Dokument mora zadovoljiti sve zadane uvjete. Datumi se zapisuju kao
+ * cijeli brojevi oblika <i>ggggmmdd</i>, pa se granica godine ili mjeseca
+ * zapisuje nulama (početak) ili devetkama (kraj).
+ *
+ * @author Davor Češljaš
+ */
+public class MetadataFilter {
+
+	/** Konstanta koja predstavlja ime polja rubrike */
+	public static final String SECTION = "section";
+
+	/** Konstanta koja predstavlja ime polja datuma */
+	public static final String DATE = "date";
+
+	/** Konstanta koja predstavlja znak između imena polja i vrijednosti */
+	private static final String SEPARATOR = ":";
+
+	/** Konstanta koja predstavlja znak između granica razdoblja */
+	private static final String RANGE = "..";
+
+	/** Članska varijabla koja predstavlja dopuštene rubrike */
+	private Set<String> sections = new LinkedHashSet<>();
+
+	/** Članska varijabla koja predstavlja najraniji dopušteni datum */
+	private int dateFrom = 0;
+
+	/** Članska varijabla koja predstavlja najkasniji dopušteni datum */
+	private int dateTo = Integer.MAX_VALUE;
+
+	/** Članska varijabla koja predstavlja zadane uvjete datuma, za ispis */
+	private Set<String> dates = new LinkedHashSet<>();
+
+	/**
+	 * Statička metoda koja provjerava je li riječ upita <b>word</b> uvjet nad
+	 * metapodacima
+	 *
+	 * @param word
+	 *            riječ upita
+	 * @return <code>true</code> ukoliko riječ započinje imenom poznatog polja
+	 *         i znakom {@value #SEPARATOR}
+	 */
+	public static boolean isFilter(String word) {
+		return word.startsWith(SECTION + SEPARATOR) || word.startsWith(DATE + SEPARATOR);
+	}
+
+	/**
+	 * Metoda koja dodaje uvjet zadan riječju upita <b>word</b>
+	 *
+	 * @param word
+	 *            riječ upita za koju {@link #isFilter(String)} vraća
+	 *            <code>true</code>
+	 * @throws IllegalArgumentException
+	 *             Ukoliko vrijednost uvjeta nije ispravna
+	 */
+	public void add(String word) {
+		String value = word.substring(word.indexOf(SEPARATOR) + SEPARATOR.length());
+		if (value.isEmpty()) {
+			throw new IllegalArgumentException("Uvjet '" + word + "' nema vrijednost");
+		}
+
+		if (word.startsWith(SECTION + SEPARATOR)) {
+			for (String section : value.split(",")) {
+				if (!section.isEmpty()) {
+					sections.add(section.toLowerCase());
+				}
+			}
+			return;
+		}
+
+		int range = value.indexOf(RANGE);
+		String from = range < 0 ? value : value.substring(0, range);
+		String to = range < 0 ? value : value.substring(range + RANGE.length());
+		if (!from.isEmpty()) {
+			dateFrom = Math.max(dateFrom, parseDate(from, false));
+		}
+		if (!to.isEmpty()) {
+			dateTo = Math.min(dateTo, parseDate(to, true));
+		}
+		dates.add(value);
+	}
+
+	/**
+	 * Metoda koja provjerava ima li ovaj primjerak barem jedan uvjet
+	 *
+	 * @return <code>true</code> ukoliko uvjeta nema, inače <code>false</code>
+	 */
+	public boolean isEmpty() {
+		return sections.isEmpty() && dates.isEmpty();
+	}
+
+	/**
+	 * Metoda koja dohvaća dopuštene rubrike
+	 *
+	 * @return nepromjenjivi {@link Set} rubrika; prazan ukoliko rubrika nije
+	 *         zadana
+	 */
+	public Set<String> getSections() {
+		return Collections.unmodifiableSet(sections);
+	}
+
+	/**
+	 * Metoda koja provjerava ograničava li ovaj primjerak datum dokumenta
+	 *
+	 * @return <code>true</code> ukoliko je zadan barem jedan uvjet datuma
+	 */
+	public boolean hasDateRange() {
+		return !dates.isEmpty();
+	}
+
+	/**
+	 * Metoda koja dohvaća najraniji dopušteni datum
+	 *
+	 * @return datum oblika <i>ggggmmdd</i>
+	 */
+	public int getDateFrom() {
+		return dateFrom;
+	}
+
+	/**
+	 * Metoda koja dohvaća najkasniji dopušteni datum
+	 *
+	 * @return datum oblika <i>ggggmmdd</i>
+	 */
+	public int getDateTo() {
+		return dateTo;
+	}
+
+	/**
+	 * Metoda koja provjerava zadovoljava li dokument s putanjom <b>path</b>
+	 * sve uvjete. Koristi se za dokumente koji nisu dio {@link MetadataIndex}a
+	 * (npr. dokumente segmenata).
+	 *
+	 * @param path
+	 *            putanja dokumenta
+	 * @return <code>true</code> ukoliko dokument zadovoljava sve uvjete
+	 */
+	public boolean matches(String path) {
+		if (isEmpty()) {
+			return true;
+		}
+
+		MetadataIndex.Metadata metadata = MetadataIndex.parse(path);
+		if (metadata == null) {
+			return false;
+		}
+		return (sections.isEmpty() || sections.contains(metadata.getSection()))
+				&& (!hasDateRange() || metadata.getDate() >= dateFrom && metadata.getDate() <= dateTo);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja datum <b>date</b> oblika
+	 * <code>gggg[-m[-d]]</code> zapisuje kao cijeli broj oblika
+	 * <i>ggggmmdd</i>
+	 *
+	 * @param date
+	 *            datum
+	 * @param end
+	 *            <code>true</code> ukoliko se izostavljeni dijelovi
+	 *            popunjavaju krajem razdoblja, a <code>false</code> ukoliko
+	 *            se popunjavaju početkom
+	 * @return zapis datuma
+	 * @throws IllegalArgumentException
+	 *             Ukoliko datum nije ispravan
+	 */
+	private static int parseDate(String date, boolean end) {
+		String[] parts = date.split("-");
+		if (parts.length > 3) {
+			throw new IllegalArgumentException("Datum '" + date + "' nije oblika gggg[-m[-d]]");
+		}
+
+		int[] limits = { 9999, 12, 31 };
+		int value = 0;
+		for (int i = 0; i < 3; i++) {
+			int part = end ? 99 : 0;
+			if (i < parts.length) {
+				try {
+					part = Integer.parseInt(parts[i]);
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Datum '" + date + "' nije oblika gggg[-m[-d]]");
+				}
+				if (part < (i == 0 ? 0 : 1) || part > limits[i]) {
+					throw new IllegalArgumentException("Datum '" + date + "' nije ispravan");
+				}
+			}
+			value = value * 100 + part;
+		}
+
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		if (!sections.isEmpty()) {
+			sb.append(SECTION).append(SEPARATOR).append(String.join(",", sections));
+		}
+		for (String date : dates) {
+			sb.append(' ').append(DATE).append(SEPARATOR).append(date);
+		}
+
+		return sb.toString().trim();
+	}
+}
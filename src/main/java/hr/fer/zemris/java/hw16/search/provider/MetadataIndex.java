@@ -0,0 +1,341 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Razred koji predstavlja metapodatke učitanih dokumenata zapisane u imenu
+ * datoteke. Ime oblika <code>vjesnik-1999-10-5-spo-4</code> sadrži izvor,
+ * datum objave, rubriku i redni broj članka. Metapodaci se čuvaju u poljima
+ * indeksiranim rednim brojem dokumenta (jednakim indeksu unutar
+ * {@link SearchProvider#getDocumentVectors()}), a dokumenti čije ime nije
+ * takvog oblika nemaju metapodataka i ne zadovoljavaju niti jedan uvjet.
+ * <p>
+ * Za svaku rubriku prilikom izgradnje se stvara {@link BitSet} njenih
+ * dokumenata, a dokumenti su dodatno sortirani po datumu, pa se dokumenti
+ * razdoblja pronalaze binarnim pretraživanjem. Skupovi dokumenata zadnjih
+ * {@value #DATE_CACHE_SIZE} razdoblja čuvaju se u privremenoj memoriji.
+ * Dokumenti koji zadovoljavaju uvjete {@link MetadataFilter} dohvaćaju se
+ * metodom {@link #matching(MetadataFilter)} prije bodovanja.
+ *
+ * @author Davor Češljaš
+ */
+public class MetadataIndex {
+
+	/** Konstanta koja predstavlja broj razdoblja u privremenoj memoriji */
+	public static final int DATE_CACHE_SIZE = 64;
+
+	/** Konstanta koja predstavlja oznaku nepoznate rubrike */
+	private static final int NO_SECTION = -1;
+
+	/** Konstanta koja predstavlja uzorak imena datoteke s metapodacima */
+	private static final Pattern NAME_PATTERN = Pattern
+			.compile("(.+)-(\\d{4})-(\\d{1,2})-(\\d{1,2})-([^-.]+)-(\\d+)(\\.[^.]*)?");
+
+	/**
+	 * Razred koji predstavlja metapodatke jednog dokumenta
+	 */
+	public static class Metadata {
+
+		/** Članska varijabla koja predstavlja datum oblika ggggmmdd */
+		private final int date;
+
+		/** Članska varijabla koja predstavlja rubriku */
+		private final String section;
+
+		/** Članska varijabla koja predstavlja redni broj članka */
+		private final int sequence;
+
+		/**
+		 * Konstruktor koji inicijalizira metapodatke
+		 *
+		 * @param date
+		 *            datum oblika <i>ggggmmdd</i>
+		 * @param section
+		 *            rubrika
+		 * @param sequence
+		 *            redni broj članka
+		 */
+		private Metadata(int date, String section, int sequence) {
+			this.date = date;
+			this.section = section;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * Metoda koja dohvaća datum objave
+		 *
+		 * @return datum oblika <i>ggggmmdd</i>
+		 */
+		public int getDate() {
+			return date;
+		}
+
+		/**
+		 * Metoda koja dohvaća rubriku
+		 *
+		 * @return rubrika
+		 */
+		public String getSection() {
+			return section;
+		}
+
+		/**
+		 * Metoda koja dohvaća redni broj članka unutar rubrike i dana
+		 *
+		 * @return redni broj članka
+		 */
+		public int getSequence() {
+			return sequence;
+		}
+	}
+
+	/** Članska varijabla koja predstavlja broj dokumenata */
+	private final int size;
+
+	/** Članska varijabla koja predstavlja datume dokumenata ili 0 */
+	private final int[] dates;
+
+	/** Članska varijabla koja predstavlja rubrike dokumenata */
+	private final int[] sections;
+
+	/** Članska varijabla koja predstavlja redne brojeve članaka ili 0 */
+	private final int[] sequences;
+
+	/** Članska varijabla koja predstavlja imena rubrika */
+	private final List<String> sectionNames = new ArrayList<>();
+
+	/** Članska varijabla koja predstavlja dokumente pojedine rubrike */
+	private final Map<String, BitSet> sectionDocuments = new HashMap<>();
+
+	/**
+	 * Članska varijabla koja predstavlja redne brojeve dokumenata s datumom,
+	 * sortirane po datumu
+	 */
+	private final int[] documentsByDate;
+
+	/**
+	 * Članska varijabla koja predstavlja datume dokumenata iz
+	 * {@link #documentsByDate}, istim redoslijedom
+	 */
+	private final int[] sortedDates;
+
+	/** Članska varijabla koja predstavlja dokumente nedavnih razdoblja */
+	private final Map<Long, BitSet> dateCache = new LinkedHashMap<Long, BitSet>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, BitSet> eldest) {
+			return size() > DATE_CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Konstruktor koji iz putanja dokumenata <b>documents</b> gradi
+	 * metapodatke
+	 *
+	 * @param documents
+	 *            vektori učitanih dokumenata
+	 */
+	public MetadataIndex(List<DocumentVector> documents) {
+		size = documents.size();
+		dates = new int[size];
+		sections = new int[size];
+		sequences = new int[size];
+
+		Map<String, Integer> sectionIds = new HashMap<>();
+		long[] dated = new long[size];
+		int datedCount = 0;
+		for (int doc = 0; doc < size; doc++) {
+			Metadata metadata = parse(documents.get(doc).getFilePath());
+			if (metadata == null) {
+				sections[doc] = NO_SECTION;
+				continue;
+			}
+
+			Integer section = sectionIds.get(metadata.section);
+			if (section == null) {
+				section = sectionNames.size();
+				sectionIds.put(metadata.section, section);
+				sectionNames.add(metadata.section);
+				sectionDocuments.put(metadata.section, new BitSet(size));
+			}
+			sections[doc] = section;
+			sectionDocuments.get(metadata.section).set(doc);
+			dates[doc] = metadata.date;
+			sequences[doc] = metadata.sequence;
+			dated[datedCount++] = (long) metadata.date << 32 | doc;
+		}
+
+		Arrays.sort(dated, 0, datedCount);
+		documentsByDate = new int[datedCount];
+		sortedDates = new int[datedCount];
+		for (int i = 0; i < datedCount; i++) {
+			documentsByDate[i] = (int) dated[i];
+			sortedDates[i] = (int) (dated[i] >>> 32);
+		}
+	}
+
+	/**
+	 * Statička metoda koja iz imena datoteke s putanjom <b>path</b> čita
+	 * metapodatke
+	 *
+	 * @param path
+	 *            putanja dokumenta
+	 * @return metapodaci ili <code>null</code> ukoliko ime nije oblika
+	 *         <code>izvor-gggg-m-d-rubrika-broj</code> ili datum nije ispravan
+	 */
+	public static Metadata parse(String path) {
+		Matcher matcher = NAME_PATTERN.matcher(Paths.get(path).getFileName().toString());
+		if (!matcher.matches()) {
+			return null;
+		}
+
+		int month = Integer.parseInt(matcher.group(3));
+		int day = Integer.parseInt(matcher.group(4));
+		if (month < 1 || month > 12 || day < 1 || day > 31) {
+			return null;
+		}
+
+		int date = Integer.parseInt(matcher.group(2)) * 10000 + month * 100 + day;
+		return new Metadata(date, matcher.group(5).toLowerCase(), Integer.parseInt(matcher.group(6)));
+	}
+
+	/**
+	 * Metoda koja dohvaća dokumente koji zadovoljavaju sve uvjete
+	 * <b>filter</b>
+	 *
+	 * @param filter
+	 *            uvjeti nad metapodacima
+	 * @return novi {@link BitSet} rednih brojeva dokumenata koji zadovoljavaju
+	 *         uvjete; sadrži sve dokumente ukoliko uvjeta nema
+	 */
+	public BitSet matching(MetadataFilter filter) {
+		BitSet matching = new BitSet(size);
+		if (filter.getSections().isEmpty()) {
+			matching.set(0, size);
+		} else {
+			for (String section : filter.getSections()) {
+				BitSet documents = sectionDocuments.get(section);
+				if (documents != null) {
+					matching.or(documents);
+				}
+			}
+		}
+
+		if (filter.hasDateRange()) {
+			matching.and(dateRange(filter.getDateFrom(), filter.getDateTo()));
+		}
+		return matching;
+	}
+
+	/**
+	 * Metoda koja dohvaća datum objave dokumenta <b>doc</b>
+	 *
+	 * @param doc
+	 *            redni broj dokumenta
+	 * @return datum oblika <i>ggggmmdd</i> ili 0 ukoliko ga dokument nema
+	 */
+	public int getDate(int doc) {
+		return dates[doc];
+	}
+
+	/**
+	 * Metoda koja dohvaća rubriku dokumenta <b>doc</b>
+	 *
+	 * @param doc
+	 *            redni broj dokumenta
+	 * @return rubrika ili <code>null</code> ukoliko je dokument nema
+	 */
+	public String getSection(int doc) {
+		return sections[doc] == NO_SECTION ? null : sectionNames.get(sections[doc]);
+	}
+
+	/**
+	 * Metoda koja dohvaća redni broj članka dokumenta <b>doc</b>
+	 *
+	 * @param doc
+	 *            redni broj dokumenta
+	 * @return redni broj članka ili 0 ukoliko ga dokument nema
+	 */
+	public int getSequence(int doc) {
+		return sequences[doc];
+	}
+
+	/**
+	 * Metoda koja dohvaća broj okteta koje zauzimaju podaci ovog indeksa, bez
+	 * privremene memorije razdoblja
+	 *
+	 * @return broj okteta koje zauzimaju podaci ovog indeksa
+	 */
+	public long sizeInBytes() {
+		long bytes = 4L * (dates.length + sections.length + sequences.length + documentsByDate.length
+				+ sortedDates.length);
+		for (BitSet documents : sectionDocuments.values()) {
+			bytes += documents.size() / 8;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća dokumente objavljene između datuma
+	 * <b>from</b> i <b>to</b> (uključivo), iz privremene memorije ukoliko je
+	 * razdoblje nedavno traženo
+	 *
+	 * @param from
+	 *            najraniji datum oblika <i>ggggmmdd</i>
+	 * @param to
+	 *            najkasniji datum oblika <i>ggggmmdd</i>
+	 * @return {@link BitSet} dokumenata razdoblja, koji se ne smije mijenjati
+	 */
+	private BitSet dateRange(int from, int to) {
+		Long key = (long) from << 32 | to & 0xFFFFFFFFL;
+		synchronized (dateCache) {
+			BitSet cached = dateCache.get(key);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		BitSet documents = new BitSet(size);
+		for (int i = lowerBound(from); i < sortedDates.length && sortedDates[i] <= to; i++) {
+			documents.set(documentsByDate[i]);
+		}
+
+		synchronized (dateCache) {
+			dateCache.put(key, documents);
+		}
+		return documents;
+	}
+
+	/**
+	 * Pomoćna metoda koja binarnim pretraživanjem pronalazi prvi dokument
+	 * objavljen na datum <b>date</b> ili kasnije
+	 *
+	 * @param date
+	 *            datum oblika <i>ggggmmdd</i>
+	 * @return indeks unutar {@link #sortedDates}
+	 */
+	private int lowerBound(int date) {
+		int low = 0;
+		int high = sortedDates.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sortedDates[middle] < date) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+}
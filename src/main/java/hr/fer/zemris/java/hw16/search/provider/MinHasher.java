@@ -0,0 +1,116 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Razred koji računa
+ * <a href = "https://en.wikipedia.org/wiki/MinHash">MinHash</a> potpis
+ * dokumenta. Dokument se promatra kao skup preklapajućih nizova od
+ * {@value #SHINGLE_SIZE} uzastopna pojma (engl. shingles), a potpis se sastoji
+ * od {@value #SIGNATURE_SIZE} najmanjih vrijednosti raspršenja tog skupa, po
+ * jedne za svaku funkciju raspršenja. Udio jednakih vrijednosti dvaju potpisa
+ * procjena je Jaccardove sličnosti skupova, a računa se metodom
+ * {@link #similarity(long[], long[])}.
+ * 
+ * @see DuplicateDetector
+ * 
+ * @author Davor Češljaš
+ */
+public class MinHasher {
+
+	/** Konstanta koja predstavlja broj uzastopnih pojmova jednog niza */
+	public static final int SHINGLE_SIZE = 3;
+
+	/** Konstanta koja predstavlja broj vrijednosti potpisa */
+	public static final int SIGNATURE_SIZE = 120;
+
+	/** Konstanta koja predstavlja sjemena funkcija raspršenja */
+	private static final long[] SEEDS = new long[SIGNATURE_SIZE];
+
+	static {
+		for (int i = 0; i < SIGNATURE_SIZE; i++) {
+			SEEDS[i] = mix(0x9E3779B97F4A7C15L * (i + 1));
+		}
+	}
+
+	/**
+	 * Privatni konstruktor koji služi tome da se primjerci ovog razreda ne mogu
+	 * stvarati.
+	 */
+	private MinHasher() {
+	}
+
+	/**
+	 * Statička metoda koja računa potpis dokumenta čiji su pojmovi, redom
+	 * pojavljivanja, predani parametrom <b>terms</b>. Dokument s manje od
+	 * {@value #SHINGLE_SIZE} pojma promatra se kao jedan niz.
+	 *
+	 * @param terms
+	 *            pojmovi dokumenta redom pojavljivanja
+	 * @return potpis dokumenta ili <code>null</code> ukoliko dokument nema
+	 *         niti jedan pojam
+	 */
+	public static long[] signature(List<String> terms) {
+		if (terms.isEmpty()) {
+			return null;
+		}
+
+		long[] signature = new long[SIGNATURE_SIZE];
+		Arrays.fill(signature, Long.MAX_VALUE);
+
+		int shingles = Math.max(terms.size() - SHINGLE_SIZE + 1, 1);
+		for (int i = 0; i < shingles; i++) {
+			long shingle = 0;
+			for (int j = i, end = Math.min(i + SHINGLE_SIZE, terms.size()); j < end; j++) {
+				shingle = shingle * 0x100000001B3L + terms.get(j).hashCode();
+			}
+			shingle = mix(shingle);
+
+			for (int k = 0; k < SIGNATURE_SIZE; k++) {
+				long value = mix(shingle ^ SEEDS[k]) >>> 1;
+				if (value < signature[k]) {
+					signature[k] = value;
+				}
+			}
+		}
+
+		return signature;
+	}
+
+	/**
+	 * Statička metoda koja procjenjuje Jaccardovu sličnost dokumenata na
+	 * temelju njihovih potpisa <b>first</b> i <b>second</b>
+	 *
+	 * @param first
+	 *            potpis prvog dokumenta
+	 * @param second
+	 *            potpis drugog dokumenta
+	 * @return procjena sličnosti iz intervala [0, 1]
+	 */
+	public static double similarity(long[] first, long[] second) {
+		int equal = 0;
+		for (int i = 0; i < SIGNATURE_SIZE; i++) {
+			equal += first[i] == second[i] ? 1 : 0;
+		}
+
+		return (double) equal / SIGNATURE_SIZE;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja miješa bitove predane vrijednosti
+	 * (završni korak funkcije raspršenja MurmurHash3)
+	 *
+	 * @param value
+	 *            vrijednost koja se miješa
+	 * @return izmiješana vrijednost
+	 */
+	static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xFF51AFD7ED558CCDL;
+		value ^= value >>> 33;
+		value *= 0xC4CEB9FE1A85EC53L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
@@ -0,0 +1,274 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+import hr.fer.zemris.java.hw16.search.environment.Result;
+
+/**
+ * Razred koji boduje vektore dokumenata paralelno, dijeleći ih na intervale
+ * koji se boduju unutar zajedničkog {@link ForkJoinPool}a. Svaki interval
+ * najboljih <i>K</i> rezultata čuva u vlastitoj gomili, a liste najboljih
+ * rezultata intervala spajaju se prilikom spajanja zadataka. Rezultati
+ * jednake sličnosti poredani su po položaju dokumenta među kandidatima, pa je
+ * poredak rezultata jednak poretku stabilnog sortiranja svih rezultata koje
+ * koristi slijedno bodovanje.
+ * <p>
+ * Paralelno bodovanje koristi se samo za upite s barem onoliko kandidata
+ * koliko je zadano svojstvom sustava {@value #THRESHOLD_PROPERTY}, a broj
+ * dretvi zadaje se svojstvom sustava {@value #THREADS_PROPERTY}.
+ *
+ * @author Davor Češljaš
+ */
+class ParallelScorer {
+
+	/**
+	 * Konstanta koja predstavlja ime svojstva sustava s najmanjim brojem
+	 * kandidata za paralelno bodovanje
+	 */
+	public static final String THRESHOLD_PROPERTY = "search.parallel.threshold";
+
+	/** Konstanta koja predstavlja ime svojstva sustava s brojem dretvi */
+	public static final String THREADS_PROPERTY = "search.parallel.threads";
+
+	/** Konstanta koja predstavlja pretpostavljeni najmanji broj kandidata */
+	public static final int DEFAULT_THRESHOLD = 1024;
+
+	/** Konstanta koja predstavlja najveći broj dokumenata jednog intervala */
+	private static final int RANGE_SIZE = 256;
+
+	/** Konstanta koja predstavlja zajednički bazen dretvi za bodovanje */
+	private static final ForkJoinPool POOL = new ForkJoinPool(
+			Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+
+	/**
+	 * Razred koji predstavlja bodovani dokument s položajem među kandidatima
+	 */
+	private static class ScoredDocument {
+
+		/** Članska varijabla koja predstavlja položaj dokumenta */
+		private final int index;
+
+		/** Članska varijabla koja predstavlja sličnost dokumenta s upitom */
+		private final double similarity;
+
+		/**
+		 * Konstruktor koji inicijalizira bodovani dokument
+		 *
+		 * @param index
+		 *            položaj dokumenta među kandidatima
+		 * @param similarity
+		 *            sličnost dokumenta s upitom
+		 */
+		private ScoredDocument(int index, double similarity) {
+			this.index = index;
+			this.similarity = similarity;
+		}
+
+		/**
+		 * Metoda koja provjerava je li ovaj dokument ispred dokumenta
+		 * <b>other</b> u poretku rezultata
+		 *
+		 * @param other
+		 *            drugi dokument
+		 * @return <code>true</code> ukoliko ovaj dokument ima veću sličnost ili
+		 *         jednaku sličnost i manji položaj
+		 */
+		private boolean isBefore(ScoredDocument other) {
+			int cmp = Double.compare(similarity, other.similarity);
+			return cmp > 0 || cmp == 0 && index < other.index;
+		}
+	}
+
+	/**
+	 * Razred koji predstavlja zadatak bodovanja jednog intervala kandidata.
+	 * Interval veći od {@value ParallelScorer#RANGE_SIZE} dokumenata dijeli se
+	 * na dvije polovice.
+	 */
+	private class ScoringTask extends RecursiveTask<List<ScoredDocument>> {
+
+		/** Serijski broj razreda */
+		private static final long serialVersionUID = 1L;
+
+		/** Članska varijabla koja predstavlja početak intervala */
+		private final int from;
+
+		/** Članska varijabla koja predstavlja kraj intervala (isključivo) */
+		private final int to;
+
+		/**
+		 * Konstruktor koji inicijalizira zadatak nad intervalom [from, to)
+		 *
+		 * @param from
+		 *            početak intervala
+		 * @param to
+		 *            kraj intervala (isključivo)
+		 */
+		private ScoringTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<ScoredDocument> compute() {
+			if (to - from <= RANGE_SIZE) {
+				return score(from, to);
+			}
+
+			int middle = (from + to) >>> 1;
+			ScoringTask left = new ScoringTask(from, middle);
+			left.fork();
+			List<ScoredDocument> right = new ScoringTask(middle, to).compute();
+			return merge(left.join(), right);
+		}
+	}
+
+	/** Članska varijabla koja predstavlja vektor upita */
+	private final DocumentVector queryVector;
+
+	/** Članska varijabla koja predstavlja kandidate koji se boduju */
+	private final List<DocumentVector> candidates;
+
+	/**
+	 * Članska varijabla koja predstavlja broj rezultata koji se čuva po
+	 * intervalu ili -1 ukoliko se čuvaju svi rezultati
+	 */
+	private final int limit;
+
+	/** Članska varijabla koja predstavlja putanje izbrisanih dokumenata */
+	private final Predicate<String> deleted;
+
+	/** Članska varijabla koja predstavlja rok upita ili <code>null</code> */
+	private final QueryDeadline deadline;
+
+	/**
+	 * Konstruktor koji inicijalizira bodovanje
+	 *
+	 * @param queryVector
+	 *            vektor upita
+	 * @param candidates
+	 *            vektori dokumenata koji se boduju
+	 * @param limit
+	 *            broj rezultata koji se čuva po intervalu ili -1 ukoliko se
+	 *            čuvaju svi rezultati sa sličnošću većom od 0
+	 * @param deleted
+	 *            provjera je li dokument s predanom putanjom izbrisan
+	 * @param deadline
+	 *            rok upita ili <code>null</code>
+	 */
+	ParallelScorer(DocumentVector queryVector, List<DocumentVector> candidates, int limit,
+			Predicate<String> deleted, QueryDeadline deadline) {
+		this.queryVector = queryVector;
+		this.candidates = candidates;
+		this.limit = limit;
+		this.deleted = deleted;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Statička metoda koja provjerava boduje li se <b>candidates</b> kandidata
+	 * paralelno
+	 *
+	 * @param candidates
+	 *            broj kandidata
+	 * @return <code>true</code> ukoliko broj kandidata doseže prag zadan
+	 *         svojstvom sustava {@value #THRESHOLD_PROPERTY}
+	 */
+	static boolean isParallel(int candidates) {
+		int threshold = Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+		return threshold > 0 && candidates >= threshold && POOL.getParallelism() > 1;
+	}
+
+	/**
+	 * Metoda koja boduje sve kandidate
+	 *
+	 * @return {@link List} rezultata sa sličnošću većom od 0 koji nisu
+	 *         izbrisani, poredanih kao stabilnim sortiranjem po sličnosti
+	 */
+	List<Result> score() {
+		List<ScoredDocument> scored = POOL.invoke(new ScoringTask(0, candidates.size()));
+
+		List<Result> results = new ArrayList<>(scored.size());
+		for (ScoredDocument document : scored) {
+			results.add(new Result(document.similarity, candidates.get(document.index).getFilePath()));
+		}
+		return results;
+	}
+
+	/**
+	 * Pomoćna metoda koja boduje kandidate intervala [from, to) te najboljih
+	 * {@link #limit} čuva u gomili čiji je vrh najlošiji rezultat
+	 *
+	 * @param from
+	 *            početak intervala
+	 * @param to
+	 *            kraj intervala (isključivo)
+	 * @return {@link List} najboljih rezultata intervala u poretku rezultata
+	 */
+	private List<ScoredDocument> score(int from, int to) {
+		PriorityQueue<ScoredDocument> heap = new PriorityQueue<>(
+				(d1, d2) -> d1.isBefore(d2) ? 1 : d2.isBefore(d1) ? -1 : 0);
+		for (int i = from; i < to; i++) {
+			if (deadline != null && (i - from) % SearchProvider.DEADLINE_CHECK_INTERVAL == 0
+					&& deadline.isExpired()) {
+				deadline.markPartial();
+				break;
+			}
+
+			DocumentVector document = candidates.get(i);
+			double similarity = DocumentVector.calculateSimilarity(queryVector, document);
+			if (similarity <= 0 || deleted.test(document.getFilePath())) {
+				continue;
+			}
+
+			ScoredDocument scored = new ScoredDocument(i, similarity);
+			if (limit < 0 || heap.size() < limit) {
+				heap.add(scored);
+			} else if (scored.isBefore(heap.peek())) {
+				heap.poll();
+				heap.add(scored);
+			}
+		}
+
+		List<ScoredDocument> best = new ArrayList<>(heap.size());
+		while (!heap.isEmpty()) {
+			best.add(heap.poll());
+		}
+		Collections.reverse(best);
+		return best;
+	}
+
+	/**
+	 * Pomoćna metoda koja spaja dvije liste rezultata u poretku rezultata te
+	 * zadržava najviše {@link #limit} najboljih
+	 *
+	 * @param first
+	 *            prva lista
+	 * @param second
+	 *            druga lista
+	 * @return spojena lista u poretku rezultata
+	 */
+	private List<ScoredDocument> merge(List<ScoredDocument> first, List<ScoredDocument> second) {
+		int size = first.size() + second.size();
+		if (limit >= 0) {
+			size = Math.min(size, limit);
+		}
+
+		List<ScoredDocument> merged = new ArrayList<>(size);
+		int i = 0;
+		int j = 0;
+		while (merged.size() < size) {
+			if (j == second.size() || i < first.size() && first.get(i).isBefore(second.get(j))) {
+				merged.add(first.get(i++));
+			} else {
+				merged.add(second.get(j++));
+			}
+		}
+		return merged;
+	}
+}
@@ -0,0 +1,236 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Razred koji predstavlja obrnuti indeks (engl. inverted index) nad vektorima
+ * dokumenata. Za svaki pojam vokabulara pamte se redni brojevi dokumenata u
+ * kojima je njegova težina različita od 0 te pripadne težine. Upit s malo
+ * pojmova tako se boduje obilaskom samo njihovih lista umjesto usporedbom sa
+ * svakim vektorom dokumenta, a dobivene sličnosti jednake su onima koje
+ * računa {@link DocumentVector#calculateSimilarity(DocumentVector, DocumentVector)}.
+ * <p>
+ * Liste su nesažeta polja rastuće poredanih rednih brojeva, pa se presjek
+ * lista (vidi {@link #matchAll(int[][])}) računa galopirajućim pretraživanjem:
+ * najkraća lista određuje kandidate, a u ostalim se listama preskače
+ * eksponencijalno rastućim koracima i zatim binarno pretražuje.
+ *
+ * @author Davor Češljaš
+ */
+public class PostingsIndex {
+
+	/** Članska varijabla koja predstavlja indeksirane vektore dokumenata */
+	private List<DocumentVector> documents;
+
+	/**
+	 * Članska varijabla koja predstavlja redne brojeve dokumenata za svaki
+	 * pojam, rastuće poredane
+	 */
+	private int[][] postings;
+
+	/**
+	 * Članska varijabla koja predstavlja težine pojma u dokumentima, poravnate
+	 * s {@link #postings}
+	 */
+	private double[][] weights;
+
+	/**
+	 * Konstruktor koji gradi indeks nad vektorima <b>documents</b>. Svi
+	 * vektori moraju biti iste dimenzije.
+	 *
+	 * @param documents
+	 *            vektori dokumenata koji se indeksiraju
+	 * @param dimension
+	 *            dimenzija vektora (veličina vokabulara)
+	 */
+	public PostingsIndex(List<DocumentVector> documents, int dimension) {
+		this.documents = documents;
+
+		int[] counts = new int[dimension];
+		for (DocumentVector document : documents) {
+			double[] tfidf = document.getTfidf();
+			for (int term = 0; term < dimension; term++) {
+				counts[term] += tfidf[term] != 0 ? 1 : 0;
+			}
+		}
+
+		postings = new int[dimension][];
+		weights = new double[dimension][];
+		for (int term = 0; term < dimension; term++) {
+			postings[term] = new int[counts[term]];
+			weights[term] = new double[counts[term]];
+			counts[term] = 0;
+		}
+
+		for (int doc = 0, len = documents.size(); doc < len; doc++) {
+			double[] tfidf = documents.get(doc).getTfidf();
+			for (int term = 0; term < dimension; term++) {
+				if (tfidf[term] != 0) {
+					postings[term][counts[term]] = doc;
+					weights[term][counts[term]++] = tfidf[term];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Metoda koja dohvaća broj dokumenata u kojima se pojavljuje pojam s
+	 * identifikatorom <b>termId</b>
+	 *
+	 * @param termId
+	 *            identifikator pojma
+	 * @return broj dokumenata koji sadrže pojam
+	 */
+	public int documentFrequency(int termId) {
+		return postings[termId].length;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj okteta koje zauzimaju liste zapisa i težine
+	 * ovog indeksa
+	 *
+	 * @return broj okteta koje zauzimaju podaci ovog indeksa
+	 */
+	public long sizeInBytes() {
+		long size = 0;
+		for (int i = 0; i < postings.length; i++) {
+			size += 4L * postings[i].length + 8L * weights[i].length;
+		}
+		return size;
+	}
+
+	/**
+	 * Metoda koja pronalazi dokumente koji iz svake skupine pojmova
+	 * <b>groups</b> sadrže barem jedan pojam. Skupina s jednim pojmom koristi
+	 * njegovu listu izravno, a ostale se skupine najprije spajaju u jednu
+	 * listu. Presjek se računa galopirajućim pretraživanjem, pri čemu
+	 * najkraća lista određuje kandidate.
+	 *
+	 * @param groups
+	 *            skupine identifikatora pojmova
+	 * @return rastuće poredani redni brojevi dokumenata koji zadovoljavaju
+	 *         sve skupine
+	 */
+	public int[] matchAll(int[][] groups) {
+		int[][] lists = new int[groups.length][];
+		for (int i = 0; i < groups.length; i++) {
+			lists[i] = groups[i].length == 1 ? postings[groups[i][0]] : matchAny(groups[i]).stream().toArray();
+		}
+		Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+
+		if (lists.length == 0) {
+			return new int[0];
+		}
+
+		int[] smallest = lists[0];
+		int[] cursors = new int[lists.length];
+		int[] matches = new int[smallest.length];
+		int count = 0;
+		candidates: for (int doc : smallest) {
+			for (int i = 1; i < lists.length; i++) {
+				cursors[i] = gallop(lists[i], cursors[i], doc);
+				if (cursors[i] == lists[i].length) {
+					break candidates;
+				}
+				if (lists[i][cursors[i]] != doc) {
+					continue candidates;
+				}
+			}
+			matches[count++] = doc;
+		}
+
+		return Arrays.copyOf(matches, count);
+	}
+
+	/**
+	 * Metoda koja pronalazi dokumente koji sadrže barem jedan od pojmova
+	 * <b>termIds</b>
+	 *
+	 * @param termIds
+	 *            identifikatori pojmova
+	 * @return {@link BitSet} rednih brojeva dokumenata koji sadrže neki od
+	 *         pojmova
+	 */
+	public BitSet matchAny(int[] termIds) {
+		BitSet documents = new BitSet(this.documents.size());
+		for (int termId : termIds) {
+			for (int doc : postings[termId]) {
+				documents.set(doc);
+			}
+		}
+
+		return documents;
+	}
+
+	/**
+	 * Pomoćna metoda koja u rastuće poredanoj listi <b>list</b>, počevši od
+	 * pozicije <b>from</b>, pronalazi prvu poziciju čija je vrijednost barem
+	 * <b>target</b>. Korak se udvostručuje sve dok se ne preskoči tražena
+	 * vrijednost, a zatim se preskočeni interval pretražuje binarno.
+	 *
+	 * @param list
+	 *            rastuće poredana lista
+	 * @param from
+	 *            početna pozicija
+	 * @param target
+	 *            tražena vrijednost
+	 * @return prva pozicija s vrijednošću barem <b>target</b> ili duljina
+	 *         liste ukoliko takve pozicije nema
+	 */
+	private static int gallop(int[] list, int from, int target) {
+		if (from >= list.length || list[from] >= target) {
+			return from;
+		}
+
+		int low = from;
+		int step = 1;
+		while (low + step < list.length && list[low + step] < target) {
+			low += step;
+			step <<= 1;
+		}
+
+		int high = Math.min(low + step, list.length);
+		int index = Arrays.binarySearch(list, low + 1, high, target);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	/**
+	 * Metoda koja računa kosinusnu sličnost rijetkog vektora upita sa svakim
+	 * indeksiranim dokumentom. Upit je zadan identifikatorima pojmova
+	 * <b>termIds</b> i pripadnim težinama <b>queryWeights</b>.
+	 *
+	 * @param termIds
+	 *            identifikatori pojmova upita
+	 * @param queryWeights
+	 *            težine pojmova upita
+	 * @return polje sličnosti poravnato s listom indeksiranih dokumenata;
+	 *         dokumenti bez ijednog pojma upita imaju sličnost 0
+	 */
+	public double[] score(int[] termIds, double[] queryWeights) {
+		double[] scores = new double[documents.size()];
+
+		double queryModul = 0;
+		for (int i = 0; i < termIds.length; i++) {
+			double queryWeight = queryWeights[i];
+			queryModul += queryWeight * queryWeight;
+
+			int[] docs = postings[termIds[i]];
+			double[] docWeights = weights[termIds[i]];
+			for (int j = 0; j < docs.length; j++) {
+				scores[docs[j]] += queryWeight * docWeights[j];
+			}
+		}
+
+		queryModul = Math.sqrt(queryModul);
+		for (int doc = 0; doc < scores.length; doc++) {
+			if (scores[doc] != 0) {
+				scores[doc] /= queryModul * documents.get(doc).getModul();
+			}
+		}
+
+		return scores;
+	}
+}
@@ -0,0 +1,135 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Razred koji predstavlja rok izvođenja jednog upita. Bodovanje dokumenata
+ * unutar {@link SearchProvider#search(java.util.List, int, QueryProfile,
+ * QueryDeadline)} povremeno provjerava je li rok istekao ili je upit otkazan
+ * te se u tom slučaju zaustavlja i vraća najbolje dotad pronađene rezultate,
+ * a rok se označava djelomičnim (vidi {@link #isPartial()}). Upit se može
+ * otkazati iz bilo koje dretve metodom {@link #cancel()}.
+ * <p>
+ * Pretpostavljeni rok u milisekundama zadaje se svojstvom sustava
+ * {@value #DEADLINE_PROPERTY} (vidi {@link #fromProperty()}).
+ *
+ * @author Davor Češljaš
+ */
+public class QueryDeadline {
+
+	/** Konstanta koja predstavlja ime svojstva sustava s rokom u milisekundama */
+	public static final String DEADLINE_PROPERTY = "search.deadline";
+
+	/**
+	 * Članska varijabla koja predstavlja trenutak isteka roka (vidi
+	 * {@link System#nanoTime()})
+	 */
+	private final long expiresAt;
+
+	/** Članska varijabla koja određuje je li rok vremenski ograničen */
+	private final boolean limited;
+
+	/** Članska varijabla koja predstavlja trajanje roka u milisekundama */
+	private final long timeoutMillis;
+
+	/** Članska varijabla koja određuje je li upit otkazan */
+	private volatile boolean cancelled;
+
+	/** Članska varijabla koja određuje jesu li rezultati djelomični */
+	private volatile boolean partial;
+
+	/**
+	 * Konstruktor koji inicijalizira rok koji istječe <b>timeoutMillis</b>
+	 * milisekundi nakon stvaranja. Rok koji nije pozitivan nije vremenski
+	 * ograničen, pa se upit može samo otkazati.
+	 *
+	 * @param timeoutMillis
+	 *            trajanje roka u milisekundama
+	 */
+	public QueryDeadline(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+		this.limited = timeoutMillis > 0;
+		this.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMillis));
+	}
+
+	/**
+	 * Statička metoda koja stvara rok zadan svojstvom sustava
+	 * {@value #DEADLINE_PROPERTY}
+	 *
+	 * @return novi rok ili <code>null</code> ukoliko svojstvo nije postavljeno
+	 *         na pozitivnu vrijednost
+	 */
+	public static QueryDeadline fromProperty() {
+		long timeoutMillis = Long.getLong(DEADLINE_PROPERTY, 0);
+		return timeoutMillis > 0 ? new QueryDeadline(timeoutMillis) : null;
+	}
+
+	/**
+	 * Statička metoda koja stvara rok zadan svojstvom sustava
+	 * {@value #DEADLINE_PROPERTY}. Za razliku od metode {@link #fromProperty()},
+	 * rok se stvara i kada svojstvo nije postavljeno, pa se upit uvijek može
+	 * otkazati.
+	 *
+	 * @return novi rok koji vremenski nije ograničen ukoliko svojstvo nije
+	 *         postavljeno na pozitivnu vrijednost
+	 */
+	public static QueryDeadline cancellable() {
+		QueryDeadline deadline = fromProperty();
+		return deadline != null ? deadline : new QueryDeadline(0);
+	}
+
+	/**
+	 * Metoda koja otkazuje upit. Bodovanje se zaustavlja pri sljedećoj
+	 * provjeri roka.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Metoda koja provjerava je li upit otkazan
+	 *
+	 * @return <code>true</code> ukoliko je upit otkazan, inače
+	 *         <code>false</code>
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Metoda koja provjerava je li rok istekao ili je upit otkazan
+	 *
+	 * @return <code>true</code> ukoliko se upit mora zaustaviti, inače
+	 *         <code>false</code>
+	 */
+	public boolean isExpired() {
+		return cancelled || limited && System.nanoTime() - expiresAt >= 0;
+	}
+
+	/**
+	 * Metoda koja provjerava jesu li rezultati upita djelomični, odnosno je li
+	 * bodovanje zaustavljeno prije kraja
+	 *
+	 * @return <code>true</code> ukoliko su rezultati djelomični, inače
+	 *         <code>false</code>
+	 */
+	public boolean isPartial() {
+		return partial;
+	}
+
+	/**
+	 * Metoda koja dohvaća trajanje roka u milisekundama
+	 *
+	 * @return trajanje roka ili 0 ukoliko rok nije vremenski ograničen
+	 */
+	public long getTimeoutMillis() {
+		return limited ? timeoutMillis : 0;
+	}
+
+	/**
+	 * Metoda koja označava rezultate upita djelomičnima
+	 */
+	void markPartial() {
+		partial = true;
+	}
+}
@@ -0,0 +1,109 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Razred koji predstavlja profil izvođenja jednog upita. Primjerak ovog
+ * razreda predaje se metodi
+ * {@link SearchProvider#search(java.util.List, int, QueryProfile, QueryDeadline)},
+ * koja u njega bilježi trajanje pojedinih faza te broj bodovanih dokumenata i
+ * pročitanih zapisa obrnutog indeksa. Upiti bez profila ne bilježe ništa.
+ *
+ * @author Davor Češljaš
+ */
+public class QueryProfile {
+
+	/** Konstanta koja predstavlja fazu pronalaska pojmova upita */
+	public static final String TERM_LOOKUP = "pojmovi";
+
+	/** Konstanta koja predstavlja fazu odabira dokumenata logičkim uvjetima */
+	public static final String FILTER = "logički uvjeti";
+
+	/** Konstanta koja predstavlja fazu stvaranja vektora upita */
+	public static final String VECTOR = "vektor upita";
+
+	/** Konstanta koja predstavlja fazu bodovanja dokumenata */
+	public static final String SCORING = "bodovanje";
+
+	/** Konstanta koja predstavlja fazu izdvajanja najboljih rezultata */
+	public static final String TOP_K = "najboljih K";
+
+	/** Konstanta koja predstavlja fazu pretraživanja segmenata */
+	public static final String SEGMENTS = "segmenti";
+
+	/** Konstanta koja predstavlja fazu stvaranja isječaka */
+	public static final String SNIPPETS = "isječci";
+
+	/** Članska varijabla koja predstavlja trajanja faza u nanosekundama */
+	private Map<String, Long> phases = new LinkedHashMap<>();
+
+	/** Članska varijabla koja predstavlja broj bodovanih dokumenata */
+	private int documentsScored;
+
+	/** Članska varijabla koja predstavlja broj zapisa obrnutog indeksa */
+	private long postings;
+
+	/**
+	 * Metoda koja bilježi fazu <b>phase</b> započetu u trenutku <b>start</b>
+	 * (vidi {@link System#nanoTime()}) i završenu sada. Trajanja ponovljenih
+	 * faza se zbrajaju.
+	 *
+	 * @param phase
+	 *            ime faze
+	 * @param start
+	 *            trenutak početka faze u nanosekundama
+	 */
+	public void addPhase(String phase, long start) {
+		phases.merge(phase, System.nanoTime() - start, Long::sum);
+	}
+
+	/**
+	 * Metoda koja dodaje <b>count</b> bodovanih dokumenata
+	 *
+	 * @param count
+	 *            broj bodovanih dokumenata
+	 */
+	public void addDocumentsScored(int count) {
+		documentsScored += count;
+	}
+
+	/**
+	 * Metoda koja dodaje <b>count</b> zapisa obrnutog indeksa
+	 *
+	 * @param count
+	 *            broj zapisa
+	 */
+	public void addPostings(long count) {
+		postings += count;
+	}
+
+	/**
+	 * Metoda koja dohvaća trajanja faza redom bilježenja
+	 *
+	 * @return nepromjenjiva {@link Map} imena faza na trajanje u nanosekundama
+	 */
+	public Map<String, Long> getPhases() {
+		return Collections.unmodifiableMap(phases);
+	}
+
+	/**
+	 * Metoda koja dohvaća broj bodovanih dokumenata
+	 *
+	 * @return broj bodovanih dokumenata
+	 */
+	public int getDocumentsScored() {
+		return documentsScored;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj zapisa obrnutog indeksa koji odgovaraju
+	 * pojmovima upita
+	 *
+	 * @return broj zapisa
+	 */
+	public long getPostings() {
+		return postings;
+	}
+}
@@ -1,33 +1,42 @@
 package hr.fer.zemris.java.hw16.search.provider;
 
-import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.stream.Collectors;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+import hr.fer.zemris.java.hw16.search.environment.ResultCursor;
+import hr.fer.zemris.java.hw16.search.metrics.Counter;
+import hr.fer.zemris.java.hw16.search.metrics.LatencyHistogram;
+import hr.fer.zemris.java.hw16.search.metrics.MetricsRegistry;
 
 /**
  * Razred koji se koristi kao pomoćni razred prilikom pretrage tekstualnih
- * datoteka. Razred predstavlja implementaciju oblikovnog obrasca
- * <a href = "https://en.wikipedia.org/wiki/Singleton_pattern">jedinstveni
- * objekt</a> (engl. Singleton). Uz dohvat jedinog mogućeg primjerka ovog
- * razreda metodom {@link #getProvider()}, razred nudi i nekoliko statičkih
- * metodi:
+ * datoteka. Svaki primjerak ovog razreda predstavlja jedan imenovani indeks
+ * registra {@link IndexRegistry}, a aktivni indeks dohvaća se metodom
+ * {@link #getProvider()}. Razred nudi i nekoliko statičkih metodi:
  * 
  * <ul>
  * <li>{@link #loadDocuments(String)}</li>
  * <li>{@link #countWordsInDocument(String[])}</li>
- * <li>{@link #createDocumentVector(String, Map)}</li>
  * </ul>
  * 
  * Primjerci ovog razreda također nude nekoliko metoda, za dohvat standardnih
@@ -40,27 +49,181 @@ import java.util.Set;
  * <li>{@link #getDocumentVectors()}</li>
  * </ul>
  * 
+ * Pretraživanje samih dokumenata obavlja se metodama
+ * {@link #filterQueryWords(List)} i {@link #search(List, int)}, koje koriste
+ * svi dijelovi programa koji postavljaju upite (interaktivna konzola, paketna
+ * obrada upita...), čime je osigurano da se rezultati ne razlikuju.
+ * <p>
+ * Prilikom učitavanja dokumenata pronalaze se gotovo jednaki dokumenti
+ * (vidi {@link DuplicateDetector}), a s njima se postupa ovisno o
+ * {@link DuplicatePolicy}.
+ * 
  * @author Davor Češljaš
  */
 public class SearchProvider {
 
 	/**
-	 * Konstanta koja predstavlja regularni izraz na temelju kojeg se određuju
-	 * riječi unutar datoteka
+	 * Konstanta koja predstavlja naziv pod kojim se stvara vektor upita
+	 * prilikom pretraživanja
+	 */
+	private static final String QUERY_NAME = "query";
+
+	/** Konstanta koja predstavlja najveći broj riječi isječka rezultata */
+	public static final int SNIPPET_WORDS = 20;
+
+	/** Konstanta koja predstavlja mjerenje trajanja cijelog učitavanja */
+	private static final LatencyHistogram LOAD_TIME = MetricsRegistry.getRegistry().histogram("index.load");
+
+	/** Konstanta koja predstavlja mjerenje trajanja čitanja datoteka */
+	private static final LatencyHistogram READ_TIME = MetricsRegistry.getRegistry().histogram("index.read");
+
+	/** Konstanta koja predstavlja mjerenje trajanja rastavljanja na riječi */
+	private static final LatencyHistogram TOKENIZE_TIME = MetricsRegistry.getRegistry()
+			.histogram("index.tokenization");
+
+	/** Konstanta koja predstavlja mjerenje trajanja izračuna vektora idf */
+	private static final LatencyHistogram IDF_TIME = MetricsRegistry.getRegistry().histogram("index.idf");
+
+	/** Konstanta koja predstavlja mjerenje trajanja izgradnje vektora */
+	private static final LatencyHistogram VECTOR_TIME = MetricsRegistry.getRegistry().histogram("index.vector");
+
+	/** Konstanta koja predstavlja brojač učitanih dokumenata */
+	private static final Counter DOCUMENTS = MetricsRegistry.getRegistry().counter("index.documents");
+
+	/** Konstanta koja predstavlja mjerenje trajanja traženja duplikata */
+	private static final LatencyHistogram DEDUP_TIME = MetricsRegistry.getRegistry().histogram("index.dedup");
+
+	/** Konstanta koja predstavlja brojač pronađenih duplikata */
+	private static final Counter DUPLICATES = MetricsRegistry.getRegistry().counter("index.duplicates");
+
+	/** Konstanta koja predstavlja brojač pročitanih riječi */
+	private static final Counter TOKENS = MetricsRegistry.getRegistry().counter("index.tokens");
+
+	/** Konstanta koja predstavlja mjerenje trajanja izgradnje vektora upita */
+	private static final LatencyHistogram QUERY_VECTOR_TIME = MetricsRegistry.getRegistry()
+			.histogram("query.vector");
+
+	/** Konstanta koja predstavlja mjerenje trajanja računanja sličnosti */
+	private static final LatencyHistogram QUERY_SCORING_TIME = MetricsRegistry.getRegistry()
+			.histogram("query.scoring");
+
+	/** Konstanta koja predstavlja mjerenje trajanja odabira najboljih rezultata */
+	private static final LatencyHistogram QUERY_TOPK_TIME = MetricsRegistry.getRegistry().histogram("query.topk");
+
+	/** Konstanta koja predstavlja brojač izvedenih upita */
+	private static final Counter QUERIES = MetricsRegistry.getRegistry().counter("query.count");
+
+	/** Konstanta koja predstavlja mjerenje trajanja grupiranja dokumenata */
+	private static final LatencyHistogram CLUSTERING_TIME = MetricsRegistry.getRegistry()
+			.histogram("index.clustering");
+
+	/**
+	 * Konstanta koja predstavlja mjerenje trajanja usporedbe upita sa
+	 * centroidima grupa
+	 */
+	private static final LatencyHistogram QUERY_PROBE_TIME = MetricsRegistry.getRegistry().histogram("query.probe");
+
+	/** Konstanta koja predstavlja mjerenje trajanja izgradnje obrnutog indeksa */
+	private static final LatencyHistogram POSTINGS_TIME = MetricsRegistry.getRegistry().histogram("index.postings");
+
+	/** Konstanta koja predstavlja brojač upita "više ovakvih" */
+	private static final Counter SIMILAR_QUERIES = MetricsRegistry.getRegistry().counter("query.similar");
+
+	/** Konstanta koja predstavlja mjerenje trajanja izgradnje isječaka */
+	private static final LatencyHistogram QUERY_SNIPPET_TIME = MetricsRegistry.getRegistry()
+			.histogram("query.snippets");
+
+	/** Konstanta koja predstavlja brojač približnih upita */
+	private static final Counter APPROXIMATE_QUERIES = MetricsRegistry.getRegistry().counter("query.approximate");
+
+	/** Konstanta koja predstavlja mjerenje trajanja pretraživanja segmenata */
+	private static final LatencyHistogram QUERY_SEGMENTS_TIME = MetricsRegistry.getRegistry()
+			.histogram("query.segments");
+
+	/**
+	 * Konstanta koja predstavlja mjerenje trajanja odabira dokumenata koji
+	 * zadovoljavaju logičke uvjete upita
+	 */
+	private static final LatencyHistogram QUERY_FILTER_TIME = MetricsRegistry.getRegistry()
+			.histogram("query.filter");
+
+	/** Konstanta koja predstavlja brojač upita s logičkim uvjetima */
+	private static final Counter BOOLEAN_QUERIES = MetricsRegistry.getRegistry().counter("query.boolean");
+
+	/** Konstanta koja predstavlja brojač paralelno bodovanih upita */
+	private static final Counter PARALLEL_QUERIES = MetricsRegistry.getRegistry().counter("query.parallel");
+
+	/** Konstanta koja predstavlja brojač upita s djelomičnim rezultatima */
+	private static final Counter PARTIAL_QUERIES = MetricsRegistry.getRegistry().counter("query.partial");
+
+	/** Konstanta koja predstavlja mjerenje trajanja izgradnje dovršavanja */
+	private static final LatencyHistogram COMPLETIONS_TIME = MetricsRegistry.getRegistry()
+			.histogram("index.completions");
+
+	/** Konstanta koja predstavlja mjerenje trajanja izgradnje metapodataka */
+	private static final LatencyHistogram METADATA_TIME = MetricsRegistry.getRegistry().histogram("index.metadata");
+
+	/** Konstanta koja predstavlja mjerenje trajanja dovršavanja riječi */
+	private static final LatencyHistogram SUGGEST_TIME = MetricsRegistry.getRegistry().histogram("query.suggest");
+
+	/**
+	 * Konstanta koja predstavlja broj bodovanih dokumenata između dvije
+	 * provjere roka upita
+	 */
+	static final int DEADLINE_CHECK_INTERVAL = 32;
+
+	/**
+	 * Konstanta koja predstavlja broj rezultata kojim se traže svi bodovani
+	 * rezultati, neporedani i bez odabira duplikata (vidi
+	 * {@link #searchCursor(List, BooleanQuery, int, QueryProfile, QueryDeadline)})
+	 */
+	private static final int ALL_RESULTS = -1;
+
+	/**
+	 * Konstanta koja predstavlja brojač pojmova svake dretve, koji se ponovno
+	 * koristi za svaki dokument i upit te dretve
+	 */
+	private static final ThreadLocal<TermCounter> COUNTERS = ThreadLocal.withInitial(TermCounter::new);
+
+	/**
+	 * Statička varijabla koja predstavlja analizu teksta koja se koristi i za
+	 * dokumente i za upite
+	 */
+	private static Analyzer analyzer;
+
+	/**
+	 * Konstanta koja predstavlja znak kojim završava riječ upita koja se
+	 * proširuje na sve riječi vokabulara s istim prefiksom
+	 */
+	private static final String WILDCARD = "*";
+
+	/**
+	 * Konstanta koja predstavlja najveći broj riječi vokabulara na koje se
+	 * proširuje jedna riječ upita sa znakom {@value #WILDCARD}
 	 */
-	private static final String SPLIT_REGEX = "[^A-Za-zčČćĆžŽšŠđĐ]+";
+	private static final int MAX_WILDCARD_EXPANSIONS = 256;
 
-	/** Konstanta koja predstavlja {@link Set} zaustavnih riječi */
-	private static Set<String> STOPWORDS;
+	/**
+	 * Konstanta koja predstavlja znak kojim završava riječ upita koja se
+	 * proširuje na sve slične riječi vokabulara. Nakon znaka može slijediti
+	 * najveći broj izmjena (npr. <code>kazaliste~1</code>)
+	 */
+	private static final String FUZZY = "~";
+
+	/**
+	 * Konstanta koja predstavlja najveći broj riječi vokabulara na koje se
+	 * proširuje jedna riječ upita koja nije pronađena u vokabularu
+	 */
+	private static final int MAX_FUZZY_EXPANSIONS = 32;
 
-	/** Statička varijabla koja predstavlja jedini primjerak ovog razreda */
-	private static SearchProvider provider = null;
+	/** Članska varijabla koja predstavlja ime indeksa */
+	private String name;
 
 	/**
-	 * Članska varijabla koja predstavlja {@link List} riječi koje predstavljaju
+	 * Članska varijabla koja predstavlja rječnik riječi koje predstavljaju
 	 * vokabular pretraživanja
 	 */
-	private List<String> vocabulary;
+	private TermDictionary vocabulary;
 
 	/**
 	 * Članska varijabla koja predstavlja {@link List} svih vektora dokumenata
@@ -70,6 +233,59 @@ public class SearchProvider {
 	 */
 	private List<DocumentVector> documentVectors;
 
+	/**
+	 * Članska varijabla koja predstavlja {@link Map} putanja dokumenata na
+	 * pripadne vektore
+	 */
+	private Map<String, DocumentVector> documentsByPath;
+
+	/**
+	 * Članska varijabla koja predstavlja način postupanja s duplikatima
+	 * korišten prilikom učitavanja dokumenata
+	 */
+	private DuplicatePolicy duplicatePolicy;
+
+	/**
+	 * Članska varijabla koja predstavlja grupiranje dokumenata za približno
+	 * pretraživanje, a koje se gradi prilikom prvog približnog upita
+	 */
+	private volatile ClusterIndex clusterIndex;
+
+	/**
+	 * Članska varijabla koja predstavlja obrnuti indeks nad vektorima
+	 * dokumenata
+	 */
+	private PostingsIndex postingsIndex;
+
+	/**
+	 * Članska varijabla koja predstavlja indeks za dovršavanje riječi upita
+	 */
+	private CompletionIndex completionIndex;
+
+	/**
+	 * Članska varijabla koja predstavlja metapodatke dokumenata zapisane u
+	 * imenima datoteka
+	 */
+	private MetadataIndex metadataIndex;
+
+	/**
+	 * Članska varijabla koja predstavlja {@link Map} putanja dokumenata na
+	 * sažete zapise njihovih tekstova
+	 */
+	private Map<String, Excerpt> excerpts;
+
+	/**
+	 * Članska varijabla koja predstavlja spremište sažetih tekstova
+	 * dokumenata
+	 */
+	private DocumentStore documentStore;
+
+	/**
+	 * Članska varijabla koja predstavlja segmente s dokumentima dodanim nakon
+	 * učitavanja ili <code>null</code> ukoliko niti jedan dokument nije dodan
+	 */
+	private volatile SegmentedIndex segmentedIndex;
+
 	/**
 	 * Članska varijabla koja predstavlja vektor idf unutar algoritma
 	 * pretraživanja
@@ -78,6 +294,13 @@ public class SearchProvider {
 	 */
 	private double[] idf;
 
+	/**
+	 * Članska varijabla koja predstavlja inačicu snimke iz koje je indeks
+	 * pročitan (vidi {@link SnapshotReplica}) ili 0 ukoliko je indeks izgrađen
+	 * iz dokumenata
+	 */
+	private long snapshotVersion;
+
 	/**
 	 * Privatni konstruktor koji služi tome da se primjerci ovog razreda ne mogu
 	 * stvarati izvan samog razreda.
@@ -86,12 +309,31 @@ public class SearchProvider {
 	}
 
 	/**
-	 * Metoda koja dohvaća {@link List} riječi koje predstavljaju vokabular
-	 * pretraživanja
+	 * Metoda koja dohvaća ime ovog indeksa unutar registra {@link IndexRegistry}
+	 *
+	 * @return ime indeksa
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Metoda koja dohvaća inačicu snimke iz koje je ovaj indeks pročitan
+	 *
+	 * @return inačica snimke ili 0 ukoliko je indeks izgrađen iz dokumenata
+	 */
+	public long getSnapshotVersion() {
+		return snapshotVersion;
+	}
+
+	/**
+	 * Metoda koja dohvaća rječnik riječi koje predstavljaju vokabular
+	 * pretraživanja. Indeks riječi unutar vektora pretraživanja jednak je
+	 * identifikatoru riječi unutar rječnika.
 	 *
-	 * @return {@link List} riječi koje predstavljaju vokabular pretraživanja
+	 * @return rječnik riječi koje predstavljaju vokabular pretraživanja
 	 */
-	public List<String> getVocabulary() {
+	public TermDictionary getVocabulary() {
 		return vocabulary;
 	}
 
@@ -106,6 +348,28 @@ public class SearchProvider {
 		return documentVectors;
 	}
 
+	/**
+	 * Metoda koja dohvaća vektor dokumenta s putanjom <b>filePath</b>
+	 *
+	 * @param filePath
+	 *            putanja do dokumenta
+	 * @return vektor dokumenta ili <code>null</code> ukoliko dokument nije
+	 *         indeksiran
+	 */
+	public DocumentVector getDocumentVector(String filePath) {
+		return documentsByPath.get(filePath);
+	}
+
+	/**
+	 * Metoda koja dohvaća način postupanja s duplikatima korišten prilikom
+	 * učitavanja dokumenata
+	 *
+	 * @return način postupanja s duplikatima
+	 */
+	public DuplicatePolicy getDuplicatePolicy() {
+		return duplicatePolicy;
+	}
+
 	/**
 	 * Metoda koja dohvaća vektor idf unutar algoritma pretraživanja
 	 * <a href = "https://en.wikipedia.org/wiki/Tf%E2%80%93idf">TF-IDF(engl.
@@ -118,20 +382,1064 @@ public class SearchProvider {
 	}
 
 	/**
-	 * Statička metoda koja dohvaća jedini primjerak ovog razreda
+	 * Metoda koja iz predane {@link List}e riječi <b>words</b> izbacuje sve
+	 * riječi koje se ne nalaze unutar vokabulara pretraživanja. Riječ koja
+	 * završava znakom {@value #WILDCARD} (npr. <code>kazali*</code>) zamjenjuje
+	 * se svim riječima vokabulara koje započinju tim prefiksom nakon analize
+	 * (zaustavna riječ kao prefiks samo se svodi na mala slova), a kojih ima
+	 * najviše {@value #MAX_WILDCARD_EXPANSIONS}. Riječ koja nije pronađena u
+	 * vokabularu, kao i riječ koja završava znakom {@value #FUZZY} (uz
+	 * opcionalni broj izmjena), zamjenjuje se s najviše
+	 * {@value #MAX_FUZZY_EXPANSIONS} najsličnijih riječi vokabulara, pri čemu
+	 * se dijakritički znakovi ne smatraju izmjenom (vidi
+	 * {@link TermDictionary#fuzzyTerms(String, int, int)}). Metoda ne mijenja
+	 * predanu {@link List}u.
+	 *
+	 * @param words
+	 *            {@link List} riječi upita koje je korisnik unio
+	 * @return nova {@link List} koja sadrži samo one riječi iz <b>words</b>
+	 *         koje se nalaze unutar vokabulara pretraživanja
+	 */
+	public List<String> filterQueryWords(List<String> words) {
+		List<String> filtered = new ArrayList<>();
+		for (String word : words) {
+			if (word.length() > WILDCARD.length() && word.endsWith(WILDCARD)) {
+				String prefix = word.substring(0, word.length() - WILDCARD.length());
+				String term = analyzer.analyze(prefix);
+				filtered.addAll(vocabulary.termsWithPrefix(term == null ? prefix.toLowerCase() : term,
+						MAX_WILDCARD_EXPANSIONS));
+			} else if (word.indexOf(FUZZY) > 0) {
+				filtered.addAll(expandFuzzy(word));
+			} else {
+				String term = analyzer.analyze(word);
+				if (term == null) {
+					continue;
+				}
+
+				if (vocabulary.contains(term) || segmentedIndex != null && segmentedIndex.contains(term)) {
+					filtered.add(term);
+				} else {
+					filtered.addAll(vocabulary.fuzzyTerms(term, LevenshteinAutomaton.autoEdits(term.length()),
+							MAX_FUZZY_EXPANSIONS));
+				}
+			}
+		}
+
+		return filtered;
+	}
+
+	/**
+	 * Pomoćna metoda koja riječ oblika <code>riječ~</code> ili
+	 * <code>riječ~N</code> proširuje na slične riječi vokabulara. Bez broja
+	 * izmjena koristi se {@link LevenshteinAutomaton#autoEdits(int)}, a
+	 * neispravan broj izmjena svodi se na interval [0,
+	 * {@value LevenshteinAutomaton#MAX_EDITS}].
+	 *
+	 * @param word
+	 *            riječ upita sa znakom {@value #FUZZY}
+	 * @return {@link List} sličnih riječi vokabulara
+	 */
+	private List<String> expandFuzzy(String word) {
+		int separator = word.lastIndexOf(FUZZY);
+		String term = analyzer.analyze(word.substring(0, separator));
+		String edits = word.substring(separator + FUZZY.length());
+		if (term == null) {
+			return new ArrayList<>();
+		}
+
+		int maxEdits;
+		try {
+			maxEdits = edits.isEmpty() ? LevenshteinAutomaton.autoEdits(term.length()) : Integer.parseInt(edits);
+		} catch (NumberFormatException e) {
+			maxEdits = LevenshteinAutomaton.autoEdits(term.length());
+		}
+		maxEdits = Math.max(0, Math.min(maxEdits, LevenshteinAutomaton.MAX_EDITS));
+
+		return vocabulary.fuzzyTerms(term, maxEdits, MAX_FUZZY_EXPANSIONS);
+	}
+
+	/**
+	 * Metoda koja se koristi za računje rezultata pretraživanja. Metoda prima
+	 * riječi koje se pretražuju preko parametra <b>queryWords</b>. Za
+	 * pretraživanje se koristi algoritam
+	 * <a href = "https://en.wikipedia.org/wiki/Tf%E2%80%93idf">TF-IDF(engl.
+	 * term frequency–inverse document frequency)</a>. Metoda vraća najviše
+	 * <b>maxResults</b> rezultata čija je sličnost veća od 0, sortiranih
+	 * padajuće po sličnosti. Ukoliko su duplikati označeni (vidi
+	 * {@link DuplicatePolicy#TAG}), vraća se samo najbolji dokument svake
+	 * grupe duplikata. Izbrisani dokumenti se preskaču, a rezultati
+	 * dokumenata dodanih nakon učitavanja (vidi {@link SegmentedIndex})
+	 * spajaju se s rezultatima učitanih dokumenata. Metoda ne mijenja stanje
+	 * ovog primjerka razreda te ju je sigurno pozivati iz više dretvi
+	 * istovremeno.
+	 *
+	 * @param queryWords
+	 *            {@link List} primjeraka razreda {@link String} koji
+	 *            predstavljaju pojmove vokabulara koji se pretražuju
+	 *            (dobivene metodom {@link #filterQueryWords(List)})
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @return {@link List} primjeraka razreda {@link Result}, a koji
+	 *         predstavljaju rezultate pretraživanja
+	 */
+	public List<Result> search(List<String> queryWords, int maxResults) {
+		return search(queryWords, maxResults, null, null);
+	}
+
+	/**
+	 * Metoda koja pretražuje jednako kao metoda {@link #search(List, int)}, a
+	 * usput u profil <b>profile</b> bilježi trajanje pojedinih faza te broj
+	 * bodovanih dokumenata i zapisa obrnutog indeksa pojmova upita. Ukoliko je
+	 * profil <code>null</code>, ništa se ne bilježi. Bodovanje povremeno
+	 * provjerava rok <b>deadline</b>, pa spor upit ne zadržava dretvu dulje od
+	 * zadanog roka.
+	 *
+	 * @param queryWords
+	 *            {@link List} pojmova vokabulara koji se pretražuju (dobivenih
+	 *            metodom {@link #filterQueryWords(List)})
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @param profile
+	 *            profil u koji se bilježi izvođenje ili <code>null</code>
+	 * @param deadline
+	 *            rok upita ili <code>null</code>. Nakon isteka roka bodovanje
+	 *            se zaustavlja, vraćaju se najbolji dotad pronađeni rezultati,
+	 *            a rok se označava djelomičnim (vidi
+	 *            {@link QueryDeadline#isPartial()}).
+	 * @return {@link List} primjeraka razreda {@link Result}, a koji
+	 *         predstavljaju rezultate pretraživanja
+	 */
+	public List<Result> search(List<String> queryWords, int maxResults, QueryProfile profile,
+			QueryDeadline deadline) {
+		return search(queryWords, null, maxResults, profile, deadline);
+	}
+
+	/**
+	 * Metoda koja pretražuje jednako kao metoda
+	 * {@link #search(List, int, QueryProfile, QueryDeadline)}, ali boduje samo
+	 * dokumente koji zadovoljavaju logičke uvjete upita <b>query</b>.
+	 * Dokumenti koji sadrže isključene riječi uklanjaju se prije bodovanja, a
+	 * dokumenti s obaveznim riječima pronalaze se presjekom lista obrnutog
+	 * indeksa (vidi {@link PostingsIndex#matchAll(int[][])}). Obavezna riječ
+	 * proširuje se jednako kao i riječi upita (vidi
+	 * {@link #filterQueryWords(List)}), pa dokument mora sadržavati barem jedno
+	 * njeno proširenje. Dokumenti koji ne zadovoljavaju uvjete nad
+	 * metapodacima (vidi {@link MetadataIndex}) također se uklanjaju prije
+	 * bodovanja.
+	 *
+	 * @param queryWords
+	 *            {@link List} pojmova vokabulara koji se boduju (dobivenih
+	 *            metodom {@link #filterQueryWords(List)} iz
+	 *            {@link BooleanQuery#getScoringWords()})
+	 * @param query
+	 *            logički uvjeti upita ili <code>null</code>
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @param profile
+	 *            profil u koji se bilježi izvođenje ili <code>null</code>
+	 * @param deadline
+	 *            rok upita ili <code>null</code>
+	 * @return {@link List} primjeraka razreda {@link Result}, a koji
+	 *         predstavljaju rezultate pretraživanja
+	 */
+	public List<Result> search(List<String> queryWords, BooleanQuery query, int maxResults, QueryProfile profile,
+			QueryDeadline deadline) {
+		return execute(queryWords, query, maxResults, profile, deadline);
+	}
+
+	/**
+	 * Metoda koja pretražuje jednako kao metoda
+	 * {@link #search(List, BooleanQuery, int, QueryProfile, QueryDeadline)},
+	 * ali umjesto najboljih rezultata vraća pokazivač na stranice s
+	 * <b>pageSize</b> rezultata (vidi {@link ResultCursor}). Pokazivač čuva sve
+	 * bodovane rezultate u gomili, pa se sljedeće stranice dohvaćaju bez
+	 * ponovnog bodovanja, a prva je stranica jednaka rezultatima metode
+	 * {@link #search(List, BooleanQuery, int, QueryProfile, QueryDeadline)}.
+	 *
+	 * @param queryWords
+	 *            {@link List} pojmova vokabulara koji se boduju
+	 * @param query
+	 *            logički uvjeti upita ili <code>null</code>
+	 * @param pageSize
+	 *            broj rezultata jedne stranice
+	 * @param profile
+	 *            profil u koji se bilježi izvođenje ili <code>null</code>
+	 * @param deadline
+	 *            rok upita ili <code>null</code>
+	 * @return pokazivač na stranice rezultata
+	 */
+	public ResultCursor searchCursor(List<String> queryWords, BooleanQuery query, int pageSize,
+			QueryProfile profile, QueryDeadline deadline) {
+		List<Result> results = execute(queryWords, query, ALL_RESULTS, profile, deadline);
+		SegmentedIndex index = segmentedIndex;
+		return new ResultCursor(results, duplicatePolicy != DuplicatePolicy.TAG ? null : path -> {
+			DocumentVector document = documentsByPath.get(path);
+			return document == null || index != null && index.isBaseDeleted(path) ? null
+					: document.getDuplicateGroup();
+		}, queryWords, pageSize);
+	}
+
+	/**
+	 * Pomoćna metoda koja izvodi upit. Ukoliko je <b>maxResults</b> jednak
+	 * {@value #ALL_RESULTS}, vraćaju se svi bodovani rezultati sa sličnošću
+	 * većom od 0, poredani tako da ih stabilno sortiranje svodi na poredak
+	 * rezultata.
+	 *
+	 * @param queryWords
+	 *            {@link List} pojmova vokabulara koji se boduju
+	 * @param query
+	 *            logički uvjeti upita ili <code>null</code>
+	 * @param maxResults
+	 *            maksimalan broj rezultata ili {@value #ALL_RESULTS}
+	 * @param profile
+	 *            profil u koji se bilježi izvođenje ili <code>null</code>
+	 * @param deadline
+	 *            rok upita ili <code>null</code>
+	 * @return {@link List} rezultata pretraživanja
+	 */
+	private List<Result> execute(List<String> queryWords, BooleanQuery query, int maxResults,
+			QueryProfile profile, QueryDeadline deadline) {
+		QUERIES.increment();
+
+		List<DocumentVector> candidates = documentVectors;
+		List<Set<String>> required = Collections.emptyList();
+		Set<String> excluded = Collections.emptySet();
+		MetadataFilter filter = query == null ? new MetadataFilter() : query.getFilter();
+		if (query != null && query.isRestrictive()) {
+			BOOLEAN_QUERIES.increment();
+			long start = System.nanoTime();
+			required = requiredTerms(query);
+			excluded = excludedTerms(query);
+			candidates = matchingDocuments(required, excluded, filter);
+			QUERY_FILTER_TIME.recordSince(start);
+			if (profile != null) {
+				profile.addPhase(QueryProfile.FILTER, start);
+			}
+		}
+
+		if (profile != null) {
+			for (String word : new HashSet<>(queryWords)) {
+				int id = vocabulary.getId(word);
+				profile.addPostings(id < 0 ? 0 : postingsIndex.documentFrequency(id));
+			}
+		}
+
+		List<Result> results = withSegments(
+				rank(createQueryVector(queryWords, profile), candidates, maxResults, profile, deadline),
+				queryWords, maxResults, profile, deadline, required, excluded, filter);
+		if (deadline != null && deadline.isPartial()) {
+			PARTIAL_QUERIES.increment();
+		}
+
+		return results;
+	}
+
+	/**
+	 * Metoda koja se koristi za približno pretraživanje. Upit se najprije
+	 * uspoređuje sa centroidima grupa dokumenata (vidi {@link ClusterIndex}),
+	 * a zatim se na isti način kao i metodom {@link #search(List, int)}
+	 * rangiraju samo dokumenti <b>probes</b> najsličnijih grupa. Rezultati su
+	 * stoga podskup točnih rezultata s jednakim sličnostima, a odziv raste s
+	 * brojem pretraženih grupa. Grupiranje se gradi prilikom prvog poziva ove
+	 * metode, a segmenti dokumenata dodanih nakon učitavanja uvijek se
+	 * pretražuju u potpunosti.
+	 *
+	 * @param queryWords
+	 *            {@link List} pojmova vokabulara koji se pretražuju (dobivenih
+	 *            metodom {@link #filterQueryWords(List)})
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @param probes
+	 *            broj grupa čiji se dokumenti pretražuju
+	 * @return {@link List} primjeraka razreda {@link Result}, a koji
+	 *         predstavljaju rezultate pretraživanja
+	 */
+	public List<Result> approximateSearch(List<String> queryWords, int maxResults, int probes) {
+		return approximateSearch(queryWords, maxResults, probes, null);
+	}
+
+	/**
+	 * Metoda koja se koristi za približno pretraživanje na isti način kao i
+	 * metoda {@link #approximateSearch(List, int, int)}, ali se bodovanje
+	 * dokumenata pretraženih grupa zaustavlja nakon isteka roka ili otkazivanja
+	 * upita <b>deadline</b> (vidi
+	 * {@link #search(List, int, QueryProfile, QueryDeadline)}).
+	 *
+	 * @param queryWords
+	 *            {@link List} pojmova vokabulara koji se pretražuju
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @param probes
+	 *            broj grupa čiji se dokumenti pretražuju
+	 * @param deadline
+	 *            rok upita ili <code>null</code>. Ukoliko je rok istekao,
+	 *            vraćaju se najbolji dotad pronađeni rezultati (vidi
+	 *            {@link QueryDeadline#isPartial()}).
+	 * @return {@link List} primjeraka razreda {@link Result}, a koji
+	 *         predstavljaju rezultate pretraživanja
+	 */
+	public List<Result> approximateSearch(List<String> queryWords, int maxResults, int probes,
+			QueryDeadline deadline) {
+		QUERIES.increment();
+		APPROXIMATE_QUERIES.increment();
+
+		DocumentVector queryVector = createQueryVector(queryWords, null);
+
+		long start = System.nanoTime();
+		List<DocumentVector> candidates = getClusterIndex().candidates(queryVector, probes);
+		QUERY_PROBE_TIME.recordSince(start);
+
+		List<Result> results = withSegments(rank(queryVector, candidates, maxResults, null, deadline), queryWords,
+				maxResults, null, deadline, Collections.emptyList(), Collections.emptySet(), new MetadataFilter());
+		if (deadline != null && deadline.isPartial()) {
+			PARTIAL_QUERIES.increment();
+		}
+
+		return results;
+	}
+
+	/**
+	 * Metoda koja dohvaća grupiranje dokumenata za približno pretraživanje.
+	 * Grupiranje se gradi prilikom prvog poziva, a broj grupa određuje se
+	 * svojstvom sustava {@value ClusterIndex#CLUSTERS_PROPERTY}.
+	 *
+	 * @return grupiranje dokumenata
+	 */
+	public ClusterIndex getClusterIndex() {
+		ClusterIndex index = clusterIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = clusterIndex;
+				if (index == null) {
+					long start = System.nanoTime();
+					index = clusterIndex = ClusterIndex.build(documentVectors,
+							ClusterIndex.clusterCountFromProperty());
+					CLUSTERING_TIME.recordSince(start);
+				}
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * Metoda koja pronalazi dokumente slične dokumentu s putanjom
+	 * <b>filePath</b> (engl. more like this). Kao upit se koristi vektor
+	 * pretraživanja tog dokumenta sveden na <b>maxTerms</b> pojmova s najvećom
+	 * težinom, pa se upit boduje obrnutim indeksom (vidi {@link PostingsIndex})
+	 * bez usporedbe sa svakim vektorom dokumenta. Sličnosti su jednake onima
+	 * koje bi za sveden vektor izračunala metoda
+	 * {@link DocumentVector#calculateSimilarity(DocumentVector, DocumentVector)}.
+	 * Sam dokument i njegovi označeni duplikati izostavljaju se iz rezultata,
+	 * a pretražuju se samo dokumenti učitani metodom
+	 * {@link #loadDocuments(String)}.
+	 *
+	 * @param filePath
+	 *            putanja do indeksiranog dokumenta
+	 * @param maxTerms
+	 *            najveći broj pojmova upita
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @return {@link List} primjeraka razreda {@link Result}, a koji
+	 *         predstavljaju rezultate pretraživanja
+	 * @throws IllegalArgumentException
+	 *             Ukoliko dokument nije indeksiran
+	 */
+	public List<Result> similar(String filePath, int maxTerms, int maxResults) {
+		DocumentVector source = documentsByPath.get(filePath);
+		if (source == null) {
+			throw new IllegalArgumentException("Dokument '" + filePath + "' nije indeksiran");
+		}
+
+		QUERIES.increment();
+		SIMILAR_QUERIES.increment();
+
+		long start = System.nanoTime();
+		int[] termIds = source.topTerms(maxTerms);
+		double[] weights = new double[termIds.length];
+		for (int i = 0; i < termIds.length; i++) {
+			weights[i] = source.getTfidf()[termIds[i]];
+		}
+		QUERY_VECTOR_TIME.recordSince(start);
+
+		start = System.nanoTime();
+		double[] scores = postingsIndex.score(termIds, weights);
+		List<Result> results = new ArrayList<>();
+		for (int doc = 0; doc < scores.length; doc++) {
+			DocumentVector documentVector = documentVectors.get(doc);
+			if (scores[doc] > 0 && !documentVector.getDuplicateGroup().equals(source.getDuplicateGroup())) {
+				results.add(new Result(scores[doc], documentVector.getFilePath()));
+			}
+		}
+		QUERY_SCORING_TIME.recordSince(start);
+
+		return topResults(results, maxResults, null);
+	}
+
+	/**
+	 * Metoda koja rezultatima <b>results</b> dodaje isječke teksta u kojima su
+	 * istaknuti pojmovi upita <b>queryWords</b> (vidi
+	 * {@link Excerpt#snippet(String, Set, int)}). Isječci se grade iz tablica
+	 * riječi i spremišta tekstova stvorenih prilikom izgradnje indeksa, bez
+	 * ponovnog čitanja datoteka.
+	 *
+	 * @param results
+	 *            rezultati pretraživanja
+	 * @param queryWords
+	 *            pojmovi vokabulara koji su se pretraživali
+	 * @return nova {@link List} rezultata s isječcima, istim redoslijedom
+	 */
+	public List<Result> withSnippets(List<Result> results, List<String> queryWords) {
+		long start = System.nanoTime();
+		Set<Integer> queryTermIds = new HashSet<>();
+		for (String word : queryWords) {
+			queryTermIds.add(vocabulary.getId(word));
+		}
+
+		List<Result> snippetResults = new ArrayList<>(results.size());
+		for (Result result : results) {
+			Excerpt excerpt = excerpts.get(result.getFilePath());
+			String text = documentStore.get(result.getFilePath());
+			snippetResults.add(new Result(result.getSimilarity(), result.getFilePath(),
+					excerpt == null || text == null ? null : excerpt.snippet(text, queryTermIds, SNIPPET_WORDS)));
+		}
+		QUERY_SNIPPET_TIME.recordSince(start);
+
+		return snippetResults;
+	}
+
+	/**
+	 * Metoda koja dohvaća najviše <b>limit</b> najčešćih pojmova vokabulara
+	 * koji započinju prefiksom <b>prefix</b> (vidi {@link CompletionIndex}).
+	 * Pojmovi se uređuju po broju pojavljivanja, a korisniku se umjesto
+	 * korijena prikazuje najčešći oblik pojma u dokumentima. Budući da su
+	 * korijeni zapisani bez dijakritičkih znakova, prefiks koji ne odgovara
+	 * niti jednom pojmu dovršava se još jednom bez njih. Pojmovi dodani u
+	 * segmente nakon učitavanja se ne predlažu.
+	 *
+	 * @param prefix
+	 *            prefiks koji je korisnik unio
+	 * @param limit
+	 *            najveći broj pojmova, a najviše
+	 *            {@value CompletionIndex#MAX_COMPLETIONS}
+	 * @return {@link Map} oblika pojmova na broj pojavljivanja pojmova u svim
+	 *         dokumentima, od najčešćeg prema najrjeđem
+	 */
+	public Map<String, Integer> suggest(String prefix, int limit) {
+		long start = System.nanoTime();
+		String key = prefix.toLowerCase();
+		int[] completions = completionIndex.complete(key, limit);
+		if (completions.length == 0) {
+			completions = completionIndex.complete(LevenshteinAutomaton.fold(key), limit);
+		}
+
+		Map<String, Integer> suggestions = new LinkedHashMap<>();
+		for (int id : completions) {
+			suggestions.put(completionIndex.surfaceForm(id), completionIndex.frequency(id));
+		}
+		SUGGEST_TIME.recordSince(start);
+
+		return suggestions;
+	}
+
+	/**
+	 * Metoda koja dohvaća tablicu riječi dokumenta s putanjom <b>filePath</b>
+	 *
+	 * @param filePath
+	 *            putanja do dokumenta
+	 * @return tablica riječi ili <code>null</code> ukoliko dokument nije
+	 *         indeksiran
+	 */
+	public Excerpt getExcerpt(String filePath) {
+		return excerpts.get(filePath);
+	}
+
+	/**
+	 * Metoda koja dohvaća spremište sažetih tekstova svih učitanih dokumenata,
+	 * uključujući i sažete duplikate
+	 *
+	 * @return spremište tekstova dokumenata
+	 */
+	public DocumentStore getDocumentStore() {
+		return documentStore;
+	}
+
+	/**
+	 * Metoda koja dohvaća segmente dokumenata dodanih nakon učitavanja.
+	 * Segmenti se stvaraju prilikom prvog poziva ove metode.
+	 *
+	 * @return segmenti dokumenata dodanih nakon učitavanja
+	 * @throws IOException
+	 *             Ukoliko direktorij segmenata nije moguće stvoriti ili
+	 *             pročitati
+	 */
+	public SegmentedIndex getSegmentedIndex() throws IOException {
+		SegmentedIndex index = segmentedIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = segmentedIndex;
+				if (index == null) {
+					index = segmentedIndex = new SegmentedIndex(this);
+				}
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * Metoda koja procjenjuje broj okteta koje zauzimaju pojedini dijelovi ovog
+	 * indeksa: vektori dokumenata, vrijednosti idf, vokabular, obrnuti indeks,
+	 * dovršavanje riječi, metapodaci, isječci i spremište tekstova dokumenata
+	 *
+	 * @return {@link Map} imena dijelova indeksa na broj okteta, redom kojim
+	 *         se dijelovi ispisuju
+	 */
+	public Map<String, Long> memoryUsage() {
+		long vectors = 0;
+		for (DocumentVector vector : documentVectors) {
+			vectors += 8L * vector.getTfidf().length;
+		}
+		long snippets = 0;
+		for (Excerpt excerpt : excerpts.values()) {
+			snippets += excerpt.sizeInBytes();
+		}
+
+		Map<String, Long> usage = new LinkedHashMap<>();
+		usage.put("vektori", vectors);
+		usage.put("idf", 8L * idf.length);
+		usage.put("vokabular", vocabulary.sizeInBytes());
+		usage.put("obrnuti indeks", postingsIndex.sizeInBytes());
+		usage.put("dovršavanje", completionIndex.sizeInBytes());
+		usage.put("metapodaci", metadataIndex.sizeInBytes());
+		usage.put("isječci", snippets);
+		usage.put("tekstovi", documentStore.sizeInBytes());
+		return usage;
+	}
+
+	/**
+	 * Metoda koja provjerava može li se ovaj indeks otpustiti i kasnije
+	 * ponovno izgraditi iz direktorija dokumenata bez gubitka dodanih
+	 * dokumenata (vidi {@link SegmentedIndex#isPersistent()})
+	 *
+	 * @return <code>true</code> ukoliko se indeks može otpustiti, inače
+	 *         <code>false</code>
+	 */
+	boolean canRelease() {
+		SegmentedIndex index = segmentedIndex;
+		return index == null || index.isPersistent();
+	}
+
+	/**
+	 * Metoda koja zatvara segmente ovog indeksa prije njegovog otpuštanja (vidi
+	 * {@link SegmentedIndex#close()})
+	 */
+	void close() {
+		SegmentedIndex index = segmentedIndex;
+		if (index == null) {
+			return;
+		}
+
+		try {
+			index.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Segmente indeksa '" + name + "' nije moguće zapisati", e);
+		}
+	}
+
+	/**
+	 * Metoda koja u izlaz <b>out</b> zapisuje vokabular ovog indeksa za snimku
+	 * indeksa (vidi {@link SnapshotWriter}): za svaki pojam redom
+	 * identifikatora zapis pojma, vrijednost idf, broj pojavljivanja u svim
+	 * dokumentima i najčešći oblik pojma (vidi
+	 * {@link CompletionIndex#surfaceForm(int)})
+	 *
+	 * @param out
+	 *            izlaz u koji se vokabular zapisuje
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	void writeVocabulary(DataOutput out) throws IOException {
+		out.writeInt(vocabulary.size());
+		for (int id = 0; id < vocabulary.size(); id++) {
+			out.writeUTF(vocabulary.getTerm(id));
+			out.writeDouble(idf[id]);
+			out.writeInt(completionIndex.frequency(id));
+			out.writeUTF(completionIndex.surfaceForm(id));
+		}
+	}
+
+	/**
+	 * Metoda koja u izlaz <b>out</b> zapisuje tablicu dokumenata ovog indeksa
+	 * za snimku indeksa (vidi {@link SnapshotWriter}): način postupanja s
+	 * duplikatima te za svaki dokument redom vektora putanju, duplikate,
+	 * pojmove s težinom različitom od nule i tablicu riječi za isječke
+	 *
+	 * @param out
+	 *            izlaz u koji se tablica zapisuje
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	void writeDocuments(DataOutput out) throws IOException {
+		out.writeUTF(duplicatePolicy.name());
+		out.writeInt(documentVectors.size());
+		for (DocumentVector vector : documentVectors) {
+			out.writeUTF(vector.getFilePath());
+			out.writeUTF(vector.getDuplicateOf() == null ? "" : vector.getDuplicateOf());
+			out.writeInt(vector.getDuplicates().size());
+			for (String duplicate : vector.getDuplicates()) {
+				out.writeUTF(duplicate);
+			}
+
+			double[] tfidf = vector.getTfidf();
+			int nonZero = 0;
+			for (double weight : tfidf) {
+				if (weight != 0) {
+					nonZero++;
+				}
+			}
+			out.writeInt(nonZero);
+			for (int term = 0; term < tfidf.length; term++) {
+				if (tfidf[term] != 0) {
+					out.writeInt(term);
+					out.writeDouble(tfidf[term]);
+				}
+			}
+
+			excerpts.get(vector.getFilePath()).write(out);
+		}
+	}
+
+	/**
+	 * Metoda koja dodaje dokument s putanjom <b>documentPath</b> u segmente bez
+	 * ponovne izgradnje indeksa (vidi {@link SegmentedIndex}). Tekst dokumenta
+	 * sprema se u spremište tekstova, a prethodna inačica istog dokumenta se
+	 * briše.
+	 *
+	 * @param documentPath
+	 *            putanja do dokumenta
+	 * @return apsolutna putanja dodanog dokumenta
+	 * @throws IOException
+	 *             Ukoliko se dokument ne može pročitati ili se segment ne može
+	 *             zapisati
+	 */
+	public String addDocument(Path documentPath) throws IOException {
+		String fileContent = new String(Files.readAllBytes(documentPath), StandardCharsets.UTF_8);
+
+		SegmentedIndex index = getSegmentedIndex();
+		TermCounter counter = COUNTERS.get();
+		counter.clear();
+		Matcher matcher = analyzer.tokenMatcher(fileContent);
+		while (matcher.find()) {
+			String term = analyzer.analyze(matcher.group());
+			if (term != null) {
+				counter.increment(index.termId(term));
+			}
+		}
+
+		String path = documentPath.toAbsolutePath().toString();
+		documentStore.add(path, fileContent);
+		index.add(path, counter);
+		return path;
+	}
+
+	/**
+	 * Metoda koja dohvaća metapodatke učitanih dokumenata
+	 *
+	 * @return metapodaci učitanih dokumenata
+	 */
+	public MetadataIndex getMetadataIndex() {
+		return metadataIndex;
+	}
+
+	/**
+	 * Metoda koja dohvaća obrnuti indeks nad vektorima dokumenata
+	 *
+	 * @return obrnuti indeks nad vektorima dokumenata
+	 */
+	public PostingsIndex getPostingsIndex() {
+		return postingsIndex;
+	}
+
+	/**
+	 * Metoda koja stvara vektor upita iz pojmova <b>queryWords</b>. Trajanje
+	 * se ne bilježi u mjerenje vektora upita jer metodu koriste analize već
+	 * izvedenih upita.
+	 *
+	 * @param queryWords
+	 *            pojmovi vokabulara koji se pretražuju (dobiveni metodom
+	 *            {@link #filterQueryWords(List)})
+	 * @return vektor upita
+	 */
+	public DocumentVector createQueryVector(List<String> queryWords) {
+		TermCounter counter = COUNTERS.get();
+		counter.clear();
+		for (String word : queryWords) {
+			int id = vocabulary.getId(word);
+			if (id >= 0) {
+				counter.increment(id);
+			}
+		}
+
+		return createDocumentVector(QUERY_NAME, counter);
+	}
+
+	/**
+	 * Pomoćna metoda koja stvara vektor upita iz pojmova <b>queryWords</b> i
+	 * trajanje bilježi u profil <b>profile</b>
+	 *
+	 * @param queryWords
+	 *            pojmovi vokabulara koji se pretražuju
+	 * @param profile
+	 *            profil u koji se bilježi izvođenje ili <code>null</code>
+	 * @return vektor upita
+	 */
+	private DocumentVector createQueryVector(List<String> queryWords, QueryProfile profile) {
+		long start = System.nanoTime();
+		DocumentVector queryVector = createQueryVector(queryWords);
+		QUERY_VECTOR_TIME.recordSince(start);
+		if (profile != null) {
+			profile.addPhase(QueryProfile.VECTOR, start);
+		}
+
+		return queryVector;
+	}
+
+	/**
+	 * Pomoćna metoda koja računa sličnost vektora upita <b>queryVector</b> sa
+	 * svakim od vektora <b>candidates</b> te vraća najviše <b>maxResults</b>
+	 * najboljih rezultata čija je sličnost veća od 0. Ukoliko kandidata ima
+	 * barem onoliko koliko je zadano svojstvom sustava
+	 * {@value ParallelScorer#THRESHOLD_PROPERTY}, kandidati se boduju
+	 * paralelno (vidi {@link ParallelScorer}) uz jednake rezultate.
+	 *
+	 * @param queryVector
+	 *            vektor upita
+	 * @param candidates
+	 *            vektori dokumenata koji se rangiraju
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @param profile
+	 *            profil u koji se bilježi izvođenje ili <code>null</code>
+	 * @param deadline
+	 *            rok upita koji se provjerava svakih
+	 *            {@value #DEADLINE_CHECK_INTERVAL} dokumenata ili
+	 *            <code>null</code>
+	 * @return {@link List} rezultata sortiranih padajuće po sličnosti
+	 */
+	private List<Result> rank(DocumentVector queryVector, List<DocumentVector> candidates, int maxResults,
+			QueryProfile profile, QueryDeadline deadline) {
+		if (ParallelScorer.isParallel(candidates.size())) {
+			return rankParallel(queryVector, candidates, maxResults, profile, deadline);
+		}
+
+		long start = System.nanoTime();
+		List<Result> results = new ArrayList<>();
+		for (int i = 0, len = candidates.size(); i < len; i++) {
+			if (deadline != null && i % DEADLINE_CHECK_INTERVAL == 0 && deadline.isExpired()) {
+				deadline.markPartial();
+				break;
+			}
+
+			DocumentVector documentVector = candidates.get(i);
+			results.add(new Result(DocumentVector.calculateSimilarity(queryVector, documentVector),
+					documentVector.getFilePath()));
+		}
+		QUERY_SCORING_TIME.recordSince(start);
+		if (profile != null) {
+			profile.addPhase(QueryProfile.SCORING, start);
+			profile.addDocumentsScored(results.size());
+		}
+
+		return topResults(results, maxResults, profile);
+	}
+
+	/**
+	 * Pomoćna metoda koja svaku obaveznu riječ upita <b>query</b> proširuje u
+	 * skupinu pojmova (vidi {@link #filterQueryWords(List)}). Zaustavne riječi
+	 * analiza odbacuje, pa se niti ne smatraju obaveznima.
+	 *
+	 * @param query
+	 *            logički uvjeti upita
+	 * @return {@link List} skupina pojmova; skupina riječi koja nije
+	 *         pronađena je prazna
+	 */
+	private List<Set<String>> requiredTerms(BooleanQuery query) {
+		List<Set<String>> required = new ArrayList<>();
+		for (String word : query.getRequiredWords()) {
+			if (isStopWord(word)) {
+				continue;
+			}
+			required.add(new HashSet<>(filterQueryWords(Collections.singletonList(word))));
+		}
+
+		return required;
+	}
+
+	/**
+	 * Pomoćna metoda koja provjerava odbacuje li analiza riječ upita
+	 * <b>word</b>. Riječi sa znakom {@value #WILDCARD} na kraju nisu zaustavne
+	 * riječi, a riječima sa znakom {@value #FUZZY} provjerava se samo dio
+	 * prije tog znaka.
+	 *
+	 * @param word
+	 *            riječ upita
+	 * @return <code>true</code> ukoliko je riječ zaustavna riječ, inače
+	 *         <code>false</code>
+	 */
+	private boolean isStopWord(String word) {
+		if (word.length() > WILDCARD.length() && word.endsWith(WILDCARD)) {
+			return false;
+		}
+
+		String token = word.indexOf(FUZZY) > 0 ? word.substring(0, word.lastIndexOf(FUZZY)) : word;
+		return analyzer.analyze(token) == null;
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća pojmove isključenih riječi upita
+	 * <b>query</b>. Riječ koja završava znakom {@value #WILDCARD} isključuje
+	 * sve pojmove s tim prefiksom, a ostale riječi isključuju samo vlastiti
+	 * pojam, bez sličnih riječi.
+	 *
+	 * @param query
+	 *            logički uvjeti upita
+	 * @return {@link Set} isključenih pojmova
+	 */
+	private Set<String> excludedTerms(BooleanQuery query) {
+		Set<String> excluded = new HashSet<>();
+		for (String word : query.getExcludedWords()) {
+			if (word.length() > WILDCARD.length() && word.endsWith(WILDCARD)) {
+				String prefix = word.substring(0, word.length() - WILDCARD.length()).toLowerCase();
+				excluded.addAll(vocabulary.termsWithPrefix(prefix, MAX_WILDCARD_EXPANSIONS));
+			} else {
+				String term = analyzer.analyze(word);
+				if (term != null) {
+					excluded.add(term);
+				}
+			}
+		}
+
+		return excluded;
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća učitane dokumente koji sadrže barem jedan
+	 * pojam svake skupine <b>required</b>, ne sadrže niti jedan pojam
+	 * <b>excluded</b> te zadovoljavaju uvjete <b>filter</b>. Isključeni
+	 * dokumenti i dokumenti izvan uvjeta skupljaju se u {@link BitSet} prije
+	 * bodovanja, a obavezni se pronalaze presjekom lista obrnutog indeksa.
+	 *
+	 * @param required
+	 *            skupine obaveznih pojmova
+	 * @param excluded
+	 *            isključeni pojmovi
+	 * @param filter
+	 *            uvjeti nad metapodacima dokumenata
+	 * @return {@link List} vektora dokumenata koji zadovoljavaju uvjete
+	 */
+	private List<DocumentVector> matchingDocuments(List<Set<String>> required, Set<String> excluded,
+			MetadataFilter filter) {
+		BitSet rejected = postingsIndex.matchAny(termIds(excluded));
+		if (!filter.isEmpty()) {
+			BitSet outside = metadataIndex.matching(filter);
+			outside.flip(0, documentVectors.size());
+			rejected.or(outside);
+		}
+
+		int[][] groups = new int[required.size()][];
+		for (int i = 0; i < groups.length; i++) {
+			groups[i] = termIds(required.get(i));
+			if (groups[i].length == 0) {
+				return Collections.emptyList();
+			}
+		}
+
+		List<DocumentVector> candidates = new ArrayList<>();
+		if (groups.length == 0) {
+			int size = documentVectors.size();
+			for (int doc = rejected.nextClearBit(0); doc < size; doc = rejected.nextClearBit(doc + 1)) {
+				candidates.add(documentVectors.get(doc));
+			}
+		} else {
+			for (int doc : postingsIndex.matchAll(groups)) {
+				if (!rejected.get(doc)) {
+					candidates.add(documentVectors.get(doc));
+				}
+			}
+		}
+
+		return candidates;
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća identifikatore pojmova <b>terms</b> koji se
+	 * nalaze u vokabularu
+	 *
+	 * @param terms
+	 *            pojmovi
+	 * @return identifikatori pojmova vokabulara
+	 */
+	private int[] termIds(Set<String> terms) {
+		return terms.stream().mapToInt(vocabulary::getId).filter(id -> id >= 0).toArray();
+	}
+
+	/**
+	 * Pomoćna metoda koja rangira kandidate jednako kao i metoda
+	 * {@link #rank(DocumentVector, List, int, QueryProfile, QueryDeadline)},
+	 * ali ih boduje paralelno. Svaki interval kandidata čuva najboljih
+	 * <b>maxResults</b> rezultata, osim ukoliko su duplikati označeni, jer se
+	 * tada najbolji rezultati određuju tek nakon odabira najboljeg dokumenta
+	 * svake grupe.
+	 *
+	 * @param queryVector
+	 *            vektor upita
+	 * @param candidates
+	 *            vektori dokumenata koji se rangiraju
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @param profile
+	 *            profil u koji se bilježi izvođenje ili <code>null</code>
+	 * @param deadline
+	 *            rok upita ili <code>null</code>
+	 * @return {@link List} rezultata sortiranih padajuće po sličnosti
+	 */
+	private List<Result> rankParallel(DocumentVector queryVector, List<DocumentVector> candidates, int maxResults,
+			QueryProfile profile, QueryDeadline deadline) {
+		PARALLEL_QUERIES.increment();
+		long start = System.nanoTime();
+		SegmentedIndex index = segmentedIndex;
+		List<Result> results = new ParallelScorer(queryVector, candidates,
+				duplicatePolicy == DuplicatePolicy.TAG ? ALL_RESULTS : maxResults,
+				path -> index != null && index.isBaseDeleted(path), deadline).score();
+		QUERY_SCORING_TIME.recordSince(start);
+		if (profile != null) {
+			profile.addPhase(QueryProfile.SCORING, start);
+			profile.addDocumentsScored(candidates.size());
+		}
+
+		return topResults(results, maxResults, profile);
+	}
+
+	/**
+	 * Pomoćna metoda koja rezultatima učitanih dokumenata <b>results</b>
+	 * pridružuje rezultate pretraživanja segmenata te vraća najviše
+	 * <b>maxResults</b> najboljih
 	 *
-	 * @return tjedini primjerak ovog razreda
+	 * @param results
+	 *            rezultati učitanih dokumenata sortirani padajuće po sličnosti
+	 * @param queryWords
+	 *            pojmovi koji se pretražuju
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @param profile
+	 *            profil u koji se bilježi izvođenje ili <code>null</code>
+	 * @param deadline
+	 *            rok upita ili <code>null</code>. Segmenti se ne pretražuju
+	 *            ukoliko je rok već istekao.
+	 * @param required
+	 *            skupine obaveznih pojmova
+	 * @param excluded
+	 *            isključeni pojmovi
+	 * @param filter
+	 *            uvjeti nad metapodacima dokumenata
+	 * @return {@link List} rezultata sortiranih padajuće po sličnosti
+	 */
+	private List<Result> withSegments(List<Result> results, List<String> queryWords, int maxResults,
+			QueryProfile profile, QueryDeadline deadline, List<Set<String>> required, Set<String> excluded,
+			MetadataFilter filter) {
+		SegmentedIndex index = segmentedIndex;
+		if (index == null) {
+			return results;
+		}
+		if (deadline != null && deadline.isExpired()) {
+			deadline.markPartial();
+			return results;
+		}
+
+		long start = System.nanoTime();
+		TermCounter queryTerms = COUNTERS.get();
+		queryTerms.clear();
+		for (String word : queryWords) {
+			int id = index.getTermId(word);
+			if (id >= 0) {
+				queryTerms.increment(id);
+			}
+		}
+
+		List<Result> merged = new ArrayList<>(results);
+		if (maxResults == ALL_RESULTS) {
+			merged.addAll(index.search(queryTerms, Integer.MAX_VALUE, required, excluded, filter));
+			QUERY_SEGMENTS_TIME.recordSince(start);
+			return merged;
+		}
+		merged.addAll(index.search(queryTerms, maxResults, required, excluded, filter));
+		Collections.sort(merged);
+		QUERY_SEGMENTS_TIME.recordSince(start);
+		if (profile != null) {
+			profile.addPhase(QueryProfile.SEGMENTS, start);
+		}
+
+		return merged.size() > maxResults ? new ArrayList<>(merged.subList(0, maxResults)) : merged;
+	}
+
+	/**
+	 * Pomoćna metoda koja iz rezultata <b>results</b> izdvaja najviše
+	 * <b>maxResults</b> najboljih rezultata čija je sličnost veća od 0.
+	 * Ukoliko su duplikati označeni (vidi {@link DuplicatePolicy#TAG}),
+	 * zadržava se samo najbolji dokument svake grupe duplikata. Izbrisani
+	 * dokumenti se preskaču.
+	 *
+	 * @param results
+	 *            svi bodovani rezultati
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća ili
+	 *            {@value #ALL_RESULTS}, u kojem se slučaju samo uklanjaju
+	 *            rezultati sa sličnošću 0 i izbrisani dokumenti
+	 * @param profile
+	 *            profil u koji se bilježi izvođenje ili <code>null</code>
+	 * @return {@link List} rezultata sortiranih padajuće po sličnosti
+	 */
+	private List<Result> topResults(List<Result> results, int maxResults, QueryProfile profile) {
+		long start = System.nanoTime();
+		Set<String> groups = new HashSet<>();
+		SegmentedIndex index = segmentedIndex;
+		if (maxResults == ALL_RESULTS) {
+			return results.stream().filter(res -> res.getSimilarity() > 0)
+					.filter(res -> index == null || !index.isBaseDeleted(res.getFilePath()))
+					.collect(Collectors.toList());
+		}
+
+		results = results.stream().filter(res -> res.getSimilarity() > 0)
+				.filter(res -> index == null || !index.isBaseDeleted(res.getFilePath())).sorted()
+				.filter(res -> duplicatePolicy != DuplicatePolicy.TAG
+						|| groups.add(documentsByPath.get(res.getFilePath()).getDuplicateGroup()))
+				.limit(maxResults).collect(Collectors.toList());
+		QUERY_TOPK_TIME.recordSince(start);
+		if (profile != null) {
+			profile.addPhase(QueryProfile.TOP_K, start);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Statička metoda koja dohvaća aktivni indeks registra
+	 * {@link IndexRegistry}
+	 *
+	 * @return aktivni indeks ili <code>null</code> ukoliko niti jedan indeks
+	 *         nije učitan
 	 */
 	public static SearchProvider getProvider() {
-		return provider;
+		return IndexRegistry.getRegistry().getActive();
 	}
 
 	/**
 	 * Statička metoda koja se koristi za učitavanje svih dokumenata koji se
 	 * mogu pretražiti, a koji se nalaze unutar putanje predstavljene parametrom
-	 * <b>the document directory name</b>. Ova metoda ujedino namješta jedini
-	 * primjerak ovog razreda, kako bi se pomoću njega moglo pretraživati
-	 * dokumente
+	 * <b>the document directory name</b>. Indeks se registrira u registru
+	 * {@link IndexRegistry} pod imenom direktorija i postaje aktivni indeks,
+	 * kako bi se pomoću njega moglo pretraživati dokumente
 	 *
 	 * @param documentDirectoryName
 	 *            parametar koji predstavlja putanju do direktorija unutar kojeg
@@ -141,152 +1449,473 @@ public class SearchProvider {
 	 *             pročitati.
 	 */
 	public static void loadDocuments(String documentDirectoryName) throws IOException {
-		loadStopWords();
+		IndexRegistry registry = IndexRegistry.getRegistry();
+		String name = IndexRegistry.defaultName(documentDirectoryName);
+		registry.register(name, documentDirectoryName);
+		registry.use(name);
+	}
+
+	/**
+	 * Statička metoda koja gradi novi indeks s imenom <b>name</b> nad svim
+	 * dokumentima direktorija <b>documentDirectoryName</b>. Izgrađeni indeks
+	 * ne postaje aktivni indeks; indeksima upravlja {@link IndexRegistry}.
+	 * Svi indeksi dijele istu analizu teksta (vidi {@link #getAnalyzer()}).
+	 *
+	 * @param name
+	 *            ime indeksa
+	 * @param documentDirectoryName
+	 *            putanja do direktorija s dokumentima
+	 * @return izgrađeni indeks
+	 * @throws IOException
+	 *             Ukoliko se iti jedan dokument iz predanog direktorija ne može
+	 *             pročitati.
+	 */
+	static SearchProvider build(String name, String documentDirectoryName) throws IOException {
+		long start = System.nanoTime();
+		if (analyzer == null) {
+			analyzer = Analyzer.createDefault();
+		}
 
 		File documentDirectory = new File(documentDirectoryName);
 		if (!documentDirectory.exists()) {
 			throw new IllegalArgumentException(String.format("Direktorij '%s' ne postoji", documentDirectoryName));
 		}
 
-		provider = new SearchProvider();
+		SearchProvider provider = new SearchProvider();
+		provider.name = name;
+		provider.duplicatePolicy = DuplicatePolicy.fromProperty();
+
+		provider.documentStore = new DocumentStore();
 
-		Set<String> vocabularySet = new HashSet<>();
+		Map<String, Integer> documentOrdinals = new HashMap<>();
+		Map<String, String> duplicates;
+		SurfaceForms forms = new SurfaceForms();
+		try (DuplicateDetector detector = new DuplicateDetector(); IndexBuilder builder = new IndexBuilder()) {
+			for (File document : documentDirectory.listFiles()) {
+				documentOrdinals.put(document.getAbsolutePath(), provider.parseDocument(document.toPath(),
+						provider.duplicatePolicy == DuplicatePolicy.OFF ? null : detector, builder, forms));
+			}
+			provider.documentStore.flush();
+
+			BitSet excluded = new BitSet();
+			duplicates = provider.findDuplicates(detector, documentOrdinals, excluded);
 
-		Map<String, Map<String, Integer>> documentInfos = new HashMap<>();
-		for (File document : documentDirectory.listFiles()) {
-			documentInfos.put(document.getAbsolutePath(), parseDocument(document.toPath(), vocabularySet));
+			builder.finish(excluded);
+			provider.createDocumentVectors(builder, documentOrdinals, forms);
+		}
+		for (Map.Entry<String, String> duplicate : duplicates.entrySet()) {
+			if (provider.duplicatePolicy == DuplicatePolicy.COLLAPSE) {
+				provider.documentsByPath.get(duplicate.getValue()).addDuplicate(duplicate.getKey());
+			} else {
+				provider.documentsByPath.get(duplicate.getKey()).setDuplicateOf(duplicate.getValue());
+			}
 		}
 
-		provider.vocabulary = new ArrayList<>(vocabularySet);
+		if (System.getProperty(SegmentedIndex.DIRECTORY_PROPERTY) != null) {
+			provider.getSegmentedIndex();
+		}
+		LOAD_TIME.recordSince(start);
 
-		createDocumentVectors(documentInfos);
+		return provider;
 	}
 
 	/**
-	 * Pomoćna statička metoda koja se koristi za učitavanje zaustavnih riječi
-	 * te njihovu pohranu unutar statičke varijable {@link #STOPWORDS}
+	 * Statička metoda koja čita bazni indeks s imenom <b>name</b> iz
+	 * vokabulara i tablice dokumenata snimke indeksa, zapisanih metodama
+	 * {@link #writeVocabulary(DataOutput)} i {@link #writeDocuments(DataOutput)}.
+	 * Dokumenti se ne čitaju niti analiziraju, a obrnuti indeks, dovršavanje
+	 * riječi i metapodaci grade se iz pročitanih vektora. Pročitani indeks
+	 * nema spremište tekstova niti segmente, pa se koristi samo kao osnova
+	 * metode {@link #withSnapshotState(long, DocumentStore, Path)}.
 	 *
+	 * @param name
+	 *            ime indeksa
+	 * @param vocabularyIn
+	 *            ulaz iz kojeg se čita vokabular
+	 * @param documentsIn
+	 *            ulaz iz kojeg se čita tablica dokumenata
+	 * @return pročitani bazni indeks
 	 * @throws IOException
-	 *             Ukoliko se datoteka sa zaustavnim riječima ne može pročitati.
+	 *             Ukoliko čitanje nije uspjelo ili vokabular nije ispravan
 	 */
-	private static void loadStopWords() throws IOException {
-		InputStream is = SearchProvider.class.getClassLoader().getResourceAsStream("stoprijeci.txt");
-		BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+	static SearchProvider readSnapshot(String name, DataInput vocabularyIn, DataInput documentsIn)
+			throws IOException {
+		if (analyzer == null) {
+			analyzer = Analyzer.createDefault();
+		}
+
+		SearchProvider provider = new SearchProvider();
+		provider.name = name;
+
+		int size = vocabularyIn.readInt();
+		List<String> terms = new ArrayList<>(size);
+		provider.idf = new double[size];
+		int[] frequencies = new int[size];
+		String[] surfaceForms = new String[size];
+		for (int id = 0; id < size; id++) {
+			terms.add(vocabularyIn.readUTF());
+			provider.idf[id] = vocabularyIn.readDouble();
+			frequencies[id] = vocabularyIn.readInt();
+			surfaceForms[id] = vocabularyIn.readUTF();
+		}
+		provider.vocabulary = TermDictionary.build(terms);
+		for (int id = 0; id < size; id++) {
+			if (provider.vocabulary.getId(terms.get(id)) != id) {
+				throw new IOException("Pojmovi vokabulara snimke nisu zapisani redom identifikatora");
+			}
+		}
+
+		provider.duplicatePolicy = DuplicatePolicy.valueOf(documentsIn.readUTF());
+		int documents = documentsIn.readInt();
+		provider.documentVectors = new ArrayList<>(documents);
+		provider.documentsByPath = new HashMap<>();
+		provider.excerpts = new HashMap<>();
+		for (int doc = 0; doc < documents; doc++) {
+			String path = documentsIn.readUTF();
+			String duplicateOf = documentsIn.readUTF();
+			List<String> duplicates = new ArrayList<>();
+			for (int i = 0, len = documentsIn.readInt(); i < len; i++) {
+				duplicates.add(documentsIn.readUTF());
+			}
+
+			double[] tfidf = new double[size];
+			for (int i = 0, nonZero = documentsIn.readInt(); i < nonZero; i++) {
+				tfidf[documentsIn.readInt()] = documentsIn.readDouble();
+			}
 
-		STOPWORDS = new HashSet<>();
-		while (reader.ready()) {
-			STOPWORDS.add(reader.readLine().trim().toLowerCase());
+			DocumentVector vector = new DocumentVector(path, tfidf);
+			if (!duplicateOf.isEmpty()) {
+				vector.setDuplicateOf(duplicateOf);
+			}
+			for (String duplicate : duplicates) {
+				vector.addDuplicate(duplicate);
+			}
+			provider.documentVectors.add(vector);
+			provider.documentsByPath.put(path, vector);
+			provider.excerpts.put(path, Excerpt.read(documentsIn));
 		}
 
-		STOPWORDS = Collections.unmodifiableSet(STOPWORDS);
+		provider.buildIndexes(frequencies, surfaceForms);
+		return provider;
+	}
+
+	/**
+	 * Metoda koja stvara novi indeks inačice snimke <b>version</b> koji s ovim
+	 * indeksom dijeli vokabular, vektore dokumenata i sve indekse izgrađene
+	 * nad njima, a ima vlastito spremište tekstova <b>store</b> i segmente
+	 * pročitane iz direktorija <b>segmentsDirectory</b>. Ukoliko se bazni
+	 * indeks između dvije inačice snimke nije promijenio, novi indeks stvara
+	 * se iz prethodnog bez ponovnog čitanja baznog indeksa.
+	 *
+	 * @param version
+	 *            inačica snimke
+	 * @param store
+	 *            spremište tekstova dokumenata
+	 * @param segmentsDirectory
+	 *            direktorij sa segmentima i izbrisanim dokumentima snimke
+	 * @return novi indeks
+	 * @throws IOException
+	 *             Ukoliko segmente nije moguće pročitati
+	 */
+	SearchProvider withSnapshotState(long version, DocumentStore store, Path segmentsDirectory) throws IOException {
+		SearchProvider provider = new SearchProvider();
+		provider.name = name;
+		provider.vocabulary = vocabulary;
+		provider.documentVectors = documentVectors;
+		provider.documentsByPath = documentsByPath;
+		provider.duplicatePolicy = duplicatePolicy;
+		provider.clusterIndex = clusterIndex;
+		provider.postingsIndex = postingsIndex;
+		provider.completionIndex = completionIndex;
+		provider.metadataIndex = metadataIndex;
+		provider.excerpts = excerpts;
+		provider.idf = idf;
+		provider.snapshotVersion = version;
+		provider.documentStore = store;
+		provider.segmentedIndex = new SegmentedIndex(provider, segmentsDirectory);
+		return provider;
 	}
 
 	/**
-	 * Pomoćna statička metoda koja se koristi za parsiranje dokumenta
-	 * predstavljenog putanjom <b>documentPath</b>. Prilikom parsiranja ovog
-	 * dokumenta predani se parametar <b>vocabularySet</b> nadopunjuje sa novim
-	 * riječima koji već nisu unutar tog {@link Set}a. Metoda vraća {@link Map}
-	 * svih riječi koje su se pojavile unutar dokumenta (koje nisu unutar
-	 * {@link #STOPWORDS}) namapirane na broj pojavaljivanja pojedine riječi
+	 * Pomoćna metoda koja pronalazi duplikate među dokumentima
+	 * dodanim u <b>detector</b>. Ukoliko se duplikati sažimaju (vidi
+	 * {@link DuplicatePolicy#COLLAPSE}), svi duplikati osim predstavnika grupe
+	 * uklanjaju se iz <b>documentOrdinals</b>, a njihovi redni brojevi dodaju
+	 * se u <b>excluded</b>.
+	 *
+	 * @param detector
+	 *            primjerak razreda {@link DuplicateDetector} s potpisima svih
+	 *            dokumenata
+	 * @param documentOrdinals
+	 *            {@link Map} unutar koje su ključevi putanje do pojedine
+	 *            datotke, a vrijednosti redni brojevi dokumenata unutar
+	 *            {@link IndexBuilder}a
+	 * @param excluded
+	 *            redni brojevi sažetih duplikata
+	 * @return {@link Map} koja duplikate preslikava na predstavnike njihovih
+	 *         grupa
+	 * @throws IOException
+	 *             Ukoliko čitanje potpisa nije uspjelo
+	 */
+	private Map<String, String> findDuplicates(DuplicateDetector detector, Map<String, Integer> documentOrdinals,
+			BitSet excluded) throws IOException {
+		if (duplicatePolicy == DuplicatePolicy.OFF) {
+			return new HashMap<>();
+		}
+
+		long start = System.nanoTime();
+		Map<String, String> duplicates = detector.findDuplicates();
+		if (duplicatePolicy == DuplicatePolicy.COLLAPSE) {
+			for (String duplicate : duplicates.keySet()) {
+				excluded.set(documentOrdinals.remove(duplicate));
+			}
+		}
+		DEDUP_TIME.recordSince(start);
+
+		DUPLICATES.add(duplicates.size());
+		return duplicates;
+	}
+
+	/**
+	 * Statička metoda koja dohvaća analizu teksta koja se koristi i za
+	 * dokumente i za upite
+	 *
+	 * @return analiza teksta ili <code>null</code> ukoliko dokumenti još nisu
+	 *         učitani, a analiza nije postavljena
+	 */
+	public static Analyzer getAnalyzer() {
+		return analyzer;
+	}
+
+	/**
+	 * Statička metoda koja postavlja analizu teksta koja se koristi i za
+	 * dokumente i za upite. Metodu je potrebno pozvati prije metode
+	 * {@link #loadDocuments(String)}, jer se vokabular gradi upravo tom
+	 * analizom. Ukoliko analiza nije postavljena, koristi se
+	 * {@link Analyzer#createDefault()}.
+	 *
+	 * @param analyzer
+	 *            analiza teksta
+	 */
+	public static void setAnalyzer(Analyzer analyzer) {
+		if (analyzer == null) {
+			throw new IllegalArgumentException("Analiza teksta ne smije biti null");
+		}
+
+		SearchProvider.analyzer = analyzer;
+	}
+
+	/**
+	 * Pomoćna metoda koja se koristi za parsiranje dokumenta
+	 * predstavljenog putanjom <b>documentPath</b>. Pojmovi koji su nastali
+	 * analizom riječi dokumenta broje se brojačem dretve te se dokument dodaje
+	 * u graditelj <b>builder</b>, a oblici riječi iz kojih su pojmovi nastali
+	 * bilježe se u <b>forms</b>
 	 *
 	 * @param documentPath
 	 *            putanja do dokumenta koji se parsira predstavljen primjerkom
 	 *            sučelja {@link Path}
-	 * @param vocabularySet
-	 *            vokabular koji se nadopunjuje novim riječima
-	 * @return {@link Map} svih riječi koje su se pojavile unutar dokumenta
-	 *         (koje nisu unutar {@link #STOPWORDS}) namapirane na broj
-	 *         pojavaljivanja pojedine riječi
+	 * @param detector
+	 *            primjerak razreda {@link DuplicateDetector} kojem se dodaje
+	 *            potpis dokumenta ili <code>null</code> ukoliko se duplikati
+	 *            ne traže
+	 * @param builder
+	 *            graditelj indeksa kojem se dodaju dokument i njegova tablica
+	 *            riječi
+	 * @param forms
+	 *            oblici riječi svih dokumenata
+	 * @return redni broj dokumenta unutar graditelja
 	 * @throws IOException
 	 *             Ukoliko se datoteka sa putanjom <b>documentPath</b> ne može
-	 *             pročitati.
+	 *             pročitati ili se privremene datoteke ne mogu zapisati.
 	 */
-	private static Map<String, Integer> parseDocument(Path documentPath, Set<String> vocabularySet) throws IOException {
+	private int parseDocument(Path documentPath, DuplicateDetector detector, IndexBuilder builder,
+			SurfaceForms forms) throws IOException {
+		long start = System.nanoTime();
 		String fileContent = new String(Files.readAllBytes(documentPath), StandardCharsets.UTF_8);
-		String[] splitted = fileContent.split(SPLIT_REGEX);
+		READ_TIME.recordSince(start);
 
-		Map<String, Integer> wordTimes = countWordsInDocument(splitted);
-		vocabularySet.addAll(wordTimes.keySet());
-		return wordTimes;
+		start = System.nanoTime();
+		TermCounter counter = COUNTERS.get();
+		counter.clear();
+		List<String> terms = new ArrayList<>();
+		int[] offsets = new int[64];
+		int tokens = 0;
+		Matcher matcher = analyzer.tokenMatcher(fileContent);
+		while (matcher.find()) {
+			tokens++;
+			String term = analyzer.analyze(matcher.group());
+			if (term == null) {
+				continue;
+			}
+
+			if (2 * terms.size() + 2 > offsets.length) {
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			}
+			offsets[2 * terms.size()] = matcher.start();
+			offsets[2 * terms.size() + 1] = matcher.end();
+			terms.add(term);
+			counter.increment(builder.termId(term));
+			forms.add(term, matcher.group().toLowerCase());
+		}
+		TOKENIZE_TIME.recordSince(start);
+
+		String path = documentPath.toAbsolutePath().toString();
+		documentStore.add(path, fileContent);
+		if (detector != null) {
+			detector.add(path, MinHasher.signature(terms));
+		}
+
+		DOCUMENTS.increment();
+		TOKENS.add(tokens);
+		return builder.add(counter, terms, offsets);
 	}
 
 	/**
 	 * Statička metoda koja se koriste kako bi se iz predanog polja riječi
 	 * predstavljenih primjercima razreda {@link String} <b>words</b>, stvorio
-	 * primjerak sučelja {@link Map} koji unutar sebe mapira pojedinu riječ na
-	 * broj ponavljanja unutar predanog parametra <b>words</b>
+	 * primjerak sučelja {@link Map} koji unutar sebe mapira pojedini pojam na
+	 * broj ponavljanja unutar predanog parametra <b>words</b>. Svaka riječ
+	 * prije brojanja prolazi analizu teksta (vidi {@link #getAnalyzer()}), a
+	 * riječi koje analiza odbaci se ne broje. Metoda se zadržava radi
+	 * kompatibilnosti; učitavanje i dodavanje dokumenata te upiti pojmove broje
+	 * po identifikatorima primjerkom razreda {@link TermCounter}.
 	 *
 	 * @param words
 	 *            polje riječi predstavljeno primjercima razreda {@link String}
-	 * @return {@link Map} koji unutar sebe mapira pojedinu riječ na broj
+	 * @return {@link Map} koji unutar sebe mapira pojedini pojam na broj
 	 *         ponavljanja unutar predanog parametra <b>words</b>
 	 */
 	public static Map<String, Integer> countWordsInDocument(String[] words) {
 		Map<String, Integer> wordTimes = new HashMap<>();
-		for (String word : words) {
-			word = word.toLowerCase();
-			if (STOPWORDS.contains(word)) {
-				continue;
-			}
-
-			wordTimes.merge(word, 1, (currentValue, newValue) -> currentValue + newValue);
+		for (String term : analyzeWords(words)) {
+			wordTimes.merge(term, 1, (currentValue, newValue) -> currentValue + newValue);
 		}
 
 		return wordTimes;
 	}
 
 	/**
-	 * Pomoćna statička metoda koja prima jedan parametar, {@link Map} unutar
-	 * koje su ključevi putanje do pojedine datotke, a vrijednosti {@link Map}
-	 * koji unutar sebe mapira pojedinu riječ iz dokumenta na broj ponavljanja
-	 * te riječi unutar istog dokumenata. Iz predanog parametra metoda stvara
-	 * primjerke razreda {@link DocumentVector} za svaki pojedni unos unutar
-	 * predanog parametra te ih sprema unutar članske varijable
-	 * {@link #documentVectors}. Dodatno metoda poziva
-	 * {@link #calculateIdf(Map)}, kako bi vektor <b>idf</b> bio prisutan
-	 * prilikom stvaranja primjeraka razreda {@link DocumentVector}
+	 * Pomoćna statička metoda koja svaku riječ iz polja <b>words</b> provodi
+	 * kroz analizu teksta te vraća dobivene pojmove redom pojavljivanja.
+	 * Riječi koje analiza odbaci se izostavljaju.
 	 *
-	 * @param documentInfos
-	 *            {@link Map} unutar koje su ključevi putanje do pojedine
-	 *            datotke, a vrijednosti {@link Map} koji unutar sebe mapira
-	 *            pojedinu riječ iz dokumenta na broj ponavljanja te riječi
-	 *            unutar istog dokumenata.
+	 * @param words
+	 *            polje riječi
+	 * @return {@link List} pojmova redom pojavljivanja
 	 */
-	private static void createDocumentVectors(Map<String, Map<String, Integer>> documentInfos) {
-		calculateIdf(documentInfos);
-
-		provider.documentVectors = new ArrayList<>();
-		for (Map.Entry<String, Map<String, Integer>> documentInfo : documentInfos.entrySet()) {
-			provider.documentVectors.add(createDocumentVector(documentInfo.getKey(), documentInfo.getValue()));
+	private static List<String> analyzeWords(String[] words) {
+		List<String> terms = new ArrayList<>(words.length);
+		for (String word : words) {
+			String term = analyzer.analyze(word);
+			if (term != null) {
+				terms.add(term);
+			}
 		}
+
+		return terms;
 	}
 
 	/**
-	 * Pomoćna statička metoda koja se koristi za izračun vektora <b>idf</b>.
+	 * Pomoćna metoda koja iz spojenih zapisa graditelja
+	 * <b>builder</b> stvara vokabular, vektor <b>idf</b> te primjerke razreda
+	 * {@link DocumentVector} za svaki dokument iz <b>documentOrdinals</b>, a
+	 * koje sprema unutar članske varijable {@link #documentVectors}. Pojmovi
+	 * i tablice riječi dokumenata čitaju se iz graditelja jedan po jedan,
+	 * redom dokumenata (vidi {@link IndexBuilder#nextDocument()}). Iz brojeva
+	 * pojavljivanja pojmova i najčešćih oblika riječi <b>forms</b> gradi se i
+	 * {@link CompletionIndex}, a iz putanja dokumenata {@link MetadataIndex}.
 	 *
-	 * @param documentInfos
+	 * @param builder
+	 *            graditelj indeksa nad kojim je pozvana metoda
+	 *            {@link IndexBuilder#finish(BitSet)}
+	 * @param documentOrdinals
 	 *            {@link Map} unutar koje su ključevi putanje do pojedine
-	 *            datotke, a vrijednosti {@link Map} koji unutar sebe mapira
-	 *            pojedinu riječ iz dokumenta na broj ponavljanja te riječi
-	 *            unutar istog dokumenata.
+	 *            datotke, a vrijednosti redni brojevi dokumenata unutar
+	 *            graditelja
+	 * @param forms
+	 *            oblici riječi iz kojih su nastali pojmovi
+	 * @throws IOException
+	 *             Ukoliko čitanje privremenih datoteka graditelja nije
+	 *             uspjelo
 	 */
-	private static void calculateIdf(Map<String, Map<String, Integer>> documentInfos) {
-		int numOfFiles = documentInfos.size();
-		provider.idf = new double[provider.vocabulary.size()];
+	private void createDocumentVectors(IndexBuilder builder, Map<String, Integer> documentOrdinals,
+			SurfaceForms forms) throws IOException {
+		long start = System.nanoTime();
+		List<String> terms = builder.getTerms();
+		vocabulary = TermDictionary.build(terms);
+		idf = new double[vocabulary.size()];
+
+		int numOfFiles = documentOrdinals.size();
+		int[] termIds = new int[terms.size()];
+		for (int i = 0; i < termIds.length; i++) {
+			termIds[i] = vocabulary.getId(terms.get(i));
+			idf[termIds[i]] = Math.log(numOfFiles / (double) builder.documentFrequency(i));
+		}
+		IDF_TIME.recordSince(start);
+
+		String[] paths = new String[builder.getDocumentCount()];
+		for (Map.Entry<String, Integer> documentOrdinal : documentOrdinals.entrySet()) {
+			paths[documentOrdinal.getValue()] = documentOrdinal.getKey();
+		}
 
-		for (int i = 0; i < provider.idf.length; i++) {
-			String word = provider.vocabulary.get(i);
+		int[] frequencies = new int[vocabulary.size()];
+		DocumentVector[] vectors = new DocumentVector[paths.length];
+		excerpts = new HashMap<>();
+		for (int doc = builder.nextDocument(); doc >= 0; doc = builder.nextDocument()) {
+			start = System.nanoTime();
+			double[] tf = new double[vocabulary.size()];
+			int[] documentTerms = builder.documentTerms();
+			for (int i = 0; i < documentTerms.length; i += 2) {
+				tf[termIds[documentTerms[i]]] = documentTerms[i + 1];
+				frequencies[termIds[documentTerms[i]]] += documentTerms[i + 1];
+			}
 
-			double count = documentInfos.values().stream().filter((wordTimes) -> wordTimes.containsKey(word)).count();
+			vectors[doc] = new DocumentVector(paths[doc], tf, idf);
+			excerpts.put(paths[doc], builder.documentExcerpt(vocabulary));
+			VECTOR_TIME.recordSince(start);
+		}
 
-			provider.idf[i] = Math.log(numOfFiles / count);
+		documentVectors = new ArrayList<>();
+		documentsByPath = new HashMap<>();
+		for (Integer doc : documentOrdinals.values()) {
+			documentVectors.add(vectors[doc]);
+			documentsByPath.put(paths[doc], vectors[doc]);
 		}
+
+		buildIndexes(frequencies, forms.mostFrequent(vocabulary));
 	}
 
 	/**
-	 * Statička metoda koja se koristi za stvaranja novog primjerka razreda
-	 * {@link DocumentVector}, koristeći pri tome predane parametre
-	 * <b>filePath</b> i <b>wordTimes</b>
+	 * Pomoćna metoda koja nad vektorima dokumenata gradi obrnuti indeks,
+	 * indeks za dovršavanje riječi iz brojeva pojavljivanja pojmova
+	 * <b>frequencies</b> i najčešćih oblika <b>surfaceForms</b> te metapodatke
+	 * dokumenata
+	 *
+	 * @param frequencies
+	 *            brojevi pojavljivanja pojmova u svim dokumentima
+	 * @param surfaceForms
+	 *            najčešći oblici pojmova u svim dokumentima
+	 */
+	private void buildIndexes(int[] frequencies, String[] surfaceForms) {
+		long start = System.nanoTime();
+		postingsIndex = new PostingsIndex(documentVectors, vocabulary.size());
+		POSTINGS_TIME.recordSince(start);
+
+		start = System.nanoTime();
+		completionIndex = new CompletionIndex(vocabulary, frequencies, surfaceForms);
+		COMPLETIONS_TIME.recordSince(start);
+
+		start = System.nanoTime();
+		metadataIndex = new MetadataIndex(documentVectors);
+		METADATA_TIME.recordSince(start);
+	}
+
+	/**
+	 * Metoda koja se koristi za stvaranja novog primjerka razreda
+	 * {@link DocumentVector} nad vokabularom ovog indeksa, koristeći pri tome
+	 * predane parametre <b>filePath</b> i <b>wordTimes</b>. Pojmovi koji nisu
+	 * u vokabularu se zanemaruju.
 	 *
 	 * @param filePath
 	 *            putanja do dokumenta
@@ -296,12 +1925,34 @@ public class SearchProvider {
 	 * @return novi primjerak razreda {@link DocumentVector} stvoren iz predanih
 	 *         parametara
 	 */
-	public static DocumentVector createDocumentVector(String filePath, Map<String, Integer> wordTimes) {
-		double[] tf = new double[provider.vocabulary.size()];
+	public DocumentVector createDocumentVector(String filePath, Map<String, Integer> wordTimes) {
+		double[] tf = new double[vocabulary.size()];
 		for (Map.Entry<String, Integer> entry : wordTimes.entrySet()) {
-			tf[provider.vocabulary.indexOf(entry.getKey())] = entry.getValue();
+			int id = vocabulary.getId(entry.getKey());
+			if (id >= 0) {
+				tf[id] = entry.getValue();
+			}
+		}
+
+		return new DocumentVector(filePath, tf, idf);
+	}
+
+	/**
+	 * Pomoćna metoda koja stvara novi primjerak razreda {@link DocumentVector}
+	 * iz pojmova vokabulara prebrojanih u <b>counter</b>
+	 *
+	 * @param filePath
+	 *            putanja do dokumenta
+	 * @param counter
+	 *            brojač pojmova zadanih identifikatorima vokabulara
+	 * @return novi primjerak razreda {@link DocumentVector}
+	 */
+	private DocumentVector createDocumentVector(String filePath, TermCounter counter) {
+		double[] tf = new double[vocabulary.size()];
+		for (int i = 0; i < counter.size(); i++) {
+			tf[counter.term(i)] = counter.count(i);
 		}
 
-		return new DocumentVector(filePath, tf);
+		return new DocumentVector(filePath, tf, idf);
 	}
 }
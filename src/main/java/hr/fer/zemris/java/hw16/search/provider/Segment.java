@@ -0,0 +1,462 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+import hr.fer.zemris.java.hw16.search.environment.Result;
+
+/**
+ * Razred koji predstavlja jedan nepromjenjivi segment indeksa (vidi
+ * {@link SegmentedIndex}). Segment sadrži skup dokumenata zapisanih rijetkim
+ * vektorima nad vlastitim rječnikom {@link TermDictionary}, a uz svaki pojam
+ * pamti se vrijednost idf izračunata iz globalne statistike u trenutku
+ * izgradnje segmenta. Težine i moduli vektora dokumenata time su zamrznuti,
+ * a osvježavaju se tek spajanjem segmenata, kada se gradi novi segment.
+ * <p>
+ * Pretraživanje se obavlja obrnutim indeksom segmenta, pa cijena upita ovisi
+ * samo o broju dokumenata koji sadrže pojmove upita. Izbrisani dokumenti
+ * predaju se kao {@link BitSet} (engl. tombstones) te se preskaču.
+ *
+ * @author Davor Češljaš
+ */
+public class Segment {
+
+	/** Konstanta koja predstavlja oznaku početka zapisa segmenta */
+	private static final int MAGIC = 0x5345474D;
+
+	/** Članska varijabla koja predstavlja ime segmenta */
+	private String name;
+
+	/** Članska varijabla koja predstavlja putanje dokumenata segmenta */
+	private String[] paths;
+
+	/** Članska varijabla koja predstavlja rječnik pojmova segmenta */
+	private TermDictionary dictionary;
+
+	/** Članska varijabla koja predstavlja zamrznute vrijednosti idf pojmova */
+	private double[] idf;
+
+	/**
+	 * Članska varijabla koja predstavlja redne brojeve dokumenata za svaki
+	 * pojam segmenta
+	 */
+	private int[][] postings;
+
+	/**
+	 * Članska varijabla koja predstavlja broj pojavljivanja pojma u
+	 * dokumentima, poravnat s {@link #postings}
+	 */
+	private int[][] frequencies;
+
+	/** Članska varijabla koja predstavlja module vektora dokumenata */
+	private double[] moduli;
+
+	/** Članska varijabla koja predstavlja redne brojeve dokumenata po putanji */
+	private Map<String, Integer> ordinals;
+
+	/**
+	 * Privatni konstruktor koji inicijalizira primjerak ovog razreda.
+	 * Primjerci se stvaraju metodama
+	 * {@link #build(String, Map, IntFunction, ToDoubleFunction)} i {@link #read(Path)}.
+	 *
+	 * @param name
+	 *            ime segmenta
+	 * @param paths
+	 *            putanje dokumenata
+	 * @param dictionary
+	 *            rječnik pojmova segmenta
+	 * @param idf
+	 *            vrijednosti idf pojmova
+	 * @param postings
+	 *            redni brojevi dokumenata za svaki pojam
+	 * @param frequencies
+	 *            broj pojavljivanja pojma u dokumentima
+	 */
+	private Segment(String name, String[] paths, TermDictionary dictionary, double[] idf, int[][] postings,
+			int[][] frequencies) {
+		this.name = name;
+		this.paths = paths;
+		this.dictionary = dictionary;
+		this.idf = idf;
+		this.postings = postings;
+		this.frequencies = frequencies;
+
+		ordinals = new HashMap<>();
+		for (int doc = 0; doc < paths.length; doc++) {
+			ordinals.put(paths[doc], doc);
+		}
+
+		moduli = new double[paths.length];
+		for (int term = 0; term < postings.length; term++) {
+			for (int i = 0; i < postings[term].length; i++) {
+				double weight = frequencies[term][i] * idf[term];
+				moduli[postings[term][i]] += weight * weight;
+			}
+		}
+		for (int doc = 0; doc < moduli.length; doc++) {
+			moduli[doc] = Math.sqrt(moduli[doc]);
+		}
+	}
+
+	/**
+	 * Statička metoda tvornica koja gradi segment iz dokumenata
+	 * <b>documents</b>. Pojmovi dokumenata zadani su identifikatorima koje u
+	 * pojmove preslikava funkcija <b>terms</b>, a vrijednost idf svakog pojma
+	 * računa se funkcijom <b>idf</b> u trenutku izgradnje.
+	 *
+	 * @param name
+	 *            ime segmenta
+	 * @param documents
+	 *            {@link Map} putanja dokumenata na parove (identifikator
+	 *            pojma, broj pojavljivanja) njihovih pojmova
+	 * @param terms
+	 *            funkcija koja identifikatoru pridružuje pojam
+	 * @param idf
+	 *            funkcija koja pojmu pridružuje vrijednost idf
+	 * @return novi segment
+	 */
+	public static Segment build(String name, Map<String, int[]> documents, IntFunction<String> terms,
+			ToDoubleFunction<String> idf) {
+		TermCounter documentFrequencies = new TermCounter();
+		for (int[] pairs : documents.values()) {
+			for (int i = 0; i < pairs.length; i += 2) {
+				documentFrequencies.increment(pairs[i]);
+			}
+		}
+
+		String[] words = new String[documentFrequencies.size()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = terms.apply(documentFrequencies.term(i));
+		}
+		TermDictionary dictionary = TermDictionary.build(Arrays.asList(words));
+
+		// identifikator segmenta uvećan za 1, jer brojač vraća 0 za nepoznat pojam
+		TermCounter localIds = new TermCounter(words.length);
+		int[][] postings = new int[dictionary.size()][];
+		int[][] frequencies = new int[dictionary.size()][];
+		for (int i = 0; i < words.length; i++) {
+			int term = dictionary.getId(words[i]);
+			localIds.add(documentFrequencies.term(i), term + 1);
+			postings[term] = new int[documentFrequencies.count(i)];
+			frequencies[term] = new int[documentFrequencies.count(i)];
+		}
+
+		int[] sizes = new int[dictionary.size()];
+		String[] paths = documents.keySet().toArray(new String[documents.size()]);
+		for (int doc = 0; doc < paths.length; doc++) {
+			int[] pairs = documents.get(paths[doc]);
+			for (int i = 0; i < pairs.length; i += 2) {
+				int term = localIds.get(pairs[i]) - 1;
+				postings[term][sizes[term]] = doc;
+				frequencies[term][sizes[term]++] = pairs[i + 1];
+			}
+		}
+
+		double[] idfs = new double[dictionary.size()];
+		for (int term = 0; term < dictionary.size(); term++) {
+			idfs[term] = idf.applyAsDouble(dictionary.getTerm(term));
+		}
+
+		return new Segment(name, paths, dictionary, idfs, postings, frequencies);
+	}
+
+	/**
+	 * Metoda koja dohvaća ime segmenta
+	 *
+	 * @return ime segmenta
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj dokumenata segmenta, uključujući izbrisane
+	 *
+	 * @return broj dokumenata segmenta
+	 */
+	public int size() {
+		return paths.length;
+	}
+
+	/**
+	 * Metoda koja dohvaća putanju dokumenta s rednim brojem <b>doc</b>
+	 *
+	 * @param doc
+	 *            redni broj dokumenta
+	 * @return putanja dokumenta
+	 */
+	public String getPath(int doc) {
+		return paths[doc];
+	}
+
+	/**
+	 * Metoda koja dohvaća redni broj dokumenta s putanjom <b>path</b>
+	 *
+	 * @param path
+	 *            putanja dokumenta
+	 * @return redni broj dokumenta ili -1 ukoliko dokument nije u segmentu
+	 */
+	public int indexOf(String path) {
+		Integer doc = ordinals.get(path);
+		return doc == null ? -1 : doc;
+	}
+
+	/**
+	 * Metoda koja dohvaća rječnik pojmova segmenta
+	 *
+	 * @return rječnik pojmova segmenta
+	 */
+	public TermDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj dokumenata segmenta koji sadrže pojam
+	 * <b>term</b>
+	 *
+	 * @param term
+	 *            pojam
+	 * @return broj dokumenata koji sadrže pojam
+	 */
+	public int documentFrequency(String term) {
+		int id = dictionary.getId(term);
+		return id < 0 ? 0 : postings[id].length;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj pojavljivanja pojmova svakog dokumenta koji
+	 * nije izbrisan, a koristi se prilikom spajanja segmenata. Svi se
+	 * dokumenti rekonstruiraju jednim prolazom kroz obrnuti indeks, a pojmovi
+	 * se zamjenjuju identifikatorima koje dodjeljuje funkcija <b>termIds</b>.
+	 *
+	 * @param deleted
+	 *            izbrisani dokumenti segmenta ili <code>null</code>
+	 * @param termIds
+	 *            funkcija koja pojmu pridružuje identifikator
+	 * @return {@link Map} putanja dokumenata na parove (identifikator pojma,
+	 *         broj pojavljivanja) njihovih pojmova
+	 */
+	public Map<String, int[]> liveDocuments(BitSet deleted, ToIntFunction<String> termIds) {
+		int[] sizes = new int[paths.length];
+		for (int term = 0; term < postings.length; term++) {
+			for (int doc : postings[term]) {
+				sizes[doc] += 2;
+			}
+		}
+
+		int[][] documents = new int[paths.length][];
+		for (int doc = 0; doc < paths.length; doc++) {
+			documents[doc] = deleted != null && deleted.get(doc) ? null : new int[sizes[doc]];
+			sizes[doc] = 0;
+		}
+
+		for (int term = 0; term < postings.length; term++) {
+			int id = termIds.applyAsInt(dictionary.getTerm(term));
+			for (int i = 0; i < postings[term].length; i++) {
+				int[] pairs = documents[postings[term][i]];
+				if (pairs != null) {
+					int size = sizes[postings[term][i]];
+					pairs[size] = id;
+					pairs[size + 1] = frequencies[term][i];
+					sizes[postings[term][i]] += 2;
+				}
+			}
+		}
+
+		Map<String, int[]> live = new LinkedHashMap<>();
+		for (int doc = 0; doc < paths.length; doc++) {
+			if (documents[doc] != null) {
+				live.put(paths[doc], documents[doc]);
+			}
+		}
+
+		return live;
+	}
+
+	/**
+	 * Metoda koja pronalazi dokumente segmenta koji ne zadovoljavaju logičke
+	 * uvjete upita, odnosno koji ne sadrže niti jedan pojam neke skupine
+	 * <b>required</b> ili sadrže neki od pojmova <b>excluded</b>
+	 *
+	 * @param required
+	 *            skupine pojmova od kojih svaki dokument mora sadržavati barem
+	 *            jedan pojam svake skupine
+	 * @param excluded
+	 *            pojmovi koje dokument ne smije sadržavati
+	 * @return {@link BitSet} rednih brojeva dokumenata koji se preskaču
+	 */
+	public BitSet rejected(List<Set<String>> required, Set<String> excluded) {
+		BitSet rejected = documentsWithAny(excluded);
+		for (Set<String> group : required) {
+			BitSet matching = documentsWithAny(group);
+			matching.flip(0, paths.length);
+			rejected.or(matching);
+		}
+
+		return rejected;
+	}
+
+	/**
+	 * Pomoćna metoda koja pronalazi dokumente segmenta koji sadrže barem jedan
+	 * od pojmova <b>terms</b>
+	 *
+	 * @param terms
+	 *            pojmovi
+	 * @return {@link BitSet} rednih brojeva dokumenata
+	 */
+	private BitSet documentsWithAny(Set<String> terms) {
+		BitSet documents = new BitSet(paths.length);
+		for (String term : terms) {
+			int id = dictionary.getId(term);
+			if (id < 0) {
+				continue;
+			}
+
+			for (int doc : postings[id]) {
+				documents.set(doc);
+			}
+		}
+
+		return documents;
+	}
+
+	/**
+	 * Metoda koja boduje dokumente segmenta kosinusnom sličnošću s upitom.
+	 * Težine pojmova upita <b>queryWeights</b> računa pozivatelj, dok se
+	 * težine dokumenata računaju zamrznutim vrijednostima idf segmenta.
+	 *
+	 * @param queryTerms
+	 *            pojmovi upita
+	 * @param queryWeights
+	 *            težine pojmova upita, poravnate s <b>queryTerms</b>
+	 * @param queryModul
+	 *            modul vektora upita
+	 * @param deleted
+	 *            izbrisani dokumenti segmenta ili <code>null</code>
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @return {@link List} najviše <b>maxResults</b> rezultata sortiranih
+	 *         padajuće po sličnosti
+	 */
+	public List<Result> search(String[] queryTerms, double[] queryWeights, double queryModul, BitSet deleted,
+			int maxResults) {
+		if (queryModul == 0) {
+			return Collections.emptyList();
+		}
+
+		double[] scores = new double[paths.length];
+		for (int q = 0; q < queryTerms.length; q++) {
+			int term = dictionary.getId(queryTerms[q]);
+			if (term < 0) {
+				continue;
+			}
+
+			for (int i = 0; i < postings[term].length; i++) {
+				scores[postings[term][i]] += queryWeights[q] * frequencies[term][i] * idf[term];
+			}
+		}
+
+		List<Result> results = new ArrayList<>();
+		for (int doc = 0; doc < scores.length; doc++) {
+			if (scores[doc] > 0 && (deleted == null || !deleted.get(doc))) {
+				results.add(new Result(scores[doc] / (queryModul * moduli[doc]), paths[doc]));
+			}
+		}
+
+		Collections.sort(results);
+		return results.size() > maxResults ? new ArrayList<>(results.subList(0, maxResults)) : results;
+	}
+
+	/**
+	 * Metoda koja zapisuje segment u datoteku s putanjom <b>file</b>
+	 *
+	 * @param file
+	 *            putanja do datoteke
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	public void write(Path file) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+			out.writeInt(MAGIC);
+			out.writeUTF(name);
+			out.writeInt(paths.length);
+			for (String path : paths) {
+				out.writeUTF(path);
+			}
+
+			out.writeInt(dictionary.size());
+			for (int term = 0; term < dictionary.size(); term++) {
+				out.writeUTF(dictionary.getTerm(term));
+				out.writeDouble(idf[term]);
+				out.writeInt(postings[term].length);
+				for (int i = 0; i < postings[term].length; i++) {
+					out.writeInt(postings[term][i]);
+					out.writeInt(frequencies[term][i]);
+				}
+			}
+		}
+
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Statička metoda koja čita segment zapisan metodom {@link #write(Path)}
+	 *
+	 * @param file
+	 *            putanja do datoteke segmenta
+	 * @return pročitani segment
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo ili datoteka nije zapis
+	 *             segmenta
+	 */
+	public static Segment read(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Datoteka '" + file + "' nije zapis segmenta");
+			}
+
+			String name = in.readUTF();
+			String[] paths = new String[in.readInt()];
+			for (int i = 0; i < paths.length; i++) {
+				paths[i] = in.readUTF();
+			}
+
+			int size = in.readInt();
+			List<String> terms = new ArrayList<>(size);
+			double[] idf = new double[size];
+			int[][] postings = new int[size][];
+			int[][] frequencies = new int[size][];
+			for (int term = 0; term < size; term++) {
+				terms.add(in.readUTF());
+				idf[term] = in.readDouble();
+				postings[term] = new int[in.readInt()];
+				frequencies[term] = new int[postings[term].length];
+				for (int i = 0; i < postings[term].length; i++) {
+					postings[term][i] = in.readInt();
+					frequencies[term][i] = in.readInt();
+				}
+			}
+
+			return new Segment(name, paths, TermDictionary.build(terms), idf, postings, frequencies);
+		}
+	}
+}
@@ -0,0 +1,1231 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import hr.fer.zemris.java.hw16.search.environment.Result;
+import hr.fer.zemris.java.hw16.search.metrics.Counter;
+import hr.fer.zemris.java.hw16.search.metrics.LatencyHistogram;
+import hr.fer.zemris.java.hw16.search.metrics.MetricsRegistry;
+
+/**
+ * Razred koji predstavlja indeks organiziran u nepromjenjive segmente (engl.
+ * log-structured merge). Dokumenti učitani metodom
+ * {@link SearchProvider#loadDocuments(String)} čine bazni indeks, a novi
+ * dokumenti dodaju se u mali memorijski segment. Kada memorijski segment
+ * dosegne {@value #FLUSH_THRESHOLD} dokumenata (ili na zahtjev), on se
+ * zapisuje na disk kao novi {@link Segment}. Pozadinska dretva spaja po
+ * {@value #MERGE_FACTOR} segmenta slične veličine u jedan veći, pa broj
+ * segmenata raste samo logaritamski s brojem dokumenata.
+ * <p>
+ * Brisanje dokumenta samo postavlja bit u {@link BitSet}u izbrisanih
+ * dokumenata (engl. tombstones) pripadnog segmenta ili baznog indeksa, a
+ * izbrisani dokumenti fizički nestaju prilikom spajanja. Ponovno dodavanje
+ * dokumenta s istom putanjom briše njegovu prethodnu inačicu.
+ * <p>
+ * Stanje indeksa (popis segmenata, izbrisani dokumenti, memorijski segment i
+ * broj dokumenata svakog pojma memorijskog segmenta) objavljuje se kao
+ * nepromjenjivi primjerak koji upiti, uključujući i izračun vrijednosti idf,
+ * čitaju bez zaključavanja, dok se izmjene međusobno isključuju. Zato upiti
+ * ne čekaju zapisivanje segmenta na disk. Segmenti se zapisuju u
+ * poddirektorij s imenom baznog indeksa unutar direktorija zadanog svojstvom
+ * sustava {@value #DIRECTORY_PROPERTY} te se iz njega ponovno učitavaju
+ * prilikom pokretanja, a ukoliko svojstvo nije postavljeno segmenti se čuvaju
+ * samo u memoriji i ne zapisuju se na disk. Segmenti zapisani izravno u taj direktorij, kako su
+ * se zapisivali prije uvođenja imenovanih indeksa, premještaju se u
+ * poddirektorij prvog učitanog indeksa. Dodavanja i brisanja dokumenata memorijskog segmenta
+ * u trajnom direktoriju prije izmjene se zapisuju u dnevnik (engl.
+ * write-ahead log) koji se prilikom pokretanja ponovno izvodi, a prazni se
+ * kada se memorijski segment zapiše kao segment. Pogreška pozadinskog
+ * spajanja pamti se i dohvaća metodom {@link #getMergeError()}.
+ * <p>
+ * Pojmovi dokumenata i upita zadaju se identifikatorima prebrojanima u
+ * {@link TermCounter}u. Pojmovi baznog indeksa imaju identifikatore iz
+ * njegovog rječnika, a novim pojmovima metoda {@link #termId(String)}
+ * dodjeljuje identifikatore iza njih. Identifikatori postoje samo u memoriji,
+ * dok se u segmente i dnevnik zapisuju sami pojmovi.
+ *
+ * @see Segment
+ *
+ * @author Davor Češljaš
+ */
+public class SegmentedIndex {
+
+	/** Konstanta koja predstavlja ime svojstva sustava s direktorijem segmenata */
+	public static final String DIRECTORY_PROPERTY = "search.segments.dir";
+
+	/** Konstanta koja predstavlja broj dokumenata memorijskog segmenta */
+	public static final int FLUSH_THRESHOLD = 32;
+
+	/** Konstanta koja predstavlja broj segmenata koji se spajaju u jedan */
+	public static final int MERGE_FACTOR = 4;
+
+	/** Konstanta koja predstavlja nastavak datoteka segmenata */
+	static final String SEGMENT_SUFFIX = ".seg";
+
+	/** Konstanta koja predstavlja nastavak datoteka izbrisanih dokumenata */
+	private static final String DELETED_SUFFIX = ".del";
+
+	/** Konstanta koja predstavlja ime datoteke izbrisanih baznih dokumenata */
+	private static final String BASE_DELETED_FILE = "base.del";
+
+	/** Konstanta koja predstavlja ime memorijskog segmenta */
+	private static final String MEMTABLE_NAME = "memtable";
+
+	/** Konstanta koja predstavlja ime dnevnika memorijskog segmenta */
+	private static final String LOG_FILE = "memtable.log";
+
+	/** Konstanta koja predstavlja oznaku dodavanja u dnevniku */
+	private static final int LOG_ADD = 1;
+
+	/** Konstanta koja predstavlja oznaku brisanja u dnevniku */
+	private static final int LOG_DELETE = 2;
+
+	/** Konstanta koja predstavlja mjerenje trajanja zapisivanja segmenta */
+	private static final LatencyHistogram FLUSH_TIME = MetricsRegistry.getRegistry().histogram("segments.flush");
+
+	/** Konstanta koja predstavlja mjerenje trajanja spajanja segmenata */
+	private static final LatencyHistogram MERGE_TIME = MetricsRegistry.getRegistry().histogram("segments.merge");
+
+	/** Konstanta koja predstavlja brojač dodanih dokumenata */
+	private static final Counter ADDED = MetricsRegistry.getRegistry().counter("segments.added");
+
+	/** Konstanta koja predstavlja brojač izbrisanih dokumenata */
+	private static final Counter DELETED = MetricsRegistry.getRegistry().counter("segments.deleted");
+
+	/** Konstanta koja predstavlja brojač neuspjelih pozadinskih spajanja */
+	private static final Counter MERGE_FAILURES = MetricsRegistry.getRegistry().counter("segments.merge.failures");
+
+	/**
+	 * Razred koji predstavlja nepromjenjivo stanje indeksa koje upiti čitaju
+	 * bez zaključavanja. Svaka izmjena objavljuje novi primjerak, a brojač
+	 * pojmova memorijskog segmenta se nakon objave više ne mijenja.
+	 */
+	private static class State {
+
+		/** Članska varijabla koja predstavlja segmente zapisane na disk */
+		private final List<Segment> segments;
+
+		/** Članska varijabla koja predstavlja izbrisane dokumente segmenata */
+		private final Map<String, BitSet> deleted;
+
+		/** Članska varijabla koja predstavlja izbrisane bazne dokumente */
+		private final BitSet baseDeleted;
+
+		/**
+		 * Članska varijabla koja predstavlja memorijski segment ili
+		 * <code>null</code> ukoliko je prazan
+		 */
+		private final Segment memtable;
+
+		/**
+		 * Članska varijabla koja predstavlja broj dokumenata memorijskog
+		 * segmenta
+		 */
+		private final int memtableSize;
+
+		/**
+		 * Članska varijabla koja predstavlja broj dokumenata memorijskog
+		 * segmenta koji sadrže pojedini pojam, zadan identifikatorom
+		 */
+		private final TermCounter memtableFrequencies;
+
+		/**
+		 * Konstruktor koji inicijalizira primjerak ovog razreda s praznim
+		 * memorijskim segmentom
+		 *
+		 * @param segments
+		 *            segmenti zapisani na disk
+		 * @param deleted
+		 *            izbrisani dokumenti segmenata
+		 * @param baseDeleted
+		 *            izbrisani bazni dokumenti
+		 */
+		private State(List<Segment> segments, Map<String, BitSet> deleted, BitSet baseDeleted) {
+			this(segments, deleted, baseDeleted, null, 0, new TermCounter());
+		}
+
+		/**
+		 * Konstruktor koji inicijalizira primjerak ovog razreda
+		 *
+		 * @param segments
+		 *            segmenti zapisani na disk
+		 * @param deleted
+		 *            izbrisani dokumenti segmenata
+		 * @param baseDeleted
+		 *            izbrisani bazni dokumenti
+		 * @param memtable
+		 *            memorijski segment ili <code>null</code>
+		 * @param memtableSize
+		 *            broj dokumenata memorijskog segmenta
+		 * @param memtableFrequencies
+		 *            broj dokumenata memorijskog segmenta koji sadrže pojedini
+		 *            pojam
+		 */
+		private State(List<Segment> segments, Map<String, BitSet> deleted, BitSet baseDeleted, Segment memtable,
+				int memtableSize, TermCounter memtableFrequencies) {
+			this.segments = Collections.unmodifiableList(segments);
+			this.deleted = Collections.unmodifiableMap(deleted);
+			this.baseDeleted = baseDeleted;
+			this.memtable = memtable;
+			this.memtableSize = memtableSize;
+			this.memtableFrequencies = memtableFrequencies;
+		}
+
+		/**
+		 * Metoda koja stvara stanje s istim memorijskim segmentom, a zadanim
+		 * segmentima i izbrisanim dokumentima
+		 *
+		 * @param segments
+		 *            segmenti zapisani na disk
+		 * @param deleted
+		 *            izbrisani dokumenti segmenata
+		 * @param baseDeleted
+		 *            izbrisani bazni dokumenti
+		 * @return novo stanje
+		 */
+		private State with(List<Segment> segments, Map<String, BitSet> deleted, BitSet baseDeleted) {
+			return new State(segments, deleted, baseDeleted, memtable, memtableSize, memtableFrequencies);
+		}
+	}
+
+	/** Članska varijabla koja predstavlja bazni indeks */
+	private final SearchProvider base;
+
+	/** Članska varijabla koja predstavlja redne brojeve baznih dokumenata */
+	private final Map<String, Integer> baseOrdinals = new HashMap<>();
+
+	/**
+	 * Članska varijabla koja predstavlja direktorij segmenata ili
+	 * <code>null</code> ukoliko se segmenti čuvaju samo u memoriji
+	 */
+	private final Path directory;
+
+	/** Članska varijabla koja određuje jesu li segmenti trajno zapisani */
+	private final boolean persistent;
+
+	/**
+	 * Članska varijabla koja predstavlja identifikatore pojmova koji nisu u
+	 * rječniku baznog indeksa
+	 */
+	private final Map<String, Integer> addedIds = new ConcurrentHashMap<>();
+
+	/**
+	 * Članska varijabla koja predstavlja pojmove koji nisu u rječniku baznog
+	 * indeksa, redom dodjeljivanja identifikatora
+	 */
+	private volatile String[] addedTerms = new String[16];
+
+	/**
+	 * Članska varijabla koja predstavlja dokumente memorijskog segmenta, kao
+	 * parove (identifikator pojma, broj pojavljivanja)
+	 */
+	private final Map<String, int[]> memtable = new LinkedHashMap<>();
+
+	/** Članska varijabla koja predstavlja trenutno objavljeno stanje */
+	private volatile State state;
+
+	/** Članska varijabla koja predstavlja redni broj zadnjeg segmenta */
+	private int generation;
+
+	/**
+	 * Članska varijabla koja predstavlja dnevnik memorijskog segmenta ili
+	 * <code>null</code> ukoliko još nije otvoren
+	 */
+	private FileChannel log;
+
+	/**
+	 * Članska varijabla koja predstavlja pogrešku zadnjeg pozadinskog
+	 * spajanja ili <code>null</code> ukoliko je spajanje uspjelo
+	 */
+	private volatile IOException mergeError;
+
+	/** Članska varijabla koja predstavlja dretvu koja spaja segmente */
+	private final ExecutorService merger = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "segment-merger");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Konstruktor koji inicijalizira indeks nad baznim indeksom <b>base</b> i
+	 * učitava sve segmente zapisane u njegovom poddirektoriju direktorija
+	 * zadanog svojstvom sustava {@value #DIRECTORY_PROPERTY}. Ukoliko svojstvo
+	 * nije postavljeno, indeks je prazan i segmenti se čuvaju samo u
+	 * memoriji.
+	 *
+	 * @param base
+	 *            bazni indeks
+	 * @throws IOException
+	 *             Ukoliko direktorij segmenata nije moguće stvoriti ili
+	 *             pročitati
+	 */
+	public SegmentedIndex(SearchProvider base) throws IOException {
+		this.base = base;
+		List<DocumentVector> vectors = base.getDocumentVectors();
+		for (int i = 0, len = vectors.size(); i < len; i++) {
+			baseOrdinals.put(vectors.get(i).getFilePath(), i);
+		}
+
+		String directoryName = System.getProperty(DIRECTORY_PROPERTY);
+		persistent = directoryName != null;
+		directory = directoryName == null ? null
+				: Files.createDirectories(Paths.get(directoryName).resolve(base.getName()));
+		state = new State(new ArrayList<>(), new HashMap<>(), new BitSet());
+		if (persistent) {
+			migrateFlatLayout(Paths.get(directoryName), directory);
+			recover();
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja premješta segmente i izbrisane dokumente
+	 * zapisane izravno u direktorij <b>root</b> (raspored prije uvođenja
+	 * poddirektorija po imenu indeksa) u direktorij <b>directory</b>. Takav
+	 * direktorij sadržavao je segmente jedinog učitanog indeksa, pa ih
+	 * preuzima prvi indeks čiji se segmenti učitavaju. Datoteke istog imena
+	 * koje već postoje u direktoriju <b>directory</b> se ne prepisuju.
+	 *
+	 * @param root
+	 *            direktorij zadan svojstvom sustava {@value #DIRECTORY_PROPERTY}
+	 * @param directory
+	 *            poddirektorij segmenata indeksa
+	 * @throws IOException
+	 *             Ukoliko premještanje nije uspjelo
+	 */
+	private static synchronized void migrateFlatLayout(Path root, Path directory) throws IOException {
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(root,
+				"*{" + SEGMENT_SUFFIX + "," + DELETED_SUFFIX + "}")) {
+			for (Path file : stream) {
+				Path target = directory.resolve(file.getFileName());
+				if (Files.isRegularFile(file) && !Files.exists(target)) {
+					Files.move(file, target);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Konstruktor koji inicijalizira indeks nad baznim indeksom <b>base</b> i
+	 * učitava sve segmente zapisane u direktoriju <b>directory</b>, neovisno o
+	 * svojstvu sustava {@value #DIRECTORY_PROPERTY}. Koristi se za segmente
+	 * pročitane iz snimke indeksa (vidi {@link SnapshotReplica}), pa se
+	 * segmenti ne smatraju trajno zapisanima.
+	 *
+	 * @param base
+	 *            bazni indeks
+	 * @param directory
+	 *            direktorij sa segmentima i izbrisanim dokumentima
+	 * @throws IOException
+	 *             Ukoliko direktorij segmenata nije moguće pročitati
+	 */
+	SegmentedIndex(SearchProvider base, Path directory) throws IOException {
+		this.base = base;
+		List<DocumentVector> vectors = base.getDocumentVectors();
+		for (int i = 0, len = vectors.size(); i < len; i++) {
+			baseOrdinals.put(vectors.get(i).getFilePath(), i);
+		}
+
+		persistent = false;
+		this.directory = directory;
+		state = new State(new ArrayList<>(), new HashMap<>(), new BitSet());
+		recover();
+	}
+
+	/**
+	 * Metoda koja dohvaća direktorij segmenata
+	 *
+	 * @return direktorij segmenata ili <code>null</code> ukoliko se segmenti
+	 *         čuvaju samo u memoriji
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Metoda koja dohvaća identifikator pojma <b>term</b>, dodjeljujući novi
+	 * identifikator pojmu koji nije u rječniku baznog indeksa niti mu je
+	 * identifikator već dodijeljen
+	 *
+	 * @param term
+	 *            pojam
+	 * @return identifikator pojma
+	 */
+	public int termId(String term) {
+		int id = getTermId(term);
+		if (id >= 0) {
+			return id;
+		}
+
+		synchronized (addedIds) {
+			Integer added = addedIds.get(term);
+			if (added != null) {
+				return added;
+			}
+
+			id = addedIds.size();
+			String[] terms = addedTerms;
+			if (id == terms.length) {
+				terms = Arrays.copyOf(terms, id * 2);
+			}
+			terms[id] = term;
+			addedTerms = terms;
+			addedIds.put(term, id);
+			return base.getVocabulary().size() + id;
+		}
+	}
+
+	/**
+	 * Metoda koja dohvaća identifikator pojma <b>term</b> bez dodjeljivanja
+	 * novog identifikatora
+	 *
+	 * @param term
+	 *            pojam
+	 * @return identifikator pojma ili -1 ukoliko pojam nema identifikator
+	 */
+	public int getTermId(String term) {
+		int id = base.getVocabulary().getId(term);
+		if (id >= 0) {
+			return id;
+		}
+
+		Integer added = addedIds.get(term);
+		return added == null ? -1 : base.getVocabulary().size() + added;
+	}
+
+	/**
+	 * Metoda koja dohvaća pojam s identifikatorom <b>id</b>
+	 *
+	 * @param id
+	 *            identifikator dobiven metodom {@link #termId(String)}
+	 * @return pojam s predanim identifikatorom
+	 */
+	public String getTerm(int id) {
+		TermDictionary vocabulary = base.getVocabulary();
+		return id < vocabulary.size() ? vocabulary.getTerm(id) : addedTerms[id - vocabulary.size()];
+	}
+
+	/**
+	 * Metoda koja dodaje dokument s putanjom <b>path</b> i pojmovima
+	 * <b>counter</b> u memorijski segment. Dodavanje se najprije zapisuje u
+	 * dnevnik, prethodna inačica dokumenta se briše, a memorijski segment
+	 * zapisuje se na disk kada dosegne {@value #FLUSH_THRESHOLD} dokumenata.
+	 * Brojač se ne pamti, pa ga pozivatelj smije ponovno koristiti.
+	 *
+	 * @param path
+	 *            putanja dokumenta
+	 * @param counter
+	 *            brojač pojmova dokumenta, zadanih identifikatorima dobivenim
+	 *            metodom {@link #termId(String)}
+	 * @throws IOException
+	 *             Ukoliko zapisivanje dnevnika ili segmenta nije uspjelo
+	 */
+	public synchronized void add(String path, TermCounter counter) throws IOException {
+		int[] pairs = new int[2 * counter.size()];
+		for (int i = 0; i < counter.size(); i++) {
+			pairs[2 * i] = counter.term(i);
+			pairs[2 * i + 1] = counter.count(i);
+		}
+
+		appendLog(LOG_ADD, path, pairs);
+		deleteStored(path);
+		memtable.put(path, pairs);
+		ADDED.increment();
+		publishMemtable();
+
+		if (memtable.size() >= FLUSH_THRESHOLD) {
+			flush();
+		}
+	}
+
+	/**
+	 * Metoda koja briše dokument s putanjom <b>path</b>
+	 *
+	 * @param path
+	 *            putanja dokumenta
+	 * @return <code>true</code> ukoliko je dokument postojao, inače
+	 *         <code>false</code>
+	 * @throws IOException
+	 *             Ukoliko zapisivanje dnevnika ili izbrisanih dokumenata nije
+	 *             uspjelo
+	 */
+	public synchronized boolean delete(String path) throws IOException {
+		boolean existed = memtable.containsKey(path);
+		if (existed) {
+			appendLog(LOG_DELETE, path, null);
+			memtable.remove(path);
+			publishMemtable();
+		}
+
+		existed |= deleteStored(path);
+		if (existed) {
+			DELETED.increment();
+		}
+		return existed;
+	}
+
+	/**
+	 * Metoda koja zapisuje memorijski segment na disk kao novi segment,
+	 * prazni dnevnik memorijskog segmenta te po potrebi pokreće pozadinsko
+	 * spajanje segmenata. Upiti za vrijeme zapisivanja koriste prethodno
+	 * objavljeno stanje.
+	 *
+	 * @throws IOException
+	 *             Ukoliko zapisivanje segmenta nije uspjelo
+	 */
+	public synchronized void flush() throws IOException {
+		if (memtable.isEmpty()) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		Segment segment = Segment.build(String.format("segment-%06d", ++generation), new LinkedHashMap<>(memtable),
+				this::getTerm, this::idf);
+		if (directory != null) {
+			segment.write(segmentFile(segment.getName()));
+		}
+
+		List<Segment> segments = new ArrayList<>(state.segments);
+		segments.add(segment);
+		memtable.clear();
+		state = new State(segments, state.deleted, state.baseDeleted);
+		if (log != null) {
+			log.truncate(0);
+			log.force(true);
+		}
+		FLUSH_TIME.recordSince(start);
+
+		merger.submit(this::mergeWhileNeeded);
+	}
+
+	/**
+	 * Metoda koja zapisuje memorijski segment na disk, zatvara dnevnik i
+	 * zaustavlja dretvu za spajanje segmenata nakon završetka započetog
+	 * spajanja
+	 *
+	 * @throws IOException
+	 *             Ukoliko zapisivanje segmenta nije uspjelo
+	 */
+	public synchronized void close() throws IOException {
+		flush();
+		merger.shutdown();
+		if (log != null) {
+			log.close();
+			log = null;
+		}
+	}
+
+	/**
+	 * Metoda koja dohvaća pogrešku zadnjeg pozadinskog spajanja segmenata.
+	 * Pogreška se briše kada sljedeće spajanje uspije.
+	 *
+	 * @return pogreška zadnjeg spajanja ili <code>null</code> ukoliko je
+	 *         spajanje uspjelo
+	 */
+	public IOException getMergeError() {
+		return mergeError;
+	}
+
+	/**
+	 * Metoda koja provjerava jesu li segmenti trajno zapisani, odnosno
+	 * nalaze li se u direktoriju zadanom svojstvom sustava
+	 * {@value #DIRECTORY_PROPERTY}
+	 *
+	 * @return <code>true</code> ukoliko se segmenti zapisuju na disk, a
+	 *         <code>false</code> ukoliko se čuvaju samo u memoriji ili su
+	 *         pročitani iz snimke
+	 */
+	public boolean isPersistent() {
+		return persistent;
+	}
+
+	/**
+	 * Metoda koja zapisuje memorijski segment na disk te sve segmente i
+	 * izbrisane dokumente trenutnog stanja zapisuje u direktorij
+	 * <b>target</b>, istim imenima i oblikom kao u direktoriju segmenata.
+	 * Segmenti su nepromjenjivi, pa se segmenti čije su datoteke navedene u
+	 * <b>written</b> ne zapisuju ponovno.
+	 *
+	 * @param target
+	 *            direktorij u koji se datoteke zapisuju
+	 * @param written
+	 *            imena datoteka segmenata koje su već zapisane
+	 * @return imena svih datoteka stanja, uključujući i one koje nisu ponovno
+	 *         zapisane
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	List<String> writeState(Path target, Set<String> written) throws IOException {
+		flush();
+		State current = state;
+
+		List<String> files = new ArrayList<>();
+		for (Segment segment : current.segments) {
+			String file = segment.getName() + SEGMENT_SUFFIX;
+			if (!written.contains(file)) {
+				segment.write(target.resolve(file));
+			}
+			files.add(file);
+
+			BitSet deleted = current.deleted.get(segment.getName());
+			if (deleted != null && !deleted.isEmpty()) {
+				file = segment.getName() + DELETED_SUFFIX;
+				Files.write(target.resolve(file), deleted.toByteArray());
+				files.add(file);
+			}
+		}
+
+		if (!current.baseDeleted.isEmpty()) {
+			List<String> paths = new ArrayList<>();
+			BitSet baseDeleted = current.baseDeleted;
+			for (int doc = baseDeleted.nextSetBit(0); doc >= 0; doc = baseDeleted.nextSetBit(doc + 1)) {
+				paths.add(base.getDocumentVectors().get(doc).getFilePath());
+			}
+			Files.write(target.resolve(BASE_DELETED_FILE), paths, StandardCharsets.UTF_8);
+			files.add(BASE_DELETED_FILE);
+		}
+
+		return files;
+	}
+
+	/**
+	 * Metoda koja spaja sve segmente u jedan i čeka kraj spajanja
+	 *
+	 * @throws IOException
+	 *             Ukoliko spajanje nije uspjelo
+	 * @throws InterruptedException
+	 *             Ukoliko je dretva prekinuta tijekom čekanja
+	 */
+	public void forceMerge() throws IOException, InterruptedException {
+		try {
+			merger.submit(() -> {
+				List<Segment> segments = state.segments;
+				if (segments.size() > 1) {
+					merge(segments);
+				}
+				return null;
+			}).get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new RuntimeException("Spajanje segmenata nije uspjelo", e.getCause());
+		}
+	}
+
+	/**
+	 * Metoda koja pretražuje memorijski segment i sve segmente zapisane na
+	 * disk te spaja njihove liste najboljih rezultata. Težine pojmova upita
+	 * računaju se trenutnom globalnom statistikom (vidi {@link #idf(String)}).
+	 *
+	 * @param queryTerms
+	 *            brojač pojmova upita, zadanih identifikatorima dobivenim
+	 *            metodom {@link #getTermId(String)}
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @return {@link List} najviše <b>maxResults</b> rezultata sortiranih
+	 *         padajuće po sličnosti
+	 */
+	public List<Result> search(TermCounter queryTerms, int maxResults) {
+		return search(queryTerms, maxResults, Collections.emptyList(), Collections.emptySet(), new MetadataFilter());
+	}
+
+	/**
+	 * Metoda koja pretražuje segmente jednako kao metoda
+	 * {@link #search(TermCounter, int)}, ali preskače dokumente koji ne sadrže barem
+	 * jedan pojam svake skupine <b>required</b>, sadrže neki od pojmova
+	 * <b>excluded</b> (vidi {@link Segment#rejected(List, Set)}) ili čije ime
+	 * datoteke ne zadovoljava uvjete <b>filter</b>
+	 *
+	 * @param queryTerms
+	 *            brojač pojmova upita
+	 * @param maxResults
+	 *            maksimalan broj rezultata koji se vraća
+	 * @param required
+	 *            skupine obaveznih pojmova
+	 * @param excluded
+	 *            isključeni pojmovi
+	 * @param filter
+	 *            uvjeti nad metapodacima dokumenata
+	 * @return {@link List} najviše <b>maxResults</b> rezultata sortiranih
+	 *         padajuće po sličnosti
+	 */
+	public List<Result> search(TermCounter queryTerms, int maxResults, List<Set<String>> required,
+			Set<String> excluded, MetadataFilter filter) {
+		State current = state;
+		if (current.segments.isEmpty() && current.memtable == null) {
+			return Collections.emptyList();
+		}
+
+		String[] terms = new String[queryTerms.size()];
+		double[] weights = new double[queryTerms.size()];
+		double modul = 0;
+		for (int i = 0; i < terms.length; i++) {
+			terms[i] = getTerm(queryTerms.term(i));
+			weights[i] = queryTerms.count(i) * idf(terms[i]);
+			modul += weights[i] * weights[i];
+		}
+		modul = Math.sqrt(modul);
+
+		List<Result> results = new ArrayList<>();
+		for (Segment segment : current.segments) {
+			results.addAll(segment.search(terms, weights, modul,
+					skipped(segment, current.deleted.get(segment.getName()), required, excluded, filter), maxResults));
+		}
+		if (current.memtable != null) {
+			results.addAll(current.memtable.search(terms, weights, modul,
+					skipped(current.memtable, null, required, excluded, filter), maxResults));
+		}
+
+		Collections.sort(results);
+		return results.size() > maxResults ? new ArrayList<>(results.subList(0, maxResults)) : results;
+	}
+
+	/**
+	 * Pomoćna metoda koja izbrisanim dokumentima segmenta <b>segment</b>
+	 * pridružuje dokumente koji ne zadovoljavaju logičke uvjete upita ni
+	 * uvjete nad metapodacima
+	 *
+	 * @param segment
+	 *            segment
+	 * @param deleted
+	 *            izbrisani dokumenti segmenta ili <code>null</code>
+	 * @param required
+	 *            skupine obaveznih pojmova
+	 * @param excluded
+	 *            isključeni pojmovi
+	 * @param filter
+	 *            uvjeti nad metapodacima dokumenata
+	 * @return dokumenti koji se preskaču ili <code>null</code>
+	 */
+	private static BitSet skipped(Segment segment, BitSet deleted, List<Set<String>> required,
+			Set<String> excluded, MetadataFilter filter) {
+		if (required.isEmpty() && excluded.isEmpty() && filter.isEmpty()) {
+			return deleted;
+		}
+
+		BitSet skipped = segment.rejected(required, excluded);
+		if (deleted != null) {
+			skipped.or(deleted);
+		}
+		if (!filter.isEmpty()) {
+			for (int doc = skipped.nextClearBit(0); doc < segment.size(); doc = skipped.nextClearBit(doc + 1)) {
+				if (!filter.matches(segment.getPath(doc))) {
+					skipped.set(doc);
+				}
+			}
+		}
+		return skipped;
+	}
+
+	/**
+	 * Metoda koja provjerava je li bazni dokument s putanjom <b>path</b>
+	 * izbrisan (ili zamijenjen novijom inačicom)
+	 *
+	 * @param path
+	 *            putanja baznog dokumenta
+	 * @return <code>true</code> ukoliko je dokument izbrisan, inače
+	 *         <code>false</code>
+	 */
+	public boolean isBaseDeleted(String path) {
+		Integer ordinal = baseOrdinals.get(path);
+		return ordinal != null && state.baseDeleted.get(ordinal);
+	}
+
+	/**
+	 * Metoda koja provjerava sadrži li ijedan segment pojam <b>term</b>
+	 *
+	 * @param term
+	 *            pojam
+	 * @return <code>true</code> ukoliko neki segment sadrži pojam, inače
+	 *         <code>false</code>
+	 */
+	public boolean contains(String term) {
+		State current = state;
+		for (Segment segment : current.segments) {
+			if (segment.getDictionary().contains(term)) {
+				return true;
+			}
+		}
+
+		return current.memtable != null && current.memtable.getDictionary().contains(term);
+	}
+
+	/**
+	 * Metoda koja računa vrijednost idf pojma <b>term</b> iz globalne
+	 * statistike baznog indeksa, svih segmenata i memorijskog segmenta
+	 * trenutno objavljenog stanja, bez zaključavanja. Izbrisani dokumenti
+	 * ulaze u statistiku sve do spajanja.
+	 *
+	 * @param term
+	 *            pojam
+	 * @return vrijednost idf pojma ili 0 ukoliko ga ne sadrži niti jedan
+	 *         dokument
+	 */
+	public double idf(String term) {
+		return idf(term, state);
+	}
+
+	/**
+	 * Pomoćna metoda koja računa vrijednost idf pojma <b>term</b> iz
+	 * statistike stanja <b>current</b> (vidi {@link #idf(String)})
+	 *
+	 * @param term
+	 *            pojam
+	 * @param current
+	 *            stanje indeksa
+	 * @return vrijednost idf pojma ili 0 ukoliko ga ne sadrži niti jedan
+	 *         dokument
+	 */
+	private double idf(String term, State current) {
+		long documents = base.getDocumentVectors().size();
+		long count = 0;
+
+		int baseId = base.getVocabulary().getId(term);
+		if (baseId >= 0) {
+			count += base.getPostingsIndex().documentFrequency(baseId);
+		}
+		for (Segment segment : current.segments) {
+			documents += segment.size();
+			count += segment.documentFrequency(term);
+		}
+		documents += current.memtableSize;
+		int id = getTermId(term);
+		if (id >= 0) {
+			count += current.memtableFrequencies.get(id);
+		}
+
+		return count == 0 ? 0 : Math.log((double) documents / count);
+	}
+
+	/**
+	 * Metoda koja dohvaća segmente zapisane na disk
+	 *
+	 * @return nepromjenjiva {@link List} segmenata
+	 */
+	public List<Segment> getSegments() {
+		return state.segments;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj izbrisanih dokumenata segmenta <b>segment</b>
+	 *
+	 * @param segment
+	 *            segment
+	 * @return broj izbrisanih dokumenata
+	 */
+	public int deletedCount(Segment segment) {
+		BitSet deleted = state.deleted.get(segment.getName());
+		return deleted == null ? 0 : deleted.cardinality();
+	}
+
+	/**
+	 * Metoda koja dohvaća broj izbrisanih baznih dokumenata
+	 *
+	 * @return broj izbrisanih baznih dokumenata
+	 */
+	public int baseDeletedCount() {
+		return state.baseDeleted.cardinality();
+	}
+
+	/**
+	 * Metoda koja dohvaća broj dokumenata memorijskog segmenta
+	 *
+	 * @return broj dokumenata memorijskog segmenta
+	 */
+	public int memtableSize() {
+		return state.memtableSize;
+	}
+
+	/**
+	 * Pomoćna metoda koja briše pohranjenu inačicu dokumenta s putanjom
+	 * <b>path</b> iz baznog indeksa i segmenata zapisanih na disk. Mora se
+	 * pozivati dok je objekt zaključan.
+	 *
+	 * @param path
+	 *            putanja dokumenta
+	 * @return <code>true</code> ukoliko je pronađena neizbrisana inačica
+	 * @throws IOException
+	 *             Ukoliko zapisivanje izbrisanih dokumenata nije uspjelo
+	 */
+	private boolean deleteStored(String path) throws IOException {
+		State current = state;
+		boolean found = false;
+
+		BitSet baseDeleted = current.baseDeleted;
+		Integer ordinal = baseOrdinals.get(path);
+		if (ordinal != null && !baseDeleted.get(ordinal)) {
+			baseDeleted = (BitSet) baseDeleted.clone();
+			baseDeleted.set(ordinal);
+			if (directory != null) {
+				Files.write(directory.resolve(BASE_DELETED_FILE), Collections.singletonList(path),
+						StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			}
+			found = true;
+		}
+
+		Map<String, BitSet> deleted = new HashMap<>(current.deleted);
+		for (Segment segment : current.segments) {
+			int doc = segment.indexOf(path);
+			BitSet bits = deleted.get(segment.getName());
+			if (doc < 0 || bits != null && bits.get(doc)) {
+				continue;
+			}
+
+			bits = bits == null ? new BitSet(segment.size()) : (BitSet) bits.clone();
+			bits.set(doc);
+			deleted.put(segment.getName(), bits);
+			if (directory != null) {
+				Files.write(deletedFile(segment.getName()), bits.toByteArray());
+			}
+			found = true;
+		}
+
+		if (found) {
+			state = current.with(current.segments, deleted, baseDeleted);
+		}
+		return found;
+	}
+
+	/**
+	 * Pomoćna metoda koja iz dokumenata memorijskog segmenta gradi novi
+	 * memorijski segment i objavljuje ga zajedno s brojem dokumenata svakog
+	 * pojma. Težine memorijskog segmenta računaju se statistikom koja već
+	 * uključuje njegove dokumente. Mora se pozivati dok je objekt zaključan.
+	 */
+	private void publishMemtable() {
+		State current = state;
+		TermCounter frequencies = new TermCounter();
+		for (int[] pairs : memtable.values()) {
+			for (int i = 0; i < pairs.length; i += 2) {
+				frequencies.increment(pairs[i]);
+			}
+		}
+
+		State statistics = new State(current.segments, current.deleted, current.baseDeleted, null, memtable.size(),
+				frequencies);
+		Segment segment = memtable.isEmpty() ? null
+				: Segment.build(MEMTABLE_NAME, new LinkedHashMap<>(memtable), this::getTerm,
+						term -> idf(term, statistics));
+		state = new State(current.segments, current.deleted, current.baseDeleted, segment, memtable.size(),
+				frequencies);
+	}
+
+	/**
+	 * Pomoćna metoda koja spaja segmente sve dok politika spajanja pronalazi
+	 * skupinu segmenata za spajanje. Izvodi se na pozadinskoj dretvi, pa se
+	 * pogreška ne prosljeđuje, već se pamti (vidi {@link #getMergeError()}).
+	 */
+	private void mergeWhileNeeded() {
+		try {
+			List<Segment> candidates;
+			while ((candidates = findMerge(state.segments)) != null) {
+				merge(candidates);
+			}
+			mergeError = null;
+		} catch (IOException e) {
+			mergeError = e;
+			MERGE_FAILURES.increment();
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja predstavlja politiku spajanja. Segmenti se
+	 * razvrstavaju u razine po veličini (razina je logaritam veličine po bazi
+	 * {@value #MERGE_FACTOR}), a spaja se prvih {@value #MERGE_FACTOR}
+	 * segmenata najniže razine koja ih ima dovoljno.
+	 *
+	 * @param segments
+	 *            segmenti zapisani na disk
+	 * @return segmenti koji se spajaju ili <code>null</code> ukoliko spajanje
+	 *         nije potrebno
+	 */
+	private static List<Segment> findMerge(List<Segment> segments) {
+		Map<Integer, List<Segment>> tiers = new HashMap<>();
+		int lowest = Integer.MAX_VALUE;
+		for (Segment segment : segments) {
+			int tier = (int) (Math.log(Math.max(1, segment.size())) / Math.log(MERGE_FACTOR));
+			List<Segment> tierSegments = tiers.computeIfAbsent(tier, t -> new ArrayList<>());
+			tierSegments.add(segment);
+			if (tierSegments.size() == MERGE_FACTOR) {
+				lowest = Math.min(lowest, tier);
+			}
+		}
+
+		return lowest == Integer.MAX_VALUE ? null : tiers.get(lowest).subList(0, MERGE_FACTOR);
+	}
+
+	/**
+	 * Pomoćna metoda koja spaja segmente <b>sources</b> u jedan novi segment.
+	 * Novi segment gradi se bez zaključavanja, pri čemu se izbačeni dokumenti
+	 * trajno uklanjaju, a težine se računaju trenutnom globalnom statistikom.
+	 * Dokumenti izbrisani tijekom spajanja označavaju se izbrisanima i u novom
+	 * segmentu.
+	 *
+	 * @param sources
+	 *            segmenti koji se spajaju
+	 * @throws IOException
+	 *             Ukoliko zapisivanje novog segmenta nije uspjelo
+	 */
+	private void merge(List<Segment> sources) throws IOException {
+		long start = System.nanoTime();
+		State snapshot = state;
+
+		Map<String, int[]> documents = new LinkedHashMap<>();
+		for (Segment source : sources) {
+			documents.putAll(source.liveDocuments(snapshot.deleted.get(source.getName()), this::termId));
+		}
+
+		String name;
+		synchronized (this) {
+			name = String.format("segment-%06d", ++generation);
+		}
+		Segment merged = Segment.build(name, documents, this::getTerm, this::idf);
+		if (directory != null) {
+			merged.write(segmentFile(name));
+		}
+
+		synchronized (this) {
+			State current = state;
+			BitSet mergedDeleted = new BitSet(merged.size());
+			Map<String, BitSet> deleted = new HashMap<>(current.deleted);
+			for (Segment source : sources) {
+				BitSet now = deleted.remove(source.getName());
+				if (now == null) {
+					continue;
+				}
+
+				BitSet before = snapshot.deleted.get(source.getName());
+				for (int doc = now.nextSetBit(0); doc >= 0; doc = now.nextSetBit(doc + 1)) {
+					int mergedDoc = merged.indexOf(source.getPath(doc));
+					if ((before == null || !before.get(doc)) && mergedDoc >= 0) {
+						mergedDeleted.set(mergedDoc);
+					}
+				}
+			}
+			if (!mergedDeleted.isEmpty()) {
+				deleted.put(name, mergedDeleted);
+				if (directory != null) {
+					Files.write(deletedFile(name), mergedDeleted.toByteArray());
+				}
+			}
+
+			List<Segment> segments = new ArrayList<>(current.segments);
+			segments.removeAll(sources);
+			segments.add(merged);
+			state = current.with(segments, deleted, current.baseDeleted);
+		}
+
+		if (directory != null) {
+			for (Segment source : sources) {
+				Files.deleteIfExists(segmentFile(source.getName()));
+				Files.deleteIfExists(deletedFile(source.getName()));
+			}
+		}
+		MERGE_TIME.recordSince(start);
+	}
+
+	/**
+	 * Pomoćna metoda koja učitava segmente i izbrisane dokumente zapisane u
+	 * direktoriju segmenata. Segmenti se učitavaju redom nastanka, pa novija
+	 * inačica dokumenta briše stariju, kao i baznu inačicu. Na kraju se
+	 * ponovno izvodi dnevnik memorijskog segmenta (vidi {@link #replayLog()}).
+	 *
+	 * @throws IOException
+	 *             Ukoliko čitanje nije uspjelo
+	 */
+	private synchronized void recover() throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+			stream.forEach(files::add);
+		}
+		Collections.sort(files);
+
+		Path baseDeletedFile = directory.resolve(BASE_DELETED_FILE);
+		if (Files.exists(baseDeletedFile)) {
+			for (String path : Files.readAllLines(baseDeletedFile, StandardCharsets.UTF_8)) {
+				Integer ordinal = baseOrdinals.get(path);
+				if (ordinal != null) {
+					state.baseDeleted.set(ordinal);
+				}
+			}
+		}
+
+		for (Path file : files) {
+			Segment segment = Segment.read(file);
+			generation = Math.max(generation, Integer.parseInt(segment.getName().replaceAll("\\D", "")));
+
+			BitSet deleted = new BitSet(segment.size());
+			Path deletedFile = deletedFile(segment.getName());
+			if (Files.exists(deletedFile)) {
+				deleted = BitSet.valueOf(Files.readAllBytes(deletedFile));
+			}
+
+			for (int doc = 0; doc < segment.size(); doc++) {
+				if (!deleted.get(doc)) {
+					deleteStored(segment.getPath(doc));
+				}
+			}
+
+			List<Segment> segments = new ArrayList<>(state.segments);
+			segments.add(segment);
+			Map<String, BitSet> allDeleted = new HashMap<>(state.deleted);
+			allDeleted.put(segment.getName(), deleted);
+			state = new State(segments, allDeleted, state.baseDeleted);
+		}
+
+		replayLog();
+	}
+
+	/**
+	 * Pomoćna metoda koja ponovno izvodi dodavanja i brisanja zapisana u
+	 * dnevniku memorijskog segmenta. Nepotpuni zadnji zapis (nastao prekidom
+	 * tijekom zapisivanja) se zanemaruje i odbacuje iz dnevnika. Mora se
+	 * pozivati dok je objekt zaključan.
+	 *
+	 * @throws IOException
+	 *             Ukoliko čitanje dnevnika nije uspjelo
+	 */
+	private void replayLog() throws IOException {
+		Path file = directory.resolve(LOG_FILE);
+		if (!Files.exists(file)) {
+			return;
+		}
+
+		byte[] bytes = Files.readAllBytes(file);
+		ByteArrayInputStream records = new ByteArrayInputStream(bytes);
+		DataInputStream in = new DataInputStream(records);
+		int valid = 0;
+		try {
+			for (int operation; (operation = in.read()) != -1; valid = bytes.length - records.available()) {
+				String path = in.readUTF();
+				if (operation == LOG_ADD) {
+					int[] pairs = new int[2 * in.readInt()];
+					for (int i = 0; i < pairs.length; i += 2) {
+						pairs[i] = termId(in.readUTF());
+						pairs[i + 1] = in.readInt();
+					}
+					deleteStored(path);
+					memtable.put(path, pairs);
+				} else if (operation == LOG_DELETE) {
+					memtable.remove(path);
+				} else {
+					throw new IOException("Neispravan zapis dnevnika " + file);
+				}
+			}
+		} catch (EOFException e) {
+			// nepotpuni zadnji zapis se odbacuje
+		}
+
+		publishMemtable();
+		if (persistent) {
+			openLog().truncate(valid);
+		}
+	}
+
+	/**
+	 * Pomoćna metoda koja zapisuje operaciju <b>operation</b> nad dokumentom
+	 * s putanjom <b>path</b> na kraj dnevnika i čeka da zapis dospije na
+	 * disk. U privremenom direktoriju dnevnik se ne vodi. Mora se pozivati dok
+	 * je objekt zaključan.
+	 *
+	 * @param operation
+	 *            oznaka operacije
+	 * @param path
+	 *            putanja dokumenta
+	 * @param pairs
+	 *            parovi (identifikator pojma, broj pojavljivanja) dodanog
+	 *            dokumenta ili <code>null</code> za brisanje
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	private void appendLog(int operation, String path, int[] pairs) throws IOException {
+		if (!persistent) {
+			return;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.write(operation);
+		out.writeUTF(path);
+		if (pairs != null) {
+			out.writeInt(pairs.length / 2);
+			for (int i = 0; i < pairs.length; i += 2) {
+				out.writeUTF(getTerm(pairs[i]));
+				out.writeInt(pairs[i + 1]);
+			}
+		}
+
+		FileChannel channel = openLog();
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, channel.size());
+		}
+		channel.force(false);
+	}
+
+	/**
+	 * Pomoćna metoda koja otvara dnevnik memorijskog segmenta prilikom prvog
+	 * poziva
+	 *
+	 * @return dnevnik memorijskog segmenta
+	 * @throws IOException
+	 *             Ukoliko otvaranje nije uspjelo
+	 */
+	private FileChannel openLog() throws IOException {
+		if (log == null) {
+			log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+		}
+
+		return log;
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća putanju datoteke segmenta
+	 *
+	 * @param name
+	 *            ime segmenta
+	 * @return putanja datoteke segmenta
+	 */
+	private Path segmentFile(String name) {
+		return directory.resolve(name + SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća putanju datoteke izbrisanih dokumenata
+	 * segmenta
+	 *
+	 * @param name
+	 *            ime segmenta
+	 * @return putanja datoteke izbrisanih dokumenata
+	 */
+	private Path deletedFile(String name) {
+		return directory.resolve(name + DELETED_SUFFIX);
+	}
+}
@@ -0,0 +1,28 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.IOException;
+
+/**
+ * Razred koji predstavlja iznimku koja se baca kada inačica snimke indeksa
+ * nije ispravna: datoteka ne odgovara duljini ili zaštitnoj sumi iz opisa
+ * ili opis nije ispravnog oblika (vidi {@link IndexSnapshot}). Za razliku od
+ * ostalih ulazno-izlaznih pogrešaka, ponovno čitanje iste inačice ne može
+ * uspjeti, pa je replika trajno odbacuje (vidi {@link SnapshotReplica}).
+ *
+ * @author Davor Češljaš
+ */
+public class SnapshotCorruptedException extends IOException {
+
+	/** Konstanta koja predstavlja inačicu serijalizacije razreda */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Konstruktor koji inicijalizira iznimku s porukom <b>message</b>
+	 *
+	 * @param message
+	 *            opis pogreške
+	 */
+	public SnapshotCorruptedException(String message) {
+		super(message);
+	}
+}
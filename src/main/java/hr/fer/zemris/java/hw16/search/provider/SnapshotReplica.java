@@ -0,0 +1,403 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import hr.fer.zemris.java.hw16.search.metrics.Counter;
+import hr.fer.zemris.java.hw16.search.metrics.LatencyHistogram;
+import hr.fer.zemris.java.hw16.search.metrics.MetricsRegistry;
+
+/**
+ * Razred koji predstavlja repliku za čitanje (engl. read replica): proces
+ * koji upite izvodi nad indeksima pročitanima iz snimki (vidi
+ * {@link IndexSnapshot}) koje izvozi proces koji gradi indekse (vidi
+ * {@link SnapshotWriter}), bez čitanja i analize samih dokumenata. Zajednički
+ * direktorij snimki zadaje se svojstvom sustava {@value #DIRECTORY_PROPERTY},
+ * a svaki njegov poddirektorij sadrži snimke jednog indeksa.
+ * <p>
+ * Metoda {@link #refresh()} za svaki indeks pronalazi najnoviju inačicu,
+ * provjerava zaštitne sume njenih datoteka, čita je te je postavlja u registar
+ * {@link IndexRegistry} zamjenom reference (vidi
+ * {@link IndexRegistry#install(String, String, SearchProvider)}), pa se upiti
+ * u tijeku ne prekidaju. Bazni indeks čita se ponovno samo ukoliko se
+ * promijenio, a inače nova inačica dijeli bazni indeks i nepromijenjene
+ * sažete blokove s prethodnom. Neispravna inačica (vidi
+ * {@link SnapshotCorruptedException}) trajno se odbacuje i replika nastavlja
+ * raditi s prethodnom inačicom, a inačica čije čitanje nije uspjelo zbog
+ * ostalih ulazno-izlaznih pogrešaka ponovno se čita pri sljedećoj provjeri. Metodom {@link #start()} provjera
+ * se pokreće u pozadinskoj dretvi svakih onoliko milisekundi koliko je zadano
+ * svojstvom sustava {@value #INTERVAL_PROPERTY} (pretpostavljeno
+ * {@value #DEFAULT_INTERVAL}).
+ *
+ * @see SnapshotWriter
+ *
+ * @author Davor Češljaš
+ */
+public class SnapshotReplica {
+
+	/**
+	 * Konstanta koja predstavlja ime svojstva sustava sa zajedničkim
+	 * direktorijem snimki koje replika čita
+	 */
+	public static final String DIRECTORY_PROPERTY = "search.replica.dir";
+
+	/**
+	 * Konstanta koja predstavlja ime svojstva sustava s brojem milisekundi
+	 * između dvije provjere direktorija snimki
+	 */
+	public static final String INTERVAL_PROPERTY = "search.replica.interval";
+
+	/** Konstanta koja predstavlja pretpostavljeni broj milisekundi provjere */
+	public static final long DEFAULT_INTERVAL = 1000;
+
+	/** Konstanta koja predstavlja mjerenje trajanja čitanja inačice */
+	private static final LatencyHistogram LOAD_TIME = MetricsRegistry.getRegistry().histogram("replica.load");
+
+	/** Konstanta koja predstavlja brojač postavljenih inačica */
+	private static final Counter SWAPS = MetricsRegistry.getRegistry().counter("replica.swaps");
+
+	/** Konstanta koja predstavlja brojač odbačenih inačica */
+	private static final Counter REJECTED = MetricsRegistry.getRegistry().counter("replica.rejected");
+
+	/**
+	 * Konstanta koja predstavlja brojač inačica čije čitanje nije uspjelo zbog
+	 * pogreške koja ne ovisi o sadržaju inačice, pa se ono ponavlja
+	 */
+	private static final Counter RETRIES = MetricsRegistry.getRegistry().counter("replica.retries");
+
+	/**
+	 * Razred koji predstavlja postavljenu inačicu snimke jednog indeksa
+	 */
+	private static class Installed {
+
+		/** Članska varijabla koja predstavlja opis inačice */
+		private final IndexSnapshot snapshot;
+
+		/** Članska varijabla koja predstavlja pročitani indeks */
+		private final SearchProvider provider;
+
+		/** Članska varijabla koja predstavlja sažete blokove po imenu datoteke */
+		private final Map<String, byte[]> blocks;
+
+		/** Članska varijabla koja predstavlja lokalni direktorij segmenata */
+		private final Path segmentsDirectory;
+
+		/**
+		 * Konstruktor koji inicijalizira primjerak ovog razreda
+		 *
+		 * @param snapshot
+		 *            opis inačice
+		 * @param provider
+		 *            pročitani indeks
+		 * @param blocks
+		 *            sažeti blokovi po imenu datoteke
+		 * @param segmentsDirectory
+		 *            lokalni direktorij segmenata
+		 */
+		private Installed(IndexSnapshot snapshot, SearchProvider provider, Map<String, byte[]> blocks,
+				Path segmentsDirectory) {
+			this.snapshot = snapshot;
+			this.provider = provider;
+			this.blocks = blocks;
+			this.segmentsDirectory = segmentsDirectory;
+		}
+	}
+
+	/** Članska varijabla koja predstavlja zajednički direktorij snimki */
+	private final Path directory;
+
+	/** Članska varijabla koja predstavlja postavljene inačice po indeksu */
+	private final Map<String, Installed> installed = new HashMap<>();
+
+	/** Članska varijabla koja predstavlja zadnju odbačenu inačicu po indeksu */
+	private final Map<String, Long> rejected = new HashMap<>();
+
+	/** Članska varijabla koja predstavlja razloge odbacivanja po indeksu */
+	private final Map<String, String> errors = new LinkedHashMap<>();
+
+	/**
+	 * Članska varijabla koja predstavlja izvršitelja periodične provjere ili
+	 * <code>null</code> ukoliko ona nije pokrenuta
+	 */
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Konstruktor koji inicijalizira repliku nad zajedničkim direktorijem
+	 * snimki <b>directory</b>
+	 *
+	 * @param directory
+	 *            zajednički direktorij snimki
+	 */
+	public SnapshotReplica(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Metoda koja za svaki indeks zajedničkog direktorija postavlja najnoviju
+	 * ispravnu inačicu snimke, ukoliko je novija od postavljene. Pogreške se
+	 * ne prosljeđuju, već se pamte (vidi {@link #getErrors()}), kako ne bi
+	 * prekinule periodičnu provjeru. Inačica čije datoteke ne odgovaraju opisu
+	 * ili nisu ispravnog oblika trajno se odbacuje, a nakon ostalih pogrešaka
+	 * (npr. datoteka trenutno nije dostupna) ponovno se čita pri sljedećoj
+	 * provjeri.
+	 *
+	 * @return broj indeksa za koje je postavljena nova inačica
+	 */
+	public synchronized int refresh() {
+		List<Path> indexDirectories = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isDirectory)) {
+			stream.forEach(indexDirectories::add);
+		} catch (IOException e) {
+			errors.put(directory.toString(), "Direktorij snimki nije moguće pročitati: " + e.getMessage());
+			return 0;
+		}
+		errors.remove(directory.toString());
+		Collections.sort(indexDirectories);
+
+		int swapped = 0;
+		for (Path indexDirectory : indexDirectories) {
+			String name = indexDirectory.getFileName().toString();
+			IndexSnapshot snapshot = null;
+			try {
+				snapshot = IndexSnapshot.latest(indexDirectory);
+				Installed current = installed.get(name);
+				if (snapshot == null || current != null && snapshot.getVersion() <= current.snapshot.getVersion()
+						|| Long.valueOf(snapshot.getVersion()).equals(rejected.get(name))) {
+					continue;
+				}
+
+				install(name, indexDirectory, snapshot, current);
+				errors.remove(name);
+				swapped++;
+			} catch (SnapshotCorruptedException | EOFException | UTFDataFormatException | RuntimeException e) {
+				REJECTED.increment();
+				if (snapshot != null) {
+					rejected.put(name, snapshot.getVersion());
+				}
+				errors.put(name, e.getMessage());
+			} catch (IOException e) {
+				RETRIES.increment();
+				errors.put(name, e.getMessage());
+			}
+		}
+
+		return swapped;
+	}
+
+	/**
+	 * Metoda koja pokreće periodičnu provjeru zajedničkog direktorija u
+	 * pozadinskoj (engl. daemon) dretvi. Ukoliko je provjera već pokrenuta,
+	 * metoda ne radi ništa.
+	 *
+	 * @throws IllegalArgumentException
+	 *             Ukoliko svojstvom sustava {@value #INTERVAL_PROPERTY} nije
+	 *             zadan pozitivan broj
+	 */
+	public synchronized void start() {
+		if (executor != null) {
+			return;
+		}
+
+		long interval = Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL);
+		if (interval < 1) {
+			throw new IllegalArgumentException("Period provjere snimki mora biti barem jedna milisekunda");
+		}
+
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "snapshot-replica");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Metoda koja zaustavlja periodičnu provjeru, ukoliko je ona pokrenuta
+	 *
+	 * @return <code>true</code> ukoliko je provjera bila pokrenuta, inače
+	 *         <code>false</code>
+	 */
+	public synchronized boolean stop() {
+		if (executor == null) {
+			return false;
+		}
+
+		executor.shutdownNow();
+		executor = null;
+		return true;
+	}
+
+	/**
+	 * Metoda koja dohvaća postavljenu inačicu snimke indeksa s imenom
+	 * <b>name</b>
+	 *
+	 * @param name
+	 *            ime indeksa
+	 * @return inačica snimke ili 0 ukoliko niti jedna inačica nije postavljena
+	 */
+	public synchronized long getVersion(String name) {
+		Installed current = installed.get(name);
+		return current == null ? 0 : current.snapshot.getVersion();
+	}
+
+	/**
+	 * Metoda koja dohvaća razloge zbog kojih zadnja provjera nije postavila
+	 * najnoviju inačicu pojedinog indeksa
+	 *
+	 * @return {@link Map} imena indeksa (ili direktorija snimki) na opis
+	 *         pogreške
+	 */
+	public synchronized Map<String, String> getErrors() {
+		return new LinkedHashMap<>(errors);
+	}
+
+	/**
+	 * Pomoćna metoda koja provjerava, čita i postavlja inačicu <b>snapshot</b>
+	 * indeksa s imenom <b>name</b>. Segmenti inačice kopiraju se u lokalni
+	 * privremeni direktorij, a direktorij prethodne inačice briše se nakon
+	 * zamjene.
+	 *
+	 * @param name
+	 *            ime indeksa
+	 * @param indexDirectory
+	 *            direktorij snimki indeksa
+	 * @param snapshot
+	 *            opis inačice koja se postavlja
+	 * @param current
+	 *            trenutno postavljena inačica ili <code>null</code>
+	 * @throws SnapshotCorruptedException
+	 *             Ukoliko inačica nije ispravna
+	 * @throws IOException
+	 *             Ukoliko se inačica ne može pročitati
+	 */
+	private void install(String name, Path indexDirectory, IndexSnapshot snapshot, Installed current)
+			throws IOException {
+		long start = System.nanoTime();
+		snapshot.validate(indexDirectory, current == null ? null : current.snapshot);
+
+		SearchProvider base;
+		if (current != null && sameFile(current, snapshot, SnapshotWriter.VOCABULARY_FILE)
+				&& sameFile(current, snapshot, SnapshotWriter.DOCUMENTS_FILE)) {
+			base = current.provider;
+		} else {
+			try (DataInputStream vocabulary = open(snapshot.resolve(indexDirectory, SnapshotWriter.VOCABULARY_FILE));
+					DataInputStream documents = open(snapshot.resolve(indexDirectory, SnapshotWriter.DOCUMENTS_FILE))) {
+				base = SearchProvider.readSnapshot(name, vocabulary, documents);
+			}
+		}
+
+		Map<String, byte[]> blocks = new LinkedHashMap<>();
+		for (int block = 0;; block++) {
+			String file = String.format("%s%06d", SnapshotWriter.BLOCK_PREFIX, block);
+			if (!snapshot.getFiles().containsKey(file)) {
+				break;
+			}
+
+			byte[] bytes = current != null && sameFile(current, snapshot, file) ? current.blocks.get(file)
+					: Files.readAllBytes(snapshot.resolve(indexDirectory, file));
+			blocks.put(file, bytes);
+		}
+		DocumentStore store;
+		try (DataInputStream in = open(snapshot.resolve(indexDirectory, SnapshotWriter.STORE_FILE))) {
+			store = DocumentStore.read(in, new ArrayList<>(blocks.values()));
+		}
+
+		Path segmentsDirectory = Files.createTempDirectory("search-replica");
+		SearchProvider provider;
+		try {
+			for (String file : snapshot.getFiles().keySet()) {
+				if (!file.equals(SnapshotWriter.VOCABULARY_FILE) && !file.equals(SnapshotWriter.DOCUMENTS_FILE)
+						&& !file.equals(SnapshotWriter.STORE_FILE) && !blocks.containsKey(file)) {
+					Files.copy(snapshot.resolve(indexDirectory, file), segmentsDirectory.resolve(file));
+				}
+			}
+			provider = base.withSnapshotState(snapshot.getVersion(), store, segmentsDirectory);
+		} catch (IOException | RuntimeException e) {
+			delete(segmentsDirectory);
+			throw e;
+		}
+
+		IndexRegistry.getRegistry().install(name, indexDirectory.toString(), provider);
+		installed.put(name, new Installed(snapshot, provider, blocks, segmentsDirectory));
+		SWAPS.increment();
+		if (current != null) {
+			try {
+				delete(current.segmentsDirectory);
+			} catch (IOException ignorable) {
+			}
+		}
+		LOAD_TIME.recordSince(start);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja provjerava je li datoteka <b>file</b> ista
+	 * u postavljenoj inačici <b>current</b> i inačici <b>snapshot</b>
+	 *
+	 * @param current
+	 *            postavljena inačica
+	 * @param snapshot
+	 *            nova inačica
+	 * @param file
+	 *            ime datoteke
+	 * @return <code>true</code> ukoliko se nova inačica poziva na istu
+	 *         datoteku
+	 */
+	private static boolean sameFile(Installed current, IndexSnapshot snapshot, String file) {
+		IndexSnapshot.SnapshotFile snapshotFile = snapshot.getFiles().get(file);
+		return snapshotFile != null && snapshotFile.equals(current.snapshot.getFiles().get(file));
+	}
+
+	/**
+	 * Pomoćna statička metoda koja otvara datoteku <b>file</b> za čitanje
+	 *
+	 * @param file
+	 *            putanja do datoteke
+	 * @return ulaz datoteke
+	 * @throws IOException
+	 *             Ukoliko datoteku nije moguće otvoriti
+	 */
+	private static DataInputStream open(Path file) throws IOException {
+		return new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+	}
+
+	/**
+	 * Pomoćna statička metoda koja briše direktorij <b>directory</b> sa svim
+	 * datotekama
+	 *
+	 * @param directory
+	 *            direktorij koji se briše
+	 * @throws IOException
+	 *             Ukoliko brisanje nije uspjelo
+	 */
+	private static void delete(Path directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					Files.delete(path);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import hr.fer.zemris.java.hw16.search.metrics.Counter;
+import hr.fer.zemris.java.hw16.search.metrics.LatencyHistogram;
+import hr.fer.zemris.java.hw16.search.metrics.MetricsRegistry;
+
+/**
+ * Razred koji izvozi snimke indeksa (vidi {@link IndexSnapshot}) u direktorij
+ * snimki iz kojeg ih čitaju replike (vidi {@link SnapshotReplica}), pa replike
+ * nikad ne čitaju niti analiziraju same dokumente. Snimke svakog indeksa
+ * zapisuju se u poddirektorij s imenom indeksa, a svakim izvozom nastaje nova
+ * inačica koju čine sljedeće datoteke:
+ * <ul>
+ * <li><code>{@value #VOCABULARY_FILE}</code> - vokabular s vrijednostima idf,
+ * brojevima pojavljivanja i najčešćim oblicima pojmova</li>
+ * <li><code>{@value #DOCUMENTS_FILE}</code> - tablica dokumenata s vektorima,
+ * duplikatima i tablicama riječi za isječke</li>
+ * <li><code>{@value #STORE_FILE}</code> - položaji tekstova unutar spremišta
+ * {@link DocumentStore} te blok koji se trenutno puni, a svaki sažeti blok
+ * zapisan je u vlastitu datoteku <code>{@value #BLOCK_PREFIX}NNNNNN</code></li>
+ * <li>segmenti i izbrisani dokumenti, u obliku u kojem ih zapisuje
+ * {@link SegmentedIndex}</li>
+ * </ul>
+ * U direktorij nove inačice zapisuju se samo datoteke koje se razlikuju od
+ * istoimenih datoteka prethodne inačice. Bazni indeks, sažeti blokovi i
+ * segmenti se nakon nastanka ne mijenjaju, pa se za isti primjerak indeksa
+ * zapisuju samo jednom, a ostale se datoteke zapisuju pri svakom izvozu i
+ * uspoređuju zaštitnom sumom. Ukoliko se indeks nije promijenio, nova inačica
+ * se ne stvara. Nakon izvoza brišu se datoteke inačica starijih od zadnjih
+ * {@value #RETAINED_VERSIONS} na koje se ne poziva niti jedna zadržana
+ * inačica.
+ * <p>
+ * Svaki direktorij snimki smije imati samo jednog pisca, pa se primjerci
+ * ovog razreda dohvaćaju metodom {@link #getWriter(Path)}.
+ *
+ * @see IndexSnapshot
+ * @see SnapshotReplica
+ *
+ * @author Davor Češljaš
+ */
+public class SnapshotWriter {
+
+	/** Konstanta koja predstavlja ime svojstva sustava s direktorijem snimki */
+	public static final String DIRECTORY_PROPERTY = "search.snapshot.dir";
+
+	/** Konstanta koja predstavlja broj zadržanih inačica */
+	public static final int RETAINED_VERSIONS = 4;
+
+	/** Konstanta koja predstavlja ime datoteke vokabulara */
+	static final String VOCABULARY_FILE = "vocabulary";
+
+	/** Konstanta koja predstavlja ime datoteke tablice dokumenata */
+	static final String DOCUMENTS_FILE = "documents";
+
+	/** Konstanta koja predstavlja ime datoteke spremišta tekstova */
+	static final String STORE_FILE = "store";
+
+	/** Konstanta koja predstavlja prefiks imena datoteka sažetih blokova */
+	static final String BLOCK_PREFIX = "store-";
+
+	/** Konstanta koja predstavlja mjerenje trajanja izvoza */
+	private static final LatencyHistogram EXPORT_TIME = MetricsRegistry.getRegistry().histogram("snapshot.export");
+
+	/** Konstanta koja predstavlja brojač okteta zapisanih u nove inačice */
+	private static final Counter EXPORTED_BYTES = MetricsRegistry.getRegistry().counter("snapshot.bytes");
+
+	/** Konstanta koja predstavlja pisce po direktoriju snimki */
+	private static final Map<Path, SnapshotWriter> WRITERS = new HashMap<>();
+
+	/**
+	 * Sučelje koje predstavlja zapisivanje sadržaja jedne datoteke snimke
+	 */
+	private interface IContentWriter {
+
+		/**
+		 * Metoda koja zapisuje sadržaj u izlaz <b>out</b>
+		 *
+		 * @param out
+		 *            izlaz datoteke
+		 * @throws IOException
+		 *             Ukoliko zapisivanje nije uspjelo
+		 */
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	/** Članska varijabla koja predstavlja direktorij snimki */
+	private final Path directory;
+
+	/**
+	 * Članska varijabla koja predstavlja zadnji izvezeni indeks ili
+	 * <code>null</code>
+	 */
+	private SearchProvider exported;
+
+	/**
+	 * Članska varijabla koja predstavlja već zapisane nepromjenjive datoteke
+	 * zadnjeg izvezenog indeksa
+	 */
+	private final Map<String, IndexSnapshot.SnapshotFile> immutable = new HashMap<>();
+
+	/**
+	 * Privatni konstruktor koji inicijalizira pisca nad direktorijem snimki
+	 * <b>directory</b>
+	 *
+	 * @param directory
+	 *            direktorij snimki
+	 */
+	private SnapshotWriter(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Statička metoda koja dohvaća jedinog pisca direktorija snimki
+	 * <b>directory</b> unutar ovog procesa
+	 *
+	 * @param directory
+	 *            direktorij snimki
+	 * @return pisac direktorija snimki
+	 */
+	public static synchronized SnapshotWriter getWriter(Path directory) {
+		return WRITERS.computeIfAbsent(directory.toAbsolutePath().normalize(), SnapshotWriter::new);
+	}
+
+	/**
+	 * Metoda koja dohvaća direktorij snimki
+	 *
+	 * @return direktorij snimki
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Metoda koja izvozi novu inačicu snimke indeksa <b>provider</b>.
+	 * Memorijski segment indeksa prethodno se zapisuje na disk (vidi
+	 * {@link SegmentedIndex#flush()}).
+	 *
+	 * @param provider
+	 *            indeks koji se izvozi
+	 * @return opis nove inačice ili opis prethodne inačice ukoliko se indeks
+	 *         nije promijenio
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 * @throws IllegalArgumentException
+	 *             Ukoliko je indeks pročitan iz snimke
+	 */
+	public synchronized IndexSnapshot export(SearchProvider provider) throws IOException {
+		if (provider.getSnapshotVersion() != 0) {
+			throw new IllegalArgumentException(
+					String.format("Indeks '%s' pročitan je iz snimke i ne može se izvesti", provider.getName()));
+		}
+
+		long start = System.nanoTime();
+		Path indexDirectory = Files.createDirectories(directory.resolve(provider.getName()));
+		IndexSnapshot previous = IndexSnapshot.latest(indexDirectory);
+		Map<String, IndexSnapshot.SnapshotFile> previousFiles = previous == null ? Collections.emptyMap()
+				: previous.getFiles();
+		if (provider != exported || !previousFiles.entrySet().containsAll(immutable.entrySet())) {
+			exported = provider;
+			immutable.clear();
+		}
+
+		List<Long> versions = IndexSnapshot.versions(indexDirectory);
+		long version = versions.isEmpty() ? 1 : versions.get(versions.size() - 1) + 1;
+		Path target = Files.createDirectories(indexDirectory.resolve(IndexSnapshot.versionDirectory(version)));
+
+		List<String> names = new ArrayList<>();
+		writeFile(target, VOCABULARY_FILE, provider::writeVocabulary, names);
+		writeFile(target, DOCUMENTS_FILE, provider::writeDocuments, names);
+
+		DocumentStore store = provider.getDocumentStore();
+		int[] blocks = new int[1];
+		writeFile(target, STORE_FILE, out -> blocks[0] = store.writeIndex(out), names);
+		for (int block = 0; block < blocks[0]; block++) {
+			byte[] bytes = store.getBlock(block);
+			writeFile(target, String.format("%s%06d", BLOCK_PREFIX, block), out -> out.write(bytes), names);
+		}
+		names.addAll(provider.getSegmentedIndex().writeState(target, immutable.keySet()));
+
+		Map<String, IndexSnapshot.SnapshotFile> files = new LinkedHashMap<>();
+		for (String name : names) {
+			IndexSnapshot.SnapshotFile file = immutable.get(name);
+			if (file == null) {
+				Path path = target.resolve(name);
+				file = new IndexSnapshot.SnapshotFile(version, Files.size(path), IndexSnapshot.checksum(path));
+				IndexSnapshot.SnapshotFile previousFile = previousFiles.get(name);
+				if (previousFile != null && previousFile.sameContent(file)) {
+					Files.delete(path);
+					file = previousFile;
+				}
+				if (isImmutable(name)) {
+					immutable.put(name, file);
+				}
+			}
+			files.put(name, file);
+		}
+		immutable.keySet().retainAll(files.keySet());
+
+		if (previous != null && files.equals(previousFiles)) {
+			Files.delete(target);
+			EXPORT_TIME.recordSince(start);
+			return previous;
+		}
+
+		IndexSnapshot snapshot = new IndexSnapshot(provider.getName(), version, files);
+		snapshot.write(indexDirectory);
+		EXPORTED_BYTES.add(snapshot.deltaSizeInBytes());
+		prune(indexDirectory);
+		EXPORT_TIME.recordSince(start);
+		return snapshot;
+	}
+
+	/**
+	 * Pomoćna metoda koja zapisuje datoteku <b>name</b> u direktorij inačice
+	 * <b>target</b>, osim ukoliko je riječ o već zapisanoj nepromjenjivoj
+	 * datoteci, te njeno ime dodaje u <b>names</b>
+	 *
+	 * @param target
+	 *            direktorij inačice
+	 * @param name
+	 *            ime datoteke
+	 * @param content
+	 *            zapisivanje sadržaja datoteke
+	 * @param names
+	 *            imena svih datoteka inačice
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	private void writeFile(Path target, String name, IContentWriter content, List<String> names)
+			throws IOException {
+		names.add(name);
+		if (immutable.containsKey(name)) {
+			return;
+		}
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(target.resolve(name))))) {
+			content.write(out);
+		}
+	}
+
+	/**
+	 * Pomoćna statička metoda koja provjerava mijenja li se datoteka s imenom
+	 * <b>name</b> nakon nastanka
+	 *
+	 * @param name
+	 *            ime datoteke
+	 * @return <code>true</code> ukoliko je datoteka dio baznog indeksa, sažeti
+	 *         blok ili segment
+	 */
+	private static boolean isImmutable(String name) {
+		return name.equals(VOCABULARY_FILE) || name.equals(DOCUMENTS_FILE) || name.startsWith(BLOCK_PREFIX)
+				|| name.endsWith(SegmentedIndex.SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja iz inačica starijih od zadnjih
+	 * {@value #RETAINED_VERSIONS} briše opis i sve datoteke na koje se ne
+	 * poziva niti jedna zadržana inačica, a prazne direktorije inačica uklanja
+	 *
+	 * @param indexDirectory
+	 *            direktorij snimki indeksa
+	 * @throws IOException
+	 *             Ukoliko brisanje nije uspjelo
+	 */
+	private static void prune(Path indexDirectory) throws IOException {
+		List<Long> versions = IndexSnapshot.versions(indexDirectory);
+		if (versions.size() <= RETAINED_VERSIONS) {
+			return;
+		}
+
+		Set<Path> referenced = new HashSet<>();
+		for (long version : versions.subList(versions.size() - RETAINED_VERSIONS, versions.size())) {
+			Path manifest = indexDirectory.resolve(IndexSnapshot.versionDirectory(version))
+					.resolve(IndexSnapshot.MANIFEST);
+			if (!Files.exists(manifest)) {
+				continue;
+			}
+
+			IndexSnapshot snapshot = IndexSnapshot.read(manifest);
+			for (String file : snapshot.getFiles().keySet()) {
+				referenced.add(snapshot.resolve(indexDirectory, file));
+			}
+		}
+
+		for (long version : versions.subList(0, versions.size() - RETAINED_VERSIONS)) {
+			Path versionDirectory = indexDirectory.resolve(IndexSnapshot.versionDirectory(version));
+			boolean empty = true;
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(versionDirectory)) {
+				for (Path file : stream) {
+					if (referenced.contains(file)) {
+						empty = false;
+					} else {
+						Files.delete(file);
+					}
+				}
+			}
+
+			if (empty) {
+				Files.delete(versionDirectory);
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pomoćni razred koji prilikom izgradnje indeksa broji oblike riječi teksta
+ * (svedene na mala slova, ali ne i na korijen) iz kojih je nastao pojedini
+ * pojam vokabulara. Najčešći oblik pojma prikazuje se korisniku umjesto
+ * samog pojma, primjerice prilikom dovršavanja riječi upita (vidi
+ * {@link CompletionIndex#surfaceForm(int)}), jer korisnik nikada ne bi
+ * upisao korijen poput "nogometn".
+ *
+ * @author Davor Češljaš
+ */
+class SurfaceForms {
+
+	/**
+	 * Članska varijabla koja predstavlja {@link Map} pojmova na brojeve
+	 * pojavljivanja pojedinog oblika tog pojma
+	 */
+	private Map<String, Map<String, Integer>> forms = new HashMap<>();
+
+	/**
+	 * Metoda koja bilježi jedno pojavljivanje oblika <b>form</b> iz kojeg je
+	 * analizom nastao pojam <b>term</b>
+	 *
+	 * @param term
+	 *            pojam vokabulara
+	 * @param form
+	 *            riječ teksta svedena na mala slova
+	 */
+	void add(String term, String form) {
+		forms.computeIfAbsent(term, t -> new HashMap<>(4)).merge(form, 1, Integer::sum);
+	}
+
+	/**
+	 * Metoda koja za svaki pojam rječnika <b>vocabulary</b> određuje najčešći
+	 * oblik. Od jednako čestih oblika odabire se leksikografski manji, a
+	 * pojmu bez zabilježenih oblika odgovara <code>null</code>.
+	 *
+	 * @param vocabulary
+	 *            rječnik pojmova
+	 * @return najčešći oblici pojmova, indeksirani identifikatorom pojma
+	 */
+	String[] mostFrequent(TermDictionary vocabulary) {
+		String[] mostFrequent = new String[vocabulary.size()];
+		for (Map.Entry<String, Map<String, Integer>> term : forms.entrySet()) {
+			int id = vocabulary.getId(term.getKey());
+			if (id < 0) {
+				continue;
+			}
+
+			String best = null;
+			int bestCount = 0;
+			for (Map.Entry<String, Integer> form : term.getValue().entrySet()) {
+				int count = form.getValue();
+				if (count > bestCount || count == bestCount && form.getKey().compareTo(best) < 0) {
+					best = form.getKey();
+					bestCount = count;
+				}
+			}
+			mostFrequent[id] = best;
+		}
+
+		return mostFrequent;
+	}
+}
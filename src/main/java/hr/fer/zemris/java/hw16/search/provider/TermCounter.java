@@ -0,0 +1,189 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.util.Arrays;
+
+/**
+ * Razred koji predstavlja brojač pojavljivanja pojmova zadanih nenegativnim
+ * cjelobrojnim identifikatorima. Identifikatori i brojevi pojavljivanja čuvaju
+ * se u poljima tablice raspršenog adresiranja s linearnim ispitivanjem, pa
+ * brojanje ne stvara niti jedan objekt. Zauzeta mjesta tablice pamte se
+ * redom dodavanja, čime se pojmovi prolaze i brišu u vremenu razmjernom broju
+ * različitih pojmova, a ne veličini tablice. Primjerak se zato može ponovno
+ * koristiti za svaki dokument ili upit iste dretve; primjerci ovog razreda
+ * nisu sigurni za korištenje iz više dretvi.
+ *
+ * @author Davor Češljaš
+ */
+public class TermCounter {
+
+	/** Konstanta koja predstavlja slobodno mjesto tablice */
+	private static final int FREE = -1;
+
+	/** Članska varijabla koja predstavlja identifikatore pojmova tablice */
+	private int[] keys;
+
+	/** Članska varijabla koja predstavlja brojeve pojavljivanja tablice */
+	private int[] counts;
+
+	/** Članska varijabla koja predstavlja zauzeta mjesta redom dodavanja */
+	private int[] used;
+
+	/** Članska varijabla koja predstavlja broj različitih pojmova */
+	private int size;
+
+	/**
+	 * Konstruktor koji inicijalizira prazan brojač
+	 */
+	public TermCounter() {
+		this(64);
+	}
+
+	/**
+	 * Konstruktor koji inicijalizira prazan brojač za otprilike
+	 * <b>expected</b> različitih pojmova
+	 *
+	 * @param expected
+	 *            očekivani broj različitih pojmova
+	 */
+	public TermCounter(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(2 * expected, 2) - 1) << 1;
+		keys = new int[capacity];
+		counts = new int[capacity];
+		used = new int[capacity / 2];
+		Arrays.fill(keys, FREE);
+	}
+
+	/**
+	 * Metoda koja broj pojavljivanja pojma <b>term</b> uvećava za 1
+	 *
+	 * @param term
+	 *            identifikator pojma
+	 */
+	public void increment(int term) {
+		add(term, 1);
+	}
+
+	/**
+	 * Metoda koja broj pojavljivanja pojma <b>term</b> uvećava za
+	 * <b>count</b>
+	 *
+	 * @param term
+	 *            identifikator pojma
+	 * @param count
+	 *            broj pojavljivanja koji se dodaje
+	 */
+	public void add(int term, int count) {
+		if (term < 0) {
+			throw new IllegalArgumentException("Identifikator pojma mora biti nenegativan");
+		}
+
+		int slot = slot(term);
+		if (keys[slot] == term) {
+			counts[slot] += count;
+			return;
+		}
+
+		if (size == used.length) {
+			grow();
+			slot = slot(term);
+		}
+		keys[slot] = term;
+		counts[slot] = count;
+		used[size++] = slot;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj pojavljivanja pojma <b>term</b>
+	 *
+	 * @param term
+	 *            identifikator pojma
+	 * @return broj pojavljivanja pojma ili 0 ukoliko se pojam nije pojavio
+	 */
+	public int get(int term) {
+		int slot = slot(term);
+		return keys[slot] == term ? counts[slot] : 0;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj različitih pojmova
+	 *
+	 * @return broj različitih pojmova
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Metoda koja dohvaća identifikator <b>index</b>-tog različitog pojma,
+	 * redom dodavanja
+	 *
+	 * @param index
+	 *            redni broj pojma, od 0 do {@link #size()} (isključivo)
+	 * @return identifikator pojma
+	 */
+	public int term(int index) {
+		return keys[used[index]];
+	}
+
+	/**
+	 * Metoda koja dohvaća broj pojavljivanja <b>index</b>-tog različitog
+	 * pojma, redom dodavanja
+	 *
+	 * @param index
+	 *            redni broj pojma, od 0 do {@link #size()} (isključivo)
+	 * @return broj pojavljivanja pojma
+	 */
+	public int count(int index) {
+		return counts[used[index]];
+	}
+
+	/**
+	 * Metoda koja briše sve pojmove brojača, bez smanjivanja tablice
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			keys[used[i]] = FREE;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Pomoćna metoda koja pronalazi mjesto pojma <b>term</b>, odnosno prvo
+	 * slobodno mjesto ukoliko pojam nije u tablici
+	 *
+	 * @param term
+	 *            identifikator pojma
+	 * @return mjesto unutar tablice
+	 */
+	private int slot(int term) {
+		int mask = keys.length - 1;
+		int hash = term * 0x9E3779B9;
+		int slot = (hash ^ hash >>> 16) & mask;
+		while (keys[slot] != FREE && keys[slot] != term) {
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	/**
+	 * Pomoćna metoda koja udvostručuje tablicu i ponovno smješta sve pojmove,
+	 * zadržavajući redoslijed dodavanja
+	 */
+	private void grow() {
+		int[] oldKeys = keys;
+		int[] oldCounts = counts;
+		int[] oldUsed = used;
+
+		keys = new int[oldKeys.length * 2];
+		counts = new int[oldKeys.length * 2];
+		used = new int[oldUsed.length * 2];
+		Arrays.fill(keys, FREE);
+		for (int i = 0; i < size; i++) {
+			int slot = slot(oldKeys[oldUsed[i]]);
+			keys[slot] = oldKeys[oldUsed[i]];
+			counts[slot] = oldCounts[oldUsed[i]];
+			used[i] = slot;
+		}
+	}
+}
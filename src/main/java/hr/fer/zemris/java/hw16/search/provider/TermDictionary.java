@@ -0,0 +1,841 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Razred koji predstavlja kompaktni rječnik pojmova (vokabular
+ * pretraživanja). Svi pojmovi sortirani su leksikografski po svom UTF-8 zapisu
+ * te su zapisani u jedno polje okteta, podijeljeni u blokove od
+ * {@value #BLOCK_SIZE} pojmova. Prvi pojam svakog bloka zapisan je u cijelosti,
+ * dok je svaki sljedeći pojam zapisan samo kao duljina zajedničkog prefiksa s
+ * prethodnim pojmom i preostali sufiks (engl. front coding). Time se
+ * izbjegava zaseban primjerak razreda {@link String} za svaki pojam.
+ * <p>
+ * Identifikator pojma jednak je njegovom rednom broju unutar sortiranog
+ * rječnika, pa se pojmovi s istim prefiksom nalaze na uzastopnim
+ * identifikatorima. Pojmovi slični zadanoj riječi pronalaze se metodom
+ * {@link #fuzzyTerms(String, int, int)}. Pojam se pronalazi binarnim
+ * pretraživanjem prvih pojmova blokova te slijednim dekodiranjem jednog
+ * bloka, metodom {@link #getId(String)}. Za slijedni prolaz (uz preskakanje)
+ * koristi se primjerak razreda {@link TermsEnum}, dohvaćen metodom
+ * {@link #termsEnum()}.
+ * 
+ * @author Davor Češljaš
+ */
+public class TermDictionary implements Iterable<String> {
+
+	/** Konstanta koja predstavlja broj pojmova unutar jednog bloka */
+	public static final int BLOCK_SIZE = 16;
+
+	/** Članska varijabla koja predstavlja polje okteta sa svim pojmovima */
+	private byte[] arena;
+
+	/** Članska varijabla koja predstavlja početke blokova unutar polja okteta */
+	private int[] blockOffsets;
+
+	/** Članska varijabla koja predstavlja broj pojmova u rječniku */
+	private int size;
+
+	/**
+	 * Privatni konstruktor koji inicijalizira primjerak ovog razreda. Primjerci
+	 * se stvaraju statičkom metodom {@link #build(Collection)}.
+	 *
+	 * @param arena
+	 *            polje okteta sa svim pojmovima
+	 * @param blockOffsets
+	 *            početci blokova unutar polja okteta
+	 * @param size
+	 *            broj pojmova u rječniku
+	 */
+	private TermDictionary(byte[] arena, int[] blockOffsets, int size) {
+		this.arena = arena;
+		this.blockOffsets = blockOffsets;
+		this.size = size;
+	}
+
+	/**
+	 * Statička metoda koja stvara novi rječnik iz predanih pojmova
+	 * <b>terms</b>. Pojmovi ne moraju biti sortirani, a duplikati se
+	 * zanemaruju.
+	 *
+	 * @param terms
+	 *            pojmovi rječnika
+	 * @return novi rječnik koji sadrži sve predane pojmove
+	 */
+	public static TermDictionary build(Collection<String> terms) {
+		byte[][] encoded = new byte[terms.size()][];
+		int index = 0;
+		for (String term : terms) {
+			encoded[index++] = term.getBytes(StandardCharsets.UTF_8);
+		}
+		Arrays.sort(encoded, TermDictionary::compare);
+
+		ByteWriter writer = new ByteWriter(encoded.length * 4);
+		List<Integer> offsets = new ArrayList<>();
+		byte[] previous = null;
+		int size = 0;
+		for (byte[] term : encoded) {
+			if (previous != null && compare(previous, term) == 0) {
+				continue;
+			}
+
+			if (size % BLOCK_SIZE == 0) {
+				offsets.add(writer.size());
+				writer.writeVInt(term.length);
+				writer.write(term, 0, term.length);
+			} else {
+				int shared = sharedPrefix(previous, term);
+				writer.writeVInt(shared);
+				writer.writeVInt(term.length - shared);
+				writer.write(term, shared, term.length - shared);
+			}
+
+			previous = term;
+			size++;
+		}
+
+		return new TermDictionary(writer.toByteArray(), offsets.stream().mapToInt(Integer::intValue).toArray(),
+				size);
+	}
+
+	/**
+	 * Metoda koja dohvaća broj pojmova u rječniku
+	 *
+	 * @return broj pojmova u rječniku
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Metoda koja dohvaća broj okteta koje zauzimaju podaci ovog rječnika
+	 *
+	 * @return broj okteta koje zauzimaju podaci ovog rječnika
+	 */
+	public long sizeInBytes() {
+		return arena.length + 4L * blockOffsets.length;
+	}
+
+	/**
+	 * Metoda koja dohvaća identifikator pojma <b>term</b>
+	 *
+	 * @param term
+	 *            pojam čiji se identifikator traži
+	 * @return identifikator pojma ili -1 ukoliko pojam nije u rječniku
+	 */
+	public int getId(String term) {
+		byte[] key = term.getBytes(StandardCharsets.UTF_8);
+
+		TermsEnum termsEnum = termsEnum();
+		if (termsEnum.seekCeil(key) && termsEnum.compareTo(key) == 0) {
+			return termsEnum.id();
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Metoda koja provjerava nalazi li se pojam <b>term</b> u rječniku
+	 *
+	 * @param term
+	 *            pojam koji se provjerava
+	 * @return <code>true</code> ukoliko se pojam nalazi u rječniku,
+	 *         <code>false</code> inače
+	 */
+	public boolean contains(String term) {
+		return getId(term) >= 0;
+	}
+
+	/**
+	 * Metoda koja dohvaća pojam s identifikatorom <b>id</b>
+	 *
+	 * @param id
+	 *            identifikator pojma
+	 * @return pojam s identifikatorom <b>id</b>
+	 * @throws IndexOutOfBoundsException
+	 *             Ukoliko pojam s predanim identifikatorom ne postoji
+	 */
+	public String getTerm(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("Ne postoji pojam s identifikatorom " + id);
+		}
+
+		TermsEnum termsEnum = termsEnum();
+		termsEnum.seekBlock(id / BLOCK_SIZE);
+		while (termsEnum.id() < id) {
+			termsEnum.next();
+		}
+
+		return termsEnum.term();
+	}
+
+	/**
+	 * Metoda koja dohvaća sve pojmove koji započinju prefiksom <b>prefix</b>,
+	 * ali najviše njih <b>limit</b>. Pojmovi se vraćaju u leksikografskom
+	 * poretku.
+	 *
+	 * @param prefix
+	 *            prefiks pojmova
+	 * @param limit
+	 *            najveći broj pojmova koji se vraća
+	 * @return {@link List} pojmova koji započinju s <b>prefix</b>
+	 */
+	public List<String> termsWithPrefix(String prefix, int limit) {
+		byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+		List<String> terms = new ArrayList<>();
+
+		TermsEnum termsEnum = termsEnum();
+		if (!termsEnum.seekCeil(key)) {
+			return terms;
+		}
+
+		do {
+			if (!termsEnum.startsWith(key) || terms.size() >= limit) {
+				break;
+			}
+			terms.add(termsEnum.term());
+		} while (termsEnum.next());
+
+		return terms;
+	}
+
+	/**
+	 * Metoda koja dohvaća interval identifikatora svih pojmova koji započinju
+	 * prefiksom <b>prefix</b>. Budući da su pojmovi sortirani, takvi pojmovi
+	 * nalaze se na uzastopnim identifikatorima.
+	 *
+	 * @param prefix
+	 *            prefiks pojmova
+	 * @return polje s početkom i krajem (isključivo) intervala; početak je
+	 *         jednak kraju ukoliko niti jedan pojam ne započinje prefiksom
+	 */
+	public int[] prefixRange(String prefix) {
+		byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+
+		TermsEnum termsEnum = termsEnum();
+		if (!termsEnum.seekCeil(key) || !termsEnum.startsWith(key)) {
+			return new int[] { 0, 0 };
+		}
+
+		int low = termsEnum.id();
+		int high = termsEnum.seekCeil(successor(key, key.length)) ? termsEnum.id() : size;
+		return new int[] { low, high };
+	}
+
+	/**
+	 * Metoda koja dohvaća sve pojmove čija je Levenshteinova udaljenost od
+	 * riječi <b>word</b> (nakon svođenja dijakritičkih znakova i dvoznaka
+	 * <i>dj</i>, vidi {@link LevenshteinAutomaton}) najviše <b>maxEdits</b>,
+	 * ali najviše njih <b>limit</b>. Pojmovi se vraćaju sortirani po
+	 * udaljenosti, a zatim leksikografski.
+	 * <p>
+	 * Rječnik se prolazi slijedno uz istovremeno pokretanje automata
+	 * {@link LevenshteinAutomaton}. Stanja automata pamte se za svaki znak
+	 * trenutnog pojma, pa se za sljedeći pojam računaju samo znakovi nakon
+	 * zajedničkog prefiksa. Čim automat za neki prefiks uđe u stanje iz kojeg
+	 * ne može prihvatiti niti jedan pojam, preskaču se svi pojmovi s tim
+	 * prefiksom, pa se obilazi samo mali dio rječnika.
+	 *
+	 * @param word
+	 *            riječ čiji se slični pojmovi traže
+	 * @param maxEdits
+	 *            najveći broj izmjena
+	 * @param limit
+	 *            najveći broj pojmova koji se vraća
+	 * @return {@link List} pojmova sličnih riječi <b>word</b>
+	 */
+	public List<String> fuzzyTerms(String word, int maxEdits, int limit) {
+		LevenshteinAutomaton automaton = new LevenshteinAutomaton(word, maxEdits);
+		List<FuzzyMatch> matches = new ArrayList<>();
+
+		TermsEnum termsEnum = termsEnum();
+		if (size == 0 || !termsEnum.seekBlock(0)) {
+			return new ArrayList<>();
+		}
+
+		int[][] states = new int[word.length() + maxEdits + 2][];
+		states[0] = automaton.start();
+		char[] chars = new char[0];
+		int[] charEnds = new int[0];
+		char[] previous = new char[0];
+		int previousLength = 0;
+		int computed = 0;
+
+		boolean positioned = true;
+		while (positioned) {
+			if (chars.length < termsEnum.length()) {
+				chars = new char[termsEnum.length() * 2];
+			}
+			if (charEnds.length < termsEnum.length()) {
+				charEnds = new int[termsEnum.length() * 2];
+			}
+			int length = decode(termsEnum.bytes(), termsEnum.length(), chars, charEnds);
+
+			int depth = Math.min(computed, sharedPrefix(previous, previousLength, chars, length));
+			int dead = -1;
+			for (; depth < length; depth++) {
+				if (depth + 1 >= states.length) {
+					states = Arrays.copyOf(states, depth * 2 + 2);
+				}
+				if (states[depth + 1] == null) {
+					states[depth + 1] = new int[automaton.stateLength()];
+				}
+
+				if (depth > 0 && LevenshteinAutomaton.isDigraphTail(chars[depth - 1], chars[depth])) {
+					System.arraycopy(states[depth], 0, states[depth + 1], 0, automaton.stateLength());
+					continue;
+				}
+
+				automaton.step(states[depth], chars[depth], states[depth + 1]);
+				if (!automaton.canMatch(states[depth + 1])) {
+					dead = depth;
+					break;
+				}
+			}
+
+			computed = dead >= 0 ? dead + 1 : length;
+			char[] swap = previous;
+			previous = chars;
+			chars = swap;
+			previousLength = length;
+
+			if (dead >= 0) {
+				int parentEnd = dead == 0 ? 0 : charEnds[dead - 1];
+				int viable = dead == 0 ? automaton.nextViableChar(states[dead], previous[dead])
+						: automaton.nextViableChar(states[dead], previous[dead - 1], previous[dead]);
+				byte[] key = viable < 0 ? successor(termsEnum.bytes(), parentEnd)
+						: append(termsEnum.bytes(), parentEnd, (char) viable);
+				positioned = termsEnum.seekCeil(key);
+				continue;
+			}
+
+			if (length > 0 && automaton.isMatch(states[length])) {
+				matches.add(new FuzzyMatch(termsEnum.term(), automaton.distance(states[length])));
+			}
+			positioned = termsEnum.next();
+		}
+
+		List<String> terms = new ArrayList<>();
+		matches.stream().sorted().limit(limit).forEach(match -> terms.add(match.term));
+		return terms;
+	}
+
+	/**
+	 * Metoda koja stvara novi primjerak razreda {@link TermsEnum} kojim se
+	 * slijedno prolazi ovim rječnikom. Novi primjerak nije pozicioniran ni na
+	 * jedan pojam.
+	 *
+	 * @return novi primjerak razreda {@link TermsEnum}
+	 */
+	public TermsEnum termsEnum() {
+		return new TermsEnum();
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+
+			/** Prolaz rječnikom */
+			private TermsEnum termsEnum = termsEnum();
+
+			/** Ima li još pojmova */
+			private boolean hasNext = size > 0 && termsEnum.seekBlock(0);
+
+			@Override
+			public boolean hasNext() {
+				return hasNext;
+			}
+
+			@Override
+			public String next() {
+				if (!hasNext) {
+					throw new NoSuchElementException();
+				}
+
+				String term = termsEnum.term();
+				hasNext = termsEnum.next();
+				return term;
+			}
+		};
+	}
+
+	/**
+	 * Pomoćna statička metoda koja leksikografski uspoređuje dva polja okteta
+	 * tretirajući oktete kao brojeve bez predznaka. Takav poredak jednak je
+	 * poretku po kodnim točkama zapisanih znakova.
+	 *
+	 * @param first
+	 *            prvo polje okteta
+	 * @param second
+	 *            drugo polje okteta
+	 * @return negativan broj, 0 ili pozitivan broj ukoliko je <b>first</b>
+	 *         manji, jednak ili veći od <b>second</b>
+	 */
+	static int compare(byte[] first, byte[] second) {
+		return compare(first, 0, first.length, second);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja leksikografski uspoređuje dio polja okteta
+	 * <b>first</b> s poljem <b>second</b>, tretirajući oktete kao brojeve bez
+	 * predznaka.
+	 *
+	 * @param first
+	 *            prvo polje okteta
+	 * @param offset
+	 *            početak uspoređivanog dijela prvog polja
+	 * @param length
+	 *            duljina uspoređivanog dijela prvog polja
+	 * @param second
+	 *            drugo polje okteta
+	 * @return negativan broj, 0 ili pozitivan broj ukoliko je dio polja
+	 *         <b>first</b> manji, jednak ili veći od <b>second</b>
+	 */
+	private static int compare(byte[] first, int offset, int length, byte[] second) {
+		int len = Math.min(length, second.length);
+		for (int i = 0; i < len; i++) {
+			int diff = (first[offset + i] & 0xFF) - (second[i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+
+		return length - second.length;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja dekodira UTF-8 zapis pojma u znakove.
+	 * Nakon dekodiranja <b>charEnds[i]</b> sadrži broj okteta zapisa koji
+	 * pokrivaju prvih <b>i + 1</b> znakova.
+	 *
+	 * @param bytes
+	 *            UTF-8 zapis pojma
+	 * @param length
+	 *            duljina UTF-8 zapisa
+	 * @param chars
+	 *            polje u koje se zapisuju znakovi, barem duljine
+	 *            <b>length</b>
+	 * @param charEnds
+	 *            polje u koje se zapisuju završeci znakova, barem duljine
+	 *            <b>length</b>
+	 * @return broj dekodiranih znakova
+	 */
+	private static int decode(byte[] bytes, int length, char[] chars, int[] charEnds) {
+		int count = 0;
+		int i = 0;
+		while (i < length) {
+			int b = bytes[i] & 0xFF;
+			if (b < 0x80) {
+				chars[count] = (char) b;
+				i += 1;
+			} else if (b < 0xE0) {
+				chars[count] = (char) (((b & 0x1F) << 6) | (bytes[i + 1] & 0x3F));
+				i += 2;
+			} else if (b < 0xF0) {
+				chars[count] = (char) (((b & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6) | (bytes[i + 2] & 0x3F));
+				i += 3;
+			} else {
+				int codePoint = ((b & 0x07) << 18) | ((bytes[i + 1] & 0x3F) << 12) | ((bytes[i + 2] & 0x3F) << 6)
+						| (bytes[i + 3] & 0x3F);
+				i += 4;
+				chars[count] = Character.highSurrogate(codePoint);
+				charEnds[count++] = i;
+				chars[count] = Character.lowSurrogate(codePoint);
+			}
+			charEnds[count++] = i;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja računa najmanji UTF-8 zapis koji je veći od
+	 * svih zapisa koji započinju s prvih <b>length</b> okteta polja
+	 * <b>bytes</b>.
+	 *
+	 * @param bytes
+	 *            polje okteta koje sadrži prefiks
+	 * @param length
+	 *            duljina prefiksa
+	 * @return zapis koji je veći od svih zapisa s predanim prefiksom
+	 */
+	private static byte[] successor(byte[] bytes, int length) {
+		byte[] key = Arrays.copyOf(bytes, length);
+		for (int i = length - 1; i >= 0; i--) {
+			if ((key[i] & 0xFF) != 0xFF) {
+				key[i]++;
+				return Arrays.copyOf(key, i + 1);
+			}
+		}
+
+		// prefiks od samih 0xFF okteta nije moguć u UTF-8 zapisu
+		return new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF };
+	}
+
+	/**
+	 * Pomoćna statička metoda koja stvara UTF-8 zapis koji se sastoji od prvih
+	 * <b>length</b> okteta polja <b>bytes</b> i znaka <b>c</b>
+	 *
+	 * @param bytes
+	 *            polje okteta koje sadrži prefiks
+	 * @param length
+	 *            duljina prefiksa
+	 * @param c
+	 *            znak koji se dodaje na prefiks
+	 * @return novi UTF-8 zapis
+	 */
+	private static byte[] append(byte[] bytes, int length, char c) {
+		byte[] suffix = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+		byte[] key = Arrays.copyOf(bytes, length + suffix.length);
+		System.arraycopy(suffix, 0, key, length, suffix.length);
+		return key;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja računa duljinu zajedničkog prefiksa dva
+	 * polja znakova
+	 *
+	 * @param first
+	 *            prvo polje znakova
+	 * @param firstLength
+	 *            broj valjanih znakova prvog polja
+	 * @param second
+	 *            drugo polje znakova
+	 * @param secondLength
+	 *            broj valjanih znakova drugog polja
+	 * @return duljina zajedničkog prefiksa
+	 */
+	private static int sharedPrefix(char[] first, int firstLength, char[] second, int secondLength) {
+		int len = Math.min(firstLength, secondLength);
+		int i = 0;
+		while (i < len && first[i] == second[i]) {
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja računa duljinu zajedničkog prefiksa dva
+	 * polja okteta
+	 *
+	 * @param first
+	 *            prvo polje okteta
+	 * @param second
+	 *            drugo polje okteta
+	 * @return duljina zajedničkog prefiksa
+	 */
+	private static int sharedPrefix(byte[] first, byte[] second) {
+		int len = Math.min(first.length, second.length);
+		int i = 0;
+		while (i < len && first[i] == second[i]) {
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * Pomoćni razred koji predstavlja jedan pojam pronađen metodom
+	 * {@link TermDictionary#fuzzyTerms(String, int, int)} zajedno s njegovom
+	 * udaljenošću od tražene riječi. Primjerci se uređuju po udaljenosti, a
+	 * zatim po samom pojmu.
+	 * 
+	 * @author Davor Češljaš
+	 */
+	private static class FuzzyMatch implements Comparable<FuzzyMatch> {
+
+		/** Poredak primjeraka ovog razreda */
+		private static final Comparator<FuzzyMatch> ORDER = Comparator.<FuzzyMatch> comparingInt(m -> m.distance)
+				.thenComparing(m -> m.term);
+
+		/** Članska varijabla koja predstavlja pronađeni pojam */
+		private String term;
+
+		/** Članska varijabla koja predstavlja udaljenost pojma */
+		private int distance;
+
+		/**
+		 * Konstruktor koji inicijalizira primjerak ovog razreda
+		 *
+		 * @param term
+		 *            pronađeni pojam
+		 * @param distance
+		 *            udaljenost pojma od tražene riječi
+		 */
+		FuzzyMatch(String term, int distance) {
+			this.term = term;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(FuzzyMatch o) {
+			return ORDER.compare(this, o);
+		}
+	}
+
+	/**
+	 * Razred koji predstavlja slijedni prolaz rječnikom {@link TermDictionary}.
+	 * Primjerak ovog razreda u svakom trenutku pozicioniran je na jedan pojam
+	 * čiji se identifikator dohvaća metodom {@link #id()}, a sam pojam metodom
+	 * {@link #term()}. Pozicioniranje se obavlja metodama
+	 * {@link #seekCeil(byte[])} i {@link #next()}. Primjerci ovog razreda nisu
+	 * sigurni za korištenje iz više dretvi.
+	 * 
+	 * @author Davor Češljaš
+	 */
+	public class TermsEnum {
+
+		/** Članska varijabla koja predstavlja identifikator trenutnog pojma */
+		private int id = -1;
+
+		/** Članska varijabla koja predstavlja UTF-8 zapis trenutnog pojma */
+		private byte[] term = new byte[32];
+
+		/** Članska varijabla koja predstavlja duljinu trenutnog pojma */
+		private int length;
+
+		/**
+		 * Članska varijabla koja predstavlja poziciju sljedećeg pojma unutar
+		 * polja okteta
+		 */
+		private int position;
+
+		/**
+		 * Metoda koja dohvaća identifikator trenutnog pojma
+		 *
+		 * @return identifikator trenutnog pojma
+		 */
+		public int id() {
+			return id;
+		}
+
+		/**
+		 * Metoda koja dohvaća trenutni pojam
+		 *
+		 * @return trenutni pojam
+		 */
+		public String term() {
+			return new String(term, 0, length, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Metoda koja dohvaća UTF-8 zapis trenutnog pojma. Vraćeno polje
+		 * dijeli se s ovim primjerkom i vrijedi samo do sljedećeg
+		 * pozicioniranja, a valjanih je samo prvih {@link #length()} okteta.
+		 *
+		 * @return UTF-8 zapis trenutnog pojma
+		 */
+		public byte[] bytes() {
+			return term;
+		}
+
+		/**
+		 * Metoda koja dohvaća duljinu UTF-8 zapisa trenutnog pojma
+		 *
+		 * @return duljina UTF-8 zapisa trenutnog pojma
+		 */
+		public int length() {
+			return length;
+		}
+
+		/**
+		 * Metoda koja provjerava započinje li trenutni pojam prefiksom
+		 * <b>prefix</b>
+		 *
+		 * @param prefix
+		 *            UTF-8 zapis prefiksa
+		 * @return <code>true</code> ukoliko trenutni pojam započinje prefiksom,
+		 *         <code>false</code> inače
+		 */
+		public boolean startsWith(byte[] prefix) {
+			return length >= prefix.length && compare(term, 0, prefix.length, prefix) == 0;
+		}
+
+		/**
+		 * Metoda koja uspoređuje trenutni pojam s UTF-8 zapisom <b>key</b>
+		 *
+		 * @param key
+		 *            UTF-8 zapis s kojim se uspoređuje
+		 * @return negativan broj, 0 ili pozitivan broj ukoliko je trenutni
+		 *         pojam manji, jednak ili veći od <b>key</b>
+		 */
+		public int compareTo(byte[] key) {
+			return compare(term, 0, length, key);
+		}
+
+		/**
+		 * Metoda koja pozicionira ovaj prolaz na sljedeći pojam
+		 *
+		 * @return <code>true</code> ukoliko sljedeći pojam postoji,
+		 *         <code>false</code> ukoliko je prolaz došao do kraja rječnika
+		 */
+		public boolean next() {
+			if (id + 1 >= size) {
+				id = size;
+				return false;
+			}
+
+			id++;
+			if (id % BLOCK_SIZE == 0) {
+				length = 0;
+				readSuffix(0);
+			} else {
+				readSuffix(readVInt());
+			}
+
+			return true;
+		}
+
+		/**
+		 * Metoda koja pozicionira ovaj prolaz na prvi pojam koji je veći ili
+		 * jednak od <b>key</b>. Ukoliko je prolaz već pozicioniran na pojam
+		 * manji od <b>key</b>, a traženi pojam se nalazi unutar trenutnog
+		 * bloka, prolaz se samo pomiče unaprijed, a u suprotnom se blok traži
+		 * galopirajućim (engl. exponential search) te binarnim pretraživanjem.
+		 *
+		 * @param key
+		 *            UTF-8 zapis traženog pojma
+		 * @return <code>true</code> ukoliko takav pojam postoji,
+		 *         <code>false</code> ukoliko su svi pojmovi rječnika manji od
+		 *         <b>key</b>
+		 */
+		public boolean seekCeil(byte[] key) {
+			if (size == 0) {
+				return false;
+			}
+
+			int low = 0;
+			int high = blockOffsets.length - 1;
+			if (id >= 0 && id < size && compareTo(key) < 0) {
+				int nextBlock = id / BLOCK_SIZE + 1;
+				if (nextBlock >= blockOffsets.length || compareBlockStart(nextBlock, key) > 0) {
+					return scanTo(key);
+				}
+
+				// traženi pojam je blizu trenutnog, pa se granice traže galopiranjem
+				low = nextBlock;
+				for (int step = 1; low + step <= high; step <<= 1) {
+					if (compareBlockStart(low + step, key) > 0) {
+						high = low + step - 1;
+						break;
+					}
+					low += step;
+				}
+			}
+
+			while (low < high) {
+				int middle = (low + high + 1) >>> 1;
+				if (compareBlockStart(middle, key) <= 0) {
+					low = middle;
+				} else {
+					high = middle - 1;
+				}
+			}
+
+			seekBlock(low);
+			return scanTo(key);
+		}
+
+		/**
+		 * Pomoćna metoda koja pomiče ovaj prolaz unaprijed sve dok trenutni
+		 * pojam nije veći ili jednak od <b>key</b>
+		 *
+		 * @param key
+		 *            UTF-8 zapis traženog pojma
+		 * @return <code>true</code> ukoliko takav pojam postoji,
+		 *         <code>false</code> inače
+		 */
+		private boolean scanTo(byte[] key) {
+			while (compareTo(key) < 0) {
+				if (!next()) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * Metoda koja pozicionira ovaj prolaz na prvi pojam bloka s rednim
+		 * brojem <b>block</b>
+		 *
+		 * @param block
+		 *            redni broj bloka
+		 * @return <code>true</code> ukoliko blok postoji, <code>false</code>
+		 *         inače
+		 */
+		boolean seekBlock(int block) {
+			if (block < 0 || block >= blockOffsets.length) {
+				return false;
+			}
+
+			position = blockOffsets[block];
+			id = block * BLOCK_SIZE - 1;
+			return next();
+		}
+
+		/**
+		 * Pomoćna metoda koja uspoređuje prvi pojam bloka <b>block</b> sa
+		 * zapisom <b>key</b>, bez pomicanja ovog prolaza.
+		 *
+		 * @param block
+		 *            redni broj bloka
+		 * @param key
+		 *            UTF-8 zapis s kojim se uspoređuje
+		 * @return rezultat usporedbe prvog pojma bloka i <b>key</b>
+		 */
+		private int compareBlockStart(int block, byte[] key) {
+			int saved = position;
+			position = blockOffsets[block];
+			int len = readVInt();
+			int result = compare(arena, position, len, key);
+			position = saved;
+			return result;
+		}
+
+		/**
+		 * Pomoćna metoda koja čita sufiks pojma te ga nadovezuje na prvih
+		 * <b>shared</b> okteta prethodnog pojma.
+		 *
+		 * @param shared
+		 *            duljina zajedničkog prefiksa s prethodnim pojmom
+		 */
+		private void readSuffix(int shared) {
+			int suffix = readVInt();
+			length = shared + suffix;
+			if (term.length < length) {
+				term = Arrays.copyOf(term, Math.max(length, term.length * 2));
+			}
+
+			System.arraycopy(arena, position, term, shared, suffix);
+			position += suffix;
+		}
+
+		/**
+		 * Pomoćna metoda koja čita jedan cijeli broj zapisan u promjenjivom
+		 * broju okteta (7 bitova po oktetu)
+		 *
+		 * @return pročitani broj
+		 */
+		private int readVInt() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = arena[position++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+
+			return value;
+		}
+	}
+}
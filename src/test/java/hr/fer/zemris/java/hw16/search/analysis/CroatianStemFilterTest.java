@@ -0,0 +1,55 @@
+package hr.fer.zemris.java.hw16.search.analysis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Testovi razreda {@link CroatianStemFilter}. Riječi napisane sa i bez
+ * dijakritičkih znakova moraju imati isti korijen.
+ *
+ * @author Davor Češljaš
+ */
+public class CroatianStemFilterTest {
+
+	/** Stemmer koji se ispituje */
+	private final CroatianStemFilter stemmer = new CroatianStemFilter();
+
+	@Test
+	public void diacriticsDoNotChangeStem() {
+		assertSameStem("kazalist", "kazalište", "kazaliste", "kazališta", "kazalista", "kazalištu", "kazalištem",
+				"kazalištima");
+		assertSameStem("medunarodn", "međunarodni", "medjunarodni", "medunarodnog", "međunarodnoj");
+		assertSameStem("vijec", "vijeće", "vijece", "vijeća");
+	}
+
+	@Test
+	public void shortWordsAreKept() {
+		assertEquals("sat", stemmer.filter("sat"));
+		assertEquals("noc", stemmer.filter("noć"));
+	}
+
+	@Test
+	public void analyzerStemsFoldedWords() throws IOException {
+		Analyzer analyzer = Analyzer.create(true);
+		assertEquals(analyzer.analyze("Kazalište"), analyzer.analyze("KAZALISTE"));
+		assertEquals(analyzer.analyze("kazališta"), analyzer.analyze("kazalista"));
+	}
+
+	/**
+	 * Pomoćna metoda koja provjerava da se sve riječi <b>words</b> svode na
+	 * korijen <b>stem</b>
+	 *
+	 * @param stem
+	 *            očekivani korijen
+	 * @param words
+	 *            riječi koje se svode na korijen
+	 */
+	private void assertSameStem(String stem, String... words) {
+		for (String word : words) {
+			assertEquals(word, stem, stemmer.filter(word));
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package hr.fer.zemris.java.hw16.search.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+import hr.fer.zemris.java.hw16.search.commands.QueryCommand;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+import hr.fer.zemris.java.hw16.search.environment.ResultCursor;
+import hr.fer.zemris.java.hw16.search.provider.BooleanQuery;
+import hr.fer.zemris.java.hw16.search.provider.SearchProvider;
+
+/**
+ * Testovi paketne obrade upita {@link BatchSearch}. Rezultati svakog redka
+ * moraju biti jednaki rezultatima naredbe {@link QueryCommand} za isti upit.
+ *
+ * @author Davor Češljaš
+ */
+public class BatchSearchTest {
+
+	/** Privremeni direktorij s dokumentima */
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	/** Indeks nad kojim se izvode upiti */
+	private static SearchProvider provider;
+
+	@BeforeClass
+	public static void buildIndex() throws IOException {
+		write("vjesnik-1999-7-7-spo-1", "Hrvatska i Francuska igraju nogomet, utakmica je u Zagrebu.");
+		write("vjesnik-1999-8-2-kul-1", "Hrvatska kazališna predstava i glazba u Splitu.");
+		write("vjesnik-2000-1-5-kul-2", "Glazba, predstava i koncert u Rijeci.");
+		write("vjesnik-2000-3-9-spo-2", "Nogomet u Rijeci, utakmica i koncert.");
+
+		SearchProvider.setAnalyzer(Analyzer.create(false));
+		SearchProvider.loadDocuments(folder.getRoot().getAbsolutePath());
+		provider = SearchProvider.getProvider();
+	}
+
+	@Test
+	public void batchMatchesQueryCommand() {
+		for (String line : Arrays.asList("hrvatska nogomet", "+hrvatska glazba", "glazba -koncert",
+				"AND nogomet utakmica", "utakmica section:spo", "glazba predstava date:2000-01..2000-12",
+				"nogomet zzzzzzzzzz")) {
+			List<Result> expected = new ArrayList<>();
+			ResultCursor cursor = QueryCommand.search(provider, BooleanQuery.parse(words(line)), null);
+			if (cursor != null) {
+				expected.addAll(cursor.page(1));
+			}
+
+			assertEquals(line, paths(expected), paths(BatchSearch.executeQuery(provider, BatchQuery.fromLine(line, 1),
+					null)));
+		}
+	}
+
+	@Test
+	public void conditionsRestrictBatchResults() {
+		assertEquals(Arrays.asList("vjesnik-2000-3-9-spo-2"), paths(query("utakmica section:spo date:2000")));
+		assertEquals(Arrays.asList("vjesnik-1999-8-2-kul-1"), paths(query("glazba -koncert")));
+		assertTrue(query("+zzzzzzzzzz nogomet").isEmpty());
+	}
+
+	@Test
+	public void invalidConditionGivesNoResults() {
+		assertTrue(query("nogomet date:nije-datum").isEmpty());
+	}
+
+	/**
+	 * Pomoćna metoda koja izvodi jedan redak <b>line</b> paketne obrade
+	 *
+	 * @param line
+	 *            redak datoteke s upitima
+	 * @return rezultati upita
+	 */
+	private static List<Result> query(String line) {
+		return BatchSearch.executeQuery(provider, BatchQuery.fromLine(line, 1), null);
+	}
+
+	/**
+	 * Pomoćna metoda koja rastavlja redak <b>line</b> na riječi
+	 *
+	 * @param line
+	 *            redak upita
+	 * @return riječi upita
+	 */
+	private static List<String> words(String line) {
+		return BatchQuery.fromLine(line, 1).getWords();
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća imena datoteka rezultata <b>results</b>
+	 *
+	 * @param results
+	 *            rezultati upita
+	 * @return imena datoteka, redom rezultata
+	 */
+	private static List<String> paths(List<Result> results) {
+		List<String> names = new ArrayList<>();
+		for (Result result : results) {
+			names.add(result.getFilePath().substring(folder.getRoot().getAbsolutePath().length() + 1));
+		}
+
+		return names;
+	}
+
+	/**
+	 * Pomoćna metoda koja zapisuje dokument s imenom <b>name</b>
+	 *
+	 * @param name
+	 *            ime dokumenta
+	 * @param text
+	 *            tekst dokumenta
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	private static void write(String name, String text) throws IOException {
+		Files.write(folder.getRoot().toPath().resolve(name), text.getBytes(StandardCharsets.UTF_8));
+	}
+}
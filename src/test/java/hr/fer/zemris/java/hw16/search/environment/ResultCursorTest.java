@@ -0,0 +1,120 @@
+package hr.fer.zemris.java.hw16.search.environment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+/**
+ * Testovi razreda {@link ResultCursor}. Stranice dobivene iz gomile
+ * uspoređuju se sa stabilno sortiranim rezultatima.
+ *
+ * @author Davor Češljaš
+ */
+public class ResultCursorTest {
+
+	@Test
+	public void pagesMatchStableSort() {
+		List<Result> results = randomResults(new Random(11), 237);
+		List<Result> sorted = sorted(results, null);
+
+		ResultCursor cursor = new ResultCursor(results, null, Collections.emptyList(), 10);
+		assertEquals(0, cursor.getPage());
+		for (int page = 1; page <= 24; page++) {
+			int from = (page - 1) * 10;
+			assertEquals(sorted.subList(from, Math.min(from + 10, sorted.size())), cursor.page(page));
+			assertEquals(page, cursor.getPage());
+		}
+		assertTrue(cursor.page(25).isEmpty());
+		assertEquals(24, cursor.getPage());
+	}
+
+	@Test
+	public void earlierPagesAreRemembered() {
+		List<Result> results = randomResults(new Random(12), 50);
+		List<Result> sorted = sorted(results, null);
+
+		ResultCursor cursor = new ResultCursor(results, null, Collections.emptyList(), 7);
+		assertEquals(sorted.subList(21, 28), cursor.page(4));
+		assertEquals(sorted.subList(0, 7), cursor.page(1));
+		assertEquals(1, cursor.getPage());
+	}
+
+	@Test
+	public void groupsKeepBestResult() {
+		List<Result> results = randomResults(new Random(13), 120);
+		Function<String, String> groups = path -> Integer.parseInt(path.substring(1)) % 3 == 0 ? null
+				: "g" + Integer.parseInt(path.substring(1)) % 17;
+		List<Result> sorted = sorted(results, groups);
+
+		ResultCursor cursor = new ResultCursor(results, groups, Collections.emptyList(), 5);
+		List<Result> paged = new ArrayList<>();
+		for (int page = 1;; page++) {
+			List<Result> next = cursor.page(page);
+			if (next.isEmpty()) {
+				break;
+			}
+			paged.addAll(next);
+		}
+		assertEquals(sorted, paged);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void emptyPageSizeIsRejected() {
+		new ResultCursor(Collections.emptyList(), null, Collections.emptyList(), 0);
+	}
+
+	/**
+	 * Pomoćna metoda koja stvara <b>count</b> rezultata s malim brojem
+	 * različitih sličnosti, pa mnogi rezultati imaju jednaku sličnost
+	 *
+	 * @param random
+	 *            generator slučajnih brojeva
+	 * @param count
+	 *            broj rezultata
+	 * @return {@link List} rezultata
+	 */
+	private static List<Result> randomResults(Random random, int count) {
+		List<Result> results = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			results.add(new Result(random.nextInt(20) / 20.0, "d" + i));
+		}
+
+		return results;
+	}
+
+	/**
+	 * Pomoćna metoda koja stabilno sortira rezultate <b>results</b> po
+	 * padajućoj sličnosti i zadržava najbolji rezultat svake grupe
+	 *
+	 * @param results
+	 *            rezultati
+	 * @param groups
+	 *            funkcija grupe ili <code>null</code>
+	 * @return sortirani rezultati
+	 */
+	private static List<Result> sorted(List<Result> results, Function<String, String> groups) {
+		List<Result> sorted = new ArrayList<>(results);
+		sorted.sort(Comparator.comparingDouble(Result::getSimilarity).reversed());
+
+		Set<String> seen = new HashSet<>();
+		List<Result> best = new ArrayList<>();
+		for (Result result : sorted) {
+			String group = groups == null ? null : groups.apply(result.getFilePath());
+			if (group == null || seen.add(group)) {
+				best.add(result);
+			}
+		}
+
+		return best;
+	}
+}
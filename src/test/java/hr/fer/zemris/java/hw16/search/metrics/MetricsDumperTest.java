@@ -0,0 +1,68 @@
+package hr.fer.zemris.java.hw16.search.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Testovi razreda {@link MetricsDumper}. Neuspjelo periodično zapisivanje
+ * mora se prijaviti jednom i zaustaviti, umjesto da se tiho ponavlja.
+ *
+ * @author Davor Češljaš
+ */
+public class MetricsDumperTest {
+
+	/** Privremeni direktorij s izvještajima */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@After
+	public void tearDown() {
+		MetricsDumper.stop();
+	}
+
+	@Test
+	public void dumpAppendsReports() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("metrics.txt");
+		MetricsDumper.dump(file);
+		MetricsDumper.dump(file);
+
+		String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		assertTrue(content.startsWith("# "));
+		assertEquals(2, content.split("(?m)^# ").length - 1);
+	}
+
+	@Test
+	public void failedDumpStopsDumper() throws InterruptedException {
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		PrintStream stderr = System.err;
+		System.setErr(new PrintStream(errors, true));
+		try {
+			MetricsDumper.start(folder.getRoot().toPath().resolve("nema").resolve("metrics.txt"), 1);
+			long deadline = System.currentTimeMillis() + 5000;
+			while (MetricsDumper.isRunning() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			Thread.sleep(1500);
+		} finally {
+			System.setErr(stderr);
+		}
+
+		assertFalse(MetricsDumper.isRunning());
+		String reported = new String(errors.toByteArray());
+		assertTrue(reported, reported.contains("metrics.txt"));
+		assertEquals(reported, 1, reported.split("\\R").length);
+	}
+}
@@ -0,0 +1,115 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+
+/**
+ * Testovi logičkih uvjeta upita {@link BooleanQuery} nad malim indeksom
+ * izgrađenim metodom {@link SearchProvider#build(String, String)}.
+ *
+ * @author Davor Češljaš
+ */
+public class BooleanQueryTest {
+
+	/** Privremeni direktorij s dokumentima */
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	/** Indeks nad kojim se izvode upiti */
+	private static SearchProvider provider;
+
+	@BeforeClass
+	public static void buildIndex() throws IOException {
+		write("nogomet", "Hrvatska i Francuska igraju nogomet, utakmica je u Zagrebu.");
+		write("kazaliste", "Hrvatska kazališna predstava i glazba u Splitu.");
+		write("koncert", "Glazba i predstava na koncertu u Rijeci.");
+
+		SearchProvider.setAnalyzer(Analyzer.create(false));
+		provider = SearchProvider.build("test", folder.getRoot().getAbsolutePath());
+	}
+
+	@Test
+	public void requiredStopWordIsIgnored() {
+		assertEquals(files("nogomet", "kazaliste"), query("+hrvatska", "+i"));
+		assertEquals(files("nogomet", "kazaliste"), query("+hrvatska"));
+	}
+
+	@Test
+	public void conjunctiveQueryIgnoresStopWords() {
+		assertEquals(files("nogomet"), query("AND", "hrvatska", "i", "nogomet"));
+		assertEquals(files("nogomet"), query("hrvatska", "AND", "nogomet"));
+	}
+
+	@Test
+	public void onlyStopWordsRequiredMatchesScoringWords() {
+		assertEquals(files("kazaliste", "koncert"), query("+i", "glazba"));
+	}
+
+	@Test
+	public void missingRequiredTermEmptiesResult() {
+		assertTrue(query("+hrvatska", "+zzzzzzzzzz").isEmpty());
+	}
+
+	@Test
+	public void excludedWordRemovesDocuments() {
+		assertEquals(files("kazaliste"), query("hrvatska", "-nogomet"));
+	}
+
+	/**
+	 * Pomoćna metoda koja izvodi upit riječi <b>words</b>
+	 *
+	 * @param words
+	 *            riječi upita
+	 * @return imena datoteka pronađenih dokumenata
+	 */
+	private static Set<String> query(String... words) {
+		BooleanQuery query = BooleanQuery.parse(Arrays.asList(words));
+		Set<String> found = new TreeSet<>();
+		for (Result result : provider.search(provider.filterQueryWords(query.getScoringWords()), query, 10, null,
+				null)) {
+			found.add(result.getFilePath().substring(folder.getRoot().getAbsolutePath().length() + 1));
+		}
+
+		return found;
+	}
+
+	/**
+	 * Pomoćna metoda koja stvara skup imena datoteka
+	 *
+	 * @param names
+	 *            imena datoteka
+	 * @return sortirani skup imena
+	 */
+	private static Set<String> files(String... names) {
+		return new TreeSet<>(Arrays.asList(names));
+	}
+
+	/**
+	 * Pomoćna metoda koja zapisuje dokument s imenom <b>name</b>
+	 *
+	 * @param name
+	 *            ime dokumenta
+	 * @param text
+	 *            tekst dokumenta
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	private static void write(String name, String text) throws IOException {
+		Files.write(folder.getRoot().toPath().resolve(name), text.getBytes(StandardCharsets.UTF_8));
+	}
+}
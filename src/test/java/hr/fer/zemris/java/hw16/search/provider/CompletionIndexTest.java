@@ -0,0 +1,169 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+
+/**
+ * Testovi razreda {@link CompletionIndex}. Dovršavanje svakog prefiksa
+ * pojmova rječnika uspoređuje se sa slijednim prolazom kroz sve pojmove, a
+ * prijedlozi nad zbirkom sa sklonjenim riječima moraju prikazivati oblike
+ * riječi umjesto korijena.
+ *
+ * @author Davor Češljaš
+ */
+public class CompletionIndexTest {
+
+	/** Znakovi od kojih se sastoje slučajni pojmovi */
+	private static final String ALPHABET = "abcčđšž";
+
+	/** Privremeni direktorij s dokumentima */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void completionsMatchLinearScan() {
+		Random random = new Random(5);
+		Set<String> words = new HashSet<>();
+		while (words.size() < 3000) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0, len = 1 + random.nextInt(6); i < len; i++) {
+				sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+			words.add(sb.toString());
+		}
+
+		TermDictionary vocabulary = TermDictionary.build(words);
+		int[] frequencies = new int[vocabulary.size()];
+		for (int id = 0; id < frequencies.length; id++) {
+			frequencies[id] = random.nextInt(8);
+		}
+		CompletionIndex index = new CompletionIndex(vocabulary, frequencies);
+
+		Set<String> prefixes = new HashSet<>();
+		prefixes.add("");
+		prefixes.add("x");
+		prefixes.add("ax");
+		for (String word : words) {
+			for (int length = 1; length <= word.length(); length++) {
+				prefixes.add(word.substring(0, length));
+			}
+		}
+
+		for (String prefix : prefixes) {
+			int[] expected = linearScan(vocabulary, frequencies, prefix);
+			assertArrayEquals(prefix, expected, index.complete(prefix, CompletionIndex.MAX_COMPLETIONS));
+			assertArrayEquals(prefix, truncate(expected, 3), index.complete(prefix, 3));
+		}
+	}
+
+	@Test
+	public void smallIntervalsHaveNoNodes() {
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < CompletionIndex.MAX_COMPLETIONS; i++) {
+			words.add("a" + (char) ('a' + i));
+		}
+		TermDictionary vocabulary = TermDictionary.build(words);
+		int[] frequencies = new int[vocabulary.size()];
+		frequencies[3] = 5;
+		frequencies[7] = 5;
+		CompletionIndex index = new CompletionIndex(vocabulary, frequencies);
+
+		assertEquals(0, index.nodeCount());
+		assertArrayEquals(new int[] { 3, 7, 0 }, index.complete("a", 3));
+	}
+
+	@Test
+	public void emptyVocabularyHasNoCompletions() {
+		CompletionIndex index = new CompletionIndex(TermDictionary.build(Collections.emptyList()), new int[0]);
+		assertArrayEquals(new int[0], index.complete("", CompletionIndex.MAX_COMPLETIONS));
+		assertArrayEquals(new int[0], index.complete("a", CompletionIndex.MAX_COMPLETIONS));
+	}
+
+	@Test
+	public void suggestionsShowSurfaceForms() throws IOException {
+		Path documents = folder.getRoot().toPath();
+		Files.write(documents.resolve("prvi"),
+				"Nogometna utakmica u Zagrebu. Nogometna reprezentacija i nogometni savez."
+						.getBytes(StandardCharsets.UTF_8));
+		Files.write(documents.resolve("drugi"), "Nogometnih utakmica bilo je mnogo, a utakmice su gledali navijači."
+				.getBytes(StandardCharsets.UTF_8));
+		Files.write(documents.resolve("treci"), "Kazalište je puno, predstava u kazalištu i novo kazalište. Utakmica je odgođena."
+				.getBytes(StandardCharsets.UTF_8));
+
+		SearchProvider.setAnalyzer(Analyzer.create(true));
+		SearchProvider provider = SearchProvider.build("test", documents.toString());
+
+		Map<String, Integer> expected = new LinkedHashMap<>();
+		expected.put("nogometna", 4);
+		assertEquals(expected, provider.suggest("nogo", CompletionIndex.MAX_COMPLETIONS));
+
+		expected.clear();
+		expected.put("utakmica", 4);
+		assertEquals(expected, provider.suggest("Utak", CompletionIndex.MAX_COMPLETIONS));
+
+		expected.clear();
+		expected.put("kazalište", 3);
+		assertEquals(expected, provider.suggest("kazališ", CompletionIndex.MAX_COMPLETIONS));
+	}
+
+	/**
+	 * Pomoćna metoda koja slijednim prolazom kroz rječnik <b>vocabulary</b>
+	 * pronalazi najčešće pojmove s prefiksom <b>prefix</b>
+	 *
+	 * @param vocabulary
+	 *            rječnik pojmova
+	 * @param frequencies
+	 *            broj pojavljivanja pojedinog pojma
+	 * @param prefix
+	 *            prefiks pojmova
+	 * @return najviše {@value CompletionIndex#MAX_COMPLETIONS} identifikatora
+	 *         pojmova, od najčešćeg prema najrjeđem
+	 */
+	private static int[] linearScan(TermDictionary vocabulary, int[] frequencies, String prefix) {
+		List<Integer> ids = new ArrayList<>();
+		for (int id = 0; id < vocabulary.size(); id++) {
+			if (vocabulary.getTerm(id).startsWith(prefix)) {
+				ids.add(id);
+			}
+		}
+		ids.sort(Comparator.<Integer> comparingInt(id -> -frequencies[id]).thenComparingInt(id -> id));
+
+		return truncate(ids.stream().mapToInt(Integer::intValue).toArray(), CompletionIndex.MAX_COMPLETIONS);
+	}
+
+	/**
+	 * Pomoćna metoda koja skraćuje polje <b>ids</b> na najviše <b>limit</b>
+	 * elemenata
+	 *
+	 * @param ids
+	 *            polje identifikatora
+	 * @param limit
+	 *            najveći broj elemenata
+	 * @return skraćeno polje
+	 */
+	private static int[] truncate(int[] ids, int limit) {
+		int[] truncated = new int[Math.min(ids.length, limit)];
+		System.arraycopy(ids, 0, truncated, 0, truncated.length);
+		return truncated;
+	}
+}
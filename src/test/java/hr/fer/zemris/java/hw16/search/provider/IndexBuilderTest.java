@@ -0,0 +1,198 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+
+/**
+ * Testovi razreda {@link IndexBuilder}. Rezultati spajanja uz vrlo mali
+ * proračun, a time i mnogo privremenih datoteka, uspoređuju se s izravnim
+ * brojanjem pojmova.
+ *
+ * @author Davor Češljaš
+ */
+public class IndexBuilderTest {
+
+	/** Privremeni direktorij s dokumentima */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void mergeMatchesDirectCount() throws IOException {
+		Random random = new Random(42);
+		int documents = 300;
+		List<List<String>> tokens = new ArrayList<>();
+		for (int doc = 0; doc < documents; doc++) {
+			List<String> words = new ArrayList<>();
+			for (int i = 0, len = random.nextInt(40); i < len; i++) {
+				words.add("w" + (int) Math.abs(random.nextGaussian() * 60));
+			}
+			tokens.add(words);
+		}
+
+		BitSet excluded = new BitSet();
+		for (int doc = 0; doc < documents; doc += 7) {
+			excluded.set(doc);
+		}
+
+		try (IndexBuilder builder = new IndexBuilder(512)) {
+			for (List<String> words : tokens) {
+				TermCounter counter = new TermCounter();
+				for (String word : words) {
+					counter.increment(builder.termId(word));
+				}
+				builder.add(counter, words, offsets(words));
+			}
+			assertTrue(builder.getRunCount() > 10);
+			builder.finish(excluded);
+
+			Map<String, Integer> frequencies = new TreeMap<>();
+			for (int doc = 0; doc < documents; doc++) {
+				if (!excluded.get(doc)) {
+					for (String word : new HashSet<>(tokens.get(doc))) {
+						frequencies.merge(word, 1, Integer::sum);
+					}
+				}
+			}
+			List<String> terms = builder.getTerms();
+			assertEquals(new ArrayList<>(frequencies.keySet()), terms);
+			for (int i = 0; i < terms.size(); i++) {
+				assertEquals(frequencies.get(terms.get(i)).intValue(), builder.documentFrequency(i));
+			}
+
+			TermDictionary vocabulary = TermDictionary.build(terms);
+			for (int doc = 0; doc < documents; doc++) {
+				if (excluded.get(doc)) {
+					continue;
+				}
+
+				assertEquals(doc, builder.nextDocument());
+				Map<String, Integer> expected = new TreeMap<>();
+				for (String word : tokens.get(doc)) {
+					expected.merge(word, 1, Integer::sum);
+				}
+				Map<String, Integer> actual = new TreeMap<>();
+				int[] documentTerms = builder.documentTerms();
+				for (int i = 0; i < documentTerms.length; i += 2) {
+					actual.put(terms.get(documentTerms[i]), documentTerms[i + 1]);
+				}
+				assertEquals(expected, actual);
+
+				String content = String.join(" ", tokens.get(doc));
+				Excerpt excerpt = builder.documentExcerpt(vocabulary);
+				assertEquals(content, excerpt.snippet(content, Collections.emptySet(), 100));
+				if (!tokens.get(doc).isEmpty()) {
+					String first = tokens.get(doc).get(0);
+					String snippet = excerpt.snippet(content, Collections.singleton(vocabulary.getId(first)), 100);
+					assertTrue(snippet.startsWith(Excerpt.HIGHLIGHT + first + Excerpt.HIGHLIGHT));
+				}
+			}
+			assertEquals(-1, builder.nextDocument());
+		}
+	}
+
+	@Test
+	public void temporaryFilesAreDeleted() throws IOException {
+		Set<Path> before = buildDirectories();
+		try (IndexBuilder builder = new IndexBuilder(64)) {
+			for (int doc = 0; doc < 20; doc++) {
+				List<String> words = new ArrayList<>();
+				words.add("a" + doc);
+				words.add("b");
+				TermCounter counter = new TermCounter();
+				for (String word : words) {
+					counter.increment(builder.termId(word));
+				}
+				builder.add(counter, words, offsets(words));
+			}
+			assertTrue(builder.getRunCount() > 1);
+		}
+		assertEquals(before, buildDirectories());
+	}
+
+	@Test
+	public void temporaryFilesAreDeletedWhenBuildFails() throws IOException {
+		Files.write(folder.newFile("first").toPath(), "nogomet utakmica".getBytes());
+		folder.newFolder("not-a-document");
+		SearchProvider.setAnalyzer(Analyzer.create(false));
+
+		Set<Path> before = buildDirectories();
+		try {
+			SearchProvider.build("failing", folder.getRoot().getAbsolutePath());
+			fail("Izgradnja nad direktorijem unutar direktorija dokumenata mora baciti iznimku");
+		} catch (IOException expected) {
+		}
+		assertEquals(before, buildDirectories());
+	}
+
+	@Test
+	public void emptyBuilderHasNoDocuments() throws IOException {
+		try (IndexBuilder builder = new IndexBuilder(1024)) {
+			builder.finish(new BitSet());
+			assertTrue(builder.getTerms().isEmpty());
+			assertEquals(-1, builder.nextDocument());
+			assertArrayEquals(new int[0], builder.documentTerms());
+		}
+	}
+
+	/**
+	 * Pomoćna metoda koja računa položaje riječi <b>words</b> unutar teksta u
+	 * kojem su riječi odvojene jednim razmakom
+	 *
+	 * @param words
+	 *            riječi teksta
+	 * @return položaji početka i kraja svake riječi
+	 */
+	private static int[] offsets(List<String> words) {
+		int[] offsets = new int[2 * words.size()];
+		int position = 0;
+		for (int i = 0; i < words.size(); i++) {
+			offsets[2 * i] = position;
+			offsets[2 * i + 1] = position += words.get(i).length();
+			position++;
+		}
+
+		return offsets;
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća privremene direktorije graditelja
+	 *
+	 * @return skup privremenih direktorija graditelja
+	 * @throws IOException
+	 *             Ukoliko čitanje direktorija nije uspjelo
+	 */
+	private static Set<Path> buildDirectories() throws IOException {
+		Set<Path> directories = new HashSet<>();
+		Path temp = Paths.get(System.getProperty("java.io.tmpdir"));
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(temp, "search-{build,signatures}*")) {
+			for (Path path : stream) {
+				directories.add(path);
+			}
+		}
+
+		return directories;
+	}
+}
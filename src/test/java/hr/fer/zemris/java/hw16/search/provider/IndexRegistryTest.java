@@ -0,0 +1,114 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+
+/**
+ * Testovi razreda {@link IndexRegistry}. Neuspjela ponovna izgradnja ne smije
+ * ostaviti registar bez aktivnog indeksa, a neaktivni indeksi otpuštaju se i
+ * bez promjene aktivnog indeksa.
+ *
+ * @author Davor Češljaš
+ */
+public class IndexRegistryTest {
+
+	/** Privremeni direktorij s dokumentima */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/** Registar indeksa */
+	private final IndexRegistry registry = IndexRegistry.getRegistry();
+
+	@Before
+	public void setUp() throws IOException {
+		SearchProvider.setAnalyzer(Analyzer.create(false));
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty(IndexRegistry.IDLE_PROPERTY);
+	}
+
+	@Test
+	public void failedRebuildKeepsActiveIndex() throws IOException {
+		registry.register("ponovno", documents("prvi", "nogomet utakmica stadion").toString());
+		SearchProvider active = registry.use("ponovno");
+
+		Path broken = documents("drugi", "glazba koncert dvorana");
+		Files.createDirectory(broken.resolve("poddirektorij"));
+		try {
+			registry.register("ponovno", broken.toString());
+			fail("Izgradnja nad direktorijem s poddirektorijem mora baciti iznimku");
+		} catch (IOException expected) {
+		}
+
+		assertSame(active, SearchProvider.getProvider());
+		assertEquals("ponovno", registry.getActiveName());
+		assertEquals(1, active.search(Arrays.asList("nogomet"), 10).size());
+	}
+
+	@Test
+	public void rebuildReplacesActiveIndex() throws IOException {
+		registry.register("zamjena", documents("prvi", "nogomet utakmica stadion").toString());
+		registry.use("zamjena");
+
+		registry.register("zamjena", documents("drugi", "glazba koncert dvorana").toString());
+		SearchProvider active = SearchProvider.getProvider();
+		assertSame(registry.get("zamjena"), active);
+		assertEquals(1, active.search(Arrays.asList("glazba"), 10).size());
+		assertEquals(0, active.search(Arrays.asList("nogomet"), 10).size());
+	}
+
+	@Test
+	public void idleIndexIsReleasedWithoutUse() throws IOException, InterruptedException {
+		System.setProperty(IndexRegistry.IDLE_PROPERTY, "1");
+		registry.register("neaktivan", documents("prvi", "nogomet utakmica stadion").toString());
+		registry.register("aktivan", documents("drugi", "glazba koncert dvorana").toString());
+		registry.use("neaktivan");
+		registry.use("aktivan");
+		assertNotNull(registry.get("neaktivan"));
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (registry.get("neaktivan") != null && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+		}
+		assertNull(registry.get("neaktivan"));
+		assertNotNull(registry.get("aktivan"));
+	}
+
+	/**
+	 * Pomoćna metoda koja stvara direktorij <b>name</b> s dva dokumenta, od
+	 * kojih jedan ima tekst <b>text</b>
+	 *
+	 * @param name
+	 *            ime direktorija
+	 * @param text
+	 *            tekst dokumenta
+	 * @return putanja direktorija
+	 * @throws IOException
+	 *             Ukoliko direktorij nije moguće stvoriti
+	 */
+	private Path documents(String name, String text) throws IOException {
+		Path directory = folder.newFolder(name).toPath();
+		Files.write(directory.resolve("dokument"), text.getBytes(StandardCharsets.UTF_8));
+		Files.write(directory.resolve("ostalo"), "vrijeme kiša sunce".getBytes(StandardCharsets.UTF_8));
+		return directory;
+	}
+}
@@ -0,0 +1,139 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Testovi presjeka i unije lista razreda {@link PostingsIndex}. Gustoća
+ * pojmova jako se razlikuje, pa galopirajuće pretraživanje preskače i kratke
+ * i vrlo duge dijelove lista, a rezultati se uspoređuju s izravnim obilaskom
+ * vektora dokumenata.
+ *
+ * @author Davor Češljaš
+ */
+public class PostingsIndexTest {
+
+	/** Broj dokumenata indeksa */
+	private static final int DOCUMENTS = 2000;
+
+	/** Broj pojmova vokabulara */
+	private static final int DIMENSION = 40;
+
+	/** Vektori dokumenata */
+	private static List<DocumentVector> documents;
+
+	/** Indeks nad vektorima dokumenata */
+	private static PostingsIndex index;
+
+	@BeforeClass
+	public static void buildIndex() {
+		Random random = new Random(42);
+		documents = new ArrayList<>();
+		for (int doc = 0; doc < DOCUMENTS; doc++) {
+			double[] tfidf = new double[DIMENSION];
+			for (int term = 0; term < DIMENSION; term++) {
+				if (random.nextDouble() < density(term)) {
+					tfidf[term] = 1 + random.nextDouble();
+				}
+			}
+			documents.add(new DocumentVector("doc" + doc, tfidf));
+		}
+
+		index = new PostingsIndex(documents, DIMENSION);
+	}
+
+	@Test
+	public void documentFrequencyMatchesVectors() {
+		for (int term = 0; term < DIMENSION; term++) {
+			assertEquals(matching(new int[][] { { term } }).length, index.documentFrequency(term));
+		}
+	}
+
+	@Test
+	public void matchAllMatchesLinearScan() {
+		Random random = new Random(7);
+		for (int query = 0; query < 500; query++) {
+			int[][] groups = new int[1 + random.nextInt(4)][];
+			for (int i = 0; i < groups.length; i++) {
+				groups[i] = new int[1 + random.nextInt(3)];
+				for (int j = 0; j < groups[i].length; j++) {
+					groups[i][j] = random.nextInt(DIMENSION);
+				}
+			}
+
+			assertArrayEquals(matching(groups), index.matchAll(groups));
+		}
+	}
+
+	@Test
+	public void matchAllSkipsToLastDocument() {
+		int rare = DIMENSION - 1;
+		int[] expected = matching(new int[][] { { 0 }, { rare } });
+		assertArrayEquals(expected, index.matchAll(new int[][] { { 0 }, { rare } }));
+		assertArrayEquals(expected, index.matchAll(new int[][] { { rare }, { 0 } }));
+	}
+
+	@Test
+	public void matchAllWithoutGroupsIsEmpty() {
+		assertArrayEquals(new int[0], index.matchAll(new int[0][]));
+	}
+
+	@Test
+	public void matchAnyMatchesLinearScan() {
+		int[] termIds = { 1, 17, DIMENSION - 1 };
+		BitSet expected = new BitSet();
+		for (int doc : matching(new int[][] { termIds })) {
+			expected.set(doc);
+		}
+
+		assertEquals(expected, index.matchAny(termIds));
+	}
+
+	/**
+	 * Pomoćna metoda koja određuje udio dokumenata koji sadrže pojam
+	 * <b>term</b>. Prvi pojmovi su u gotovo svim dokumentima, a posljednji u
+	 * svega nekoliko.
+	 *
+	 * @param term
+	 *            identifikator pojma
+	 * @return vjerojatnost pojavljivanja pojma u dokumentu
+	 */
+	private static double density(int term) {
+		return 0.95 / (1 + term * term / 4.0);
+	}
+
+	/**
+	 * Pomoćna metoda koja izravnim obilaskom vektora pronalazi dokumente koji
+	 * iz svake skupine <b>groups</b> sadrže barem jedan pojam
+	 *
+	 * @param groups
+	 *            skupine identifikatora pojmova
+	 * @return rastuće poredani redni brojevi pronađenih dokumenata
+	 */
+	private static int[] matching(int[][] groups) {
+		List<Integer> found = new ArrayList<>();
+		documents: for (int doc = 0; doc < DOCUMENTS; doc++) {
+			double[] tfidf = documents.get(doc).getTfidf();
+			for (int[] group : groups) {
+				boolean any = false;
+				for (int term : group) {
+					any |= tfidf[term] != 0;
+				}
+				if (!any) {
+					continue documents;
+				}
+			}
+			found.add(doc);
+		}
+
+		return found.stream().mapToInt(Integer::intValue).toArray();
+	}
+}
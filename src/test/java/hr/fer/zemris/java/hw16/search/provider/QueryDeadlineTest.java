@@ -0,0 +1,89 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+import hr.fer.zemris.java.hw16.search.environment.IEnvironment;
+import hr.fer.zemris.java.hw16.search.environment.SearchEnvironment;
+
+/**
+ * Testovi otkazivanja upita rokom {@link QueryDeadline} nad malim indeksom
+ * izgrađenim metodom {@link SearchProvider#build(String, String)}.
+ *
+ * @author Davor Češljaš
+ */
+public class QueryDeadlineTest {
+
+	/** Privremeni direktorij s dokumentima */
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	/** Indeks nad kojim se izvode upiti */
+	private static SearchProvider provider;
+
+	/** Riječi upita */
+	private static final List<String> QUERY = Arrays.asList("nogomet", "utakmica");
+
+	@BeforeClass
+	public static void buildIndex() throws IOException {
+		for (int i = 0; i < 40; i++) {
+			String text = (i % 2 == 0 ? "nogomet utakmica " : "glazba koncert ") + "igrac" + (char) ('a' + i % 26)
+					+ (char) ('a' + i / 26);
+			Files.write(folder.getRoot().toPath().resolve("dokument" + i), text.getBytes(StandardCharsets.UTF_8));
+		}
+
+		SearchProvider.setAnalyzer(Analyzer.create(false));
+		provider = SearchProvider.build("test", folder.getRoot().getAbsolutePath());
+	}
+
+	@Test
+	public void unlimitedDeadlineCompletes() {
+		QueryDeadline deadline = new QueryDeadline(0);
+		assertEquals(20, provider.search(QUERY, 100, null, deadline).size());
+		assertEquals(20, provider.approximateSearch(QUERY, 100, 1000, deadline).size());
+		assertFalse(deadline.isPartial());
+	}
+
+	@Test
+	public void cancelledSearchIsPartial() {
+		QueryDeadline deadline = new QueryDeadline(0);
+		deadline.cancel();
+		assertTrue(provider.search(QUERY, 10, null, deadline).isEmpty());
+		assertTrue(deadline.isPartial());
+	}
+
+	@Test
+	public void cancelledApproximateSearchIsPartial() {
+		QueryDeadline deadline = new QueryDeadline(0);
+		deadline.cancel();
+		assertTrue(provider.approximateSearch(QUERY, 10, 1000, deadline).isEmpty());
+		assertTrue(deadline.isPartial());
+	}
+
+	@Test
+	public void environmentCancelsCurrentAndLaterQueries() {
+		IEnvironment environment = new SearchEnvironment(new ByteArrayInputStream(new byte[0]),
+				new ByteArrayOutputStream());
+		QueryDeadline current = environment.createDeadline();
+		assertFalse(current.isExpired());
+
+		environment.cancelQueries();
+		assertTrue(current.isCancelled());
+		assertTrue(environment.createDeadline().isCancelled());
+	}
+}
@@ -0,0 +1,231 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+
+/**
+ * Testovi trajnosti razreda {@link SegmentedIndex}. Ponovno pokretanje
+ * oponaša se stvaranjem novog primjerka nad istim direktorijem segmenata, bez
+ * zatvaranja prethodnog.
+ *
+ * @author Davor Češljaš
+ */
+public class SegmentedIndexTest {
+
+	/** Privremeni direktorij s dokumentima i segmentima */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/** Bazni indeks */
+	private SearchProvider base;
+
+	/** Putanja baznog dokumenta */
+	private String basePath;
+
+	@Before
+	public void setUp() throws IOException {
+		Path documents = folder.newFolder("documents").toPath();
+		Files.write(documents.resolve("nogomet"), "nogomet utakmica stadion".getBytes(StandardCharsets.UTF_8));
+		Files.write(documents.resolve("glazba"), "glazba koncert dvorana".getBytes(StandardCharsets.UTF_8));
+		basePath = documents.resolve("nogomet").toAbsolutePath().toString();
+
+		SearchProvider.setAnalyzer(Analyzer.create(false));
+		base = SearchProvider.build("test", documents.toString());
+		System.setProperty(SegmentedIndex.DIRECTORY_PROPERTY, folder.newFolder("segments").toString());
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty(SegmentedIndex.DIRECTORY_PROPERTY);
+	}
+
+	@Test
+	public void memtableSurvivesRestart() throws IOException {
+		SegmentedIndex index = new SegmentedIndex(base);
+		index.add("novi", terms(index, "kazalište", 2));
+		index.add("obrisani", terms(index, "kazalište", 1));
+		index.add(basePath, terms(index, "rukomet", 1));
+		index.delete("obrisani");
+
+		SegmentedIndex restarted = new SegmentedIndex(base);
+		assertEquals(2, restarted.memtableSize());
+		assertTrue(restarted.isBaseDeleted(basePath));
+		assertEquals(paths("novi"), found(restarted, "kazalište"));
+		assertEquals(paths(basePath), found(restarted, "rukomet"));
+	}
+
+	@Test
+	public void flushEmptiesLog() throws IOException {
+		SegmentedIndex index = new SegmentedIndex(base);
+		index.add("novi", terms(index, "kazalište", 1));
+		index.flush();
+		assertEquals(0, Files.size(index.getDirectory().resolve("memtable.log")));
+
+		SegmentedIndex restarted = new SegmentedIndex(base);
+		assertEquals(0, restarted.memtableSize());
+		assertEquals(1, restarted.getSegments().size());
+		assertEquals(paths("novi"), found(restarted, "kazalište"));
+	}
+
+	@Test
+	public void incompleteLogRecordIsDiscarded() throws IOException {
+		SegmentedIndex index = new SegmentedIndex(base);
+		index.add("novi", terms(index, "kazalište", 1));
+		Path log = index.getDirectory().resolve("memtable.log");
+		Files.write(log, new byte[] { 1, 0, 40, 'x' }, StandardOpenOption.APPEND);
+
+		SegmentedIndex restarted = new SegmentedIndex(base);
+		assertEquals(1, restarted.memtableSize());
+		restarted.add("drugi", terms(restarted, "kazalište", 1));
+
+		SegmentedIndex again = new SegmentedIndex(base);
+		assertEquals(paths("novi", "drugi"), found(again, "kazalište"));
+	}
+
+	@Test
+	public void flatLayoutIsMigrated() throws IOException {
+		SegmentedIndex index = new SegmentedIndex(base);
+		index.add("novi", terms(index, "kazalište", 1));
+		index.flush();
+		index.delete(basePath);
+
+		Path directory = index.getDirectory();
+		Path root = directory.getParent();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.{seg,del}")) {
+			for (Path file : stream) {
+				Files.move(file, root.resolve(file.getFileName()));
+			}
+		}
+
+		SegmentedIndex migrated = new SegmentedIndex(base);
+		assertEquals(1, migrated.getSegments().size());
+		assertTrue(migrated.isBaseDeleted(basePath));
+		assertEquals(paths("novi"), found(migrated, "kazalište"));
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, "*.{seg,del}")) {
+			assertFalse(stream.iterator().hasNext());
+		}
+	}
+
+	@Test
+	public void mergeKeepsLiveDocuments() throws IOException, InterruptedException {
+		SegmentedIndex index = new SegmentedIndex(base);
+		for (int i = 0; i < 3; i++) {
+			TermCounter counter = terms(index, "kazalište", i + 1);
+			counter.add(index.termId("segment" + i), 1);
+			counter.add(index.termId("nogomet"), 1);
+			index.add("novi" + i, counter);
+			index.flush();
+		}
+		index.delete("novi1");
+
+		index.forceMerge();
+		assertEquals(1, index.getSegments().size());
+		assertEquals(paths("novi0", "novi2"), found(index, "kazalište"));
+		assertEquals(paths("novi2"), found(index, "segment2"));
+		assertTrue(found(index, "segment1").isEmpty());
+		assertEquals(paths("novi0", "novi2"), found(index, "nogomet"));
+	}
+
+	@Test
+	public void indexWithoutDirectoryStaysInMemory() throws IOException, InterruptedException {
+		System.clearProperty(SegmentedIndex.DIRECTORY_PROPERTY);
+		SegmentedIndex index = new SegmentedIndex(base);
+		for (int i = 0; i < SegmentedIndex.MERGE_FACTOR; i++) {
+			index.add("novi" + i, terms(index, "kazalište", 1));
+			index.flush();
+		}
+		index.delete("novi0");
+		index.delete(basePath);
+		index.forceMerge();
+
+		assertFalse(index.isPersistent());
+		assertNull(index.getDirectory());
+		assertEquals(paths("novi1", "novi2", "novi3"), found(index, "kazalište"));
+		assertTrue(index.isBaseDeleted(basePath));
+		index.close();
+	}
+
+	@Test
+	public void idfCountsMemtableDocuments() throws IOException {
+		SegmentedIndex index = new SegmentedIndex(base);
+		index.add("novi", terms(index, "kazalište", 2));
+		index.add("drugi", terms(index, "nogomet", 1));
+		assertEquals(Math.log(4 / 1.0), index.idf("kazalište"), 1e-9);
+		assertEquals(Math.log(4 / 2.0), index.idf("nogomet"), 1e-9);
+
+		index.delete("novi");
+		assertEquals(0, index.idf("kazalište"), 0);
+		assertEquals(Math.log(3 / 2.0), index.idf("nogomet"), 1e-9);
+
+		index.flush();
+		assertEquals(0, index.memtableSize());
+		assertEquals(Math.log(3 / 2.0), index.idf("nogomet"), 1e-9);
+	}
+
+	/**
+	 * Pomoćna metoda koja pretražuje segmente pojmom <b>term</b>
+	 *
+	 * @param index
+	 *            segmenti koji se pretražuju
+	 * @param term
+	 *            pojam upita
+	 * @return putanje pronađenih dokumenata
+	 */
+	private static Set<String> found(SegmentedIndex index, String term) {
+		Set<String> paths = new HashSet<>();
+		for (Result result : index.search(terms(index, term, 1), 10)) {
+			paths.add(result.getFilePath());
+		}
+
+		return paths;
+	}
+
+	/**
+	 * Pomoćna metoda koja stvara brojač s jednim pojmom <b>term</b>
+	 *
+	 * @param index
+	 *            segmenti koji dodjeljuju identifikator pojma
+	 * @param term
+	 *            pojam
+	 * @param count
+	 *            broj pojavljivanja pojma
+	 * @return brojač pojmova
+	 */
+	private static TermCounter terms(SegmentedIndex index, String term, int count) {
+		TermCounter counter = new TermCounter();
+		counter.add(index.termId(term), count);
+		return counter;
+	}
+
+	/**
+	 * Pomoćna metoda koja stvara skup putanja
+	 *
+	 * @param paths
+	 *            putanje
+	 * @return skup putanja
+	 */
+	private static Set<String> paths(String... paths) {
+		return new HashSet<>(Arrays.asList(paths));
+	}
+}
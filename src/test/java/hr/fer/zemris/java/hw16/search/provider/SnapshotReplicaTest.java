@@ -0,0 +1,206 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestName;
+
+import hr.fer.zemris.java.hw16.search.analysis.Analyzer;
+import hr.fer.zemris.java.hw16.search.environment.Result;
+
+/**
+ * Testovi izvoza snimki razredom {@link SnapshotWriter} i njihovog
+ * postavljanja u repliku {@link SnapshotReplica}. Svaki test koristi indeks
+ * vlastitog imena, pa se inačice postavljene u zajednički registar
+ * {@link IndexRegistry} ne miješaju.
+ *
+ * @author Davor Češljaš
+ */
+public class SnapshotReplicaTest {
+
+	/** Privremeni direktorij s dokumentima i snimkama */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/** Ime testa koje se koristi kao ime indeksa */
+	@Rule
+	public TestName testName = new TestName();
+
+	/** Indeks koji se izvozi */
+	private SearchProvider provider;
+
+	/** Zajednički direktorij snimki */
+	private Path snapshots;
+
+	/** Pisac snimki */
+	private SnapshotWriter writer;
+
+	/** Replika koja čita snimke */
+	private SnapshotReplica replica;
+
+	@Before
+	public void setUp() throws IOException {
+		Path documents = folder.newFolder("documents").toPath();
+		write(documents.resolve("nogomet"), "nogomet utakmica stadion");
+		write(documents.resolve("glazba"), "glazba koncert dvorana");
+		write(documents.resolve("kazaliste"), "kazalište predstava glumac");
+
+		System.clearProperty(SegmentedIndex.DIRECTORY_PROPERTY);
+		SearchProvider.setAnalyzer(Analyzer.create(false));
+		provider = SearchProvider.build(testName.getMethodName(), documents.toString());
+		snapshots = folder.newFolder("snapshots").toPath();
+		writer = SnapshotWriter.getWriter(snapshots);
+		replica = new SnapshotReplica(snapshots);
+	}
+
+	@Test
+	public void deltaIsInstalledOnReplica() throws IOException {
+		IndexSnapshot first = writer.export(provider);
+		assertEquals(1, replica.refresh());
+		assertEquals(first.getVersion(), replica.getVersion(provider.getName()));
+		assertEquals(found(provider, "nogomet"), found(installed(), "nogomet"));
+
+		String added = provider.addDocument(write(folder.newFile("rukomet").toPath(), "nogomet rukomet stadion"));
+		IndexSnapshot second = writer.export(provider);
+		assertEquals(first.getVersion() + 1, second.getVersion());
+		assertEquals(first.getVersion(), second.getFiles().get(SnapshotWriter.VOCABULARY_FILE).getVersion());
+		assertEquals(first.getVersion(), second.getFiles().get(SnapshotWriter.DOCUMENTS_FILE).getVersion());
+		assertTrue(second.deltaSizeInBytes() < second.sizeInBytes());
+
+		assertEquals(1, replica.refresh());
+		assertEquals(second.getVersion(), replica.getVersion(provider.getName()));
+		Set<String> expected = found(provider, "stadion");
+		assertTrue(expected.contains(added));
+		assertEquals(expected, found(installed(), "stadion"));
+		assertEquals(0, replica.refresh());
+	}
+
+	@Test
+	public void unchangedIndexIsNotExportedAgain() throws IOException {
+		IndexSnapshot first = writer.export(provider);
+		assertEquals(first.getVersion(), writer.export(provider).getVersion());
+		assertEquals(Collections.singletonList(first.getVersion()),
+				IndexSnapshot.versions(snapshots.resolve(provider.getName())));
+	}
+
+	@Test
+	public void corruptedVersionIsRejected() throws IOException {
+		writer.export(provider);
+		assertEquals(1, replica.refresh());
+
+		provider.addDocument(write(folder.newFile("rukomet").toPath(), "nogomet rukomet stadion"));
+		IndexSnapshot second = writer.export(provider);
+		Path file = changedFile(second);
+		byte[] bytes = Files.readAllBytes(file);
+		byte[] corrupted = bytes.clone();
+		corrupted[corrupted.length / 2] ^= 1;
+		Files.write(file, corrupted);
+
+		assertEquals(0, replica.refresh());
+		assertEquals(second.getVersion() - 1, replica.getVersion(provider.getName()));
+		assertTrue(replica.getErrors().containsKey(provider.getName()));
+
+		Files.write(file, bytes);
+		assertEquals(0, replica.refresh());
+		assertEquals(second.getVersion() - 1, replica.getVersion(provider.getName()));
+	}
+
+	@Test
+	public void unavailableVersionIsRetried() throws IOException {
+		writer.export(provider);
+		assertEquals(1, replica.refresh());
+
+		provider.addDocument(write(folder.newFile("rukomet").toPath(), "nogomet rukomet stadion"));
+		IndexSnapshot second = writer.export(provider);
+		Path file = changedFile(second);
+		Path moved = folder.getRoot().toPath().resolve("moved");
+		Files.move(file, moved);
+
+		assertEquals(0, replica.refresh());
+		assertTrue(replica.getErrors().containsKey(provider.getName()));
+
+		Files.move(moved, file);
+		assertEquals(1, replica.refresh());
+		assertEquals(second.getVersion(), replica.getVersion(provider.getName()));
+		assertFalse(replica.getErrors().containsKey(provider.getName()));
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća indeks koji je replika postavila u registar
+	 *
+	 * @return postavljeni indeks
+	 */
+	private SearchProvider installed() {
+		return IndexRegistry.getRegistry().get(provider.getName());
+	}
+
+	/**
+	 * Pomoćna metoda koja dohvaća najveću datoteku zapisanu u direktoriju
+	 * inačice <b>snapshot</b>
+	 *
+	 * @param snapshot
+	 *            opis inačice
+	 * @return putanja do datoteke
+	 */
+	private Path changedFile(IndexSnapshot snapshot) {
+		Path indexDirectory = snapshots.resolve(provider.getName());
+		String largest = null;
+		for (Map.Entry<String, IndexSnapshot.SnapshotFile> entry : snapshot.getFiles().entrySet()) {
+			if (entry.getValue().getVersion() == snapshot.getVersion() && (largest == null
+					|| entry.getValue().getLength() > snapshot.getFiles().get(largest).getLength())) {
+				largest = entry.getKey();
+			}
+		}
+
+		return snapshot.resolve(indexDirectory, largest);
+	}
+
+	/**
+	 * Pomoćna statička metoda koja pretražuje indeks <b>index</b> pojmom
+	 * <b>term</b>
+	 *
+	 * @param index
+	 *            indeks koji se pretražuje
+	 * @param term
+	 *            pojam upita
+	 * @return putanje pronađenih dokumenata
+	 */
+	private static Set<String> found(SearchProvider index, String term) {
+		Set<String> paths = new HashSet<>();
+		for (Result result : index.search(Collections.singletonList(term), 10)) {
+			paths.add(result.getFilePath());
+		}
+
+		return paths;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja zapisuje tekst <b>text</b> u datoteku
+	 * <b>file</b>
+	 *
+	 * @param file
+	 *            putanja do datoteke
+	 * @param text
+	 *            tekst datoteke
+	 * @return putanja do datoteke
+	 * @throws IOException
+	 *             Ukoliko zapisivanje nije uspjelo
+	 */
+	private static Path write(Path file, String text) throws IOException {
+		return Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+	}
+}
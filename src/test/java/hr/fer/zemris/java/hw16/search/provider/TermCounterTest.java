@@ -0,0 +1,78 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Testovi razreda {@link TermCounter}. Brojanje uz višestruko povećavanje i
+ * ponovno korištenje tablice uspoređuje se s brojanjem u mapi.
+ *
+ * @author Davor Češljaš
+ */
+public class TermCounterTest {
+
+	@Test
+	public void countsMatchMap() {
+		Random random = new Random(17);
+		TermCounter counter = new TermCounter(1);
+		for (int round = 0; round < 20; round++) {
+			counter.clear();
+			Map<Integer, Integer> expected = new LinkedHashMap<>();
+			int distinct = 1 + random.nextInt(2000);
+			for (int i = 0, len = random.nextInt(5000); i < len; i++) {
+				int term = random.nextInt(distinct) * 1024;
+				int count = 1 + random.nextInt(3);
+				if (count == 1) {
+					counter.increment(term);
+				} else {
+					counter.add(term, count);
+				}
+				expected.merge(term, count, Integer::sum);
+			}
+
+			assertCounts(expected, counter);
+		}
+	}
+
+	@Test
+	public void missingTermHasNoCount() {
+		TermCounter counter = new TermCounter();
+		counter.increment(5);
+		assertEquals(1, counter.get(5));
+		assertEquals(0, counter.get(6));
+
+		counter.clear();
+		assertEquals(0, counter.size());
+		assertEquals(0, counter.get(5));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeTermIsRejected() {
+		new TermCounter().increment(-1);
+	}
+
+	/**
+	 * Pomoćna metoda koja provjerava da brojač <b>counter</b> sadrži točno
+	 * pojmove <b>expected</b>, istim redom dodavanja
+	 *
+	 * @param expected
+	 *            očekivani brojevi pojavljivanja, redom dodavanja
+	 * @param counter
+	 *            brojač koji se provjerava
+	 */
+	private static void assertCounts(Map<Integer, Integer> expected, TermCounter counter) {
+		assertEquals(expected.size(), counter.size());
+		int index = 0;
+		for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+			assertEquals(entry.getKey().intValue(), counter.term(index));
+			assertEquals(entry.getValue().intValue(), counter.count(index));
+			assertEquals(entry.getValue().intValue(), counter.get(entry.getKey()));
+			index++;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package hr.fer.zemris.java.hw16.search.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Testovi razreda {@link TermDictionary} i {@link LevenshteinAutomaton}.
+ * Rezultati pretraživanja rječnika uspoređuju se sa slijednim prolazom kroz
+ * sortirane pojmove.
+ *
+ * @author Davor Češljaš
+ */
+public class TermDictionaryTest {
+
+	/** Znakovi od kojih se sastoje slučajni pojmovi */
+	private static final String ALPHABET = "acčćdđjksšzž";
+
+	@Test
+	public void frontCodingKeepsAllTerms() {
+		List<String> terms = randomTerms(new Random(1), 2000);
+		TermDictionary dictionary = TermDictionary.build(terms);
+		List<String> sorted = new ArrayList<>(new TreeSet<>(terms));
+
+		assertEquals(sorted.size(), dictionary.size());
+		List<String> iterated = new ArrayList<>();
+		dictionary.forEach(iterated::add);
+		assertEquals(sorted, iterated);
+		for (int id = 0; id < sorted.size(); id++) {
+			assertEquals(sorted.get(id), dictionary.getTerm(id));
+			assertEquals(id, dictionary.getId(sorted.get(id)));
+		}
+		assertEquals(-1, dictionary.getId("x"));
+		assertFalse(dictionary.contains(sorted.get(0) + "x"));
+	}
+
+	@Test
+	public void prefixMatchesLinearScan() {
+		List<String> terms = randomTerms(new Random(2), 2000);
+		TermDictionary dictionary = TermDictionary.build(terms);
+		List<String> sorted = new ArrayList<>(new TreeSet<>(terms));
+
+		for (String prefix : Arrays.asList("", "a", "đ", "ka", "čć", "žžž", "zz")) {
+			List<String> expected = new ArrayList<>();
+			for (String term : sorted) {
+				if (term.startsWith(prefix)) {
+					expected.add(term);
+				}
+			}
+
+			assertEquals(expected, dictionary.termsWithPrefix(prefix, Integer.MAX_VALUE));
+			int[] range = dictionary.prefixRange(prefix);
+			assertEquals(expected, sorted.subList(range[0], range[1]));
+		}
+	}
+
+	@Test
+	public void fuzzyTermsMatchLinearScan() {
+		Random random = new Random(3);
+		List<String> terms = randomTerms(random, 3000);
+		TermDictionary dictionary = TermDictionary.build(terms);
+		List<String> sorted = new ArrayList<>(new TreeSet<>(terms));
+
+		for (int i = 0; i < 200; i++) {
+			String word = randomTerm(random);
+			for (int edits = 0; edits <= LevenshteinAutomaton.MAX_EDITS; edits++) {
+				List<String> expected = new ArrayList<>();
+				for (String term : sorted) {
+					if (distance(fold(word), fold(term)) <= edits) {
+						expected.add(term);
+					}
+				}
+
+				List<String> actual = dictionary.fuzzyTerms(word, edits, Integer.MAX_VALUE);
+				Collections.sort(actual);
+				assertEquals(word + "~" + edits, expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void digraphMatchesDiacritic() {
+		TermDictionary dictionary = TermDictionary.build(
+				Arrays.asList("međunarodni", "medunarodni", "odjel", "gdje", "dječak", "djeca", "deca"));
+
+		assertEquals(Arrays.asList("medunarodni", "međunarodni"),
+				sortedFuzzy(dictionary, "medjunarodni", 0));
+		assertEquals(Arrays.asList("medunarodni", "međunarodni"),
+				sortedFuzzy(dictionary, "međunarodni", 0));
+		assertEquals(Arrays.asList("odjel"), sortedFuzzy(dictionary, "odjel", 0));
+		assertEquals(Arrays.asList("gdje"), sortedFuzzy(dictionary, "gđe", 0));
+		assertEquals(Arrays.asList("deca", "djeca"), sortedFuzzy(dictionary, "đeca", 0));
+		assertTrue(sortedFuzzy(dictionary, "djecak", 0).contains("dječak"));
+	}
+
+	/**
+	 * Pomoćna statička metoda koja dohvaća sortirane pojmove slične riječi
+	 * <b>word</b>
+	 *
+	 * @param dictionary
+	 *            rječnik koji se pretražuje
+	 * @param word
+	 *            riječ
+	 * @param edits
+	 *            najveći broj izmjena
+	 * @return sortirani slični pojmovi
+	 */
+	private static List<String> sortedFuzzy(TermDictionary dictionary, String word, int edits) {
+		List<String> terms = dictionary.fuzzyTerms(word, edits, Integer.MAX_VALUE);
+		Collections.sort(terms);
+		return terms;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja svodi riječ <b>word</b> na isti način kao i
+	 * {@link LevenshteinAutomaton}
+	 *
+	 * @param word
+	 *            riječ koja se svodi
+	 * @return svedena riječ
+	 */
+	private static String fold(String word) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < word.length(); i++) {
+			if (i == 0 || !(word.charAt(i - 1) == 'd' && word.charAt(i) == 'j')) {
+				sb.append(LevenshteinAutomaton.fold(word.charAt(i)));
+			}
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Pomoćna statička metoda koja računa Levenshteinovu udaljenost dviju
+	 * riječi
+	 *
+	 * @param first
+	 *            prva riječ
+	 * @param second
+	 *            druga riječ
+	 * @return udaljenost riječi
+	 */
+	private static int distance(String first, String second) {
+		int[] previous = new int[second.length() + 1];
+		int[] current = new int[second.length() + 1];
+		for (int j = 0; j <= second.length(); j++) {
+			previous[j] = j;
+		}
+
+		for (int i = 1; i <= first.length(); i++) {
+			current[0] = i;
+			for (int j = 1; j <= second.length(); j++) {
+				int substitution = previous[j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		return previous[second.length()];
+	}
+
+	/**
+	 * Pomoćna statička metoda koja stvara <b>count</b> slučajnih pojmova
+	 *
+	 * @param random
+	 *            izvor slučajnih brojeva
+	 * @param count
+	 *            broj pojmova
+	 * @return slučajni pojmovi, moguće s ponavljanjima
+	 */
+	private static List<String> randomTerms(Random random, int count) {
+		List<String> terms = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			terms.add(randomTerm(random));
+		}
+
+		return terms;
+	}
+
+	/**
+	 * Pomoćna statička metoda koja stvara slučajan pojam duljine od 1 do 7
+	 * znakova
+	 *
+	 * @param random
+	 *            izvor slučajnih brojeva
+	 * @return slučajan pojam
+	 */
+	private static String randomTerm(Random random) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0, len = 1 + random.nextInt(7); i < len; i++) {
+			sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+
+		return sb.toString();
+	}
+}